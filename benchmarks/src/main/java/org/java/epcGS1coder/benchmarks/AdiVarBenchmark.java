@@ -0,0 +1,47 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.adi.AdiVar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class AdiVarBenchmark extends EpcBenchmark {
+
+    private final AdiVar[] tags = new AdiVar[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            String cage = Fixtures.numeric(random, 1) + "ABC" + Fixtures.numeric(random, 1);
+            tags[i] = AdiVar.fromFields(random.nextInt(8), cage, Fixtures.tableG1(random, random.nextInt(33)), Fixtures.tableG1(random, 30));
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public AdiVar fromEpc(){
+        return AdiVar.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public AdiVar fromUri(){
+        return AdiVar.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        AdiVar tag = tags[next()];
+        return AdiVar.fromFields(tag.getFilter(), tag.getCage(), tag.getPartNumber(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        AdiVar tag = tags[next()];
+        return AdiVar.fromFields(tag.getFilter(), tag.getCage(), tag.getPartNumber(), tag.getSerial()).getUri();
+    }
+}
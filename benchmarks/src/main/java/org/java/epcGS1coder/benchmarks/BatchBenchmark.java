@@ -0,0 +1,88 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sgtin.Sgtin96Batch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding a snapshot of SGTIN-96 into columns: one fromEpc per tag against {@link Sgtin96Batch}.
+ * Scores are per tag.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+    final static int batchSize = 10000;
+
+    private final String[] epcs = new String[batchSize];
+    private final byte[] packed = new byte[12 * batchSize];
+    private final long[] companyPrefix = new long[batchSize];
+    private final int[] itemReference = new int[batchSize];
+    private final long[] serial = new long[batchSize];
+    private final long[] gtins = new long[batchSize];
+    private final Sgtin96Batch batch = new Sgtin96Batch(batchSize);
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < batchSize; i++){
+            int digits = Fixtures.companyPrefixDigits(random);
+            Sgtin96 tag = Sgtin96.fromFields(random.nextInt(8), digits, Fixtures.digits(random, digits), (int) Fixtures.digits(random, 13 - digits), Fixtures.bits(random, 38));
+            epcs[i] = tag.getEpc();
+            System.arraycopy(tag.toBytes(), 0, packed, 12 * i, 12);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(batchSize)
+    public long[] fromEpcLoop(){
+        for (int i = 0; i < batchSize; i++){
+            Sgtin96 tag = Sgtin96.fromEpc(epcs[i]);
+            companyPrefix[i] = tag.getCompanyPrefix();
+            itemReference[i] = tag.getItemReference();
+            serial[i] = tag.getSerial();
+        }
+        return serial;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(batchSize)
+    public int batchFromEpc(){
+        return batch.decode(epcs, 0, batchSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(batchSize)
+    public int batchFromBytes(){
+        return batch.decode(packed, 0, batchSize);
+    }
+
+    /**
+     * Binary to GTIN-14 and serial columns
+     */
+    @Benchmark
+    @OperationsPerInvocation(batchSize)
+    public long[] batchGtins(){
+        batch.decode(packed, 0, batchSize);
+        batch.getGtins(gtins, 0);
+        return gtins;
+    }
+}
@@ -0,0 +1,24 @@
+package org.java.epcGS1coder.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Same as the JMH launcher, but always with the GC profiler so every run reports gc.alloc.rate.norm
+ * (bytes allocated per operation) next to ops/s. Accepts the usual JMH arguments, e.g. "Sgtin96" or "-f 3".
+ */
+
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner(){}
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+            .run();
+    }
+}
@@ -0,0 +1,61 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.cpi.Cpi96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Cpi96Benchmark extends EpcBenchmark {
+
+    private final Cpi96[] tags = new Cpi96[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            long componentPartReference = Fixtures.digits(random, Math.min(9, 15 - digits));
+            tags[i] = Cpi96.fromFields(random.nextInt(8), digits, companyPrefix, (int) componentPartReference, Fixtures.bits(random, 31));
+            gs1Keys[i] = Fixtures.pad(companyPrefix, digits) + componentPartReference;
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Cpi96 fromEpc(){
+        return Cpi96.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Cpi96 fromUri(){
+        return Cpi96.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Cpi96 tag = tags[i];
+        return Cpi96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getComponentPartReference(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Cpi96 tag = tags[i];
+        return Cpi96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getComponentPartReference(), tag.getSerial()).getUri();
+    }
+
+    @Benchmark
+    public Cpi96 fromGs1Key(){
+        int i = next();
+        Cpi96 tag = tags[i];
+        return Cpi96.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i], tag.getSerial());
+    }
+}
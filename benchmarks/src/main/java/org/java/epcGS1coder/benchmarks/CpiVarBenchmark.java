@@ -0,0 +1,61 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.cpi.CpiVar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class CpiVarBenchmark extends EpcBenchmark {
+
+    private final CpiVar[] tags = new CpiVar[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            String componentPartReference = Fixtures.tableG1(random, 1 + random.nextInt(30 - digits));
+            tags[i] = CpiVar.fromFields(random.nextInt(8), digits, companyPrefix, componentPartReference, Fixtures.digits(random, 12));
+            gs1Keys[i] = Fixtures.pad(companyPrefix, digits) + componentPartReference;
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public CpiVar fromEpc(){
+        return CpiVar.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public CpiVar fromUri(){
+        return CpiVar.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        CpiVar tag = tags[i];
+        return CpiVar.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getComponentPartReference(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        CpiVar tag = tags[i];
+        return CpiVar.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getComponentPartReference(), tag.getSerial()).getUri();
+    }
+
+    @Benchmark
+    public CpiVar fromGs1Key(){
+        int i = next();
+        CpiVar tag = tags[i];
+        return CpiVar.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i], tag.getSerial());
+    }
+}
@@ -0,0 +1,78 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.java.epcGS1coder.EpcDedupSet;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Suppressing a read storm: a million reads of 500k distinct SGTIN-96, every tag read about twice, checked
+ * against a HashSet of hex EPCs and against {@link EpcDedupSet} straight from the tag bytes. Scores are per read.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DedupBenchmark {
+
+    final static int reads = 1 << 20;
+    final static int tags = 500000;
+
+    private final String[] epcs = new String[reads];
+    private final byte[] packed = new byte[12 * reads];
+    private final EpcDedupSet dedup = new EpcDedupSet(tags, Long.MAX_VALUE);
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        Sgtin96[] population = new Sgtin96[tags];
+        for (int i = 0; i < tags; i++){
+            int digits = Fixtures.companyPrefixDigits(random);
+            population[i] = Sgtin96.fromFields(random.nextInt(8), digits, Fixtures.digits(random, digits), (int) Fixtures.digits(random, 13 - digits), Fixtures.bits(random, 38));
+        }
+        for (int i = 0; i < reads; i++){
+            Sgtin96 tag = population[random.nextInt(tags)];
+            epcs[i] = new String(tag.getEpc());
+            System.arraycopy(tag.toBytes(), 0, packed, 12 * i, 12);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(reads)
+    public int hashSetOfHex(){
+        Set<String> seen = new HashSet<String>();
+        int reported = 0;
+        for (int i = 0; i < reads; i++)
+            if (seen.add(epcs[i]))
+                reported++;
+        return reported;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(reads)
+    public int dedupSet(){
+        dedup.clear();
+        int reported = 0;
+        for (int i = 0; i < reads; i++)
+            if (!dedup.seen(packed, 12 * i, 0))
+                reported++;
+        return reported;
+    }
+}
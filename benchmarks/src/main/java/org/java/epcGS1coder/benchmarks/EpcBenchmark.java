@@ -0,0 +1,32 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Common settings of the scheme benchmarks. Every benchmark walks a population of
+ * {@link Fixtures#populationSize} tags so the numbers aren't those of a single, always cached, tag.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class EpcBenchmark {
+
+    private int cursor;
+
+    protected final int next(){
+        return cursor = (cursor + 1) & (Fixtures.populationSize - 1);
+    }
+}
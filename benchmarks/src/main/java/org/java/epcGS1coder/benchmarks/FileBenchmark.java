@@ -0,0 +1,83 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.io.EpcFileReader;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decoding a newline delimited hex EPC file of a million SGTIN-96 / SSCC-96 reads, the file stays in the page
+ * cache so this is the decoding cost. Scores are per line.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileBenchmark {
+
+    final static int lines = 1 << 20;
+
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("epcs", ".txt");
+        Random random = new Random(Fixtures.seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)){
+            for (int i = 0; i < lines; i++){
+                int digits = Fixtures.companyPrefixDigits(random);
+                Epc tag = i % 3 == 0
+                        ? Sscc96.fromFields(random.nextInt(8), digits, Fixtures.digits(random, digits), Fixtures.digits(random, 17 - digits))
+                        : Sgtin96.fromFields(random.nextInt(8), digits, Fixtures.digits(random, digits), (int) Fixtures.digits(random, 13 - digits), Fixtures.bits(random, 38));
+                writer.write(tag.getEpc());
+                writer.newLine();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(lines)
+    public void bufferedReader(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)){
+            String line;
+            while ((line = reader.readLine()) != null)
+                blackhole.consume(line.startsWith("30") ? Sgtin96.fromEpc(line) : Sscc96.fromEpc(line));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(lines)
+    public long epcFileReader(Blackhole blackhole) throws IOException {
+        return EpcFileReader.read(file, blackhole::consume);
+    }
+}
@@ -0,0 +1,82 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Builds the tag populations: all the partitions are used (company prefixes from 6 to 12 digits),
+ * unless stated otherwise, and the fields are spread over their whole range.
+ */
+
+final class Fixtures {
+
+    final static int populationSize = 1024; // must be a power of two
+    final static long seed = 20211;
+
+    private final static String alphanumeric = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private final static String tableG1 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ-/";
+
+    private Fixtures(){}
+
+    static int companyPrefixDigits(Random random){
+        return 6 + random.nextInt(7);
+    }
+
+    /**
+     * @return a value of at most the given number of decimal digits
+     */
+    static long digits(Random random, int digits){
+        long bound = 1;
+        for (int i = 0; i < digits; i++)
+            bound *= 10;
+        return (random.nextLong() >>> 1) % bound;
+    }
+
+    /**
+     * @return a value of at most the given number of bits
+     */
+    static long bits(Random random, int bits){
+        return random.nextLong() >>> (64 - bits);
+    }
+
+    static String pad(long value, int digits){
+        if (digits == 0)
+            return "";
+        StringBuilder sb = new StringBuilder(digits);
+        String s = Long.toString(value);
+        for (int i = s.length(); i < digits; i++)
+            sb.append('0');
+        return sb.append(s).toString();
+    }
+
+    static String numeric(Random random, int length){
+        return random(random, "0123456789", length);
+    }
+
+    static String alphanumeric(Random random, int length){
+        return random(random, alphanumeric, length);
+    }
+
+    /**
+     * @return characters of Table G-1 without '#', as used by ADI part numbers and CPI references
+     */
+    static String tableG1(Random random, int length){
+        return random(random, tableG1, length);
+    }
+
+    private static String random(Random random, String chars, int length){
+        char[] s = new char[length];
+        for (int i = 0; i < length; i++)
+            s[i] = chars.charAt(random.nextInt(chars.length()));
+        return new String(s);
+    }
+
+    /**
+     * GS1 check digit of the given digits (General Specifications 7.9.1)
+     */
+    static char checkDigit(String digits){
+        int sum = 0;
+        for (int i = digits.length() - 1, weight = 3; i >= 0; i--, weight = 4 - weight)
+            sum += (digits.charAt(i) - '0') * weight;
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+}
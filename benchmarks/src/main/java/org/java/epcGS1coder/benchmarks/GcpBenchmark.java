@@ -0,0 +1,66 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.java.epcGS1coder.gcp.GcpPrefixFormatList;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Company prefix length of GTINs out of a 100k entries prefix list, as large as the GS1 one: longest match
+ * tried substring by substring in a HashMap against {@link GcpPrefixFormatList}, then fromGs1Key through it.
+ */
+
+public class GcpBenchmark extends EpcBenchmark {
+
+    final static int prefixes = 100000;
+
+    private final Map<String, Integer> map = new HashMap<String, Integer>();
+    private final String[] gtins = new String[Fixtures.populationSize];
+    private final long[] serials = new long[Fixtures.populationSize];
+    private GcpPrefixFormatList index;
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        String[] entries = new String[prefixes];
+        for (int i = 0; i < prefixes; i++){
+            int digits = Fixtures.companyPrefixDigits(random);
+            String prefix = Fixtures.numeric(random, 3 + random.nextInt(digits - 2));
+            map.put(prefix, digits);
+            entries[i] = prefix;
+        }
+        index = GcpPrefixFormatList.fromMap(map);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            String prefix = entries[random.nextInt(prefixes)];
+            String gtin = Fixtures.numeric(random, 1) + prefix + Fixtures.numeric(random, 12 - prefix.length());
+            gtins[i] = gtin + Fixtures.checkDigit(gtin);
+            serials[i] = Fixtures.bits(random, 38);
+        }
+    }
+
+    @Benchmark
+    public int hashMapLongestMatch(){
+        String gtin = gtins[next()];
+        for (int digits = 12; digits > 0; digits--){
+            Integer length = map.get(gtin.substring(1, 1 + digits));
+            if (length != null)
+                return length;
+        }
+        throw new IllegalStateException();
+    }
+
+    @Benchmark
+    public int index(){
+        return index.getCompanyPrefixDigits(gtins[next()], 1);
+    }
+
+    @Benchmark
+    public Sgtin96 fromGs1KeyIndex(){
+        int i = next();
+        return Sgtin96.fromGs1Key(1, index, gtins[i], serials[i]);
+    }
+}
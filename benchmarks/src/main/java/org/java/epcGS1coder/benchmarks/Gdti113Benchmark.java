@@ -0,0 +1,62 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.gdti.Gdti113;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Gdti113Benchmark extends EpcBenchmark {
+
+    private final Gdti113[] tags = new Gdti113[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            long documentType = Fixtures.digits(random, 12 - digits);
+            tags[i] = Gdti113.fromFields(random.nextInt(8), digits, companyPrefix, (int) documentType, Fixtures.numeric(random, 1 + random.nextInt(17)));
+            String gdti = Fixtures.pad(companyPrefix, digits) + Fixtures.pad(documentType, 12 - digits);
+            gs1Keys[i] = gdti + Fixtures.checkDigit(gdti) + tags[i].getSerial();
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Gdti113 fromEpc(){
+        return Gdti113.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Gdti113 fromUri(){
+        return Gdti113.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Gdti113 tag = tags[i];
+        return Gdti113.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getDocumentType(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Gdti113 tag = tags[i];
+        return Gdti113.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getDocumentType(), tag.getSerial()).getUri();
+    }
+
+    @Benchmark
+    public Gdti113 fromGs1Key(){
+        int i = next();
+        Gdti113 tag = tags[i];
+        return Gdti113.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i]);
+    }
+}
@@ -0,0 +1,61 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.giai.Giai202;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Giai202Benchmark extends EpcBenchmark {
+
+    private final Giai202[] tags = new Giai202[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            String individualAssetReference = Fixtures.alphanumeric(random, Math.min(24, 30 - digits));
+            tags[i] = Giai202.fromFields(random.nextInt(8), digits, companyPrefix, individualAssetReference);
+            gs1Keys[i] = Fixtures.pad(companyPrefix, digits) + individualAssetReference;
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Giai202 fromEpc(){
+        return Giai202.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Giai202 fromUri(){
+        return Giai202.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Giai202 tag = tags[i];
+        return Giai202.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getIndividualAssetReference()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Giai202 tag = tags[i];
+        return Giai202.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getIndividualAssetReference()).getUri();
+    }
+
+    @Benchmark
+    public Giai202 fromGs1Key(){
+        int i = next();
+        Giai202 tag = tags[i];
+        return Giai202.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i]);
+    }
+}
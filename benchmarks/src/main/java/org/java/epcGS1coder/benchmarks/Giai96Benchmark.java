@@ -0,0 +1,61 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.giai.Giai96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Giai96Benchmark extends EpcBenchmark {
+
+    private final Giai96[] tags = new Giai96[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            long individualAssetReference = Fixtures.digits(random, 9);
+            tags[i] = Giai96.fromFields(random.nextInt(8), digits, companyPrefix, individualAssetReference);
+            gs1Keys[i] = Fixtures.pad(companyPrefix, digits) + individualAssetReference;
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Giai96 fromEpc(){
+        return Giai96.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Giai96 fromUri(){
+        return Giai96.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Giai96 tag = tags[i];
+        return Giai96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getIndividualAssetReference()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Giai96 tag = tags[i];
+        return Giai96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getIndividualAssetReference()).getUri();
+    }
+
+    @Benchmark
+    public Giai96 fromGs1Key(){
+        int i = next();
+        Giai96 tag = tags[i];
+        return Giai96.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i]);
+    }
+}
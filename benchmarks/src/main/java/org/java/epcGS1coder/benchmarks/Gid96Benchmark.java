@@ -0,0 +1,46 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.gid.Gid96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Gid96Benchmark extends EpcBenchmark {
+
+    private final Gid96[] tags = new Gid96[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            tags[i] = Gid96.fromFields((int) Fixtures.bits(random, 28), (int) Fixtures.bits(random, 24), Fixtures.bits(random, 36));
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Gid96 fromEpc(){
+        return Gid96.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Gid96 fromUri(){
+        return Gid96.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        Gid96 tag = tags[next()];
+        return Gid96.fromFields(tag.getGeneralManagerNumber(), tag.getObjectClass(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        Gid96 tag = tags[next()];
+        return Gid96.fromFields(tag.getGeneralManagerNumber(), tag.getObjectClass(), tag.getSerial()).getUri();
+    }
+}
@@ -0,0 +1,62 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.grai.Grai170;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Grai170Benchmark extends EpcBenchmark {
+
+    private final Grai170[] tags = new Grai170[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            long assetType = Fixtures.digits(random, 12 - digits);
+            tags[i] = Grai170.fromFields(random.nextInt(8), digits, companyPrefix, (int) assetType, Fixtures.alphanumeric(random, 1 + random.nextInt(16)));
+            String grai = Fixtures.pad(companyPrefix, digits) + Fixtures.pad(assetType, 12 - digits);
+            gs1Keys[i] = grai + Fixtures.checkDigit(grai) + tags[i].getSerial();
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Grai170 fromEpc(){
+        return Grai170.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Grai170 fromUri(){
+        return Grai170.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Grai170 tag = tags[i];
+        return Grai170.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getAssetType(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Grai170 tag = tags[i];
+        return Grai170.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getAssetType(), tag.getSerial()).getUri();
+    }
+
+    @Benchmark
+    public Grai170 fromGs1Key(){
+        int i = next();
+        Grai170 tag = tags[i];
+        return Grai170.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i]);
+    }
+}
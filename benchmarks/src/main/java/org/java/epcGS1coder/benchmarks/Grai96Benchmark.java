@@ -0,0 +1,62 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.grai.Grai96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Grai96Benchmark extends EpcBenchmark {
+
+    private final Grai96[] tags = new Grai96[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            long assetType = Fixtures.digits(random, 12 - digits);
+            tags[i] = Grai96.fromFields(random.nextInt(8), digits, companyPrefix, (int) assetType, Fixtures.bits(random, 38));
+            String grai = Fixtures.pad(companyPrefix, digits) + Fixtures.pad(assetType, 12 - digits);
+            gs1Keys[i] = grai + Fixtures.checkDigit(grai) + random.nextInt(10); // fromGs1Key takes the 14 digits form
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Grai96 fromEpc(){
+        return Grai96.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Grai96 fromUri(){
+        return Grai96.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Grai96 tag = tags[i];
+        return Grai96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getAssetType(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Grai96 tag = tags[i];
+        return Grai96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getAssetType(), tag.getSerial()).getUri();
+    }
+
+    @Benchmark
+    public Grai96 fromGs1Key(){
+        int i = next();
+        Grai96 tag = tags[i];
+        return Grai96.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i]);
+    }
+}
@@ -0,0 +1,62 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.gsrn.Gsrnp96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Gsrnp96Benchmark extends EpcBenchmark {
+
+    private final Gsrnp96[] tags = new Gsrnp96[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            long serviceReference = Fixtures.digits(random, 17 - digits);
+            tags[i] = Gsrnp96.fromFields(random.nextInt(8), digits, companyPrefix, serviceReference);
+            String gsrn = Fixtures.pad(companyPrefix, digits) + Fixtures.pad(serviceReference, 17 - digits);
+            gs1Keys[i] = gsrn + Fixtures.checkDigit(gsrn);
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Gsrnp96 fromEpc(){
+        return Gsrnp96.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Gsrnp96 fromUri(){
+        return Gsrnp96.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Gsrnp96 tag = tags[i];
+        return Gsrnp96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getServiceReference()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Gsrnp96 tag = tags[i];
+        return Gsrnp96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getServiceReference()).getUri();
+    }
+
+    @Benchmark
+    public Gsrnp96 fromGs1Key(){
+        int i = next();
+        Gsrnp96 tag = tags[i];
+        return Gsrnp96.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i]);
+    }
+}
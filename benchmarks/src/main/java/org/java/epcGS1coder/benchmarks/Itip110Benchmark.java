@@ -0,0 +1,64 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.itip.Itip110;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Itip110Benchmark extends EpcBenchmark {
+
+    private final Itip110[] tags = new Itip110[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            String itemReference = Fixtures.pad(Fixtures.digits(random, 13 - digits), 13 - digits); // indicator digit included
+            byte total = (byte) (1 + random.nextInt(9));
+            byte piece = (byte) (1 + random.nextInt(total));
+            tags[i] = Itip110.fromFields(random.nextInt(8), digits, companyPrefix, Integer.parseInt(itemReference), piece, total, Fixtures.bits(random, 38));
+            String gtin = itemReference.charAt(0) + Fixtures.pad(companyPrefix, digits) + itemReference.substring(1);
+            gs1Keys[i] = gtin + Fixtures.checkDigit(gtin) + Fixtures.pad(piece, 2) + Fixtures.pad(total, 2);
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Itip110 fromEpc(){
+        return Itip110.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Itip110 fromUri(){
+        return Itip110.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Itip110 tag = tags[i];
+        return Itip110.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getIndicatorPadDigitItemReference(), tag.getPiece(), tag.getTotal(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Itip110 tag = tags[i];
+        return Itip110.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getIndicatorPadDigitItemReference(), tag.getPiece(), tag.getTotal(), tag.getSerial()).getUri();
+    }
+
+    @Benchmark
+    public Itip110 fromGs1Key(){
+        int i = next();
+        Itip110 tag = tags[i];
+        return Itip110.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i], tag.getSerial());
+    }
+}
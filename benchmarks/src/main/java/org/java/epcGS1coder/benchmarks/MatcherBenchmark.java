@@ -0,0 +1,87 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.java.epcGS1coder.EpcMatcher;
+import org.java.epcGS1coder.SelectMask;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Routing SGTIN-96 reads by 4000 rules, 3000 company prefixes and 1000 GTIN classes, half of the tags matching
+ * one: String.startsWith of every rule over the Pure Identity URI against {@link EpcMatcher} on the binary words,
+ * tag by tag and over the whole population at once (scores per tag).
+ */
+
+public class MatcherBenchmark extends EpcBenchmark {
+
+    final static int companyPrefixRules = 3000;
+    final static int classRules = 1000;
+
+    private final String[] patterns = new String[companyPrefixRules + classRules];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final long[] hi = new long[Fixtures.populationSize];
+    private final long[] lo = new long[Fixtures.populationSize];
+    private final int[] first = new int[Fixtures.populationSize];
+    private EpcMatcher matcher;
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        List<List<SelectMask>> rules = new ArrayList<List<SelectMask>>();
+        Sgtin96[] classes = new Sgtin96[patterns.length];
+        int[] classDigits = new int[patterns.length];
+        for (int i = 0; i < patterns.length; i++){
+            int digits = classDigits[i] = Fixtures.companyPrefixDigits(random);
+            Sgtin96 tag = classes[i] = Sgtin96.fromFields(0, digits, Fixtures.digits(random, digits), (int) Fixtures.digits(random, 13 - digits), 0);
+            String uri = tag.getPureIdentityUri();
+            if (i < companyPrefixRules){
+                rules.add(SelectMask.fromFields(Sgtin96.epcHeader, SelectMask.any, digits, tag.getCompanyPrefix(), SelectMask.any));
+                patterns[i] = uri.substring(0, uri.indexOf('.') + 1);
+            } else {
+                rules.add(SelectMask.fromFields(Sgtin96.epcHeader, SelectMask.any, digits, tag.getCompanyPrefix(), tag.getItemReference()));
+                patterns[i] = uri.substring(0, uri.lastIndexOf('.') + 1);
+            }
+        }
+        matcher = EpcMatcher.compile(rules);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            Sgtin96 tag;
+            if (random.nextBoolean()){
+                int known = random.nextInt(classes.length);
+                tag = Sgtin96.fromFields(random.nextInt(8), classDigits[known], classes[known].getCompanyPrefix(), classes[known].getItemReference(), Fixtures.bits(random, 38));
+            } else {
+                int digits = Fixtures.companyPrefixDigits(random);
+                tag = Sgtin96.fromFields(random.nextInt(8), digits, Fixtures.digits(random, digits), (int) Fixtures.digits(random, 13 - digits), Fixtures.bits(random, 38));
+            }
+            uris[i] = tag.getPureIdentityUri();
+            hi[i] = tag.getHiBits();
+            lo[i] = tag.getLoBits();
+        }
+    }
+
+    @Benchmark
+    public int startsWithUri(){
+        String uri = uris[next()];
+        for (int rule = 0; rule < patterns.length; rule++)
+            if (uri.startsWith(patterns[rule]))
+                return rule;
+        return -1;
+    }
+
+    @Benchmark
+    public int matcher(){
+        int i = next();
+        return matcher.matchFirst(hi[i], lo[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.populationSize)
+    public int[] matcherBatch(){
+        matcher.matchFirst(hi, lo, 0, Fixtures.populationSize, first);
+        return first;
+    }
+}
@@ -0,0 +1,90 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.ParallelCodec;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sgtin.Sgtin96Batch;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scaling of {@link ParallelCodec} with the pool size over a million SGTIN-96 / SSCC-96 tags
+ * (two SGTIN for each SSCC). Scores are per tag, threads = 1 is the baseline to compare against.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ParallelBenchmark {
+
+    final static int tags = 1 << 20;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private final List<String> epcList = new ArrayList<String>(tags);
+    private final String[] epcs = new String[tags];
+    private final List<Epc> decoded = new ArrayList<Epc>(tags);
+    private final Sgtin96Batch batch = new Sgtin96Batch(tags);
+
+    @Setup
+    public void setup(){
+        pool = new ForkJoinPool(threads);
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < tags; i++){
+            int digits = Fixtures.companyPrefixDigits(random);
+            Epc tag = i % 3 == 0
+                    ? Sscc96.fromFields(random.nextInt(8), digits, Fixtures.digits(random, digits), Fixtures.digits(random, 17 - digits))
+                    : Sgtin96.fromFields(random.nextInt(8), digits, Fixtures.digits(random, digits), (int) Fixtures.digits(random, 13 - digits), Fixtures.bits(random, 38));
+            epcs[i] = tag.getEpc();
+            decoded.add(tag);
+        }
+        epcList.addAll(Arrays.asList(epcs));
+    }
+
+    @TearDown
+    public void tearDown(){
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(tags)
+    public Epc[] decode(){
+        return ParallelCodec.decode(epcList, pool);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(tags)
+    public int decodeBatch(){
+        return ParallelCodec.decode(epcs, 0, tags, batch, pool);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(tags)
+    public byte[] encodePacked(){
+        return ParallelCodec.encodePacked(decoded, pool);
+    }
+}
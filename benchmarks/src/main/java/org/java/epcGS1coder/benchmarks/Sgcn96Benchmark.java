@@ -0,0 +1,62 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.sgcn.Sgcn96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Sgcn96Benchmark extends EpcBenchmark {
+
+    private final Sgcn96[] tags = new Sgcn96[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            long couponReference = Fixtures.digits(random, 12 - digits);
+            tags[i] = Sgcn96.fromFields(random.nextInt(8), digits, companyPrefix, (int) couponReference, Fixtures.numeric(random, 1 + random.nextInt(12)));
+            String gcn = Fixtures.pad(companyPrefix, digits) + Fixtures.pad(couponReference, 12 - digits);
+            gs1Keys[i] = gcn + Fixtures.checkDigit(gcn) + tags[i].getSerial();
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Sgcn96 fromEpc(){
+        return Sgcn96.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Sgcn96 fromUri(){
+        return Sgcn96.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Sgcn96 tag = tags[i];
+        return Sgcn96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getCouponReference(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Sgcn96 tag = tags[i];
+        return Sgcn96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getCouponReference(), tag.getSerial()).getUri();
+    }
+
+    @Benchmark
+    public Sgcn96 fromGs1Key(){
+        int i = next();
+        Sgcn96 tag = tags[i];
+        return Sgcn96.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i]);
+    }
+}
@@ -0,0 +1,62 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.sgln.Sgln195;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Sgln195Benchmark extends EpcBenchmark {
+
+    private final Sgln195[] tags = new Sgln195[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            long locationReference = Fixtures.digits(random, 12 - digits);
+            tags[i] = Sgln195.fromFields(random.nextInt(8), digits, companyPrefix, (int) locationReference, Fixtures.alphanumeric(random, 1 + random.nextInt(20)));
+            String gln = Fixtures.pad(companyPrefix, digits) + Fixtures.pad(locationReference, 12 - digits);
+            gs1Keys[i] = gln + Fixtures.checkDigit(gln);
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Sgln195 fromEpc(){
+        return Sgln195.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Sgln195 fromUri(){
+        return Sgln195.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Sgln195 tag = tags[i];
+        return Sgln195.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getLocationReference(), tag.getExtension()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Sgln195 tag = tags[i];
+        return Sgln195.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getLocationReference(), tag.getExtension()).getUri();
+    }
+
+    @Benchmark
+    public Sgln195 fromGs1Key(){
+        int i = next();
+        Sgln195 tag = tags[i];
+        return Sgln195.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i], tag.getExtension());
+    }
+}
@@ -0,0 +1,62 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.sgtin.Sgtin198;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Sgtin198Benchmark extends EpcBenchmark {
+
+    private final Sgtin198[] tags = new Sgtin198[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            String itemReference = Fixtures.pad(Fixtures.digits(random, 13 - digits), 13 - digits); // indicator digit included
+            tags[i] = Sgtin198.fromFields(random.nextInt(8), digits, companyPrefix, Integer.parseInt(itemReference), Fixtures.alphanumeric(random, 20));
+            String gtin = itemReference.charAt(0) + Fixtures.pad(companyPrefix, digits) + itemReference.substring(1);
+            gs1Keys[i] = gtin + Fixtures.checkDigit(gtin);
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Sgtin198 fromEpc(){
+        return Sgtin198.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Sgtin198 fromUri(){
+        return Sgtin198.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Sgtin198 tag = tags[i];
+        return Sgtin198.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getItemReference(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Sgtin198 tag = tags[i];
+        return Sgtin198.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getItemReference(), tag.getSerial()).getUri();
+    }
+
+    @Benchmark
+    public Sgtin198 fromGs1Key(){
+        int i = next();
+        Sgtin198 tag = tags[i];
+        return Sgtin198.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i], tag.getSerial());
+    }
+}
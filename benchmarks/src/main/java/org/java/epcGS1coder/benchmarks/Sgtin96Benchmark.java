@@ -0,0 +1,111 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.EpcFields;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sgtin.Sgtin96View;
+import org.java.epcGS1coder.util.Bits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Sgtin96Benchmark extends EpcBenchmark {
+
+    private final Sgtin96[] tags = new Sgtin96[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+    private final byte[] bytes = new byte[12 * Fixtures.populationSize];
+    private final Sgtin96View view = new Sgtin96View();
+    private final StringBuilder sb = new StringBuilder(64);
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            String itemReference = Fixtures.pad(Fixtures.digits(random, 13 - digits), 13 - digits); // indicator digit included
+            tags[i] = Sgtin96.fromFields(random.nextInt(8), digits, companyPrefix, Integer.parseInt(itemReference), Fixtures.bits(random, 38));
+            String gtin = itemReference.charAt(0) + Fixtures.pad(companyPrefix, digits) + itemReference.substring(1);
+            gs1Keys[i] = gtin + Fixtures.checkDigit(gtin);
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+            System.arraycopy(tags[i].toBytes(), 0, bytes, 12 * i, 12);
+        }
+    }
+
+    @Benchmark
+    public Sgtin96 fromEpc(){
+        return Sgtin96.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Sgtin96 fromBytes(){
+        return Sgtin96.fromBytes(bytes, 12 * next(), 12);
+    }
+
+    /**
+     * Streaming read of the fields through a reused view, no allocation per tag
+     */
+    @Benchmark
+    public long viewFromBytes(){
+        view.wrap(bytes, 12 * next());
+        return view.getCompanyPrefix() + view.getItemReference() + view.getSerial();
+    }
+
+    /**
+     * Company prefix of the hex EPC read without decoding the tag, to compare with fromEpc
+     */
+    @Benchmark
+    public long companyPrefixFromEpc(){
+        return EpcFields.getCompanyPrefix(EpcFields.hi(epcs[next()]));
+    }
+
+    @Benchmark
+    public long classKeyFromBytes(){
+        int offset = 12 * next();
+        return EpcFields.getClassKey(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    @Benchmark
+    public Sgtin96 fromUri(){
+        return Sgtin96.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Sgtin96 tag = tags[i];
+        return Sgtin96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getItemReference(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Sgtin96 tag = tags[i];
+        return Sgtin96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getItemReference(), tag.getSerial()).getUri();
+    }
+
+    @Benchmark
+    public Sgtin96 fromGs1Key(){
+        int i = next();
+        Sgtin96 tag = tags[i];
+        return Sgtin96.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i], tag.getSerial());
+    }
+
+    /**
+     * (01)GTIN(21)serial straight from the binary fields into a reused StringBuilder
+     */
+    @Benchmark
+    public StringBuilder gs1ElementString(){
+        sb.setLength(0);
+        return tags[next()].appendGs1ElementString(sb);
+    }
+
+    @Benchmark
+    public long getGtin(){
+        return tags[next()].getGtin();
+    }
+}
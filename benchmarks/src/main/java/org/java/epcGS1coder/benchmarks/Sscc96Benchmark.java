@@ -0,0 +1,62 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Sscc96Benchmark extends EpcBenchmark {
+
+    private final Sscc96[] tags = new Sscc96[Fixtures.populationSize];
+    private final int[] companyPrefixDigits = new int[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final String[] gs1Keys = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = companyPrefixDigits[i] = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            String serialReference = Fixtures.pad(Fixtures.digits(random, 17 - digits), 17 - digits); // extension digit included
+            tags[i] = Sscc96.fromFields(random.nextInt(8), digits, companyPrefix, Long.parseLong(serialReference));
+            String sscc = serialReference.charAt(0) + Fixtures.pad(companyPrefix, digits) + serialReference.substring(1);
+            gs1Keys[i] = sscc + Fixtures.checkDigit(sscc);
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Sscc96 fromEpc(){
+        return Sscc96.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Sscc96 fromUri(){
+        return Sscc96.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        int i = next();
+        Sscc96 tag = tags[i];
+        return Sscc96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getSerialReference()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        int i = next();
+        Sscc96 tag = tags[i];
+        return Sscc96.fromFields(tag.getFilter(), companyPrefixDigits[i], tag.getCompanyPrefix(), tag.getSerialReference()).getUri();
+    }
+
+    @Benchmark
+    public Sscc96 fromGs1Key(){
+        int i = next();
+        Sscc96 tag = tags[i];
+        return Sscc96.fromGs1Key(tag.getFilter(), companyPrefixDigits[i], gs1Keys[i]);
+    }
+}
@@ -0,0 +1,104 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.java.epcGS1coder.DecodeResult;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.EpcDecoder;
+import org.java.epcGS1coder.UriWriter;
+import org.java.epcGS1coder.grai.Grai96;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.java.epcGS1coder.util.Bits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * URIs of freshly decoded SGTIN-96, SSCC-96 and GRAI-96 (as an EPCIS event generator sees them, nothing cached),
+ * company prefixes from 6 to 12 digits: {@link Epc#getUri()} against {@link UriWriter} into a byte[].
+ * decode alone is the baseline both include. parseUri goes the other way, from the URI Strings of the same tags
+ * through {@link EpcDecoder#tryParseUri(CharSequence, DecodeResult)}. pureIdentity writes the EPCIS identity
+ * (urn:epc:id:...) of the decoded tags, which never builds their tag URI.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriBenchmark {
+
+    private final long[] hi = new long[Fixtures.populationSize];
+    private final long[] lo = new long[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+    private final DecodeResult result = new DecodeResult();
+    private final UriWriter writer = new UriWriter();
+    private final byte[] output = new byte[128];
+    private int i;
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            int digits = Fixtures.companyPrefixDigits(random);
+            long companyPrefix = Fixtures.digits(random, digits);
+            Epc tag;
+            switch (i % 3){
+                case 0:
+                    tag = Sgtin96.fromFields(random.nextInt(8), digits, companyPrefix, (int) Fixtures.digits(random, 13 - digits), Fixtures.bits(random, 38));
+                    break;
+                case 1:
+                    tag = Sscc96.fromFields(random.nextInt(8), digits, companyPrefix, Fixtures.digits(random, 17 - digits));
+                    break;
+                default:
+                    tag = Grai96.fromFields(random.nextInt(8), digits, companyPrefix, (int) Fixtures.digits(random, 12 - digits), Fixtures.bits(random, 38));
+            }
+            byte[] bytes = tag.toBytes();
+            hi[i] = Bits.readHi(bytes, 0);
+            lo[i] = Bits.readLo(bytes, 0);
+            uris[i] = tag.getUri();
+        }
+    }
+
+    private Epc next(){
+        int i = this.i++ & (Fixtures.populationSize - 1);
+        EpcDecoder.tryDecode(hi[i], lo[i], result);
+        return result.getEpc();
+    }
+
+    @Benchmark
+    public Epc decode(){
+        return next();
+    }
+
+    @Benchmark
+    public String getUri(){
+        return next().getUri();
+    }
+
+    @Benchmark
+    public int uriWriter(){
+        return writer.write(next(), output, 0);
+    }
+
+    @Benchmark
+    public int pureIdentity(){
+        return writer.writePureIdentity(next(), output, 0);
+    }
+
+    @Benchmark
+    public Epc parseUri(){
+        EpcDecoder.tryParseUri(uris[i++ & (Fixtures.populationSize - 1)], result);
+        return result.getEpc();
+    }
+}
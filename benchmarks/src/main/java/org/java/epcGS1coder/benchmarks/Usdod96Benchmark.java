@@ -0,0 +1,48 @@
+package org.java.epcGS1coder.benchmarks;
+
+import java.util.Random;
+
+import org.java.epcGS1coder.usdod.Usdod96;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+public class Usdod96Benchmark extends EpcBenchmark {
+
+    private final Usdod96[] tags = new Usdod96[Fixtures.populationSize];
+    private final String[] epcs = new String[Fixtures.populationSize];
+    private final String[] uris = new String[Fixtures.populationSize];
+
+    @Setup
+    public void setup(){
+        Random random = new Random(Fixtures.seed);
+        for (int i = 0; i < Fixtures.populationSize; i++){
+            String governmentManagedIdentifier = random.nextBoolean() ? "W" + Fixtures.numeric(random, 5) // DoDAAC
+                                                                      : Fixtures.numeric(random, 1) + "ABC" + Fixtures.numeric(random, 1); // CAGE
+            tags[i] = Usdod96.fromFields(random.nextInt(3), governmentManagedIdentifier, Fixtures.bits(random, 36));
+            epcs[i] = tags[i].getEpc();
+            uris[i] = tags[i].getUri();
+        }
+    }
+
+    @Benchmark
+    public Usdod96 fromEpc(){
+        return Usdod96.fromEpc(epcs[next()]);
+    }
+
+    @Benchmark
+    public Usdod96 fromUri(){
+        return Usdod96.fromUri(uris[next()]);
+    }
+
+    @Benchmark
+    public String fromFieldsGetEpc(){
+        Usdod96 tag = tags[next()];
+        return Usdod96.fromFields(tag.getFilter(), tag.getGovernmentManagedIdentifier(), tag.getSerial()).getEpc();
+    }
+
+    @Benchmark
+    public String fromFieldsGetUri(){
+        Usdod96 tag = tags[next()];
+        return Usdod96.fromFields(tag.getFilter(), tag.getGovernmentManagedIdentifier(), tag.getSerial()).getUri();
+    }
+}
@@ -0,0 +1,38 @@
+package org.java.epcGS1coder;
+
+/**
+ * Reusable holder filled by the exception-free decoding methods, a single instance can be kept per
+ * thread and passed to every call.
+ */
+
+public final class DecodeResult {
+
+    private DecodeStatus status = DecodeStatus.ok;
+    private Epc epc;
+
+    DecodeStatus set(DecodeStatus status, Epc epc){
+        this.status = status;
+        this.epc = epc;
+        return status;
+    }
+
+    public DecodeStatus getStatus(){
+        return status;
+    }
+
+    public boolean isOk(){
+        return status == DecodeStatus.ok;
+    }
+
+    /**
+     * @return the decoded EPC, null unless the status is {@link DecodeStatus#ok}
+     */
+    public Epc getEpc(){
+        return epc;
+    }
+
+    @Override
+    public String toString(){
+        return isOk() ? epc.toString() : status.toString();
+    }
+}
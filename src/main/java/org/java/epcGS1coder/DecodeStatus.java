@@ -0,0 +1,25 @@
+package org.java.epcGS1coder;
+
+/**
+ * Outcome of the exception-free decoding methods ({@link EpcDecoder#tryDecode(CharSequence, DecodeResult)}...).
+ */
+
+public enum DecodeStatus {
+    ok,
+    /** the input isn't a hex string (or the URI isn't an EPC Tag URI) */
+    invalid_character,
+    /** the input length doesn't match the scheme its header points to, or there is no input */
+    invalid_length,
+    /** the header isn't one of Table 14-1 EPC Binary Header Values supported by the library */
+    unsupported_header,
+    /** the header doesn't match the scheme the input was decoded as */
+    invalid_header,
+    /** the partition value is 7, which no partition table defines */
+    invalid_partition,
+    /** a field value is not allowed by the scheme, e.g. a CAGE code with an 'I' */
+    invalid_field;
+
+    public boolean isOk(){
+        return this == ok;
+    }
+}
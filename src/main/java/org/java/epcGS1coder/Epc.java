@@ -0,0 +1,98 @@
+package org.java.epcGS1coder;
+
+import java.nio.ByteBuffer;
+
+import org.java.epcGS1coder.spec.EpcScheme;
+
+/**
+ * Common view of every EPC binary coding supported by the library (Sgtin96, Sscc96, AdiVar...).
+ * Implementations are equal when they have the same binary encoding, their equals and hashCode compare the
+ * encoded fields without building the hex or URI strings, so they can be used as keys to deduplicate reads.
+ */
+
+public interface Epc {
+
+    EpcScheme getScheme();
+
+    /**
+     * @return the number of bits of the binary encoding as per Table 14-1, without padding
+     */
+    int getBitLength();
+
+    /**
+     * @return the 8-bit EPC header (Table 14-1 EPC Binary Header Values)
+     */
+    byte getHeader();
+
+    /**
+     * @return the filter value, 0 for the schemes that don't define one (GID)
+     */
+    int getFilter();
+
+    /**
+     * @return the binary encoding as an hex string
+     */
+    String getEpc();
+
+    /**
+     * @return the EPC Tag URI
+     */
+    String getUri();
+
+    /**
+     * Appends {@link #getUri()} to the builder, without creating the URI String when it isn't already cached
+     * @return the builder
+     */
+    default StringBuilder appendUri(StringBuilder sb){
+        return sb.append(getUri());
+    }
+
+    /**
+     * @return the EPC Pure Identity URI (urn:epc:id:sgtin:...), the identity EPCIS events carry: the tag URI
+     * without the filter value nor the binary coding size
+     */
+    default String getPureIdentityUri(){
+        return appendPureIdentityUri(new StringBuilder(64)).toString();
+    }
+
+    /**
+     * Appends {@link #getPureIdentityUri()} to the builder straight from the fields, without building the tag URI
+     * @return the builder
+     */
+    StringBuilder appendPureIdentityUri(StringBuilder sb);
+
+    /**
+     * @return the GS1 element string of the EPC, its Application Identifiers and their values as in
+     * (01)80614141123458(21)6789, check digits included
+     * @throws UnsupportedOperationException for the schemes that don't encode a GS1 key (GID, USDOD, ADI)
+     */
+    default String toGs1ElementString(){
+        return appendGs1ElementString(new StringBuilder(64)).toString();
+    }
+
+    /**
+     * Appends {@link #toGs1ElementString()} to the builder
+     * @return the builder
+     */
+    default StringBuilder appendGs1ElementString(StringBuilder sb){
+        throw new UnsupportedOperationException(getScheme() + " doesn't encode a GS1 key");
+    }
+
+    /**
+     * @return the binary encoding, most significant byte first, padded with zeros to a whole byte
+     */
+    default byte[] toBytes(){
+        String epc = getEpc();
+        byte[] bytes = new byte[(epc.length()+1)/2];
+        for (int i = 0; i < epc.length(); i++)
+            bytes[i>>1] |= Character.digit(epc.charAt(i),16) << ((i & 1) == 0 ? 4 : 0);
+        return bytes;
+    }
+
+    /**
+     * Writes {@link #toBytes()} at the buffer position
+     */
+    default void writeTo(ByteBuffer buffer){
+        buffer.put(toBytes());
+    }
+}
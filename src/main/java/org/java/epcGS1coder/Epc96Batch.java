@@ -0,0 +1,132 @@
+package org.java.epcGS1coder;
+
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Hex;
+
+/**
+ * Decodes batches of 96-bit EPCs of one scheme into columns (Sgtin96Batch fills filter[], partition[],
+ * companyPrefix[]...), one primitive array per field instead of one object per tag.
+ * <p>
+ * The input is first copied into the {@link #getHiBits()}/{@link #getLoBits()} columns and then decoded by the
+ * scheme in a single loop over them. Row i of every column holds input i, the rows whose status isn't
+ * {@link DecodeStatus#ok} have their fields zeroed. A batch is reused between calls and isn't thread safe.
+ */
+
+public abstract class Epc96Batch {
+
+    protected final long[] hi;
+    protected final long[] lo;
+    protected final DecodeStatus[] status;
+    private int size;
+
+    protected Epc96Batch(int capacity){
+        hi = new long[capacity];
+        lo = new long[capacity];
+        status = new DecodeStatus[capacity];
+    }
+
+    final void resize(int length){
+        if (length > hi.length)
+            throw new IllegalArgumentException("Batch too large, capacity: " + hi.length);
+        size = length;
+    }
+
+    /**
+     * Decodes length hex encoded EPCs from epcs[offset], a null EPC being an {@link DecodeStatus#invalid_length} row
+     * @return the number of valid rows
+     */
+    public final int decode(CharSequence[] epcs, int offset, int length){
+        resize(length);
+        return decode(epcs, offset, 0, length);
+    }
+
+    /**
+     * Decodes the rows [from, to) of a batch already resized, used by {@link ParallelCodec} to fill disjoint ranges
+     */
+    final int decode(CharSequence[] epcs, int offset, int from, int to){
+        for (int i = from; i < to; i++){
+            CharSequence epc = epcs[offset + i];
+            if (epc == null || epc.length() != 24)
+                status[i] = DecodeStatus.invalid_length;
+            else if (!Hex.isHex(epc, 0, 24))
+                status[i] = DecodeStatus.invalid_character;
+            else {
+                hi[i] = Hex.parseLong(epc, 0, 16);
+                lo[i] = Hex.parseLong(epc, 16, 24);
+                status[i] = DecodeStatus.ok;
+                continue;
+            }
+            hi[i] = lo[i] = 0;
+        }
+        return decodeRows(from, to);
+    }
+
+    /**
+     * Decodes length EPCs given as hi/lo pairs from offset, see {@link Bits} for the layout
+     * @return the number of valid rows
+     */
+    public final int decode(long[] hi, long[] lo, int offset, int length){
+        resize(length);
+        System.arraycopy(hi, offset, this.hi, 0, length);
+        System.arraycopy(lo, offset, this.lo, 0, length);
+        for (int i = 0; i < length; i++)
+            status[i] = DecodeStatus.ok;
+        return decodeRows(0, length);
+    }
+
+    /**
+     * Decodes count EPCs packed back to back, 12 bytes each, from offset
+     * @return the number of valid rows
+     */
+    public final int decode(byte[] packed, int offset, int count){
+        resize(count);
+        return decode(packed, offset, 0, count);
+    }
+
+    /**
+     * Decodes the rows [from, to) of a batch already resized, used by {@link ParallelCodec} to fill disjoint ranges
+     */
+    final int decode(byte[] packed, int offset, int from, int to){
+        if (offset + 12 * to > packed.length)
+            throw new IllegalArgumentException("Packed EPCs too short, " + to + " EPCs need " + 12 * to + " bytes");
+        for (int i = from, o = offset + 12 * from; i < to; i++, o += 12){
+            hi[i] = Bits.readHi(packed, o);
+            lo[i] = Bits.readLo(packed, o);
+            status[i] = DecodeStatus.ok;
+        }
+        return decodeRows(from, to);
+    }
+
+    /**
+     * Decodes the rows [from, to) whose status is {@link DecodeStatus#ok} so far, zeroing the fields of the others
+     * @return the number of valid rows
+     */
+    protected abstract int decodeRows(int from, int to);
+
+    /**
+     * @return the number of rows of the last decoded batch
+     */
+    public final int size(){
+        return size;
+    }
+
+    public final int capacity(){
+        return hi.length;
+    }
+
+    public final boolean isValid(int row){
+        return status[row] == DecodeStatus.ok;
+    }
+
+    public final DecodeStatus[] getStatus(){
+        return status;
+    }
+
+    public final long[] getHiBits(){
+        return hi;
+    }
+
+    public final long[] getLoBits(){
+        return lo;
+    }
+}
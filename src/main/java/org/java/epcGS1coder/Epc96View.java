@@ -0,0 +1,134 @@
+package org.java.epcGS1coder;
+
+import java.nio.ByteBuffer;
+
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Hex;
+
+/**
+ * Mutable view of a 96-bit EPC, the flyweight counterpart of the immutable codings (Sgtin96View for Sgtin96...).
+ * A view is re-pointed at every tag with wrap/tryWrap, which only keeps the 96 bits, and each getter decodes
+ * its field from them when called, so a single instance can read a stream of tags without allocating.
+ * <p>
+ * A view must be wrapped before its getters are used and isn't thread safe. When wrapping fails it keeps
+ * pointing at the previous tag.
+ */
+
+public abstract class Epc96View {
+
+    private long hi;
+    private long lo;
+
+    /**
+     * Points the view at the given bits if they are a valid EPC of the scheme, see {@link Bits} for the layout
+     * @return the reason the bits were rejected, the view isn't changed unless {@link DecodeStatus#ok}
+     */
+    public final DecodeStatus tryWrap(long hi, long lo){
+        DecodeStatus status = validate(hi, lo);
+        if (status == DecodeStatus.ok){
+            this.hi = hi;
+            this.lo = lo;
+        }
+        return status;
+    }
+
+    /**
+     * Points the view at the 12 bytes at offset
+     */
+    public final DecodeStatus tryWrap(byte[] bytes, int offset){
+        return tryWrap(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Points the view at the 12 bytes at the buffer position, leaving the position after them even if they are rejected
+     */
+    public final DecodeStatus tryWrap(ByteBuffer buffer){
+        return tryWrap(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
+
+    /**
+     * Points the view at an hex encoded EPC
+     */
+    public final DecodeStatus tryWrap(CharSequence epc){
+        if (epc.length() != 24)
+            return DecodeStatus.invalid_length;
+        if (!Hex.isHex(epc, 0, 24))
+            return DecodeStatus.invalid_character;
+        return tryWrap(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+    }
+
+    public final void wrap(long hi, long lo){
+        check(tryWrap(hi, lo));
+    }
+
+    public final void wrap(byte[] bytes, int offset){
+        check(tryWrap(bytes, offset));
+    }
+
+    public final void wrap(ByteBuffer buffer){
+        check(tryWrap(buffer));
+    }
+
+    public final void wrap(CharSequence epc){
+        check(tryWrap(epc));
+    }
+
+    private static void check(DecodeStatus status){
+        if (status != DecodeStatus.ok)
+            throw new IllegalArgumentException("Invalid EPC: " + status);
+    }
+
+    protected abstract DecodeStatus validate(long hi, long lo);
+
+    /**
+     * @return the field at offset (counted from the header's most significant bit) of the wrapped EPC
+     */
+    protected final long get(int offset, int length){
+        return Bits.get(hi, lo, offset, length);
+    }
+
+    public final long getHiBits(){
+        return hi;
+    }
+
+    public final long getLoBits(){
+        return lo;
+    }
+
+    public final byte getHeader(){
+        return (byte) (hi >>> 56);
+    }
+
+    public abstract int getFilter();
+
+    /**
+     * Writes the wrapped EPC at the buffer position
+     */
+    public final void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, hi, lo);
+    }
+
+    /**
+     * @return the wrapped EPC as an hex string, allocated on every call
+     */
+    public final String getEpc(){
+        return Hex.toString(hi, lo);
+    }
+
+    /**
+     * Appends the Pure Identity URI of the wrapped EPC decoding its fields from the bits, without creating the
+     * Epc nor any String: the binary to EPCIS identity path of a tag stream
+     * @return the builder
+     */
+    public abstract StringBuilder appendPureIdentityUri(StringBuilder sb);
+
+    /**
+     * @return an immutable copy of the wrapped EPC
+     */
+    public abstract Epc toEpc();
+
+    @Override
+    public String toString(){
+        return getEpc();
+    }
+}
@@ -0,0 +1,316 @@
+package org.java.epcGS1coder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.java.epcGS1coder.adi.AdiVar;
+import org.java.epcGS1coder.cpi.Cpi96;
+import org.java.epcGS1coder.cpi.CpiVar;
+import org.java.epcGS1coder.gdti.Gdti113;
+import org.java.epcGS1coder.gdti.Gdti174;
+import org.java.epcGS1coder.gdti.Gdti96;
+import org.java.epcGS1coder.giai.Giai202;
+import org.java.epcGS1coder.giai.Giai96;
+import org.java.epcGS1coder.gid.Gid96;
+import org.java.epcGS1coder.grai.Grai170;
+import org.java.epcGS1coder.grai.Grai96;
+import org.java.epcGS1coder.gsrn.Gsrn96;
+import org.java.epcGS1coder.gsrn.Gsrnp96;
+import org.java.epcGS1coder.itip.Itip110;
+import org.java.epcGS1coder.itip.Itip212;
+import org.java.epcGS1coder.sgcn.Sgcn96;
+import org.java.epcGS1coder.sgln.Sgln195;
+import org.java.epcGS1coder.sgln.Sgln96;
+import org.java.epcGS1coder.sgtin.Sgtin198;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.java.epcGS1coder.usdod.Usdod96;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.UriParser;
+
+/**
+ * Decodes an EPC of any supported scheme. The 8-bit header (Table 14-1 EPC Binary Header Values)
+ * is read once and used as the index of a 256 entries table pointing to the right codec, so a
+ * mixed tag population can be decoded in one pass.
+ */
+
+public final class EpcDecoder {
+
+    private final static String tagUriPrefix = "urn:epc:tag:";
+
+    private final static Coding[] codings = new Coding[256];
+    private final static List<Coding> uriCodings = new ArrayList<Coding>();
+
+    static {
+        register(Gdti96.epcHeader, new Coding(EpcScheme.gdti, "gdti-96", 12, Gdti96::fromEpc, Gdti96::fromUri, Gdti96::fromBytes, Gdti96::fromBuffer)
+                .withBits(Gdti96::fromBits, Gdti96::validate));
+        register(Gsrn96.epcHeader, new Coding(EpcScheme.gsrn, "gsrn-96", 12, Gsrn96::fromEpc, Gsrn96::fromUri, Gsrn96::fromBytes, Gsrn96::fromBuffer)
+                .withBits(Gsrn96::fromBits, Gsrn96::validate));
+        register(Gsrnp96.epcHeader, new Coding(EpcScheme.gsrnp, "gsrnp-96", 12, Gsrnp96::fromEpc, Gsrnp96::fromUri, Gsrnp96::fromBytes, Gsrnp96::fromBuffer)
+                .withBits(Gsrnp96::fromBits, Gsrnp96::validate));
+        register(Usdod96.epcHeader, new Coding(EpcScheme.usdod, "usdod-96", 12, Usdod96::fromEpc, Usdod96::fromUri, Usdod96::fromBytes, Usdod96::fromBuffer)
+                .withBits(Usdod96::fromBits, Usdod96::validate));
+        register(Sgtin96.epcHeader, new Coding(EpcScheme.sgtin, "sgtin-96", 12, Sgtin96::fromEpc, Sgtin96::fromUri, Sgtin96::fromBytes, Sgtin96::fromBuffer)
+                .withBits(Sgtin96::fromBits, Sgtin96::validate));
+        register(Sscc96.epcHeader, new Coding(EpcScheme.sscc, "sscc-96", 12, Sscc96::fromEpc, Sscc96::fromUri, Sscc96::fromBytes, Sscc96::fromBuffer)
+                .withBits(Sscc96::fromBits, Sscc96::validate));
+        register(Sgln96.epcHeader, new Coding(EpcScheme.sgln, "sgln-96", 12, Sgln96::fromEpc, Sgln96::fromUri, Sgln96::fromBytes, Sgln96::fromBuffer)
+                .withBits(Sgln96::fromBits, Sgln96::validate));
+        register(Grai96.epcHeader, new Coding(EpcScheme.grai, "grai-96", 12, Grai96::fromEpc, Grai96::fromUri, Grai96::fromBytes, Grai96::fromBuffer)
+                .withBits(Grai96::fromBits, Grai96::validate));
+        register(Giai96.epcHeader, new Coding(EpcScheme.giai, "giai-96", 12, Giai96::fromEpc, Giai96::fromUri, Giai96::fromBytes, Giai96::fromBuffer)
+                .withBits(Giai96::fromBits, Giai96::validate));
+        register(Gid96.epcHeader, new Coding(EpcScheme.gid, "gid-96", 12, Gid96::fromEpc, Gid96::fromUri, Gid96::fromBytes, Gid96::fromBuffer)
+                .withBits(Gid96::fromBits, Gid96::validate));
+        register(Sgtin198.epcHeader, new Coding(EpcScheme.sgtin, "sgtin-198", 26, Sgtin198::fromEpc, Sgtin198::fromUri, Sgtin198::fromBytes, Sgtin198::fromBuffer));
+        register(Grai170.epcHeader, new Coding(EpcScheme.grai, "grai-170", 22, Grai170::fromEpc, Grai170::fromUri, Grai170::fromBytes, Grai170::fromBuffer));
+        register(Giai202.epcHeader, new Coding(EpcScheme.giai, "giai-202", 26, Giai202::fromEpc, Giai202::fromUri, Giai202::fromBytes, Giai202::fromBuffer));
+        register(Sgln195.epcHeader, new Coding(EpcScheme.sgln, "sgln-195", 26, Sgln195::fromEpc, Sgln195::fromUri, Sgln195::fromBytes, Sgln195::fromBuffer));
+        register(Gdti113.epcHeader, new Coding(EpcScheme.gdti, "gdti-113", 16, Gdti113::fromEpc, Gdti113::fromUri, Gdti113::fromBytes, Gdti113::fromBuffer));
+        register(AdiVar.epcHeader, new Coding(EpcScheme.adi, "adi-var", 0, AdiVar::fromEpc, AdiVar::fromUri, AdiVar::fromBytes, AdiVar::fromBuffer));
+        register(Cpi96.epcHeader, new Coding(EpcScheme.cpi, "cpi-96", 12, Cpi96::fromEpc, Cpi96::fromUri, Cpi96::fromBytes, Cpi96::fromBuffer)
+                .withBits(Cpi96::fromBits, Cpi96::validate));
+        register(CpiVar.epcHeader, new Coding(EpcScheme.cpi, "cpi-var", 0, CpiVar::fromEpc, CpiVar::fromUri, CpiVar::fromBytes, CpiVar::fromBuffer));
+        register(Gdti174.epcHeader, new Coding(EpcScheme.gdti, "gdti-174", 22, Gdti174::fromEpc, Gdti174::fromUri, Gdti174::fromBytes, Gdti174::fromBuffer));
+        register(Sgcn96.epcHeader, new Coding(EpcScheme.sgcn, "sgcn-96", 12, Sgcn96::fromEpc, Sgcn96::fromUri, Sgcn96::fromBytes, Sgcn96::fromBuffer)
+                .withBits(Sgcn96::fromBits, Sgcn96::validate));
+        register(Itip110.epcHeader, new Coding(EpcScheme.itip, "itip-110", 14, Itip110::fromEpc, Itip110::fromUri, Itip110::fromBytes, Itip110::fromBuffer));
+        register(Itip212.epcHeader, new Coding(EpcScheme.itip, "itip-212", 28, Itip212::fromEpc, Itip212::fromUri, Itip212::fromBytes, Itip212::fromBuffer));
+    }
+
+    private EpcDecoder(){}
+
+    private static void register(byte epcHeader, Coding coding){
+        codings[epcHeader & 0xFF] = coding;
+        uriCodings.add(coding);
+    }
+
+    /**
+     * @param epc hex encoded EPC
+     * @return the 8-bit header value (0-255), or -1 if the EPC doesn't start with two hex digits
+     */
+    public static int getHeader(String epc){
+        if (epc.length() < 2)
+            return -1;
+        int high = Character.digit(epc.charAt(0), 16);
+        int low = Character.digit(epc.charAt(1), 16);
+        if (high < 0 || low < 0)
+            return -1;
+        return high << 4 | low;
+    }
+
+    /**
+     * @param epc hex encoded EPC
+     * @return the scheme the EPC header belongs to, or null if the header isn't supported
+     */
+    public static EpcScheme getScheme(String epc){
+        int header = getHeader(epc);
+        if (header < 0 || codings[header] == null)
+            return null;
+        return codings[header].scheme;
+    }
+
+    public static boolean isSupported(String epc){
+        return getScheme(epc) != null;
+    }
+
+    /**
+     * Decodes the EPC with the codec matching its header, e.g. a "30..." EPC is decoded as {@link Sgtin96}.
+     */
+    public static Epc fromEpc(String epc){
+        int header = getHeader(epc);
+        if (header < 0)
+            throw new IllegalArgumentException("Invalid header");
+        Coding coding = codings[header];
+        if (coding == null)
+            throw new IllegalArgumentException("Unsupported header: " + epc.substring(0, 2));
+        return coding.decoder.apply(epc);
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory, e.g. a Gen2 EPC bank without its CRC and PC words.
+     */
+    public static Epc fromBytes(byte[] bytes, int offset, int length){
+        if (length < 1)
+            throw new IllegalArgumentException("Invalid header");
+        Coding coding = getCoding(bytes[offset]);
+        return coding.bytesDecoder.decode(bytes, offset, length);
+    }
+
+    /**
+     * Decodes the EPC at the buffer position. 96-bit and fixed length codings consume exactly their
+     * size, so consecutive EPCs can be read from the same buffer; ADI-var and CPI-var take the remaining bytes.
+     */
+    public static Epc fromBuffer(ByteBuffer buffer){
+        if (!buffer.hasRemaining())
+            throw new IllegalArgumentException("Invalid header");
+        Coding coding = getCoding(buffer.get(buffer.position()));
+        return coding.bufferDecoder.apply(buffer);
+    }
+
+    private static Coding getCoding(byte header){
+        Coding coding = codings[header & 0xFF];
+        if (coding == null)
+            throw new IllegalArgumentException("Unsupported header: " + String.format("%02X", header));
+        return coding;
+    }
+
+    /**
+     * Same as {@link #fromEpc(String)} but reports invalid EPCs through the returned status instead of
+     * throwing, so noise reads and foreign headers cost no exception. The 96-bit codings are validated
+     * up front; the others are only checked for hex, header and length before decoding, so a field error
+     * inside them is still caught from their decoder.
+     * @param result holder receiving the decoded EPC, can be reused between calls
+     */
+    public static DecodeStatus tryDecode(CharSequence epc, DecodeResult result){
+        if (epc.length() < 2)
+            return result.set(DecodeStatus.invalid_length, null);
+        int high = Hex.digit(epc.charAt(0));
+        int low = Hex.digit(epc.charAt(1));
+        if (high < 0 || low < 0)
+            return result.set(DecodeStatus.invalid_character, null);
+        Coding coding = codings[high << 4 | low];
+        if (coding == null)
+            return result.set(DecodeStatus.unsupported_header, null);
+        if (coding.byteLength > 0 ? epc.length() != coding.byteLength * 2 : epc.length() < 4)
+            return result.set(DecodeStatus.invalid_length, null);
+        if (!Hex.isHex(epc, 2, epc.length()))
+            return result.set(DecodeStatus.invalid_character, null);
+        if (coding.bitsDecoder != null)
+            return tryDecode(coding, Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24), result);
+        try {
+            return result.set(DecodeStatus.ok, coding.decoder.apply(epc.toString()));
+        } catch (IllegalArgumentException e){
+            return result.set(DecodeStatus.invalid_field, null);
+        }
+    }
+
+    /**
+     * Same as {@link #fromBytes(byte[], int, int)} but reports invalid EPCs through the returned status instead of throwing.
+     * @see #tryDecode(CharSequence, DecodeResult)
+     */
+    public static DecodeStatus tryDecode(byte[] bytes, int offset, int length, DecodeResult result){
+        if (length < 1)
+            return result.set(DecodeStatus.invalid_length, null);
+        Coding coding = codings[bytes[offset] & 0xFF];
+        if (coding == null)
+            return result.set(DecodeStatus.unsupported_header, null);
+        if (coding.byteLength > 0 ? length != coding.byteLength : length < 2)
+            return result.set(DecodeStatus.invalid_length, null);
+        if (coding.bitsDecoder != null)
+            return tryDecode(coding, Bits.readHi(bytes, offset), Bits.readLo(bytes, offset), result);
+        try {
+            return result.set(DecodeStatus.ok, coding.bytesDecoder.decode(bytes, offset, length));
+        } catch (IllegalArgumentException e){
+            return result.set(DecodeStatus.invalid_field, null);
+        }
+    }
+
+    /**
+     * Decodes a 96-bit EPC given as its two words (see {@link Bits}), reporting invalid EPCs through the returned status
+     * @see #tryDecode(CharSequence, DecodeResult)
+     */
+    public static DecodeStatus tryDecode(long hi, long lo, DecodeResult result){
+        Coding coding = codings[(int) (hi >>> 56)];
+        if (coding == null)
+            return result.set(DecodeStatus.unsupported_header, null);
+        if (coding.bitsDecoder == null)
+            return result.set(DecodeStatus.invalid_length, null);
+        return tryDecode(coding, hi, lo, result);
+    }
+
+    private static DecodeStatus tryDecode(Coding coding, long hi, long lo, DecodeResult result){
+        DecodeStatus status = coding.validator.validate(hi, lo);
+        return result.set(status, status == DecodeStatus.ok ? coding.bitsDecoder.decode(hi, lo) : null);
+    }
+
+    /**
+     * Parses an EPC Tag URI of any supported scheme (urn:epc:tag:sgtin-96:...), reporting invalid URIs through
+     * the returned status instead of throwing. Unknown schemes are rejected without an exception.
+     * @param result holder receiving the decoded EPC, can be reused between calls
+     */
+    public static DecodeStatus tryParseUri(CharSequence uri, DecodeResult result){
+        if (!UriParser.startsWith(uri, tagUriPrefix))
+            return result.set(DecodeStatus.invalid_character, null);
+        Coding coding = uriCoding(uri);
+        if (coding == null)
+            return result.set(DecodeStatus.unsupported_header, null);
+        try {
+            return result.set(DecodeStatus.ok, coding.uriDecoder.apply(uri));
+        } catch (RuntimeException e){
+            return result.set(DecodeStatus.invalid_field, null);
+        }
+    }
+
+    /**
+     * Finds the coding of the scheme name following the tag URI prefix in place, without substrings
+     */
+    private static Coding uriCoding(CharSequence uri){
+        for (int i = 0; i < uriCodings.size(); i++){
+            Coding coding = uriCodings.get(i);
+            String name = coding.tagUriName;
+            int end = tagUriPrefix.length() + name.length();
+            if (end >= uri.length() || uri.charAt(end) != ':')
+                continue;
+            int j = 0;
+            while (j < name.length() && uri.charAt(tagUriPrefix.length() + j) == name.charAt(j))
+                j++;
+            if (j == name.length())
+                return coding;
+        }
+        return null;
+    }
+
+    private interface BytesDecoder {
+        Epc decode(byte[] bytes, int offset, int length);
+    }
+
+    private interface BitsDecoder {
+        Epc decode(long hi, long lo);
+    }
+
+    private interface BitsValidator {
+        DecodeStatus validate(long hi, long lo);
+    }
+
+    private static final class Coding {
+        private final EpcScheme scheme;
+        private final String tagUriName;
+        private final int byteLength; // 0 when the length depends on the content
+        private final Function<String, Epc> decoder;
+        private final Function<CharSequence, Epc> uriDecoder;
+        private final BytesDecoder bytesDecoder;
+        private final Function<ByteBuffer, Epc> bufferDecoder;
+        private BitsDecoder bitsDecoder;
+        private BitsValidator validator;
+
+        private Coding(EpcScheme scheme,
+                       String tagUriName,
+                       int byteLength,
+                       Function<String, Epc> decoder,
+                       Function<CharSequence, Epc> uriDecoder,
+                       BytesDecoder bytesDecoder,
+                       Function<ByteBuffer, Epc> bufferDecoder){
+            this.scheme = scheme;
+            this.tagUriName = tagUriName;
+            this.byteLength = byteLength;
+            this.decoder = decoder;
+            this.uriDecoder = uriDecoder;
+            this.bytesDecoder = bytesDecoder;
+            this.bufferDecoder = bufferDecoder;
+        }
+
+        /**
+         * 96-bit codings, decoded from two longs once validated
+         */
+        private Coding withBits(BitsDecoder bitsDecoder, BitsValidator validator){
+            this.bitsDecoder = bitsDecoder;
+            this.validator = validator;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.java.epcGS1coder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.java.epcGS1coder.util.Bits;
+
+/**
+ * Set of the 96-bit EPCs read within a time window, to suppress the repeated reports of a read storm before
+ * any object is created. The EPCs are kept as their two binary words (see {@link Bits}) with the time they
+ * were last reported, in an open addressing table with linear probing stored in a single {@link ByteBuffer},
+ * on or off heap, so half a million tags don't leave any garbage behind.
+ * <pre>
+ * if (!dedup.seen(bytes, 0, now) &amp;&amp; view.tryWrap(bytes, 0) == DecodeStatus.ok)
+ *     report(view.getCompanyPrefix(), view.getItemReference(), view.getSerial());
+ * </pre>
+ * Reports older than the window are evicted when the table fills up, the table only grows when the window
+ * holds more distinct EPCs than its capacity. The all zero EPC (header 0x00, an unprogrammed tag) is used
+ * for the empty slots: it is never recorded, so never suppressed. A set isn't thread safe.
+ */
+
+public final class EpcDedupSet {
+
+    private final static int slotSize = 24; // hi, lo, time
+    private final static int maxSlots = Integer.highestOneBit(Integer.MAX_VALUE / slotSize);
+
+    private final long window;
+    private final boolean direct;
+    private ByteBuffer table;
+    private int slots;
+    private int shift;
+    private int size;
+
+    /**
+     * @param capacity number of distinct EPCs expected within a window
+     * @param window how long a reported EPC is suppressed, in the unit of the times given to {@link #seen(long, long, long)}
+     * @param direct whether the table is allocated off heap
+     */
+    public EpcDedupSet(int capacity, long window, boolean direct){
+        if (capacity < 1 || capacity > maxSlots / 2)
+            throw new IllegalArgumentException("Capacity must be between 1 and " + maxSlots / 2);
+        if (window < 0)
+            throw new IllegalArgumentException("Window must be positive");
+        this.window = window;
+        this.direct = direct;
+        allocate(Integer.highestOneBit(capacity * 2 - 1) << 1);
+    }
+
+    /**
+     * Off heap set
+     */
+    public EpcDedupSet(int capacity, long window){
+        this(capacity, window, true);
+    }
+
+    /**
+     * Checks whether the EPC was already reported within the window ending at now. If it wasn't, it is recorded
+     * as reported at now.
+     * @return true if the read is a repetition to suppress, always false for the all zero EPC, which isn't recorded
+     */
+    public boolean seen(long hi, long lo, long now){
+        if (hi == 0 && lo == 0)
+            return false;
+        int mask = slots - 1;
+        for (int slot = index(hi, lo);; slot = slot + 1 & mask){
+            int offset = slot * slotSize;
+            long slotHi = table.getLong(offset), slotLo = table.getLong(offset + 8);
+            if (slotHi == hi && slotLo == lo){
+                if (now - table.getLong(offset + 16) < window)
+                    return true;
+                table.putLong(offset + 16, now);
+                return false;
+            }
+            if (slotHi == 0 && slotLo == 0){
+                if (size + 1 > slots >>> 1 && makeRoom(now))
+                    return seen(hi, lo, now);
+                table.putLong(offset, hi).putLong(offset + 8, lo).putLong(offset + 16, now);
+                size++;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * {@link #seen(long, long, long)} for the 12 bytes at offset
+     */
+    public boolean seen(byte[] bytes, int offset, long now){
+        return seen(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset), now);
+    }
+
+    /**
+     * {@link #seen(long, long, long)} for the EPC the view points at
+     */
+    public boolean seen(Epc96View view, long now){
+        return seen(view.getHiBits(), view.getLoBits(), now);
+    }
+
+    /**
+     * Removes the EPCs reported before the window ending at now
+     * @return the number of EPCs removed
+     */
+    public int evict(long now){
+        int removed = 0;
+        for (int slot = 0; slot < slots;){
+            int offset = slot * slotSize;
+            if ((table.getLong(offset) != 0 || table.getLong(offset + 8) != 0) && now - table.getLong(offset + 16) >= window){
+                remove(slot);
+                removed++;
+                // the slot now holds the next EPC of the probe sequence, if any
+            } else
+                slot++;
+        }
+        return removed;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public void clear(){
+        for (int offset = 0; offset < slots * slotSize; offset += 8)
+            table.putLong(offset, 0);
+        size = 0;
+    }
+
+    private int index(long hi, long lo){
+        return (int) ((hi ^ Long.rotateLeft(lo, 32)) * 0x9E3779B97F4A7C15l >>> shift);
+    }
+
+    /**
+     * Empties the slot shifting back the EPCs of its probe sequence, so the table never holds tombstones
+     */
+    private void remove(int slot){
+        int mask = slots - 1;
+        int hole = slot;
+        for (int next = slot + 1 & mask;; next = next + 1 & mask){
+            int offset = next * slotSize;
+            long hi = table.getLong(offset), lo = table.getLong(offset + 8);
+            if (hi == 0 && lo == 0)
+                break;
+            int home = index(hi, lo);
+            // moved back unless its home slot lies cyclically in (hole, next]
+            if ((next - home & mask) >= (next - hole & mask)){
+                copy(next, hole);
+                hole = next;
+            }
+        }
+        int offset = hole * slotSize;
+        table.putLong(offset, 0).putLong(offset + 8, 0).putLong(offset + 16, 0);
+        size--;
+    }
+
+    private void copy(int from, int to){
+        int source = from * slotSize, target = to * slotSize;
+        table.putLong(target, table.getLong(source))
+             .putLong(target + 8, table.getLong(source + 8))
+             .putLong(target + 16, table.getLong(source + 16));
+    }
+
+    /**
+     * Evicts the expired EPCs, growing the table if that leaves it more than a quarter full
+     * @return true if the table changed, which invalidates the probed slot
+     */
+    private boolean makeRoom(long now){
+        int removed = evict(now);
+        if (size >= slots >>> 2 && slots * 2 <= maxSlots){
+            ByteBuffer old = table;
+            int oldSlots = slots;
+            allocate(slots * 2);
+            for (int offset = 0; offset < oldSlots * slotSize; offset += slotSize){
+                long hi = old.getLong(offset), lo = old.getLong(offset + 8);
+                if (hi != 0 || lo != 0)
+                    insert(hi, lo, old.getLong(offset + 16));
+            }
+            return true;
+        }
+        if (size + 1 >= slots)
+            throw new IllegalStateException("Too many EPCs within the window: " + size);
+        return removed > 0;
+    }
+
+    private void insert(long hi, long lo, long time){
+        int mask = slots - 1;
+        int slot = index(hi, lo);
+        while (table.getLong(slot * slotSize) != 0 || table.getLong(slot * slotSize + 8) != 0)
+            slot = slot + 1 & mask;
+        table.putLong(slot * slotSize, hi).putLong(slot * slotSize + 8, lo).putLong(slot * slotSize + 16, time);
+        size++;
+    }
+
+    private void allocate(int slots){
+        this.slots = slots;
+        this.shift = 64 - Integer.numberOfTrailingZeros(slots);
+        this.table = (direct ? ByteBuffer.allocateDirect(slots * slotSize) : ByteBuffer.allocate(slots * slotSize))
+                         .order(ByteOrder.nativeOrder());
+        this.size = 0;
+    }
+}
@@ -0,0 +1,213 @@
+package org.java.epcGS1coder;
+
+import org.java.epcGS1coder.adi.AdiVar;
+import org.java.epcGS1coder.cpi.Cpi96;
+import org.java.epcGS1coder.cpi.CpiVar;
+import org.java.epcGS1coder.gdti.Gdti113;
+import org.java.epcGS1coder.gdti.Gdti174;
+import org.java.epcGS1coder.gdti.Gdti96;
+import org.java.epcGS1coder.giai.Giai202;
+import org.java.epcGS1coder.giai.Giai96;
+import org.java.epcGS1coder.gid.Gid96;
+import org.java.epcGS1coder.grai.Grai170;
+import org.java.epcGS1coder.grai.Grai96;
+import org.java.epcGS1coder.gsrn.Gsrn96;
+import org.java.epcGS1coder.gsrn.Gsrnp96;
+import org.java.epcGS1coder.itip.Itip110;
+import org.java.epcGS1coder.itip.Itip212;
+import org.java.epcGS1coder.sgcn.Sgcn96;
+import org.java.epcGS1coder.sgln.Sgln195;
+import org.java.epcGS1coder.sgln.Sgln96;
+import org.java.epcGS1coder.sgtin.Sgtin198;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.java.epcGS1coder.usdod.Usdod96;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.PartitionTable;
+
+/**
+ * Reads a single field of a binary EPC without decoding it, for the routing and filtering decisions that
+ * only need the company prefix or the class of a tag: no object, no validation of the other fields.
+ * <p>
+ * The EPC is given as its first 64 bits (hi) and, for the fields reaching past them, the next 32 bits (lo),
+ * as {@link Bits} lays out a 96-bit EPC. The header, filter, partition and company prefix of every scheme
+ * lie within hi, so is the class reference of most. Longer EPCs share the layout of their first 96 bits, see
+ * {@link #hi(CharSequence)} and {@link #lo(CharSequence)} for a hex EPC, {@link Bits#readHi(byte[], int)}
+ * for the bytes read from the tag memory.
+ * <p>
+ * The layout is found from the header in a 256 entries table as {@link EpcDecoder} does.
+ */
+
+public final class EpcFields {
+
+    private final static Layout[] layouts = new Layout[256];
+
+    static {
+        partitioned(Sgtin96.epcHeader, PartitionTable.sgtin, true, true);
+        partitioned(Sgtin198.epcHeader, PartitionTable.sgtin, true, true);
+        partitioned(Sscc96.epcHeader, PartitionTable.sscc, true, false);
+        partitioned(Sgln96.epcHeader, PartitionTable.sgln, true, true);
+        partitioned(Sgln195.epcHeader, PartitionTable.sgln, true, true);
+        partitioned(Grai96.epcHeader, PartitionTable.grai, true, true);
+        partitioned(Grai170.epcHeader, PartitionTable.grai, true, true);
+        partitioned(Giai96.epcHeader, PartitionTable.giai96, true, false);
+        partitioned(Giai202.epcHeader, PartitionTable.giai202, false, false);
+        partitioned(Gsrn96.epcHeader, PartitionTable.gsrn, true, false);
+        partitioned(Gsrnp96.epcHeader, PartitionTable.gsrn, true, false);
+        partitioned(Gdti96.epcHeader, PartitionTable.gdti, true, true);
+        partitioned(Gdti113.epcHeader, PartitionTable.gdti, true, true);
+        partitioned(Gdti174.epcHeader, PartitionTable.gdti, true, true);
+        partitioned(Cpi96.epcHeader, PartitionTable.cpi96, true, true);
+        partitioned(CpiVar.epcHeader, PartitionTable.cpiVar, false, false);
+        partitioned(Sgcn96.epcHeader, PartitionTable.sgcn, true, true);
+        partitioned(Itip110.epcHeader, PartitionTable.itip, true, true);
+        partitioned(Itip212.epcHeader, PartitionTable.itip, true, true);
+        // GID-96: General Manager Number and Object Class, USDOD-96: CAGE/DoDAAC
+        layouts[Gid96.epcHeader & 0xFF] = new Layout(0, null, false, false, 8, 28 + 24);
+        layouts[Usdod96.epcHeader & 0xFF] = new Layout(4, null, false, false, 8 + 4, 48);
+        layouts[AdiVar.epcHeader & 0xFF] = new Layout(6, null, false, false, 0, 0);
+    }
+
+    private static void partitioned(byte header, PartitionTable table, boolean numericReference, boolean referenceInClass){
+        layouts[header & 0xFF] = new Layout(3, table, numericReference, referenceInClass, 8 + 3, 0);
+    }
+
+    private EpcFields(){}
+
+    public static int getHeader(long hi){
+        return (int) (hi >>> 56);
+    }
+
+    /**
+     * @return the filter value, 3 bits for the GS1 schemes, 4 for USDOD-96 and 6 for ADI-var
+     * @throws IllegalArgumentException for an unknown header or GID-96, which has no filter
+     */
+    public static int getFilter(long hi){
+        Layout layout = layout(hi);
+        if (layout.filterBits == 0)
+            throw new IllegalArgumentException("No filter in " + headerName(hi));
+        return (int) (hi >>> (56 - layout.filterBits)) & ((1 << layout.filterBits) - 1);
+    }
+
+    /**
+     * @return the partition of a GS1 scheme
+     */
+    public static int getPartition(long hi){
+        partitioned(hi);
+        return (int) (hi >>> 50) & 0x7;
+    }
+
+    public static int getCompanyPrefixDigits(long hi){
+        return PartitionTable.getCompanyPrefixDigits(getPartition(hi));
+    }
+
+    public static long getCompanyPrefix(long hi){
+        int bits = PartitionTable.getCompanyPrefixBits(getPartition(hi));
+        return (hi >>> (64 - PartitionTable.companyPrefixOffset - bits)) & ((1l << bits) - 1);
+    }
+
+    /**
+     * @return the numeric field following the company prefix: item reference (SGTIN, ITIP, with the indicator
+     * digit), serial reference (SSCC), location reference (SGLN), asset type (GRAI), individual asset reference
+     * (GIAI-96), service reference (GSRN), document type (GDTI), component / part reference (CPI-96) or
+     * coupon reference (SGCN)
+     * @throws IllegalArgumentException for the schemes without such a field or an alphanumeric one (GIAI-202, CPI-var)
+     */
+    public static long getReference(long hi, long lo){
+        Layout layout = partitioned(hi);
+        if (!layout.numericReference)
+            throw new IllegalArgumentException("No numeric reference in " + headerName(hi));
+        int partition = (int) (hi >>> 50) & 0x7;
+        return Bits.get(hi, lo, layout.table.getReferenceOffset(partition), layout.table.getReferenceBits(partition));
+    }
+
+    /**
+     * @return a key equal for two EPCs of the same scheme and class, a different one otherwise: header, partition,
+     * company prefix and the class reference (item reference, location reference, asset type, document type,
+     * component / part reference, coupon reference) for the GS1 schemes having one, General Manager Number and
+     * Object Class for GID-96, CAGE/DoDAAC for USDOD-96. Filter and serial don't count.
+     * @throws IllegalArgumentException for an unknown header or ADI-var
+     */
+    public static long getClassKey(long hi, long lo){
+        Layout layout = layout(hi);
+        int bits = layout.classBits;
+        if (layout.table != null){
+            int partition = (int) (hi >>> 50) & 0x7;
+            bits = 3 + (layout.referenceInClass
+                    ? layout.table.getReferenceOffset(partition) + layout.table.getReferenceBits(partition) - PartitionTable.companyPrefixOffset
+                    : PartitionTable.getCompanyPrefixBits(partition));
+        } else if (bits == 0)
+            throw new IllegalArgumentException("No EPC class in " + headerName(hi));
+        // at most 3 + 51 bits (CPI-96) or 52 bits (GID-96), the header fits above them
+        return (hi & 0xFF00000000000000l) | Bits.get(hi, lo, layout.classOffset, bits);
+    }
+
+    /**
+     * @return the first 64 bits of a hex EPC of any length, zero padded if shorter
+     */
+    public static long hi(CharSequence epc){
+        int to = Math.min(16, epc.length());
+        return to == 0 ? 0 : Hex.parseLong(epc, 0, to) << (4 * (16 - to));
+    }
+
+    /**
+     * @return bits 64 to 95 of a hex EPC of any length, zero padded if shorter, as {@link Bits} lays them out
+     */
+    public static long lo(CharSequence epc){
+        int to = Math.min(24, epc.length());
+        return to <= 16 ? 0 : Hex.parseLong(epc, 16, to) << (4 * (24 - to));
+    }
+
+    /*
+     * The layout of a scheme, for the codecs of this package working on fields rather than on an EPC
+     */
+
+    static int getFilterBits(int header){
+        return layout((long) header << 56).filterBits;
+    }
+
+    static PartitionTable getPartitionTable(int header){
+        return partitioned((long) header << 56).table;
+    }
+
+    static boolean hasNumericReference(int header){
+        return partitioned((long) header << 56).numericReference;
+    }
+
+    private static Layout layout(long hi){
+        Layout layout = layouts[(int) (hi >>> 56)];
+        if (layout == null)
+            throw new IllegalArgumentException("Invalid header");
+        return layout;
+    }
+
+    private static Layout partitioned(long hi){
+        Layout layout = layout(hi);
+        if (layout.table == null)
+            throw new IllegalArgumentException("No company prefix in " + headerName(hi));
+        return layout;
+    }
+
+    private static String headerName(long hi){
+        return "header 0x" + Integer.toHexString(getHeader(hi));
+    }
+
+    private final static class Layout {
+        final int filterBits;
+        final PartitionTable table;
+        final boolean numericReference;
+        final boolean referenceInClass;
+        final int classOffset;
+        final int classBits;
+
+        Layout(int filterBits, PartitionTable table, boolean numericReference, boolean referenceInClass, int classOffset, int classBits){
+            this.filterBits = filterBits;
+            this.table = table;
+            this.numericReference = numericReference;
+            this.referenceInClass = referenceInClass;
+            this.classOffset = classOffset;
+            this.classBits = classBits;
+        }
+    }
+}
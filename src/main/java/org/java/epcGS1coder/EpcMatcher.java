@@ -0,0 +1,211 @@
+package org.java.epcGS1coder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.java.epcGS1coder.util.Bits;
+
+/**
+ * Matches 96-bit EPCs against many rules at once, each rule being a set of {@link SelectMask}s (a company prefix,
+ * a GTIN class...) the EPC must all match, as given by {@link SelectMask#fromFields(byte, int, int, long, long)}.
+ * <pre>
+ * EpcMatcher matcher = EpcMatcher.compile(Arrays.asList(
+ *         SelectMask.fromFields(Sgtin96.epcHeader, SelectMask.any, 7, 614141, SelectMask.any),  // rule 0
+ *         SelectMask.fromFields(Sgtin96.epcHeader, SelectMask.any, 7, 614141, 812345)));        // rule 1
+ * matcher.matchFirst(batch, firstRules);
+ * </pre>
+ * Every rule is compiled into a mask and a value over the two binary words of the EPC (see {@link Bits}). The
+ * rules sharing a mask, those giving the same fields within the same partition, form a group holding their
+ * values in a hash table. The groups are indexed by the header and partition they select, so an EPC is only
+ * masked and looked up in the groups of its own header and partition: the cost of a match depends on the number
+ * of distinct masks, not on the number of rules. A matcher is immutable and can be shared between threads.
+ */
+
+public final class EpcMatcher {
+
+    private final static Group[] noGroups = new Group[0];
+
+    // groups by header and partition (the bits 11 to 13 of the partitioned schemes), see index(long)
+    private final Group[][] groups = new Group[256 * 8][];
+    // next rule of the same group having the same value, -1 after the last
+    private final int[] nextRules;
+
+    private EpcMatcher(long[] masks, long[] values, int rules){
+        nextRules = new int[rules];
+        Arrays.fill(nextRules, -1);
+        Map<List<Long>, List<Integer>> byMask = new LinkedHashMap<List<Long>, List<Integer>>();
+        for (int rule = 0; rule < rules; rule++){
+            List<Long> mask = Arrays.asList(masks[2 * rule], masks[2 * rule + 1]);
+            List<Integer> members = byMask.get(mask);
+            if (members == null)
+                byMask.put(mask, members = new ArrayList<Integer>());
+            members.add(rule);
+        }
+        List<List<Group>> index = new ArrayList<List<Group>>(groups.length);
+        for (int i = 0; i < groups.length; i++)
+            index.add(new ArrayList<Group>());
+        for (Map.Entry<List<Long>, List<Integer>> e : byMask.entrySet()){
+            Group group = new Group(e.getKey().get(0), e.getKey().get(1), e.getValue(), values, nextRules);
+            for (int rule : e.getValue())
+                register(index, group, values[2 * rule]);
+        }
+        for (int i = 0; i < groups.length; i++)
+            groups[i] = index.get(i).isEmpty() ? noGroups : index.get(i).toArray(noGroups);
+    }
+
+    /**
+     * Adds the group to the index slots of the value: its header, and its partition when the mask selects one
+     */
+    private static void register(List<List<Group>> index, Group group, long valueHi){
+        boolean partitioned = (group.maskHi >>> 50 & 0x7) == 0x7;
+        for (int partition = 0; partition < 8; partition++){
+            if (partitioned && partition != (int) (valueHi >>> 50 & 0x7))
+                continue;
+            List<Group> slot = index.get(index(valueHi) & ~0x7 | partition);
+            if (!slot.contains(group))
+                slot.add(group);
+        }
+    }
+
+    private static int index(long hi){
+        return (int) (hi >>> 56) << 3 | (int) (hi >>> 50) & 0x7;
+    }
+
+    /**
+     * @param rules the masks of every rule, the id of a rule being its index in the list
+     * @throws IllegalArgumentException when a mask reaches past the 96 first bits of the EPC
+     */
+    public static EpcMatcher compile(List<List<SelectMask>> rules){
+        long[] masks = new long[2 * rules.size()];
+        long[] values = new long[2 * rules.size()];
+        for (int rule = 0; rule < rules.size(); rule++){
+            if (rules.get(rule).isEmpty())
+                throw new IllegalArgumentException("Rule " + rule + " has no mask");
+            for (SelectMask mask : rules.get(rule)){
+                int offset = mask.getPointer() - SelectMask.epcPointer;
+                if (offset < 0 || offset + mask.getLength() > 96)
+                    throw new IllegalArgumentException("Rule " + rule + " reaches past the 96 bits of the EPC: " + mask);
+                for (int from = 0; from < mask.getLength(); from += 64){
+                    int length = Math.min(64, mask.getLength() - from);
+                    long ones = length == 64 ? -1l : (1l << length) - 1;
+                    long bits = mask.getBits(from, length);
+                    masks[2 * rule] |= Bits.hi(ones, offset + from, length);
+                    masks[2 * rule + 1] |= Bits.lo(ones, offset + from, length);
+                    values[2 * rule] |= Bits.hi(bits, offset + from, length);
+                    values[2 * rule + 1] |= Bits.lo(bits, offset + from, length);
+                }
+            }
+            if (masks[2 * rule] >>> 56 != 0xFF)
+                throw new IllegalArgumentException("Rule " + rule + " doesn't select the header");
+        }
+        return new EpcMatcher(masks, values, rules.size());
+    }
+
+    /**
+     * @return the number of rules
+     */
+    public int size(){
+        return nextRules.length;
+    }
+
+    /**
+     * Writes the ids of the rules the EPC matches from matches[0]
+     * @param matches large enough for every rule the EPC may match, {@link #size()} at most
+     * @return the number of rules matched
+     */
+    public int match(long hi, long lo, int[] matches){
+        int count = 0;
+        for (Group group : groups[index(hi)])
+            for (int rule = group.find(hi, lo); rule >= 0; rule = nextRules[rule])
+                matches[count++] = rule;
+        return count;
+    }
+
+    /**
+     * @return the smallest id of the rules the EPC matches, -1 if none
+     */
+    public int matchFirst(long hi, long lo){
+        int first = -1;
+        for (Group group : groups[index(hi)]){
+            int rule = group.find(hi, lo);
+            if (rule >= 0 && (first < 0 || rule < first))
+                first = rule;
+        }
+        return first;
+    }
+
+    /**
+     * Writes for each of the length EPCs given as hi/lo pairs from offset the smallest id of the rules it
+     * matches, -1 if none, from dst[0]
+     */
+    public void matchFirst(long[] hi, long[] lo, int offset, int length, int[] dst){
+        for (int i = 0; i < length; i++)
+            dst[i] = matchFirst(hi[offset + i], lo[offset + i]);
+    }
+
+    /**
+     * {@link #matchFirst(long[], long[], int, int, int[])} over the rows of a decoded batch, the invalid rows
+     * getting -1
+     */
+    public void matchFirst(Epc96Batch batch, int[] dst){
+        long[] hi = batch.getHiBits(), lo = batch.getLoBits();
+        for (int i = 0; i < batch.size(); i++)
+            dst[i] = batch.isValid(i) ? matchFirst(hi[i], lo[i]) : -1;
+    }
+
+    /**
+     * Rules sharing a mask: an open addressing table from the masked EPC words to the first of the rules having
+     * that value, the next ones being chained in ascending order
+     */
+    private final static class Group {
+        final long maskHi;
+        final long maskLo;
+        private final long[] keysHi;
+        private final long[] keysLo;
+        private final int[] firstRules;
+        private final int shift;
+
+        /**
+         * @param nextRules filled with the chains of the rules sharing a value
+         */
+        Group(long maskHi, long maskLo, List<Integer> rules, long[] values, int[] nextRules){
+            this.maskHi = maskHi;
+            this.maskLo = maskLo;
+            int slots = Integer.highestOneBit(rules.size() * 2 - 1) << 1;
+            shift = 64 - Integer.numberOfTrailingZeros(slots);
+            keysHi = new long[slots];
+            keysLo = new long[slots];
+            firstRules = new int[slots];
+            Arrays.fill(firstRules, -1);
+            for (int i = rules.size() - 1; i >= 0; i--){
+                int rule = rules.get(i);
+                int slot = slot(values[2 * rule], values[2 * rule + 1]);
+                nextRules[rule] = firstRules[slot];
+                keysHi[slot] = values[2 * rule];
+                keysLo[slot] = values[2 * rule + 1];
+                firstRules[slot] = rule;
+            }
+        }
+
+        /**
+         * @return the slot holding the value, or the empty one it goes to
+         */
+        private int slot(long hi, long lo){
+            int mask = firstRules.length - 1;
+            int slot = (int) ((hi ^ Long.rotateLeft(lo, 32)) * 0x9E3779B97F4A7C15l >>> shift);
+            for (;; slot = slot + 1 & mask)
+                if (firstRules[slot] < 0 || (keysHi[slot] == hi && keysLo[slot] == lo))
+                    return slot;
+        }
+
+        /**
+         * @return the first rule of the group the EPC matches, -1 if none
+         */
+        int find(long hi, long lo){
+            return firstRules[slot(hi & maskHi, lo & maskLo)];
+        }
+    }
+}
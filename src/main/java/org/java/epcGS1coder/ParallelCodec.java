@@ -0,0 +1,143 @@
+package org.java.epcGS1coder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Bulk decoding and encoding split across the workers of a {@link ForkJoinPool}. The input is halved until
+ * ranges of {@link #leafSize} EPCs are left, every range is processed by a single worker with its own scratch
+ * objects and written to its own slice of the output, so the output keeps the input order.
+ * <p>
+ * Invalid EPCs don't abort the bulk operation, they are left null (or reported through the batch status).
+ */
+
+public final class ParallelCodec {
+
+    /**
+     * EPCs processed by each worker task, large enough to amortize the forking
+     */
+    public final static int leafSize = 4096;
+
+    private ParallelCodec(){}
+
+    /**
+     * Decodes any supported hex encoded EPC, see {@link EpcDecoder#tryDecode(CharSequence, DecodeResult)}
+     * @return the decoded EPCs in the input order, null for the invalid ones
+     */
+    public static Epc[] decode(List<? extends CharSequence> epcs, ForkJoinPool pool){
+        if (!(epcs instanceof RandomAccess))
+            epcs = Arrays.asList(epcs.toArray(new CharSequence[0]));
+        final List<? extends CharSequence> input = epcs;
+        final Epc[] output = new Epc[input.size()];
+        pool.invoke(new RangeTask(0, output.length, (from, to) -> {
+            DecodeResult result = new DecodeResult();
+            int valid = 0;
+            for (int i = from; i < to; i++)
+                if (EpcDecoder.tryDecode(input.get(i), result) == DecodeStatus.ok){
+                    output[i] = result.getEpc();
+                    valid++;
+                }
+            return valid;
+        }));
+        return output;
+    }
+
+    public static Epc[] decode(List<? extends CharSequence> epcs){
+        return decode(epcs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Decodes length hex encoded EPCs from epcs[offset] into the batch columns, each worker filling its own rows
+     * @return the number of valid rows
+     */
+    public static int decode(CharSequence[] epcs, int offset, int length, Epc96Batch batch, ForkJoinPool pool){
+        batch.resize(length);
+        return pool.invoke(new RangeTask(0, length, (from, to) -> batch.decode(epcs, offset, from, to)));
+    }
+
+    /**
+     * Decodes count EPCs packed back to back, 12 bytes each, from offset into the batch columns
+     * @return the number of valid rows
+     */
+    public static int decode(byte[] packed, int offset, int count, Epc96Batch batch, ForkJoinPool pool){
+        batch.resize(count);
+        return pool.invoke(new RangeTask(0, count, (from, to) -> batch.decode(packed, offset, from, to)));
+    }
+
+    /**
+     * @return the hex encoding of every EPC, in the input order
+     */
+    public static String[] encode(List<? extends Epc> epcs, ForkJoinPool pool){
+        if (!(epcs instanceof RandomAccess))
+            epcs = Arrays.asList(epcs.toArray(new Epc[0]));
+        final List<? extends Epc> input = epcs;
+        final String[] output = new String[input.size()];
+        pool.invoke(new RangeTask(0, output.length, (from, to) -> {
+            for (int i = from; i < to; i++)
+                output[i] = input.get(i).getEpc();
+            return to - from;
+        }));
+        return output;
+    }
+
+    public static String[] encode(List<? extends Epc> epcs){
+        return encode(epcs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Packs 96-bit EPCs back to back, 12 bytes each, in the input order
+     */
+    public static byte[] encodePacked(List<? extends Epc> epcs, ForkJoinPool pool){
+        if (!(epcs instanceof RandomAccess))
+            epcs = Arrays.asList(epcs.toArray(new Epc[0]));
+        final List<? extends Epc> input = epcs;
+        final byte[] output = new byte[12 * input.size()];
+        pool.invoke(new RangeTask(0, input.size(), (from, to) -> {
+            ByteBuffer buffer = ByteBuffer.wrap(output, 12 * from, 12 * (to - from));
+            for (int i = from; i < to; i++){
+                Epc epc = input.get(i);
+                if (epc.getBitLength() != 96)
+                    throw new IllegalArgumentException("Only 96-bit EPCs can be packed: " + epc.getEpc());
+                epc.writeTo(buffer);
+            }
+            return to - from;
+        }));
+        return output;
+    }
+
+    private interface RangeAction {
+        /**
+         * @return the number of valid EPCs in [from, to)
+         */
+        int apply(int from, int to);
+    }
+
+    private static final class RangeTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final RangeAction action;
+
+        private RangeTask(int from, int to, RangeAction action){
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected Integer compute(){
+            if (to - from <= leafSize)
+                return action.apply(from, to);
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(from, middle, action);
+            left.fork();
+            int right = new RangeTask(middle, to, action).compute();
+            return left.join() + right;
+        }
+    }
+}
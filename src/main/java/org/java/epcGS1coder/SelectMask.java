@@ -0,0 +1,242 @@
+package org.java.epcGS1coder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.java.epcGS1coder.adi.AdiVar;
+import org.java.epcGS1coder.gid.Gid96;
+import org.java.epcGS1coder.usdod.Usdod96;
+import org.java.epcGS1coder.util.BitArray;
+import org.java.epcGS1coder.util.PartitionTable;
+import org.java.epcGS1coder.util.TableG1;
+
+/**
+ * The MemBank, Pointer, Length and Mask of a Gen2 Select command matching the tags whose EPC holds some given
+ * field values, e.g. the SGTINs of one company prefix or of one GTIN, so the reader singulates only those.
+ * <p>
+ * The fields given are laid out as in the binary encoding (Table 14-2 and the like), the header always being
+ * one of them. Each run of adjacent fields gives a mask: a spec leaving a field out in between, such as the
+ * filter of a company prefix, gives two. A tag matching all the masks is selected by issuing the first Select
+ * with Action 000 and the next ones with Action 010, which deasserts SL on the tags they don't match.
+ */
+
+public final class SelectMask {
+
+    /** MemBank of the EPC memory bank */
+    public final static int epcMemoryBank = 0b01;
+    /** Bit address of the EPC in the EPC memory bank, after the StoredCRC and StoredPC words */
+    public final static int epcPointer = 0x20;
+    /** Value of a field left out of the spec, matching any value */
+    public final static int any = -1;
+
+    private final int pointer;
+    private final int length;
+    private final long[] mask;
+
+    private SelectMask(long[] epc, int offset, int length){
+        this.pointer = epcPointer + offset;
+        this.length = length;
+        mask = BitArray.allocate(length);
+        for (int i = 0; i < length; i += 64){
+            int bits = Math.min(64, length - i);
+            BitArray.set(mask, i, bits, BitArray.get(epc, offset + i, bits));
+        }
+    }
+
+    public int getMemoryBank(){
+        return epcMemoryBank;
+    }
+
+    /**
+     * @return bit address of the first masked bit in the EPC memory bank
+     */
+    public int getPointer(){
+        return pointer;
+    }
+
+    /**
+     * @return number of masked bits
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * @return the mask bits, most significant first, padded with zeros to a whole byte
+     */
+    public byte[] getMask(){
+        return BitArray.toBytes(mask, (length + 7) / 8);
+    }
+
+    /**
+     * @return the mask bits as hex, padded with zeros to a whole digit
+     */
+    public String getMaskHex(){
+        return BitArray.toHex(mask, (length + 3) / 4);
+    }
+
+    /**
+     * @return length bits of the mask from its bit from, at most 64
+     */
+    long getBits(int from, int length){
+        return BitArray.get(mask, from, length);
+    }
+
+    @Override
+    public String toString(){
+        return "MemBank " + epcMemoryBank + ", Pointer 0x" + Integer.toHexString(pointer) + ", Length " + length + ", Mask " + getMaskHex();
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if (!(o instanceof SelectMask))
+            return false;
+        SelectMask other = (SelectMask) o;
+        return other.pointer == pointer && other.length == length && Arrays.equals(other.mask, mask);
+    }
+
+    @Override
+    public int hashCode(){
+        return 31 * (31 * pointer + length) + Arrays.hashCode(mask);
+    }
+
+    /**
+     * Masks of a GS1 scheme with a partition (SGTIN, SSCC, SGLN, GRAI, GIAI, GSRN, GSRNP, GDTI, CPI, SGCN, ITIP)
+     * @param header epcHeader of the scheme, e.g. Sgtin96.epcHeader
+     * @param filter filter value or {@link #any}
+     * @param companyPrefixDigits company prefix length or {@link #any}, the company prefix being ignored then
+     * @param reference the numeric field following the company prefix (see {@link EpcFields#getReference(long, long)})
+     *                  or {@link #any}, only given with a company prefix
+     */
+    public static List<SelectMask> fromFields(byte header,
+                                              int filter,
+                                              int companyPrefixDigits,
+                                              long companyPrefix,
+                                              long reference){
+        PartitionTable table = EpcFields.getPartitionTable(header & 0xFF);
+        Fields fields = new Fields(header);
+        fields.filter(header, filter);
+        if (companyPrefixDigits != any){
+            int partition = PartitionTable.getPartition(companyPrefixDigits);
+            if (companyPrefix < 0 || companyPrefix >= PartitionTable.getCompanyPrefixLimit(partition))
+                throw new IllegalArgumentException("Company Prefix out of range for " + companyPrefixDigits + " digits: " + companyPrefix);
+            fields.add(8 + 3, 3, partition);
+            fields.add(PartitionTable.companyPrefixOffset, PartitionTable.getCompanyPrefixBits(partition), companyPrefix);
+            if (reference != any){
+                if (!EpcFields.hasNumericReference(header & 0xFF))
+                    throw new IllegalArgumentException("No numeric reference in header 0x" + Integer.toHexString(header & 0xFF));
+                if (reference < 0 || reference >= table.getReferenceLimit(partition))
+                    throw new IllegalArgumentException("Reference out of range: " + reference);
+                fields.add(table.getReferenceOffset(partition), table.getReferenceBits(partition), reference);
+            }
+        } else if (reference != any)
+            throw new IllegalArgumentException("A reference can only be selected along with its company prefix");
+        return fields.toMasks();
+    }
+
+    /**
+     * Masks of GID-96 tags
+     * @param generalManagerNumber General Manager Number or {@link #any}
+     * @param objectClass Object Class or {@link #any}
+     */
+    public static List<SelectMask> fromGidFields(long generalManagerNumber, long objectClass){
+        Fields fields = new Fields(Gid96.epcHeader);
+        if (generalManagerNumber != any)
+            fields.add(8, 28, check(generalManagerNumber, 28, "General Manager Number"));
+        if (objectClass != any)
+            fields.add(8 + 28, 24, check(objectClass, 24, "Object Class"));
+        return fields.toMasks();
+    }
+
+    /**
+     * Masks of USDOD-96 tags
+     * @param filter filter value or {@link #any}
+     * @param governmentManagedIdentifier 5 characters CAGE code, 6 characters DoDAAC or null for any
+     */
+    public static List<SelectMask> fromUsdodFields(int filter, String governmentManagedIdentifier){
+        byte header = Usdod96.epcHeader;
+        Fields fields = new Fields(header);
+        fields.filter(header, filter);
+        if (governmentManagedIdentifier != null){
+            String gmi = cage(governmentManagedIdentifier, 6);
+            long value = 0;
+            for (int i = 0; i < gmi.length(); i++)
+                value = value << 8 | gmi.charAt(i);
+            fields.add(8 + 4, 48, value);
+        }
+        return fields.toMasks();
+    }
+
+    /**
+     * Masks of ADI-var tags
+     * @param filter filter value or {@link #any}
+     * @param cage 5 characters CAGE code or null for any
+     */
+    public static List<SelectMask> fromAdiFields(int filter, String cage){
+        byte header = AdiVar.epcHeader;
+        Fields fields = new Fields(header);
+        fields.filter(header, filter);
+        if (cage != null){
+            String gmi = cage(cage, 5);
+            long value = 0;
+            for (int i = 0; i < gmi.length(); i++)
+                value = value << 6 | TableG1.encode(gmi.charAt(i));
+            fields.add(8 + 6, 36, value);
+        }
+        return fields.toMasks();
+    }
+
+    /**
+     * @return the CAGE code padded with the leading ' ' of its encoding
+     */
+    private static String cage(String cage, int maxLength){
+        if (cage.length() != 5 && cage.length() != maxLength)
+            throw new IllegalArgumentException("Government managed identifier must be a 5 characters CAGE" + (maxLength == 6 ? " or a 6 characters DoDAAC" : ""));
+        for (int i = 0; i < cage.length(); i++)
+            if (!TableG1.isCageValid(cage.charAt(i)))
+                throw new IllegalArgumentException("Invalid CAGE code character");
+        return cage.length() == 5 ? " " + cage : cage;
+    }
+
+    private static long check(long value, int bits, String field){
+        if (value < 0 || value >= 1l << bits)
+            throw new IllegalArgumentException(field + " too large, max value (exclusive): " + (1l << bits));
+        return value;
+    }
+
+    /**
+     * The fields of a spec, added in the order of the encoding, laid out in the first 96 bits of an EPC
+     */
+    private final static class Fields {
+        private final long[] epc = BitArray.allocate(96);
+        private final List<int[]> runs = new ArrayList<int[]>();
+
+        Fields(byte header){
+            add(0, 8, header & 0xFF);
+        }
+
+        void filter(byte header, int filter){
+            if (filter == any)
+                return;
+            int bits = EpcFields.getFilterBits(header & 0xFF);
+            add(8, bits, check(filter, bits, "Filter"));
+        }
+
+        void add(int offset, int length, long value){
+            BitArray.set(epc, offset, length, value);
+            int[] last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+            if (last != null && last[1] == offset)
+                last[1] = offset + length;
+            else
+                runs.add(new int[]{offset, offset + length});
+        }
+
+        List<SelectMask> toMasks(){
+            List<SelectMask> masks = new ArrayList<SelectMask>(runs.size());
+            for (int[] run : runs)
+                masks.add(new SelectMask(epc, run[0], run[1] - run[0]));
+            return masks;
+        }
+    }
+}
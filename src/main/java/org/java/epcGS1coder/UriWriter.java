@@ -0,0 +1,71 @@
+package org.java.epcGS1coder;
+
+/**
+ * Writes EPC Tag URIs of any scheme into caller supplied arrays, e.g. the output buffer of an EPCIS event
+ * serializer, through {@link Epc#appendUri(StringBuilder)}: the URI String is never created and the writer
+ * reuses its scratch builder, so writing an URI doesn't allocate. The Pure Identity URIs of EPCIS events are
+ * written the same way, from an Epc or straight from the bits of an {@link Epc96View}.
+ * <p>
+ * A writer isn't thread safe, use one per thread.
+ */
+
+public final class UriWriter {
+
+    private final StringBuilder scratch = new StringBuilder(128);
+    private char[] chars = new char[128];
+
+    /**
+     * @return the number of chars written at dst[offset]
+     * @throws IndexOutOfBoundsException if the URI doesn't fit, in which case nothing is written
+     */
+    public int write(Epc epc, char[] dst, int offset){
+        scratch.setLength(0);
+        int length = epc.appendUri(scratch).length();
+        if (offset < 0 || offset + length > dst.length)
+            throw new IndexOutOfBoundsException("URI of " + length + " chars doesn't fit at " + offset);
+        scratch.getChars(0, length, dst, offset);
+        return length;
+    }
+
+    /**
+     * Writes the URI as ASCII, one byte per char
+     * @return the number of bytes written at dst[offset]
+     * @throws IndexOutOfBoundsException if the URI doesn't fit, in which case nothing is written
+     */
+    public int write(Epc epc, byte[] dst, int offset){
+        scratch.setLength(0);
+        return copy(epc.appendUri(scratch), dst, offset);
+    }
+
+    /**
+     * Writes the Pure Identity URI as ASCII
+     * @return the number of bytes written at dst[offset]
+     * @throws IndexOutOfBoundsException if the URI doesn't fit, in which case nothing is written
+     */
+    public int writePureIdentity(Epc epc, byte[] dst, int offset){
+        scratch.setLength(0);
+        return copy(epc.appendPureIdentityUri(scratch), dst, offset);
+    }
+
+    /**
+     * Writes the Pure Identity URI of the wrapped EPC as ASCII, without decoding it into an Epc
+     * @return the number of bytes written at dst[offset]
+     * @throws IndexOutOfBoundsException if the URI doesn't fit, in which case nothing is written
+     */
+    public int writePureIdentity(Epc96View view, byte[] dst, int offset){
+        scratch.setLength(0);
+        return copy(view.appendPureIdentityUri(scratch), dst, offset);
+    }
+
+    private int copy(StringBuilder uri, byte[] dst, int offset){
+        int length = uri.length();
+        if (offset < 0 || offset + length > dst.length)
+            throw new IndexOutOfBoundsException("URI of " + length + " bytes doesn't fit at " + offset);
+        if (length > chars.length)
+            chars = new char[uri.capacity()];
+        uri.getChars(0, length, chars, 0);
+        for (int i = 0; i < length; i++)
+            dst[offset + i] = (byte) chars[i];
+        return length;
+    }
+}
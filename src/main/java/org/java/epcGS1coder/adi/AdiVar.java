@@ -1,9 +1,12 @@
 package org.java.epcGS1coder.adi;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.stream.Collectors;
+
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.BitArray;
+import org.java.epcGS1coder.util.TableG1;
+import org.java.epcGS1coder.util.UriParser;
 
 /**
  * <p>The variable-length Aerospace and Defense EPC identifier is designed for use by the aerospace and  defense sector for the unique identification of parts or items. The existing unique identifier  constructs are defined in the Air Transport Association (ATA) Spec 2000 standard [SPEC2000], and  the US Department of Defense Guide to Uniquely Identifying items [UID]. The ADI EPC construct  provides a mechanism to directly encode such unique identifiers in RFID tags and to use the URI  representations at other layers of the EPCglobal architecture. </p>
@@ -24,10 +27,13 @@ import java.util.stream.Collectors;
  * <p>The ATA Spec 2000 standard recommends that companies serialise uniquely within their CAGE code.  For companies who do serialise uniquely within their CAGE code or DODAAC, a zero-length string  SHALL be used in place of the Original Part Number element when constructing an EPC.</p>
  */
 
-public final class AdiVar {
-    private final static byte epcHeader = 0b00111011;
+public final class AdiVar implements Epc {
+    public final static byte epcHeader = 0b00111011;
     private final static byte cageSize = 5;
+    // header, filter and the 6 characters of the ' ' padded CAGE code
+    private final static int partNumberOffset = 8 + 6 + 36;
     private static final String uriHeader = "urn:epc:tag:adi-var:";
+    static final String pureIdentityUriHeader = "urn:epc:id:adi:";
 
     private AdiFilter filter;
     private String cage;
@@ -44,37 +50,41 @@ public final class AdiVar {
         this.filter = AdiFilter.values()[filter];
         if (cage.length() != cageSize)
             throw new IllegalArgumentException("CAGE code must be 5 characters long");
-        for (char ch : cage.toCharArray())
-            getCageCodeByte(ch); // Will throw an exception if the CAGE character is invalid.
+        for (int i = 0; i < cage.length(); i++)
+            if (!TableG1.isCageValid(cage.charAt(i)))
+                throw new IllegalArgumentException("Invalid CAGE code character"); // [a-zIO] & the rest of possible chars
         this.cage = cage;
         if (partNumber.length() > 32)
             throw new IllegalArgumentException("Part number must be between 0 and 32 characters long");
-        for (char ch : partNumber.toCharArray())
-            if (!((ch>='0' && ch <='9') || (ch>='A' && ch<='Z') || ch == '-' || ch == '/')) //Table G-1 (part number can't contain '#'')
+        for (int i = 0; i < partNumber.length(); i++){
+            char ch = partNumber.charAt(i);
+            if (!TableG1.isValid(ch) || ch == '#') //Table G-1 (part number can't contain '#'')
                 throw new IllegalArgumentException("Port number contains invalid character: " + ch);
+        }
         this.partNumber = partNumber;
         if (serial.length() == 0 || serial.length() > 30)
             throw new IllegalArgumentException("Serial number must be between 1 and 30 characters long");
-        for (char ch : serial.toCharArray())
-            if (!((ch>='0' && ch <='9') || (ch>='A' && ch<='Z') || ch == '#' || ch == '-' || ch == '/')) //Table G-1
-                throw new IllegalArgumentException("Serial contains invalid character: " + ch);
+        for (int i = 0; i < serial.length(); i++)
+            if (!TableG1.isValid(serial.charAt(i))) //Table G-1
+                throw new IllegalArgumentException("Serial contains invalid character: " + serial.charAt(i));
         if (serial.indexOf('#') > 0)
             throw new IllegalArgumentException("'#' can only appear at the beggining of the serial");
         this.serial = serial;
     }
 
-    private static byte getCageCodeByte(char cageChar){
-        if ((cageChar >= 'A' && cageChar <= 'Z' && cageChar != 'I' && cageChar != 'O') || cageChar == ' ')
-            return (byte) (cageChar & 0b111111);
-        if (cageChar >= '0' && cageChar <= '9')
-            return (byte) cageChar;
-        throw new IllegalArgumentException("Invalid CAGE code character"); // [a-zIO] & the rest of possible chars
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.adi;
+    }
+
+    @Override
+    public int getBitLength(){
+        return partNumberOffset+(partNumber.length()+1+serial.length()+1)*6;
     }
 
-    private static char getCageCodeChar(byte cageByte){
-        if (cageByte >= 0b00110000 && cageByte <= 0b00111001) // [0-9] (0x30 <-> 0x39)
-            return (char) cageByte;
-        return (char) (cageByte|0b01000000);
+    @Override
+    public byte getHeader(){
+        return epcHeader;
     }
 
     @Override
@@ -83,62 +93,59 @@ public final class AdiVar {
     }
 
     public String getEpc() {
-        if (epc == null){
-            int epcBitSize = 8+6+36+(partNumber.length()+1+serial.length()+1)*6;
-            epcBitSize+=epcBitSize%8;
-            
-            BitSet epc = new BitSet(); 
-            for (int j = 0,i=epcBitSize-8; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
-            
-            for (int j = 0,i=epcBitSize-(8+6); j < 6; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
-
-            int i = epcBitSize-(8+6+1);
-
-            for (int t : (" " + cage).chars().map(c -> getCageCodeByte((char) c)).toArray()){
-                byte b = (byte) t;
-                for (int j = 5; j >= 0; j--,i--)
-                    epc.set(i, ((b >> j) & 1) == 1);
-            }
-
-            for(int t = 0; t<partNumber.length();t++){
-                byte b = partNumber.getBytes()[t];
-                for (int j = 5; j >= 0; j--,i--)
-                    epc.set(i, ((b >> j) & 1) == 1);
-            }
-
-            for (int j = 0;j<6;i--,j++)
-                epc.clear(i);
-
-            for(int t = 0; t<serial.length();t++){
-                byte b = serial.getBytes()[t];
-                for (int j = 5; j >= 0; j--,i--)
-                    epc.set(i, ((b >> j) & 1) == 1);
-            }
-
-            for (int j = 0;j<6;i--,j++) 
-                epc.clear(i);
-            
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length - 1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-
-            this.epc = sb.toString().substring(0,(int) Math.ceil((8+6+36+(partNumber.length()+1+serial.length()+1)*6)/4f)); //this op is to get the minimum size epc
-        }
+        if (epc == null)
+            epc = BitArray.toHex(toWords(), (getBitLength() + 3) / 4); // the minimum size epc
         return epc;
     }
+
+    @Override
+    public byte[] toBytes(){
+        return BitArray.toBytes(toWords(), (getBitLength() + 7) / 8);
+    }
+
+    private long[] toWords(){
+        long[] words = BitArray.allocate(getBitLength());
+        BitArray.set(words, 0, 8, epcHeader);
+        BitArray.set(words, 8, 6, filter.getValue());
+        BitArray.set(words, partNumberOffset - 36, 6, TableG1.encode(' ')); // the encoded CAGE starts with a ' '
+        TableG1.encode(words, partNumberOffset - 30, cage);
+        TableG1.encode(words, partNumberOffset, partNumber);
+        // each of the part number and the serial is followed by a 0b000000 character, left as allocated
+        TableG1.encode(words, partNumberOffset + 6 * (partNumber.length() + 1), serial);
+        return words;
+    }
+
     private void setEpc(String epc){
         this.epc = epc;
     }
 
     public String getUri() {
         if (uri == null)
-            uri = uriHeader + filter.getValue() + "." + cage + "." + partNumber + "." + serial.chars().mapToObj(c -> getUriSerialChar((char) c)).collect(Collectors.joining());
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
 
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        TableG1.appendUri(sb.append(cage).append('.'), partNumber).append('.');
+        return TableG1.appendUri(sb, serial);
+    }
+
+    public int getFilter() {
+        return filter.getValue();
+    }
+
     public String getCage() {
         return cage;
     }
@@ -156,84 +163,78 @@ public final class AdiVar {
         return new AdiVar(filter, cage, partNumber,serial);
     }
 
-    public static AdiVar fromUri(String uri){
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        String cage = uriParts[1];
-        String partNumber = uriParts[2];
-        String serial = uriParts[3];
-        StringBuilder sb = new StringBuilder();
-        String[] serialSplit = serial.split("%");
-        sb.append(serialSplit[0]);
-        for (int i = 1; i < serialSplit.length; i++){
-            sb.append((char) Integer.parseInt(serialSplit[i].substring(0,2),16));
-            sb.append(serialSplit[i].substring(2));
-        }
+    public static AdiVar fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        return fromUriFields(parser, parser.nextInt());
+    }
 
-        return fromFields(filter, cage, partNumber, sb.toString());
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:adi:...), which doesn't carry the filter value
+     */
+    public static AdiVar fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
     }
 
-    public static AdiVar fromEpc(String epc){
-        if (epc.length()%2 !=0)
-            epc+="0";
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-        int epcBitSize= ((epc.length()*4)/8 + ((epc.length()*4)%8))*8;
-        ByteBuffer bb = ByteBuffer.allocate(epcBitSize);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
+    private static AdiVar fromUriFields(UriParser parser, int filter) {
+        String cage = parser.nextString();
+        String partNumber = parser.nextEscaped();
+        String serial = parser.restEscaped();
+        parser.end();
+        return fromFields(filter, cage, partNumber, serial);
+    }
 
-        BitSet bs = BitSet.valueOf(bb);
+    public static AdiVar fromEpc(String epc) {
+        AdiVar adiVar = fromWords(BitArray.fromHex(epc), epc.length() * 4);
+        adiVar.setEpc(epc);
+        return adiVar;
+    }
 
-        int i;
-        long tmp;
+    /**
+     * Decodes the binary encoding as read from the tag memory, the EPC spans the whole range
+     */
+    public static AdiVar fromBytes(byte[] bytes, int offset, int length) {
+        return fromWords(BitArray.fromBytes(bytes, offset, length), length * 8);
+    }
 
-        for(tmp = 0, i = epcBitSize; (i = bs.previousSetBit(i-1)) > epcBitSize - 8 - 1;)
-            tmp+=1L<<(i-(epcBitSize-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    /**
+     * Decodes the bytes remaining in the buffer, as the EPC length is only known once decoded
+     */
+    public static AdiVar fromBuffer(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return fromWords(BitArray.fromBytes(bytes, 0, bytes.length), bytes.length * 8);
+    }
 
-        for(tmp = 0, i = epcBitSize - 8; (i = bs.previousSetBit(i-1)) > epcBitSize - 8 - 6 - 1;)
-            tmp+=1L<<(i-(epcBitSize-8-6));
-        int filter = (int) tmp;
+    /**
+     * Decodes the EPC words, see {@link BitArray} for the layout
+     * @param epcBits number of bits the words hold, the EPC and its padding
+     */
+    private static AdiVar fromWords(long[] words, int epcBits) {
+        if (epcBits < partNumberOffset + 6 + 6 + 6)
+            throw new IllegalArgumentException("Invalid EPC: ADI-var must be at least " + (partNumberOffset + 18) + " bits long");
+        if (BitArray.get(words, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
 
-        byte[] tmpba;
+        int filter = (int) BitArray.get(words, 8, 6);
 
-        StringBuilder cageBuilder = new StringBuilder("");
-        i=epcBitSize-8-6;
-        if (bs.get(i-6,i).toByteArray()[0] != 32) // the encoded CAGE starts with a ' ' 
+        if (BitArray.get(words, partNumberOffset - 36, 6) != TableG1.encode(' ')) // the encoded CAGE starts with a ' '
             throw new IllegalArgumentException("CAGE code incorrectly encoded");
-        i-=6;  
-        for(int j = 0;j < cageSize && (tmpba = bs.get(i-6,i).toByteArray()).length!=0;i-=6,j++)
-            cageBuilder.append(getCageCodeChar(tmpba[0]));
-        String cage = cageBuilder.toString();
-
-        StringBuilder partNumberBuilder = new StringBuilder();
-        for(;(tmpba = bs.get(i-6,i).toByteArray()).length!=0;i-=6){
-            if (tmpba[0]>=0b000001 && tmpba[0] <= 0b011010) // Encoded [A-Z] => Table G-1 Characters Permitted in 6-bit Alphanumeric Fields
-                tmpba[0]|=0b01000000;    
-            partNumberBuilder.append(new String(tmpba));    
-        }
-        String partNumber = partNumberBuilder.toString();
+        String cage = TableG1.decode(words, partNumberOffset - 30, cageSize);
 
-        StringBuilder serialBuilder = new StringBuilder();
-        for(i-=6;(tmpba = bs.get(i-6,i).toByteArray()).length!=0;i-=6){
-            if (tmpba[0]>=0b000001 && tmpba[0] <= 0b011010) // Encoded [A-Z] => Table G-1 Characters Permitted in 6-bit Alphanumeric Fields
-                tmpba[0]|=0b01000000;
-            serialBuilder.append(new String(tmpba));
-        }
-        String serial = serialBuilder.toString();
+        int maxChars = (epcBits - partNumberOffset) / 6;
+        int partNumberLength = TableG1.length(words, partNumberOffset, maxChars);
+        if (partNumberLength < 0)
+            throw new IllegalArgumentException("Invalid EPC: part number not terminated");
+        String partNumber = TableG1.decode(words, partNumberOffset, partNumberLength);
+
+        int serialOffset = partNumberOffset + 6 * (partNumberLength + 1);
+        int serialLength = TableG1.length(words, serialOffset, maxChars - partNumberLength - 1);
+        if (serialLength < 0)
+            throw new IllegalArgumentException("Invalid EPC: serial not terminated");
+        String serial = TableG1.decode(words, serialOffset, serialLength);
 
         try{
-            AdiVar adiVar = new AdiVar(filter, cage, partNumber, serial);
-            adiVar.setEpc(epc);
-            return adiVar;
+            return new AdiVar(filter, cage, partNumber, serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
@@ -243,19 +244,17 @@ public final class AdiVar {
     public boolean equals(Object o){
         if (!(o instanceof AdiVar))
             return false;
-        return ((AdiVar) o).getUri().equals(getUri());
+        AdiVar other = (AdiVar) o;
+        return other.filter == filter && other.cage.equals(cage) && other.partNumber.equals(partNumber)
+                && other.serial.equals(serial);
     }
 
-    /**
-     * Table G-1 for the encoding
-     */
-    private String getUriSerialChar(char ch){
-        if (!((ch>='0' && ch <='9') || (ch>='A' && ch<='Z') || ch == '-' || ch == '/'))
-            throw new IllegalArgumentException("Wrong char");
-        if (ch == '#')
-            return "%23";
-        else 
-            return String.valueOf(ch);
+    @Override
+    public int hashCode(){
+        int hash = getFilter();
+        hash = 31 * hash + cage.hashCode();
+        hash = 31 * hash + partNumber.hashCode();
+        return 31 * hash + serial.hashCode();
     }
 
     enum AdiFilter {
@@ -275,7 +274,7 @@ public final class AdiVar {
         security_item_13(13),
         life_vests_14(14),
         oxygen_generator_15(15),
-        engine_component_16(15),
+        engine_component_16(16),
         avionics_17(17),
         flight_test_equip_18(18),
         other_emergency_equip_19(19),
@@ -1,11 +1,19 @@
 package org.java.epcGS1coder.cpi;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.PartitionTable;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Component / Part EPC identifier is designed for use by the technical industries (including the
  * automotive sector) for the unique identification of parts or components.
@@ -14,11 +22,12 @@ import org.apache.commons.lang3.StringUtils;
  * to use the URI representations at other layers of the EPCglobal architecture.
  */
 
-public final class Cpi96 extends Cpi{
+public final class Cpi96 extends Cpi implements Epc {
 
-    private final static byte epcHeader = 0b00111100;
-    private final static byte serialSize = 31;
+    public final static byte epcHeader = 0b00111100;
+    final static byte serialSize = 31;
     private static final String uriHeader = "urn:epc:tag:cpi-96:";
+    static final String pureIdentityUriHeader = "urn:epc:id:cpi:";
     
     private String epc = null;
     
@@ -50,36 +59,36 @@ public final class Cpi96 extends Cpi{
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(96); 
-            int i = 0;
-
-            for (int j = 0; j < serialSize; j++,i++)
-                epc.set(i, ((serial >> j) & 1)==1);
-
-            for (int j = 0; j < getComponentPartReferenceBits(partition); j++,i++)
-                epc.set(i, ((componentPartReference >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
+        return epc;
+    }
 
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(filter.getValue(), 8, 3)
+                | Bits.hi(partition, 8 + 3, 3)
+                | Bits.hi(companyPrefix, 8 + 3 + 3, cpb)
+                | Bits.hi(componentPartReference, 8 + 3 + 3 + cpb, getComponentPartReferenceBits(partition))
+                | Bits.hi(serial, 96 - serialSize, serialSize);
+    }
 
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.lo(componentPartReference, 8 + 3 + 3 + cpb, getComponentPartReferenceBits(partition))
+                | Bits.lo(serial, 96 - serialSize, serialSize);
+    }
 
-            this.epc = sb.toString();
-        }
-        return epc;
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
     }
 
     private void setEpc(String epc) {
@@ -104,9 +113,25 @@ public final class Cpi96 extends Cpi{
 
     public String getUri(){
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+componentPartReference+"."+String.valueOf(serial);
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        return Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.').append(componentPartReference).append('.').append(serial);
+    }
     private void setUri(String uri){
         this.uri = uri;
     };
@@ -125,77 +150,126 @@ public final class Cpi96 extends Cpi{
         return new Cpi96(filter, companyPrefixDigits, Long.parseLong(ai8010.substring(0, companyPrefixDigits)), Integer.parseInt(ai8010.substring(companyPrefixDigits)), ai8011);
     }
 
+    /**
+     * {@link #fromGs1Key(int, int, String, long)} with the company prefix length looked up in the index
+     */
+    public static Cpi96 fromGs1Key(int filter, GcpLengthIndex index, String ai8010, long ai8011) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai8010, 0), ai8010, ai8011);
+    }
 
-    public static Cpi96 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int componentPartReference = Integer.parseInt(uriParts[2]);
-        long serial = Long.parseLong(uriParts[3]);
-
-        Cpi96 cpi96 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,componentPartReference,serial);
-        cpi96.setUri(uri);
 
+    public static Cpi96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Cpi96 cpi96 = fromUriFields(parser, parser.nextInt());
+        cpi96.setUri(uri.toString());
         return cpi96;
     }
 
-    public static Cpi96 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(96/8);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:cpi:...), which doesn't carry the filter value
+     */
+    public static Cpi96 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        int i;
-        long tmp;
+    private static Cpi96 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int componentPartReference = parser.nextInt();
+        long serial = parser.nextLong();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,componentPartReference,serial);
+    }
 
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp+=1L<<(i-(96-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    public static Cpi96 fromEpc(String epc) {
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: CPI-96 must be 24 hex characters long");
+        Cpi96 cpi96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        cpi96.setEpc(epc);
+        return cpi96;
+    }
 
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3));
-        int filter = (int) tmp;
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Cpi96 fromBits(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
 
-        for(tmp = 0, i = 96 - 8 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) Bits.get(hi, lo, 8, 3);
+        int partition = (int) Bits.get(hi, lo, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb));
-        long companyPrefix = tmp;
+        long companyPrefix = Bits.get(hi, lo, 8 + 3 + 3, cpb);
 
-        byte cprb = getComponentPartReferenceBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - cprb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb-cprb));
-        int componentPartReference = (int) tmp;
+        int componentPartReference = (int) Bits.get(hi, lo, 8 + 3 + 3 + cpb, getComponentPartReferenceBits(partition));
 
         //for the remainder, which is the serial, we can use fixed values
-        for(tmp = 0, i = serialSize; (i = bs.previousSetBit(i-1)) > -1;)
-            tmp+=1L<<i;
-        long serial = tmp;
-
-        try{
-            Cpi96 cpi96 = new Cpi96(filter,getCompanyPrefixDigits(partition),companyPrefix,componentPartReference,serial);
-            cpi96.setEpc(epc);
-            return cpi96;
+        long serial = Bits.get(hi, lo, 96 - serialSize, serialSize);
+        try {
+            return new Cpi96(filter,getCompanyPrefixDigits(partition),companyPrefix,componentPartReference,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
 
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        if (Bits.get(hi, lo, 8 + 3, 3) > 6)
+            return DecodeStatus.invalid_partition;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Cpi96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: CPI-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Cpi96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
+
+    /**
+     * @return the AI (8010) CPI as {@link #fromGs1Key(int, int, String, long)} takes it
+     */
+    public String toGs1Key(){
+        return Uri.appendPadded(new StringBuilder(32), companyPrefix, getCompanyPrefixDigits(partition)).append(componentPartReference).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        Uri.appendPadded(sb.append("(8010)"), companyPrefix, getCompanyPrefixDigits(partition)).append(componentPartReference);
+        return sb.append("(8011)").append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.cpi;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -205,84 +279,56 @@ public final class Cpi96 extends Cpi{
     public boolean equals(Object o){
         if (!(o instanceof Cpi96))
             return false;
-        return ((Cpi96) o).getUri().equals(getUri());
+        Cpi96 other = (Cpi96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
+    }
+
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
     }
 
     /**
-     * Table 14-20 CPI-96 Partition Table
+     * Table 14-24 CPI-96 Partition Table
      * @param partition
      * @return M value
      */
     protected static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
-     * Table 14-20 CPI-96 Partition Table
+     * Table 14-24 CPI-96 Partition Table
      * @param partition
      * @return N value
      */
     protected static byte getComponentPartReferenceBits(int partition){
-        switch (partition){
-            case 0:
-                return 11;
-            case 1:
-                return 14;
-            case 2:
-                return 17;
-            case 3:
-                return 21;
-            case 4:
-                return 24;
-            case 5:
-                return 27;
-            case 6:
-                return 31;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.cpi96.getReferenceBits(partition);
     }
 
     /**
-     * Table 14-20 CPI-96 Partition Table
+     * Table 14-24 CPI-96 Partition Table
      * @param companyPrefixDigits (L) value
      * @return P value
      */
     protected static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
-     * Table 14-20 CPI-96 Partition Table
+     * Table 14-24 CPI-96 Partition Table
      * @param P
      * @return L
      */
     protected static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
-     * Table 14-20 CPI-96 Partition Table
+     * Table 14-24 CPI-96 Partition Table
      * @param P
      */
     protected static int getComponentPartReferenceDigits(int partition){
-        return partition+3;
+        return PartitionTable.cpi96.getReferenceDigits(partition);
     }
 }
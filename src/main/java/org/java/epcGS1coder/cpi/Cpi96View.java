@@ -0,0 +1,53 @@
+package org.java.epcGS1coder.cpi;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+import org.java.epcGS1coder.util.Uri;
+
+/**
+ * Reusable view of an CPI-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Cpi96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Cpi96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 3);
+    }
+
+    private int getPartition(){
+        return (int) get(8 + 3, 3);
+    }
+
+    public int getCompanyPrefixDigits(){
+        return Cpi96.getCompanyPrefixDigits(getPartition());
+    }
+
+    public long getCompanyPrefix(){
+        return get(8 + 3 + 3, Cpi96.getCompanyPrefixBits(getPartition()));
+    }
+
+    public int getComponentPartReference(){
+        int partition = getPartition();
+        return (int) get(8 + 3 + 3 + Cpi96.getCompanyPrefixBits(partition), Cpi96.getComponentPartReferenceBits(partition));
+    }
+
+    public long getSerial(){
+        return get(96 - Cpi96.serialSize, Cpi96.serialSize);
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        Uri.appendPadded(sb.append(Cpi96.pureIdentityUriHeader), getCompanyPrefix(), getCompanyPrefixDigits()).append('.');
+        return sb.append(getComponentPartReference()).append('.').append(getSerial());
+    }
+
+    @Override
+    public Cpi96 toEpc(){
+        return Cpi96.fromBits(getHiBits(), getLoBits());
+    }
+}
@@ -1,9 +1,15 @@
 package org.java.epcGS1coder.cpi;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.stream.Collectors;
+
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.BitArray;
+import org.java.epcGS1coder.util.PartitionTable;
+import org.java.epcGS1coder.util.TableG1;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
 
 /**
  * The Component / Part EPC identifier is designed for use by the technical industries (including the
@@ -13,12 +19,13 @@ import java.util.stream.Collectors;
  * to use the URI representations at other layers of the EPCglobal architecture.
  */
 
-public final class CpiVar extends Cpi{
+public final class CpiVar extends Cpi implements Epc {
     
-    private final static byte epcHeader = 0b00111101;
+    public final static byte epcHeader = 0b00111101;
     private final static int serialSize = 40;
     private final static long maxSerialValue = 999999999999l;
     private final static String uriHeader = "urn:epc:tag:cpi-var:";
+    final static String pureIdentityUriHeader = "urn:epc:id:cpi:";
     
     private String epc;
     
@@ -42,6 +49,8 @@ public final class CpiVar extends Cpi{
         int maxDigits = getComponentPartReferenceMaximumDigits(partition);
         if (componentPartReference.length() > maxDigits)
             throw new IllegalArgumentException("Company/Part Reference must at the very most "+maxDigits+" digits characters long");
+        if (!TableG1.isValid(componentPartReference))
+            throw new IllegalArgumentException("Company/Part Reference contains invalid characters: " + componentPartReference);
         this.componentPartReference = componentPartReference;
         if (serial > maxSerialValue)
             throw new IllegalArgumentException("Serial max value is " + maxSerialValue);
@@ -63,51 +72,37 @@ public final class CpiVar extends Cpi{
         return new CpiVar(filter, companyPrefixDigits, Long.parseLong(ai8010.substring(0, companyPrefixDigits)), ai8010.substring(companyPrefixDigits), ai8011);
     }
 
-    public String getEpc() {
+    /**
+     * {@link #fromGs1Key(int, int, String, long)} with the company prefix length looked up in the index
+     */
+    public static CpiVar fromGs1Key(int filter, GcpLengthIndex index, String ai8010, long ai8011) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai8010, 0), ai8010, ai8011);
+    }
 
-        int epcBitSize = 8+3+3+getCompanyPrefixBits(partition) + (componentPartReference.length()+1) * 6 + 40;
-         
-        if (epc == null){
-
-            int bsSize = (int) Math.ceil(epcBitSize/8f)*8;
-            BitSet bs = new BitSet(bsSize);
-
-            for (int j = 0, i=bsSize - 8; j < 8; j++,i++)
-                bs.set(i, ((epcHeader >> j) & 1)==1);
-
-            for (int j = 0, i=bsSize - (8+3); j < 3; j++,i++)
-                bs.set(i, ((filter.getValue() >> j) & 1)==1);
-
-            for (int j = 0, i=bsSize - (8+3+3); j < 3; j++,i++)
-                bs.set(i, ((partition >> j) & 1)==1);
-            
-            for (int j = 0, i=bsSize - (8+3+3+getCompanyPrefixBits(partition)); j < getCompanyPrefixBits(partition); j++,i++)
-                bs.set(i, ((companyPrefix >> j) & 1)==1);
-                
-                            
-            int k = bsSize - (8+3+3+getCompanyPrefixBits(partition)+1);
-            for (byte b : componentPartReference.getBytes()) {
-                for (int j = 5; j >= 0; j--,k--)
-                    bs.set(k, ((b >> j) & 1) == 1);
-            }
-            //In the epc the companyPartReference must be followed by 0b000000;
-            for (int j = 5; j >= 0; j--,k--)
-                bs.clear(k);
-
-            for (int j = 0, i = k - 40 + 1 ; j < serialSize; j++,i++) 
-                 bs.set(i, ((serial >> j) & 1)==1);
-
-            byte[] epcba = bs.toByteArray();
-
-            StringBuffer sb = new StringBuffer();
-            for (int i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-
-            this.epc = sb.toString();
-        }
+    public String getEpc() {
+        if (epc == null)
+            epc = BitArray.toHex(toWords(), (getBitLength() + 7) / 8 * 2);
         return epc;
     }
 
+    @Override
+    public byte[] toBytes(){
+        return BitArray.toBytes(toWords(), (getBitLength() + 7) / 8);
+    }
+
+    private long[] toWords(){
+        int referenceOffset = 8 + 3 + 3 + getCompanyPrefixBits(partition);
+        long[] words = BitArray.allocate(getBitLength());
+        BitArray.set(words, 0, 8, epcHeader);
+        BitArray.set(words, 8, 3, filter.getValue());
+        BitArray.set(words, 8 + 3, 3, partition);
+        BitArray.set(words, 8 + 3 + 3, getCompanyPrefixBits(partition), companyPrefix);
+        TableG1.encode(words, referenceOffset, componentPartReference);
+        //In the epc the companyPartReference must be followed by 0b000000, left as allocated
+        BitArray.set(words, referenceOffset + 6 * (componentPartReference.length() + 1), serialSize, serial);
+        return words;
+    }
+
     public int getFilter() {
         return filter.getValue();
     }
@@ -126,10 +121,55 @@ public final class CpiVar extends Cpi{
 
     public String getUri() {
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+componentPartReference.chars().mapToObj(c -> getUriCompanyPartReferenceChar((char) c)).collect(Collectors.joining())+"."+serial;
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
 
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        return TableG1.appendUri(sb, componentPartReference).append('.').append(serial);
+    }
+
+    /**
+     * @return the AI (8010) CPI as {@link #fromGs1Key(int, int, String, long)} takes it
+     */
+    public String toGs1Key(){
+        return Uri.appendPadded(new StringBuilder(32), companyPrefix, getCompanyPrefixDigits(partition)).append(componentPartReference).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        Uri.appendPadded(sb.append("(8010)"), companyPrefix, getCompanyPrefixDigits(partition)).append(componentPartReference);
+        return sb.append("(8011)").append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.cpi;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 8+3+3+getCompanyPrefixBits(partition)+(componentPartReference.length()+1)*6+serialSize;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -139,129 +179,109 @@ public final class CpiVar extends Cpi{
     public boolean equals(Object o){
         if (!(o instanceof CpiVar))
             return false;
-        return ((CpiVar) o).getUri().equals(getUri());
+        CpiVar other = (CpiVar) o;
+        return other.filter == filter && other.partition == partition && other.companyPrefix == companyPrefix
+                && other.componentPartReference.equals(componentPartReference) && other.serial == serial;
+    }
+
+    @Override
+    public int hashCode(){
+        int hash = getFilter();
+        hash = 31 * hash + partition;
+        hash = 31 * hash + Long.hashCode(companyPrefix);
+        hash = 31 * hash + componentPartReference.hashCode();
+        return 31 * hash + Long.hashCode(serial);
     }
 
     private void setEpc(String epc){ this.epc = epc; }
     private void setUri(String uri){ this.uri = uri; }
 
-    public static CpiVar fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
+    public static CpiVar fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        CpiVar cpiVar = fromUriFields(parser, parser.nextInt());
+        cpiVar.setUri(uri.toString());
+        return cpiVar;
+    }
 
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        String companyPartReference = uriParts[2];
-        long serial = Long.parseLong(uriParts[3]);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:cpi:...), which doesn't carry the filter value
+     */
+    public static CpiVar fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        CpiVar cpiVar = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,companyPartReference,serial);
-        cpiVar.setUri(uri);
-        return cpiVar;
+    private static CpiVar fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        String companyPartReference = parser.nextEscaped();
+        long serial = parser.nextLong();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,companyPartReference,serial);
     }
 
     public static CpiVar fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        if (epc.length() % 2 != 0)
-            epc+="0";
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(epc.length() * 4);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
+        CpiVar cpiVar = fromWords(BitArray.fromHex(epc), epc.length() * 4);
+        cpiVar.setEpc(epc);
+        return cpiVar;
+    }
 
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Decodes the binary encoding as read from the tag memory, the EPC spans the whole range
+     */
+    public static CpiVar fromBytes(byte[] bytes, int offset, int length) {
+        return fromWords(BitArray.fromBytes(bytes, offset, length), length * 8);
+    }
 
-        int i;
-        int epcBits = epc.length()*4;
-        long tmp;
+    /**
+     * Decodes the bytes remaining in the buffer, as the EPC length is only known once decoded
+     */
+    public static CpiVar fromBuffer(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return fromWords(BitArray.fromBytes(bytes, 0, bytes.length), bytes.length * 8);
+    }
 
-        for(tmp = 0, i = epcBits; (i = bs.previousSetBit(i-1)) > epcBits - 8 - 1;)
-            tmp+=1L<<(i-(epcBits-8));
-        if (tmp != epcHeader)
+    /**
+     * Decodes the EPC words, see {@link BitArray} for the layout
+     * @param epcBits number of bits the words hold, the EPC and its padding
+     */
+    private static CpiVar fromWords(long[] words, int epcBits) {
+        if (epcBits < 8 + 3 + 3)
+            throw new IllegalArgumentException("Invalid EPC: too short for CPI-var");
+        if (BitArray.get(words, 0, 8) != epcHeader)
             throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
 
-        for(tmp = 0, i = epcBits - 8; (i = bs.previousSetBit(i-1)) > epcBits - 8 - 3 - 1;)
-            tmp+=1L<<(i-(epcBits-8-3));
-        int filter = (int) tmp;
-
-        for(tmp = 0, i = epcBits - 8 - 3; (i = bs.previousSetBit(i-1)) > epcBits - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(epcBits-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) BitArray.get(words, 8, 3);
+        int partition = (int) BitArray.get(words, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = epcBits - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > epcBits - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(epcBits-8-3-3-cpb));
-        long companyPrefix = tmp;
-
-        byte[] tmpba;
-        StringBuilder companyPartReferenceBuilder = new StringBuilder("");
-        i++;
-        for(int j = 0;j < getComponentPartReferenceMaximumDigits(partition) && (tmpba = bs.get(i-6,i).toByteArray()).length!=0;i-=6,j++){
-            if (tmpba[0]>=0b000001 && tmpba[0] <= 0b011010) // Encoded [A-Z] => Table G-1 Characters Permitted in 6-bit Alphanumeric Fields
-                tmpba[0]|=0b01000000;    
-            companyPartReferenceBuilder.append(new String(tmpba));        
-        }
-        i-=6;
-        String companyPartReference = companyPartReferenceBuilder.toString();
+        int referenceOffset = 8 + 3 + 3 + cpb;
+        if (epcBits < referenceOffset + 6 + serialSize)
+            throw new IllegalArgumentException("Invalid EPC: too short for CPI-var");
+        long companyPrefix = BitArray.get(words, 8 + 3 + 3, cpb);
 
-        long offset = i - serialSize;
-        for(tmp = 0, i = serialSize; (i = bs.previousSetBit(i-1)) > -1;)
-            tmp+=1L<<(i - offset);
-        long serial = tmp;
+        int maxChars = Math.min(getComponentPartReferenceMaximumDigits(partition) + 1, (epcBits - referenceOffset - serialSize) / 6);
+        int referenceLength = TableG1.length(words, referenceOffset, maxChars);
+        if (referenceLength < 0)
+            throw new IllegalArgumentException("Invalid EPC: component/part reference not terminated");
+        String componentPartReference = TableG1.decode(words, referenceOffset, referenceLength);
+
+        long serial = BitArray.get(words, referenceOffset + 6 * (referenceLength + 1), serialSize);
 
         try{
-            CpiVar cpiVar = new CpiVar(filter,getCompanyPrefixDigits(partition),companyPrefix,companyPartReference,serial);
-            cpiVar.setEpc(epc);
-            return cpiVar;
+            return new CpiVar(filter,getCompanyPrefixDigits(partition),companyPrefix,componentPartReference,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
 
-    /**
-     * Table A-1 for the encoding
-     */
-    private String getUriCompanyPartReferenceChar(char ch){
-        if (!((ch>='0' && ch<='9') || (ch>='A' && ch<='Z') || ch=='#' || ch=='-' || ch=='/')) 
-            throw new IllegalArgumentException("Wrong char");
-        switch (ch){
-            case '#':
-            case '/':
-                return "%"+String.format("%02x",(int) ch).toUpperCase();
-            default:
-                return String.valueOf(ch);
-        }
-    }
-
     /**
      * Table 14-25 CPI-var Partition Table
      * @param partition
      * @return M value
      */
     protected static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
@@ -270,24 +290,7 @@ public final class CpiVar extends Cpi{
      * @return N value
      */
     protected static short getComponentPartReferenceMaximumBits(int partition){
-        switch (partition){
-            case 0:
-                return 114;
-            case 1:
-                return 120;
-            case 2:
-                return 126;
-            case 3:
-                return 132;
-            case 4:
-                return 138;
-            case 5:
-                return 144;
-            case 6:
-                return 150;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (short) PartitionTable.cpiVar.getReferenceBits(partition);
     }
 
     /**
@@ -296,7 +299,7 @@ public final class CpiVar extends Cpi{
      * @return P value
      */
     protected static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
@@ -305,7 +308,7 @@ public final class CpiVar extends Cpi{
      * @return L
      */
     protected static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
@@ -313,6 +316,6 @@ public final class CpiVar extends Cpi{
      * @param P
      */
     protected static int getComponentPartReferenceMaximumDigits(int partition){
-        return partition+18;
+        return PartitionTable.cpiVar.getReferenceDigits(partition);
     }
 }
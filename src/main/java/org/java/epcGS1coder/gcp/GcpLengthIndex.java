@@ -0,0 +1,19 @@
+package org.java.epcGS1coder.gcp;
+
+/**
+ * Gives the length of the GS1 Company Prefix a GS1 key starts with, which the fromGs1Key overloads taking an
+ * index use instead of a caller supplied companyPrefixDigits. {@link GcpPrefixFormatList} implements it from the
+ * GS1 Company Prefix format list, other sources can be plugged in by implementing it.
+ */
+
+public interface GcpLengthIndex {
+
+    /**
+     * @param key a GS1 key as passed to fromGs1Key
+     * @param offset index of the first company prefix digit in the key: 1 for GTIN, SSCC and ITIP (after the
+     *               indicator or extension digit), 0 for the other keys
+     * @return the number of digits of the company prefix, from 6 to 12 for the EPC schemes to accept it
+     * @throws IllegalArgumentException when the key doesn't start with a known company prefix
+     */
+    int getCompanyPrefixDigits(CharSequence key, int offset);
+}
@@ -0,0 +1,212 @@
+package org.java.epcGS1coder.gcp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.java.epcGS1coder.util.Gs1;
+
+/**
+ * {@link GcpLengthIndex} over the GS1 Company Prefix format list (gcpprefixformatlist.xml), whose entries give
+ * the company prefix length of every key starting with a prefix, the longest matching prefix winning:
+ * <pre>
+ * &lt;entry prefix="0614141" gcpLength="7"/&gt;
+ * </pre>
+ * The 12 first company prefix digits of a key are read as a number, so every prefix covers a range of
+ * numbers. The nested ranges are flattened at load time into a sorted array of disjoint ranges, each holding
+ * the length of its longest prefix. A lookup parses the digits and binary searches the range starts, narrowed
+ * first by a table on the 3 leading digits: no allocation and about a dozen array reads.
+ */
+
+public final class GcpPrefixFormatList implements GcpLengthIndex {
+
+    private final static int keyDigits = 12;
+    private final static int bucketDigits = 3;
+    private final static long bucketWidth = Gs1.pow10(keyDigits - bucketDigits);
+
+    private long[] starts = new long[64];
+    private byte[] lengths = new byte[64];
+    private int size;
+    private final int[] buckets = new int[(int) Gs1.pow10(bucketDigits) + 1];
+
+    private GcpPrefixFormatList(long[] entries, int count){
+        Arrays.sort(entries, 0, count);
+        flatten(entries, count);
+        for (int bucket = 0, i = 0; bucket < buckets.length - 1; bucket++){
+            while (i + 1 < size && starts[i + 1] <= bucket * bucketWidth)
+                i++;
+            buckets[bucket] = i;
+        }
+        buckets[buckets.length - 1] = size - 1;
+    }
+
+    @Override
+    public int getCompanyPrefixDigits(CharSequence key, int offset){
+        long value = 0;
+        int digits = 0;
+        for (int i = offset; i < key.length() && digits < keyDigits; i++, digits++){
+            char ch = key.charAt(i);
+            if (ch < '0' || ch > '9')
+                break;
+            value = value * 10 + (ch - '0');
+        }
+        int length = lengths[find(value * Gs1.pow10(keyDigits - digits))];
+        if (length == 0 || length > digits)
+            throw new IllegalArgumentException("No GS1 Company Prefix known for " + key);
+        return length;
+    }
+
+    /**
+     * @return the number of disjoint prefix ranges of the index
+     */
+    public int size(){
+        return size;
+    }
+
+    private int find(long value){
+        int bucket = (int) (value / bucketWidth);
+        int low = buckets[bucket];
+        int high = buckets[bucket + 1];
+        while (low < high){
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= value)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Sweeps the entries, sorted by range start then by prefix length so that an enclosing range comes before
+     * the ones it contains, keeping the open ranges on a stack: between two range boundaries the top of the
+     * stack, the innermost range, gives the length.
+     */
+    private void flatten(long[] entries, int count){
+        long[] stackStart = new long[keyDigits + 1];
+        long[] stackEnd = new long[keyDigits + 1];
+        int[] stackLength = new int[keyDigits + 1];
+        int depth = 0;
+        long position = 0;
+        for (int i = 0; i < count; i++){
+            long start = entryStart(entries[i]);
+            long end = start + Gs1.pow10(keyDigits - entryPrefixDigits(entries[i]));
+            while (depth > 0 && stackEnd[depth - 1] <= start){
+                depth--;
+                position = close(position, stackEnd[depth], stackLength[depth]);
+            }
+            position = close(position, start, depth > 0 ? stackLength[depth - 1] : 0);
+            if (depth > 0 && stackStart[depth - 1] == start && stackEnd[depth - 1] == end)
+                depth--; // same prefix listed twice, the largest length wins
+            stackStart[depth] = start;
+            stackEnd[depth] = end;
+            stackLength[depth++] = entryLength(entries[i]);
+        }
+        while (depth > 0){
+            depth--;
+            position = close(position, stackEnd[depth], stackLength[depth]);
+        }
+        close(position, Gs1.pow10(keyDigits), 0);
+    }
+
+    /**
+     * Adds the range [position, end) if not empty, merging it with the previous one of the same length
+     * @return the end of the ranges added so far
+     */
+    private long close(long position, long end, int length){
+        if (position >= end)
+            return position;
+        if (size == 0 || lengths[size - 1] != length)
+            add(position, length);
+        return end;
+    }
+
+    private void add(long start, int length){
+        if (size == starts.length){
+            starts = Arrays.copyOf(starts, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        starts[size] = start;
+        lengths[size++] = (byte) length;
+    }
+
+    /*
+     * An entry is packed in a long, so that sorting them orders them by range start then by prefix length:
+     * start (40 bits) | prefix digits (4 bits) | gcpLength (4 bits)
+     */
+
+    private static long entry(CharSequence prefix, int gcpLength){
+        if (prefix.length() == 0 || prefix.length() > keyDigits)
+            throw new IllegalArgumentException("GS1 Company Prefix list prefix must be 1 to " + keyDigits + " digits long: " + prefix);
+        if (gcpLength < 0 || gcpLength > keyDigits)
+            throw new IllegalArgumentException("Invalid GS1 Company Prefix length " + gcpLength + " for prefix " + prefix);
+        long start = Gs1.parseDigits(prefix, 0, prefix.length()) * Gs1.pow10(keyDigits - prefix.length());
+        return start << 8 | prefix.length() << 4 | gcpLength;
+    }
+
+    private static long entryStart(long entry){
+        return entry >>> 8;
+    }
+
+    private static int entryPrefixDigits(long entry){
+        return (int) (entry >>> 4) & 0xF;
+    }
+
+    private static int entryLength(long entry){
+        return (int) entry & 0xF;
+    }
+
+    /**
+     * @param prefixLengths company prefix length by key prefix, a length of 0 meaning no company prefix
+     */
+    public static GcpPrefixFormatList fromMap(Map<String, Integer> prefixLengths){
+        long[] entries = new long[prefixLengths.size()];
+        int count = 0;
+        for (Map.Entry<String, Integer> e : prefixLengths.entrySet())
+            entries[count++] = entry(e.getKey(), e.getValue());
+        return new GcpPrefixFormatList(entries, count);
+    }
+
+    /**
+     * Reads the entry elements of the GS1 gcpprefixformatlist.xml file, no other element nor attribute is used
+     */
+    public static GcpPrefixFormatList fromXml(InputStream in) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        long[] entries = new long[1024];
+        int count = 0;
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            while (reader.hasNext()){
+                if (reader.next() != XMLStreamConstants.START_ELEMENT || !"entry".equals(reader.getLocalName()))
+                    continue;
+                String prefix = reader.getAttributeValue(null, "prefix");
+                String gcpLength = reader.getAttributeValue(null, "gcpLength");
+                if (prefix == null || gcpLength == null)
+                    throw new IllegalArgumentException("GS1 Company Prefix list entry without prefix or gcpLength at line " + reader.getLocation().getLineNumber());
+                if (count == entries.length)
+                    entries = Arrays.copyOf(entries, count * 2);
+                entries[count++] = entry(prefix, Integer.parseInt(gcpLength));
+            }
+            reader.close();
+        } catch (XMLStreamException e){
+            throw new IOException("Malformed GS1 Company Prefix list: " + e.getMessage(), e);
+        }
+        return new GcpPrefixFormatList(entries, count);
+    }
+
+    public static GcpPrefixFormatList fromFile(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)){
+            return fromXml(in);
+        }
+    }
+}
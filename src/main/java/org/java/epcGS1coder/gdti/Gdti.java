@@ -1,5 +1,7 @@
 package org.java.epcGS1coder.gdti;
 
+import org.java.epcGS1coder.util.PartitionTable;
+
 class Gdti {
     /**
      * Table 14-20 GDTI Partition Table
@@ -7,24 +9,7 @@ class Gdti {
      * @return M value
      */
     protected static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
@@ -33,24 +18,7 @@ class Gdti {
      * @return N value
      */
     protected static byte getDocumentTypeBits(int partition){
-        switch (partition){
-            case 0:
-                return 1;
-            case 1:
-                return 4;
-            case 2:
-                return 7;
-            case 3:
-                return 11;
-            case 4:
-                return 14;
-            case 5:
-                return 17;
-            case 6:
-                return 21;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.gdti.getReferenceBits(partition);
     }
 
     /**
@@ -59,7 +27,7 @@ class Gdti {
      * @return P value
      */
     protected static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
@@ -68,7 +36,7 @@ class Gdti {
      * @return L
      */
     protected static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
@@ -76,7 +44,7 @@ class Gdti {
      * @param P
      */
     protected static int getDocumentTypeDigits(int partition){
-        return partition;
+        return PartitionTable.gdti.getReferenceDigits(partition);
     }
 
     protected enum GdtiFilter{
@@ -1,22 +1,31 @@
 package org.java.epcGS1coder.gdti;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.BitSet;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Global Document Type Identifier EPC scheme is used to assign a unique identity to a specific
  * document, such as land registration papers, an insurance policy, and others.
  */
 
-public final class Gdti113 extends Gdti {
-    private final static byte epcHeader = 0b00111010;
+public final class Gdti113 extends Gdti implements Epc {
+    public final static byte epcHeader = 0b00111010;
     private final static int serialSize = 58;
     private final static int serialMaxChars = 17;
     private final static int padding = (32*4)-113; // GDTI-113 epc is 32 hex chars long
     private final static String uriHeader = "urn:epc:tag:gdti-113:";
+    final static String pureIdentityUriHeader = "urn:epc:id:gdti:";
     
     private String epc;
     
@@ -57,7 +66,14 @@ public final class Gdti113 extends Gdti {
         if (ai253.length()<14 || !StringUtils.isNumeric(ai253))
             throw new IllegalArgumentException("GDTI with Serial must be at least 14 digits long");
 
-        return new Gdti113(filter, companyPrefixDigits, Long.parseLong(ai253.substring(0, companyPrefixDigits)), Integer.parseInt(ai253.substring(companyPrefixDigits, 13 - 1)), ai253.substring(13));
+        return new Gdti113(filter, companyPrefixDigits, Long.parseLong(ai253.substring(0, companyPrefixDigits)), (int) Gs1.parseDigits(ai253, companyPrefixDigits, 13 - 1), ai253.substring(13));
+    }
+
+    /**
+     * {@link #fromGs1Key(int, int, String)} with the company prefix length looked up in the index
+     */
+    public static Gdti113 fromGs1Key(int filter, GcpLengthIndex index, String ai253) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai253, 0), ai253);
     }
 
     public String getEpc() {
@@ -70,10 +86,10 @@ public final class Gdti113 extends Gdti {
             for (int j = 0; j < serialSize; j++,i++)
                 epc.set(i, ((serial >> j) & 1)==1);
 
-            for (int j = 0; j < getDocumentTypeBits(partition); j++,i++)
+            for (int j = 0, bits = getDocumentTypeBits(partition); j < bits; j++,i++)
                 epc.set(i, ((documentType >> j) & 1)==1);
 
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
+            for (int j = 0, bits = getCompanyPrefixBits(partition); j < bits; j++,i++)
                 epc.set(i, ((companyPrefix >> j) & 1)==1);
 
             for (int j = 0; j < 3; j++,i++)
@@ -113,10 +129,58 @@ public final class Gdti113 extends Gdti {
 
     public String getUri() {
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getDocumentTypeDigits(partition)+"d",documentType)+"."+serial;
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
 
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        return Uri.appendPadded(sb, documentType, getDocumentTypeDigits(partition)).append('.').append(serial);
+    }
+
+    private long gs1Key(){
+        return Gs1.key(companyPrefix, documentType, getDocumentTypeDigits(partition));
+    }
+
+    /**
+     * @return the AI (253) GDTI as {@link #fromGs1Key(int, int, String)} takes it
+     */
+    public String toGs1Key(){
+        return Gs1.appendKey(new StringBuilder(32), gs1Key(), 12).append(serial).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        return Gs1.appendKey(sb.append("(253)"), gs1Key(), 12).append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.gdti;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 113;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -126,49 +190,71 @@ public final class Gdti113 extends Gdti {
     public boolean equals(Object o){
         if (!(o instanceof Gdti113))
             return false;
-        return ((Gdti113) o).getUri().equals(getUri());
+        Gdti113 other = (Gdti113) o;
+        return other.filter == filter && other.partition == partition && other.companyPrefix == companyPrefix
+                && other.documentType == documentType && other.serial.equals(serial);
+    }
+
+    @Override
+    public int hashCode(){
+        int hash = getFilter();
+        hash = 31 * hash + partition;
+        hash = 31 * hash + Long.hashCode(companyPrefix);
+        hash = 31 * hash + documentType;
+        return 31 * hash + serial.hashCode();
     }
 
     private void setEpc(String epc){ this.epc = epc; }
     private void setUri(String uri){ this.uri = uri; }
 
-    public static Gdti113 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int documentType = Integer.parseInt(uriParts[2]);
-
-        String serial = uriParts[3];
-        StringBuilder sb = new StringBuilder();
-        String[] serialSplit = serial.split("%");
-        sb.append(serialSplit[0]);
-        for (int i = 1; i < serialSplit.length; i++){
-            sb.append((char) Integer.parseInt(serialSplit[i].substring(0,2),16));
-            sb.append(serialSplit[i].substring(2));
-        }
-
-        Gdti113 gdti113 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,sb.toString());
-        gdti113.setUri(uri);
+    public static Gdti113 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Gdti113 gdti113 = fromUriFields(parser, parser.nextInt());
+        gdti113.setUri(uri.toString());
         return gdti113;
     }
 
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:gdti:...), which doesn't carry the filter value
+     */
+    public static Gdti113 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
+
+    private static Gdti113 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int documentType = parser.nextInt(getDocumentTypeDigits(partition));
+        String serial = parser.restEscaped();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
+    }
+
     public static Gdti113 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
+        Gdti113 gdti113 = fromBitSet(Bits.toBitSet(Hex.toBytes(epc), 0, epc.length() / 2));
+        gdti113.setEpc(epc);
+        return gdti113;
+    }
 
-        ByteBuffer bb = ByteBuffer.allocate(16);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
+    /**
+     * Decodes the binary encoding as read from the tag memory, 128 bits once padded to a whole word
+     */
+    public static Gdti113 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 16)
+            throw new IllegalArgumentException("Invalid EPC: GDTI-113 must be 16 bytes long");
+        return fromBitSet(Bits.toBitSet(bytes, offset, length));
+    }
 
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Decodes the 16 bytes at the buffer position, leaving the position after them
+     */
+    public static Gdti113 fromBuffer(ByteBuffer buffer) {
+        byte[] bytes = new byte[16];
+        buffer.get(bytes);
+        return fromBitSet(Bits.toBitSet(bytes, 0, bytes.length));
+    }
 
+    private static Gdti113 fromBitSet(BitSet bs) {
         int i;
         long tmp;
 
@@ -201,9 +287,7 @@ public final class Gdti113 extends Gdti {
         String serial = String.valueOf(tmp).substring(1); // Numeric string encoding prepends a "1" at the beginning of the encoded serial
 
         try{
-            Gdti113 gdti113 = new Gdti113(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
-            gdti113.setEpc(epc);
-            return gdti113;
+            return new Gdti113(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
@@ -1,27 +1,28 @@
 package org.java.epcGS1coder.gdti;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.BitSet;
-import java.util.HashSet;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.BitArray;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.TableA1;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Global Document Type Identifier EPC scheme is used to assign a unique identity to a specific
  * document, such as land registration papers, an insurance policy, and others.
  */
 
-public final class Gdti174 extends Gdti {
-    private final static byte epcHeader = 0b00111110;
-    private final static int serialSize = 119;
-    private final static int padding = (44*4)-174;
+public final class Gdti174 extends Gdti implements Epc {
+    public final static byte epcHeader = 0b00111110;
     private final static byte serialMaxChars = 17;
     private final static String uriHeader = "urn:epc:tag:gdti-174:";
-    // Table A-1 specifies the valid characters in serials, this set is to make the validators more maintenable
-    private final static HashSet<Character> invalidTableA1Chars = Arrays.asList(0x23,0x24,0x40,0x5B,0x5C,0x5D,0x5E,0x60).stream().map(Character.class::cast).collect(Collectors.toCollection(HashSet::new));
+    final static String pureIdentityUriHeader = "urn:epc:id:gdti:";
     
     private String epc;
     
@@ -47,9 +48,8 @@ public final class Gdti174 extends Gdti {
         this.documentType = documentType;
         if (serial.length() > serialMaxChars)
             throw new IllegalArgumentException("Serial must at most " + serialMaxChars + " alphanumeric characters long");
-        for (char ch : serial.toCharArray())
-            if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-                throw new IllegalArgumentException("Invalid serial character");
+        if (!TableA1.isValid(serial))
+            throw new IllegalArgumentException("Invalid serial character");
         this.serial = serial;
     }
 
@@ -65,45 +65,40 @@ public final class Gdti174 extends Gdti {
         if (ai253.length()<14 || !StringUtils.isNumeric(ai253.substring(0, 13)))
             throw new IllegalArgumentException("GRAI (must be numeric) with serial must be 14 digits long");
 
-        return new Gdti174(filter, companyPrefixDigits, Long.parseLong(ai253.substring(0, companyPrefixDigits)), Integer.parseInt(ai253.substring(companyPrefixDigits, 13 - 1)), ai253.substring(13));
+        return new Gdti174(filter, companyPrefixDigits, Long.parseLong(ai253.substring(0, companyPrefixDigits)), (int) Gs1.parseDigits(ai253, companyPrefixDigits, 13 - 1), ai253.substring(13));
+    }
+
+    /**
+     * {@link #fromGs1Key(int, int, String)} with the company prefix length looked up in the index
+     */
+    public static Gdti174 fromGs1Key(int filter, GcpLengthIndex index, String ai253) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai253, 0), ai253);
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(44*4); //Gdti-174 epc is 44 hex chars long
-            int i = serialSize+padding-1;
-
-            for (byte b : serial.getBytes()) {
-                for (int j = 6; j >= 0; j--,i--)
-                    epc.set(i, ((b >> j) & 1) == 1);
-            }
-
-            i = serialSize+padding;
-            for (int j = 0; j < getDocumentTypeBits(partition); j++,i++)
-                epc.set(i, ((documentType >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
-
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
-            
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(44);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-            this.epc = sb.toString();
-        }
-        
+        if (epc == null)
+            epc = BitArray.toHex(toWords(), 44);
         return epc;
     }
 
+    @Override
+    public byte[] toBytes(){
+        return BitArray.toBytes(toWords(), 22);
+    }
+
+    private long[] toWords(){
+        byte cpb = getCompanyPrefixBits(partition);
+        int dtb = getDocumentTypeBits(partition);
+        long[] words = BitArray.allocate(176);
+        BitArray.set(words, 0, 8, epcHeader);
+        BitArray.set(words, 8, 3, filter.getValue());
+        BitArray.set(words, 8 + 3, 3, partition);
+        BitArray.set(words, 8 + 3 + 3, cpb, companyPrefix);
+        BitArray.set(words, 8 + 3 + 3 + cpb, dtb, documentType);
+        TableA1.encode(words, 8 + 3 + 3 + cpb + dtb, serial);
+        return words;
+    }
+
     public int getFilter() {
         return filter.getValue();
     }
@@ -122,10 +117,59 @@ public final class Gdti174 extends Gdti {
 
     public String getUri() {
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getDocumentTypeDigits(partition)+"d",documentType)+"."+serial.chars().mapToObj(c -> getUriSerialChar((char) c)).collect(Collectors.joining());
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
 
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        Uri.appendPadded(sb, documentType, getDocumentTypeDigits(partition)).append('.');
+        return TableA1.appendUri(sb, serial);
+    }
+
+    private long gs1Key(){
+        return Gs1.key(companyPrefix, documentType, getDocumentTypeDigits(partition));
+    }
+
+    /**
+     * @return the AI (253) GDTI as {@link #fromGs1Key(int, int, String)} takes it
+     */
+    public String toGs1Key(){
+        return Gs1.appendKey(new StringBuilder(32), gs1Key(), 12).append(serial).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        return Gs1.appendKey(sb.append("(253)"), gs1Key(), 12).append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.gdti;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 174;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -135,108 +179,91 @@ public final class Gdti174 extends Gdti {
     public boolean equals(Object o){
         if (!(o instanceof Gdti174))
             return false;
-        return ((Gdti174) o).getUri().equals(getUri());
+        Gdti174 other = (Gdti174) o;
+        return other.filter == filter && other.partition == partition && other.companyPrefix == companyPrefix
+                && other.documentType == documentType && other.serial.equals(serial);
+    }
+
+    @Override
+    public int hashCode(){
+        int hash = getFilter();
+        hash = 31 * hash + partition;
+        hash = 31 * hash + Long.hashCode(companyPrefix);
+        hash = 31 * hash + documentType;
+        return 31 * hash + serial.hashCode();
     }
     
     private void setEpc(String epc){ this.epc = epc; }
     private void setUri(String uri){ this.uri = uri; }
 
+
+    public static Gdti174 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Gdti174 gdti174 = fromUriFields(parser, parser.nextInt());
+        gdti174.setUri(uri.toString());
+        return gdti174;
+    }
+
     /**
-     * Table A-1 for the encoding
+     * Parses a Pure Identity URI (urn:epc:id:gdti:...), which doesn't carry the filter value
      */
-    private String getUriSerialChar(char ch){
-        if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-            throw new IllegalArgumentException("Wrong char");
-        switch (ch){
-            case '"':
-            case '%':
-            case '&':
-            case '/':
-            case '<':
-            case '>':
-            case '?':
-                return "%"+String.format("%02x",(int) ch).toUpperCase();
-            default:
-                return String.valueOf(ch);
-        }
+    public static Gdti174 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
     }
 
-    public static Gdti174 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int documentType = Integer.parseInt(uriParts[2]);
-
-        String serial = uriParts[3];
-        StringBuilder sb = new StringBuilder();
-        String[] serialSplit = serial.split("%");
-        sb.append(serialSplit[0]);
-        for (int i = 1; i < serialSplit.length; i++){
-            sb.append((char) Integer.parseInt(serialSplit[i].substring(0,2),16));
-            sb.append(serialSplit[i].substring(2));
-        }
-
-        Gdti174 gdti174 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,sb.toString());
-        gdti174.setUri(uri);
-        return gdti174;
+    private static Gdti174 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int documentType = parser.nextInt(getDocumentTypeDigits(partition));
+        String serial = parser.restEscaped();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
     }
 
     public static Gdti174 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(22);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
+        if (epc.length() != 44)
+            throw new IllegalArgumentException("Invalid EPC: GDTI-174 must be 44 hex characters long");
+        Gdti174 gdti174 = fromWords(BitArray.fromHex(epc));
+        gdti174.setEpc(epc);
+        return gdti174;
+    }
 
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Decodes the binary encoding as read from the tag memory, 176 bits once padded to a whole word
+     */
+    public static Gdti174 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 22)
+            throw new IllegalArgumentException("Invalid EPC: GDTI-174 must be 22 bytes long");
+        return fromWords(BitArray.fromBytes(bytes, offset, length));
+    }
 
-        int i;
-        long tmp;
+    /**
+     * Decodes the 22 bytes at the buffer position, leaving the position after them
+     */
+    public static Gdti174 fromBuffer(ByteBuffer buffer) {
+        byte[] bytes = new byte[22];
+        buffer.get(bytes);
+        return fromWords(BitArray.fromBytes(bytes, 0, bytes.length));
+    }
 
-        for(tmp = 0, i = 176; (i = bs.previousSetBit(i-1)) > 176 - 8 - 1;)
-            tmp+=1L<<(i-(176-8));
-        if (tmp != epcHeader)
+    /**
+     * Decodes the EPC words, see {@link BitArray} for the layout
+     */
+    private static Gdti174 fromWords(long[] words) {
+        if (BitArray.get(words, 0, 8) != epcHeader)
             throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
 
-        for(tmp = 0, i = 176 - 8; (i = bs.previousSetBit(i-1)) > 176 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(176-8-3));
-        int filter = (int) tmp;
-
-        for(tmp = 0, i = 176 - 8 - 3; (i = bs.previousSetBit(i-1)) > 176 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(176-8-3-3));
-        byte partition = (byte) tmp;
-
-        final byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 176 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 176 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(176-8-3-3-cpb));
-        long companyPrefix = tmp;
-
-        final byte dtb = getDocumentTypeBits(partition);
-        for(tmp = 0, i = 176 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 176 - 8 - 3 - 3 - cpb - dtb - 1;)
-            tmp+=1L<<(i-(176-8-3-3-cpb-dtb));
-        int documentType = (int) tmp;
-
-        StringBuilder serialBuilder = new StringBuilder("");
-        byte[] tmpba;
-
-        i =176-8-3-3-cpb-dtb; //buffer size - epcheader.size - filter.size - partition.size - getCompanyPrefixBits(partition) - getDocumentTypeBits(partition)
-        for(int j = 0;j < serialMaxChars && (tmpba = bs.get(i-7,i).toByteArray()).length!=0;i-=7,j++)
-            serialBuilder.append(new String(tmpba));
+        int filter = (int) BitArray.get(words, 8, 3);
+        int partition = (int) BitArray.get(words, 8 + 3, 3);
 
-        String serial = serialBuilder.toString();
+        byte cpb = getCompanyPrefixBits(partition);
+        long companyPrefix = BitArray.get(words, 8 + 3 + 3, cpb);
+        int dtb = getDocumentTypeBits(partition);
+        int documentType = (int) BitArray.get(words, 8 + 3 + 3 + cpb, dtb);
+        String serial = TableA1.decode(words, 8 + 3 + 3 + cpb + dtb, serialMaxChars);
 
         try{
-            Gdti174 gdti174 = new Gdti174(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
-            gdti174.setEpc(epc);
-            return gdti174;
+            return new Gdti174(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
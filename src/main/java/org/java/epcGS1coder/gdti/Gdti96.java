@@ -1,21 +1,30 @@
 package org.java.epcGS1coder.gdti;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Global Document Type Identifier EPC scheme is used to assign a unique identity to a specific
  * document, such as land registration papers, an insurance policy, and others.
  */
 
-public final class Gdti96 extends Gdti{
+public final class Gdti96 extends Gdti implements Epc {
 
-    private final static byte epcHeader = 0b00101100;
-    private final static byte serialSize = 41;
+    public final static byte epcHeader = 0b00101100;
+    final static byte serialSize = 41;
     private static final String uriHeader = "urn:epc:tag:gdti-96:";
+    static final String pureIdentityUriHeader = "urn:epc:id:gdti:";
     
     private String epc = null;
     
@@ -47,36 +56,36 @@ public final class Gdti96 extends Gdti{
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(96); // Gdti96 bits
-            int i = 0;
-
-            for (int j = 0; j < serialSize; j++,i++)
-                epc.set(i, ((serial >> j) & 1)==1);
-
-            for (int j = 0; j < getDocumentTypeBits(partition); j++,i++)
-                epc.set(i, ((documentType >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
+        return epc;
+    }
 
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(filter.getValue(), 8, 3)
+                | Bits.hi(partition, 8 + 3, 3)
+                | Bits.hi(companyPrefix, 8 + 3 + 3, cpb)
+                | Bits.hi(documentType, 8 + 3 + 3 + cpb, getDocumentTypeBits(partition))
+                | Bits.hi(serial, 96 - serialSize, serialSize);
+    }
 
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.lo(documentType, 8 + 3 + 3 + cpb, getDocumentTypeBits(partition))
+                | Bits.lo(serial, 96 - serialSize, serialSize);
+    }
 
-            this.epc = sb.toString();
-        }
-        return epc;
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
     }
 
     private void setEpc(String epc) {
@@ -101,13 +110,61 @@ public final class Gdti96 extends Gdti{
 
     public String getUri(){
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getDocumentTypeDigits(partition)+"d",documentType)+"."+String.valueOf(serial);
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        return Uri.appendPadded(sb, documentType, getDocumentTypeDigits(partition)).append('.').append(serial);
+    }
     private void setUri(String uri){
         this.uri = uri;
     };
 
+    private long gs1Key(){
+        return Gs1.key(companyPrefix, documentType, getDocumentTypeDigits(partition));
+    }
+
+    /**
+     * @return the AI (253) GDTI as {@link #fromGs1Key(int, int, String)} takes it
+     */
+    public String toGs1Key(){
+        return Gs1.appendKey(new StringBuilder(32), gs1Key(), 12).append(serial).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        return Gs1.appendKey(sb.append("(253)"), gs1Key(), 12).append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.gdti;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -117,7 +174,13 @@ public final class Gdti96 extends Gdti{
     public boolean equals(Object o){
         if (!(o instanceof Gdti96))
             return false;
-        return ((Gdti96) o).getUri().equals(getUri());
+        Gdti96 other = (Gdti96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
+    }
+
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
     }
 
     public static Gdti96 fromFields(int filter,
@@ -131,77 +194,98 @@ public final class Gdti96 extends Gdti{
     public static Gdti96 fromGs1Key(int filter,int companyPrefixDigits, String ai253) {
         if (ai253.length()<14 || !StringUtils.isNumeric(ai253))
             throw new IllegalArgumentException("GDTI with Serial must be at least 14 digits long");
-        return new Gdti96(filter, companyPrefixDigits, Long.parseLong(ai253.substring(0, companyPrefixDigits)), Integer.parseInt(ai253.substring(companyPrefixDigits, 13 - 1)), Long.parseLong(ai253.substring(13)));
+        return new Gdti96(filter, companyPrefixDigits, Long.parseLong(ai253.substring(0, companyPrefixDigits)), (int) Gs1.parseDigits(ai253, companyPrefixDigits, 13 - 1), Long.parseLong(ai253.substring(13)));
     }
 
+    /**
+     * {@link #fromGs1Key(int, int, String)} with the company prefix length looked up in the index
+     */
+    public static Gdti96 fromGs1Key(int filter, GcpLengthIndex index, String ai253) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai253, 0), ai253);
+    }
 
-    public static Gdti96 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int documentType = Integer.parseInt(uriParts[2]);
-        long serial = Long.parseLong(uriParts[3]);
-
-        Gdti96 gdti96 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
-        gdti96.setUri(uri);
 
+    public static Gdti96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Gdti96 gdti96 = fromUriFields(parser, parser.nextInt());
+        gdti96.setUri(uri.toString());
         return gdti96;
     }
 
-    public static Gdti96 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(96/8);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:gdti:...), which doesn't carry the filter value
+     */
+    public static Gdti96 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        int i;
-        long tmp;
+    private static Gdti96 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int documentType = parser.nextInt(getDocumentTypeDigits(partition));
+        long serial = parser.nextLong();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
+    }
 
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp+=1L<<(i-(96-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    public static Gdti96 fromEpc(String epc) {
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: GDTI-96 must be 24 hex characters long");
+        Gdti96 gdti96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        gdti96.setEpc(epc);
+        return gdti96;
+    }
 
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3));
-        int filter = (int) tmp;
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Gdti96 fromBits(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
 
-        for(tmp = 0, i = 96 - 8 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) Bits.get(hi, lo, 8, 3);
+        int partition = (int) Bits.get(hi, lo, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb));
-        long companyPrefix = tmp;
+        long companyPrefix = Bits.get(hi, lo, 8 + 3 + 3, cpb);
 
-        byte irb = getDocumentTypeBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - irb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb-irb));
-        int documentType = (int) tmp;
+        int documentType = (int) Bits.get(hi, lo, 8 + 3 + 3 + cpb, getDocumentTypeBits(partition));
 
         //for the remainder, which is the serial, we can use fixed values
-        for(tmp = 0, i = serialSize; (i = bs.previousSetBit(i-1)) > -1;)
-            tmp+=1L<<i;
-        long serial = tmp;
-
-        try{
-            Gdti96 gdti96 = new Gdti96(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
-            gdti96.setEpc(epc);
-            return gdti96;
+        long serial = Bits.get(hi, lo, 96 - serialSize, serialSize);
+        try {
+            return new Gdti96(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
+
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        if (Bits.get(hi, lo, 8 + 3, 3) > 6)
+            return DecodeStatus.invalid_partition;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Gdti96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: GDTI-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Gdti96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
 }
@@ -0,0 +1,54 @@
+package org.java.epcGS1coder.gdti;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+import org.java.epcGS1coder.util.Uri;
+
+/**
+ * Reusable view of an GDTI-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Gdti96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Gdti96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 3);
+    }
+
+    private int getPartition(){
+        return (int) get(8 + 3, 3);
+    }
+
+    public int getCompanyPrefixDigits(){
+        return Gdti96.getCompanyPrefixDigits(getPartition());
+    }
+
+    public long getCompanyPrefix(){
+        return get(8 + 3 + 3, Gdti96.getCompanyPrefixBits(getPartition()));
+    }
+
+    public int getDocumentType(){
+        int partition = getPartition();
+        return (int) get(8 + 3 + 3 + Gdti96.getCompanyPrefixBits(partition), Gdti96.getDocumentTypeBits(partition));
+    }
+
+    public long getSerial(){
+        return get(96 - Gdti96.serialSize, Gdti96.serialSize);
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        Uri.appendPadded(sb.append(Gdti96.pureIdentityUriHeader), getCompanyPrefix(), getCompanyPrefixDigits()).append('.');
+        Uri.appendPadded(sb, getDocumentType(), Gdti96.getDocumentTypeDigits(getPartition())).append('.');
+        return sb.append(getSerial());
+    }
+
+    @Override
+    public Gdti96 toEpc(){
+        return Gdti96.fromBits(getHiBits(), getLoBits());
+    }
+}
@@ -1,26 +1,27 @@
 package org.java.epcGS1coder.giai;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.BitSet;
-import java.util.HashSet;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.BitArray;
+import org.java.epcGS1coder.util.PartitionTable;
+import org.java.epcGS1coder.util.TableA1;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Global Individual Asset Identifier EPC scheme is used to assign a unique identity to a specific
  * asset, such as a forklift or a computer.
  */
 
-public final class Giai202 extends Giai{
-    private final static byte epcHeader = 0b00111000;
-    private final static int padding = 6;
-    private final static byte individualAssetReferenceMaxChars = 24;
+public final class Giai202 extends Giai implements Epc {
+    public final static byte epcHeader = 0b00111000;
     private final static String uriHeader = "urn:epc:tag:giai-202:";
-    // Table A-1 specifies the valid characters in serials, this set is to make the validators more maintenable
-    private final static HashSet<Character> invalidTableA1Chars = Arrays.asList(0x23,0x24,0x40,0x5B,0x5C,0x5D,0x5E,0x60).stream().map(Character.class::cast).collect(Collectors.toCollection(HashSet::new));
+    final static String pureIdentityUriHeader = "urn:epc:id:giai:";
     
     private String epc;
     
@@ -39,11 +40,10 @@ public final class Giai202 extends Giai{
         if (companyPrefix >= 1l<<getCompanyPrefixBits(partition))
             throw new IllegalArgumentException("Company Prefix too large, max value (exclusive):" + (1l<<getCompanyPrefixBits(partition)));
         this.companyPrefix = companyPrefix;
-        if (individualAssetReference.length() > individualAssetReferenceMaxChars)
-            throw new IllegalArgumentException("Individual Asset Reference must at most " + individualAssetReferenceMaxChars + " alphanumeric characters long");
-        for (char ch : individualAssetReference.toCharArray())
-            if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-                throw new IllegalArgumentException("Invalid Individual Asset Reference character");
+        if (individualAssetReference.length() > getIndividualAssetReferenceMaxLength(partition))
+            throw new IllegalArgumentException("Individual Asset Reference must at most " + getIndividualAssetReferenceMaxLength(partition) + " alphanumeric characters long");
+        if (!TableA1.isValid(individualAssetReference))
+            throw new IllegalArgumentException("Invalid Individual Asset Reference character");
         this.individualAssetReference = individualAssetReference;
     }
 
@@ -61,39 +61,35 @@ public final class Giai202 extends Giai{
         return new Giai202(filter, companyPrefixDigits, Long.parseLong(ai8004.substring(0, companyPrefixDigits)), ai8004.substring(companyPrefixDigits));
     }
 
-    public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(52*4); //Giai-202 epc is 52 hex chars long
-            int i = getIndividualAssetReferenceBits(partition)+padding-1;
-
-            for (byte b : individualAssetReference.getBytes()) {
-                for (int j = 6; j >= 0; j--,i--)
-                    epc.set(i, ((b >> j) & 1) == 1);
-            }
-
-            i = getIndividualAssetReferenceBits(partition)+padding;
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
-
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(44);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-            this.epc = sb.toString();
-        }
-        
+    /**
+     * {@link #fromGs1Key(int, int, String)} with the company prefix length looked up in the index
+     */
+    public static Giai202 fromGs1Key(int filter, GcpLengthIndex index, String ai8004) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai8004, 0), ai8004);
+    }
 
+    public String getEpc() {
+        if (epc == null)
+            epc = BitArray.toHex(toWords(), 52);
         return epc;
     }
 
+    @Override
+    public byte[] toBytes(){
+        return BitArray.toBytes(toWords(), 26);
+    }
+
+    private long[] toWords(){
+        byte cpb = getCompanyPrefixBits(partition);
+        long[] words = BitArray.allocate(208);
+        BitArray.set(words, 0, 8, epcHeader);
+        BitArray.set(words, 8, 3, filter.getValue());
+        BitArray.set(words, 8 + 3, 3, partition);
+        BitArray.set(words, 8 + 3 + 3, cpb, companyPrefix);
+        TableA1.encode(words, 8 + 3 + 3 + cpb, individualAssetReference);
+        return words;
+    }
+
     public int getFilter() {
         return filter.getValue();
     }
@@ -108,10 +104,54 @@ public final class Giai202 extends Giai{
 
     public String getUri() {
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+individualAssetReference.chars().mapToObj(c -> getUriIndividualAssetReferenceChar((char) c)).collect(Collectors.joining());
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
 
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        return TableA1.appendUri(sb, individualAssetReference);
+    }
+
+    /**
+     * @return the AI (8004) GIAI as {@link #fromGs1Key(int, int, String)} takes it
+     */
+    public String toGs1Key(){
+        return Uri.appendPadded(new StringBuilder(32), companyPrefix, getCompanyPrefixDigits(partition)).append(individualAssetReference).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        return Uri.appendPadded(sb.append("(8004)"), companyPrefix, getCompanyPrefixDigits(partition)).append(individualAssetReference);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.giai;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 202;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -121,101 +161,87 @@ public final class Giai202 extends Giai{
     public boolean equals(Object o){
         if (!(o instanceof Giai202))
             return false;
-        return ((Giai202) o).getUri().equals(getUri());
+        Giai202 other = (Giai202) o;
+        return other.filter == filter && other.partition == partition && other.companyPrefix == companyPrefix
+                && other.individualAssetReference.equals(individualAssetReference);
+    }
+
+    @Override
+    public int hashCode(){
+        int hash = getFilter();
+        hash = 31 * hash + partition;
+        hash = 31 * hash + Long.hashCode(companyPrefix);
+        return 31 * hash + individualAssetReference.hashCode();
     }
 
     private void setEpc(String epc){ this.epc = epc; }
     private void setUri(String uri){ this.uri = uri; }
 
+
+    public static Giai202 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Giai202 giai202 = fromUriFields(parser, parser.nextInt());
+        giai202.setUri(uri.toString());
+        return giai202;
+    }
+
     /**
-     * Table A-1 for the encoding
+     * Parses a Pure Identity URI (urn:epc:id:giai:...), which doesn't carry the filter value
      */
-    private String getUriIndividualAssetReferenceChar(char ch){
-        if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-            throw new IllegalArgumentException("Wrong char");
-        switch (ch){
-            case '"':
-            case '%':
-            case '&':
-            case '/':
-            case '<':
-            case '>':
-            case '?':
-                return "%"+String.format("%02x",(int) ch).toUpperCase();
-            default:
-                return String.valueOf(ch);
-        }
+    public static Giai202 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
     }
 
-    public static Giai202 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        String individualAssetReference = uriParts[2];
-        StringBuilder sb = new StringBuilder();
-        String[] iarSplit = individualAssetReference.split("%");
-        sb.append(iarSplit[0]);
-        for (int i = 1; i < iarSplit.length; i++){
-            sb.append((char) Integer.parseInt(iarSplit[i].substring(0,2),16));
-            sb.append(iarSplit[i].substring(2));
-        }
-
-        Giai202 giai202 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,sb.toString());
-        giai202.setUri(uri);
-        return giai202;
+    private static Giai202 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        String individualAssetReference = parser.restEscaped();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,individualAssetReference);
     }
 
     public static Giai202 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(26);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
+        if (epc.length() != 52)
+            throw new IllegalArgumentException("Invalid EPC: GIAI-202 must be 52 hex characters long");
+        Giai202 giai202 = fromWords(BitArray.fromHex(epc));
+        giai202.setEpc(epc);
+        return giai202;
+    }
 
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Decodes the binary encoding as read from the tag memory, 208 bits once padded to a whole word
+     */
+    public static Giai202 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 26)
+            throw new IllegalArgumentException("Invalid EPC: GIAI-202 must be 26 bytes long");
+        return fromWords(BitArray.fromBytes(bytes, offset, length));
+    }
 
-        int i;
-        long tmp;
+    /**
+     * Decodes the 26 bytes at the buffer position, leaving the position after them
+     */
+    public static Giai202 fromBuffer(ByteBuffer buffer) {
+        byte[] bytes = new byte[26];
+        buffer.get(bytes);
+        return fromWords(BitArray.fromBytes(bytes, 0, bytes.length));
+    }
 
-        for(tmp = 0, i = 208; (i = bs.previousSetBit(i-1)) > 208 - 8 - 1;)
-            tmp+=1L<<(i-(208-8));
-        if (tmp != epcHeader)
+    /**
+     * Decodes the EPC words, see {@link BitArray} for the layout
+     */
+    private static Giai202 fromWords(long[] words) {
+        if (BitArray.get(words, 0, 8) != epcHeader)
             throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
 
-        for(tmp = 0, i = 208 - 8; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(208-8-3));
-        int filter = (int) tmp;
-
-        for(tmp = 0, i = 208 - 8 - 3; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(208-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) BitArray.get(words, 8, 3);
+        int partition = (int) BitArray.get(words, 8 + 3, 3);
 
-        final byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 208 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(208-8-3-3-cpb));
-        long companyPrefix = tmp;
+        byte cpb = getCompanyPrefixBits(partition);
+        long companyPrefix = BitArray.get(words, 8 + 3 + 3, cpb);
+        String individualAssetReference = TableA1.decode(words, 8 + 3 + 3 + cpb, getIndividualAssetReferenceMaxLength(partition));
 
-        StringBuilder individualAssetReferenceBuilder = new StringBuilder("");
-        byte[] tmpba;
-
-        i =208-8-3-3-cpb; //buffer size - epcheader.size - filter.size - partition.size - getCompanyPrefixBits(partition)
-        for(; (tmpba = bs.get(i-7,i).toByteArray()).length!=0;i-=7)
-            individualAssetReferenceBuilder.append(new String(tmpba));
-
-        String individualAssetReference = individualAssetReferenceBuilder.toString();
-        
         try{
-            Giai202 giai202 = new Giai202(filter,getCompanyPrefixDigits(partition),companyPrefix,individualAssetReference);
-            giai202.setEpc(epc);
-            return giai202;
+            return new Giai202(filter,getCompanyPrefixDigits(partition),companyPrefix,individualAssetReference);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
@@ -227,24 +253,7 @@ public final class Giai202 extends Giai{
      * @return M value
      */
     protected static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
@@ -253,24 +262,7 @@ public final class Giai202 extends Giai{
      * @return N value
      */
     protected static int getIndividualAssetReferenceBits(int partition){
-        switch (partition){
-            case 0:
-                return 148;
-            case 1:
-                return 151;
-            case 2:
-                return 154;
-            case 3:
-                return 158;
-            case 4:
-                return 161;
-            case 5:
-                return 164;
-            case 6:
-                return 168;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return PartitionTable.giai202.getReferenceBits(partition);
     }
 
     /**
@@ -279,7 +271,7 @@ public final class Giai202 extends Giai{
      * @return P value
      */
     protected static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
@@ -288,7 +280,7 @@ public final class Giai202 extends Giai{
      * @return L
      */
     protected static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
@@ -296,6 +288,6 @@ public final class Giai202 extends Giai{
      * @param P
      */
     protected static int getIndividualAssetReferenceMaxLength(int partition){
-        return 18+partition;
+        return PartitionTable.giai202.getReferenceDigits(partition);
     }
 }
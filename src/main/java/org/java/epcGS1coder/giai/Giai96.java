@@ -1,20 +1,29 @@
 package org.java.epcGS1coder.giai;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.PartitionTable;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Global Individual Asset Identifier EPC scheme is used to assign a unique identity to a specific
  * asset, such as a forklift or a computer.
  */
 
-public final class Giai96 extends Giai {
+public final class Giai96 extends Giai implements Epc {
 
-    private final static byte epcHeader = 0b00110100;
+    public final static byte epcHeader = 0b00110100;
     private static final String uriHeader = "urn:epc:tag:giai-96:";
+    static final String pureIdentityUriHeader = "urn:epc:id:giai:";
     
     private String epc = null;
     
@@ -41,33 +50,34 @@ public final class Giai96 extends Giai {
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(96);
-            int i = 0;
-
-            for (int j = 0; j < getIndividualAssetReferenceBits(partition); j++,i++)
-                epc.set(i, ((individualAssetReference >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
+        return epc;
+    }
 
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(filter.getValue(), 8, 3)
+                | Bits.hi(partition, 8 + 3, 3)
+                | Bits.hi(companyPrefix, 8 + 3 + 3, cpb)
+                | Bits.hi(individualAssetReference, 8 + 3 + 3 + cpb, getIndividualAssetReferenceBits(partition));
+    }
 
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.lo(individualAssetReference, 8 + 3 + 3 + cpb, getIndividualAssetReferenceBits(partition));
+    }
 
-            this.epc = sb.toString();
-        }
-        return epc;
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
     }
 
     private void setEpc(String epc) {
@@ -88,9 +98,25 @@ public final class Giai96 extends Giai {
 
     public String getUri(){
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+individualAssetReference;
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        return Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.').append(individualAssetReference);
+    }
     private void setUri(String uri){
         this.uri = uri;
     };
@@ -105,24 +131,64 @@ public final class Giai96 extends Giai {
     public static Giai96 fromGs1Key(int filter,int companyPrefixDigits, String ai8004) {
         if (ai8004.length()<7 || !StringUtils.isNumeric(ai8004))
             throw new IllegalArgumentException("GRAI with Individual Asset Reference must be at least 7 digits long");
-        return new Giai96(filter, companyPrefixDigits, Long.parseLong(ai8004.substring(0, companyPrefixDigits)), Integer.parseInt(ai8004.substring(companyPrefixDigits)));
+        return new Giai96(filter, companyPrefixDigits, Long.parseLong(ai8004.substring(0, companyPrefixDigits)), Long.parseLong(ai8004.substring(companyPrefixDigits)));
     }
 
+    /**
+     * {@link #fromGs1Key(int, int, String)} with the company prefix length looked up in the index
+     */
+    public static Giai96 fromGs1Key(int filter, GcpLengthIndex index, String ai8004) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai8004, 0), ai8004);
+    }
 
-    public static Giai96 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
 
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int individualAssetReference = Integer.parseInt(uriParts[2]);
+    public static Giai96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Giai96 giai96 = fromUriFields(parser, parser.nextInt());
+        giai96.setUri(uri.toString());
+        return giai96;
+    }
 
-        Giai96 grai96 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,individualAssetReference);
-        grai96.setUri(uri);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:giai:...), which doesn't carry the filter value
+     */
+    public static Giai96 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        return grai96;
+    private static Giai96 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        long individualAssetReference = parser.nextLong();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,individualAssetReference);
+    }
+
+    /**
+     * @return the AI (8004) GIAI as {@link #fromGs1Key(int, int, String)} takes it
+     */
+    public String toGs1Key(){
+        return Uri.appendPadded(new StringBuilder(32), companyPrefix, getCompanyPrefixDigits(partition)).append(individualAssetReference).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        return Uri.appendPadded(sb.append("(8004)"), companyPrefix, getCompanyPrefixDigits(partition)).append(individualAssetReference);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.giai;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
     }
 
     @Override
@@ -134,81 +200,80 @@ public final class Giai96 extends Giai {
     public boolean equals(Object o){
         if (!(o instanceof Giai96))
             return false;
-        return ((Giai96) o).getUri().equals(getUri());
+        Giai96 other = (Giai96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
     }
 
-    public static Giai96 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(96/8);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
-
-        int i;
-        long tmp;
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
+    }
 
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp+=1L<<(i-(96-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    public static Giai96 fromEpc(String epc) {
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: GIAI-96 must be 24 hex characters long");
+        Giai96 giai96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        giai96.setEpc(epc);
+        return giai96;
+    }
 
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3));
-        int filter = (int) tmp;
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Giai96 fromBits(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
 
-        for(tmp = 0, i = 96 - 8 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) Bits.get(hi, lo, 8, 3);
+        int partition = (int) Bits.get(hi, lo, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb));
-        long companyPrefix = tmp;
-
-        byte irb = getIndividualAssetReferenceBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - irb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb-irb));
-        int individualAssetReference = (int) tmp;
-
-        try{
-            Giai96 grai96 = new Giai96(filter,getCompanyPrefixDigits(partition),companyPrefix,individualAssetReference);
-            grai96.setEpc(epc);
-            return grai96;
+        long companyPrefix = Bits.get(hi, lo, 8 + 3 + 3, cpb);
+
+        long individualAssetReference = Bits.get(hi, lo, 8 + 3 + 3 + cpb, getIndividualAssetReferenceBits(partition));
+        try {
+            return new Giai96(filter,getCompanyPrefixDigits(partition),companyPrefix,individualAssetReference);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
 
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        if (Bits.get(hi, lo, 8 + 3, 3) > 6)
+            return DecodeStatus.invalid_partition;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Giai96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: GIAI-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Giai96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
+
     /**
      * Table 14-13 GIAI-96 Partition Table
      * @param partition
      * @return M value
      */
     protected static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
@@ -217,24 +282,7 @@ public final class Giai96 extends Giai {
      * @return N value
      */
     protected static byte getIndividualAssetReferenceBits(int partition){
-        switch (partition){
-            case 0:
-                return 42;
-            case 1:
-                return 45;
-            case 2:
-                return 48;
-            case 3:
-                return 52;
-            case 4:
-                return 55;
-            case 5:
-                return 58;
-            case 6:
-                return 62;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.giai96.getReferenceBits(partition);
     }
 
     /**
@@ -243,7 +291,7 @@ public final class Giai96 extends Giai {
      * @return P value
      */
     protected static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
@@ -252,7 +300,7 @@ public final class Giai96 extends Giai {
      * @return L
      */
     protected static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
@@ -260,6 +308,6 @@ public final class Giai96 extends Giai {
      * @param P
      */
     protected static int getIndividualAssetReferenceDigits(int partition){
-        return 13+partition;
+        return PartitionTable.giai96.getReferenceDigits(partition);
     }
 }
@@ -0,0 +1,73 @@
+package org.java.epcGS1coder.giai;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96Batch;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.PartitionTable;
+
+/**
+ * Decodes batches of GIAI-96 into columns, see {@link Epc96Batch}.
+ */
+
+public final class Giai96Batch extends Epc96Batch {
+
+    private final byte[] filter;
+    private final byte[] partition;
+    private final long[] companyPrefix;
+    private final long[] individualAssetReference;
+
+    public Giai96Batch(int capacity){
+        super(capacity);
+        filter = new byte[capacity];
+        partition = new byte[capacity];
+        companyPrefix = new long[capacity];
+        individualAssetReference = new long[capacity];
+    }
+
+    @Override
+    protected int decodeRows(int from, int to){
+        int valid = 0;
+        for (int i = from; i < to; i++){
+            long hi = this.hi[i];
+            long lo = this.lo[i];
+            if (status[i] == DecodeStatus.ok && (status[i] = Giai96.validate(hi, lo)) == DecodeStatus.ok){
+                int p = (int) Bits.get(hi, lo, 8 + 3, 3);
+                filter[i] = (byte) Bits.get(hi, lo, 8, 3);
+                partition[i] = (byte) p;
+                companyPrefix[i] = Bits.get(hi, lo, PartitionTable.companyPrefixOffset, PartitionTable.getCompanyPrefixBits(p));
+                individualAssetReference[i] = Bits.get(hi, lo, PartitionTable.giai96.getReferenceOffset(p), PartitionTable.giai96.getReferenceBits(p));
+                valid++;
+            } else {
+                filter[i] = 0;
+                partition[i] = 0;
+                companyPrefix[i] = 0;
+                individualAssetReference[i] = 0;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * @param row a valid row
+     * @return the row as an Giai96
+     */
+    public Giai96 get(int row){
+        return Giai96.fromBits(hi[row], lo[row]);
+    }
+
+    public byte[] getFilter(){
+        return filter;
+    }
+
+    public byte[] getPartition(){
+        return partition;
+    }
+
+    public long[] getCompanyPrefix(){
+        return companyPrefix;
+    }
+
+    public long[] getIndividualAssetReference(){
+        return individualAssetReference;
+    }
+}
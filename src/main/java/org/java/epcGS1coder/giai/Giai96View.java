@@ -0,0 +1,49 @@
+package org.java.epcGS1coder.giai;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+import org.java.epcGS1coder.util.Uri;
+
+/**
+ * Reusable view of an GIAI-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Giai96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Giai96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 3);
+    }
+
+    private int getPartition(){
+        return (int) get(8 + 3, 3);
+    }
+
+    public int getCompanyPrefixDigits(){
+        return Giai96.getCompanyPrefixDigits(getPartition());
+    }
+
+    public long getCompanyPrefix(){
+        return get(8 + 3 + 3, Giai96.getCompanyPrefixBits(getPartition()));
+    }
+
+    public long getIndividualAssetReference(){
+        int partition = getPartition();
+        return get(8 + 3 + 3 + Giai96.getCompanyPrefixBits(partition), Giai96.getIndividualAssetReferenceBits(partition));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        Uri.appendPadded(sb.append(Giai96.pureIdentityUriHeader), getCompanyPrefix(), getCompanyPrefixDigits()).append('.');
+        return sb.append(getIndividualAssetReference());
+    }
+
+    @Override
+    public Giai96 toEpc(){
+        return Giai96.fromBits(getHiBits(), getLoBits());
+    }
+}
@@ -1,20 +1,27 @@
 package org.java.epcGS1coder.gid;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
 
 /**
  * The General Identifier EPC scheme is independent of any specifications or identity scheme outside
  * the EPCglobal Tag Data Standard.
  */
 
-public final class Gid96 {
-    private final static byte epcHeader = 0b00110101;
-    private final static byte generalManagerNumberSize = 28;
-    private final static byte objectClassSize = 24;
-    private final static byte serialSize = 36;
+public final class Gid96 implements Epc {
+    public final static byte epcHeader = 0b00110101;
+    final static byte generalManagerNumberSize = 28;
+    final static byte objectClassSize = 24;
+    final static byte serialSize = 36;
     private static final String uriHeader = "urn:epc:tag:gid-96:";
+    static final String pureIdentityUriHeader = "urn:epc:id:gid:";
     
     private String epc = null;
     private String uri = null;
@@ -38,32 +45,33 @@ public final class Gid96 {
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(96); 
-            int i = 0;
-
-            for (int j = 0; j < serialSize; j++,i++)
-                epc.set(i, ((serial >> j) & 1)==1);
-            
-            for (int j = 0; j < objectClassSize; j++,i++)
-                epc.set(i, ((objectClass >> j) & 1)==1);
-            
-            for (int j = 0; j < generalManagerNumberSize; j++,i++)
-                epc.set(i, ((generalManagerNumber >> j) & 1)==1);
-
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
-
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-
-            this.epc = sb.toString();
-        }
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
         return epc;
     }
 
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(generalManagerNumber, 8, generalManagerNumberSize)
+                | Bits.hi(objectClass, 8 + generalManagerNumberSize, objectClassSize)
+                | Bits.hi(serial, 96 - serialSize, serialSize);
+    }
+
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        return Bits.lo(serial, 96 - serialSize, serialSize);
+    }
+
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
+    }
+
     private void setEpc(String epc) {
         this.epc = epc;
     }
@@ -80,13 +88,52 @@ public final class Gid96 {
 
     public String getUri(){
         if (uri == null)
-            uri = uriHeader+String.valueOf(generalManagerNumber)+"."+String.valueOf(objectClass)+"."+String.valueOf(serial);
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        return sb.append(generalManagerNumber).append('.').append(objectClass).append('.').append(serial);
+    }
     private void setUri(String uri){
         this.uri = uri;
     };
 
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.gid;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
+    /**
+     * GID doesn't define a filter value
+     */
+    @Override
+    public int getFilter(){
+        return 0;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -96,7 +143,13 @@ public final class Gid96 {
     public boolean equals(Object o){
         if (!(o instanceof Gid96))
             return false;
-        return ((Gid96) o).getUri().equals(getUri());
+        Gid96 other = (Gid96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
+    }
+
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
     }
 
     public static Gid96 fromFields(int generalManagerNumber,
@@ -105,62 +158,79 @@ public final class Gid96 {
         return new Gid96(generalManagerNumber, objectClass, serial);
     }
 
-    public static Gid96 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int generalManagerNumber = Integer.parseInt(uriParts[0]);
-        int objectClass = Integer.parseInt(uriParts[1]);
-        long serial = Long.parseLong(uriParts[2]);
-
-        Gid96 gid96 = fromFields(generalManagerNumber,objectClass,serial);
-        gid96.setUri(uri);
-
+    public static Gid96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Gid96 gid96 = fromUriFields(parser);
+        gid96.setUri(uri.toString());
         return gid96;
     }
 
-    public static Gid96 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(96/8);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
-
-        int i;
-        long tmp;
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:gid:...)
+     */
+    public static Gid96 fromPureIdentityUri(CharSequence uri) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader));
+    }
 
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp+=1L<<(i-(96-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    private static Gid96 fromUriFields(UriParser parser) {
+        int generalManagerNumber = parser.nextInt();
+        int objectClass = parser.nextInt();
+        long serial = parser.nextLong();
+        parser.end();
+        return fromFields(generalManagerNumber,objectClass,serial);
+    }
 
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - generalManagerNumberSize - 1;)
-            tmp+=1L<<(i-(96-8-generalManagerNumberSize));
-        int generalManagerNumber = (int) tmp;
+    public static Gid96 fromEpc(String epc) {
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: GID-96 must be 24 hex characters long");
+        Gid96 gid96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        gid96.setEpc(epc);
+        return gid96;
+    }
 
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Gid96 fromBits(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
 
-        for(tmp = 0, i = 96 - 8 - generalManagerNumberSize; (i = bs.previousSetBit(i-1)) > 96 - 8 - generalManagerNumberSize - objectClassSize - 1;)
-        tmp+=1L<<(i-(96-8-generalManagerNumberSize-objectClassSize));
-        int objectClass = (int) tmp;
+        int generalManagerNumber = (int) Bits.get(hi, lo, 8, generalManagerNumberSize);
+        int objectClass = (int) Bits.get(hi, lo, 8 + generalManagerNumberSize, objectClassSize);
 
         //for the remainder, which is the serial, we can use fixed values
-        for(tmp = 0, i = serialSize; (i = bs.previousSetBit(i-1)) > -1;)
-            tmp+=1L<<i;
-        long serial = tmp;
-
-        try{
-            Gid96 gid96 = fromFields(generalManagerNumber,objectClass,serial);
-            gid96.setEpc(epc);
-            return gid96;
+        long serial = Bits.get(hi, lo, 96 - serialSize, serialSize);
+        try {
+            return new Gid96(generalManagerNumber,objectClass,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
+
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Gid96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: GID-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Gid96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
 }
@@ -0,0 +1,46 @@
+package org.java.epcGS1coder.gid;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+
+/**
+ * Reusable view of a GID-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Gid96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Gid96.validate(hi, lo);
+    }
+
+    /**
+     * GID doesn't define a filter
+     */
+    public int getFilter(){
+        return 0;
+    }
+
+    public int getGeneralManagerNumber(){
+        return (int) get(8, Gid96.generalManagerNumberSize);
+    }
+
+    public int getObjectClass(){
+        return (int) get(8 + Gid96.generalManagerNumberSize, Gid96.objectClassSize);
+    }
+
+    public long getSerial(){
+        return get(96 - Gid96.serialSize, Gid96.serialSize);
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        sb.append(Gid96.pureIdentityUriHeader).append(getGeneralManagerNumber()).append('.').append(getObjectClass()).append('.');
+        return sb.append(getSerial());
+    }
+
+    @Override
+    public Gid96 toEpc(){
+        return Gid96.fromBits(getHiBits(), getLoBits());
+    }
+}
@@ -1,27 +1,28 @@
 package org.java.epcGS1coder.grai;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.BitSet;
-import java.util.HashSet;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.BitArray;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.TableA1;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Global Returnable Asset Identifier EPC scheme is used to assign a unique identity to a specific
  * returnable asset, such as a reusable shipping container or a pallet skid.
  */
 
-public final class Grai170 extends Grai{
-    private final static byte epcHeader = 0b00110111;
-    private final static int serialSize = 112;
+public final class Grai170 extends Grai implements Epc {
+    public final static byte epcHeader = 0b00110111;
     private final static byte serialMaxChars = 16;
-    private final static int padding = 6;
     private final static String uriHeader = "urn:epc:tag:grai-170:";
-    // Table A-1 specifies the valid characters in serials, this set is to make the validators more maintenable
-    private final static HashSet<Character> invalidTableA1Chars = Arrays.asList(0x23,0x24,0x40,0x5B,0x5C,0x5D,0x5E,0x60).stream().map(Character.class::cast).collect(Collectors.toCollection(HashSet::new));
+    final static String pureIdentityUriHeader = "urn:epc:id:grai:";
     
     private String epc;
     
@@ -47,9 +48,8 @@ public final class Grai170 extends Grai{
         this.assetType = assetType;
         if (serial.length() > serialMaxChars)
             throw new IllegalArgumentException("Serial must at most " + serialMaxChars + " alphanumeric characters long");
-        for (char ch : serial.toCharArray())
-            if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-                throw new IllegalArgumentException("Invalid serial character");
+        if (!TableA1.isValid(serial))
+            throw new IllegalArgumentException("Invalid serial character");
         this.serial = serial;
     }
 
@@ -62,47 +62,43 @@ public final class Grai170 extends Grai{
     }
 
     public static Grai170 fromGs1Key(int filter,int companyPrefixDigits, String ai8003) {
-        if (ai8003.length()!=14 || !StringUtils.isNumeric(ai8003.substring(0, 13)))
-            throw new IllegalArgumentException("GRAI (must be numeric) with serial must be 14 digits long");
+        if (ai8003.length()<14 || !StringUtils.isNumeric(ai8003.substring(0, 13)))
+            throw new IllegalArgumentException("GRAI (must be numeric) with serial must be at least 14 digits long");
+
+        return new Grai170(filter, companyPrefixDigits, Long.parseLong(ai8003.substring(0, companyPrefixDigits)), (int) Gs1.parseDigits(ai8003, companyPrefixDigits, 13 - 1), ai8003.substring(13));
+    }
 
-        return new Grai170(filter, companyPrefixDigits, Long.parseLong(ai8003.substring(0, companyPrefixDigits)), Integer.parseInt(ai8003.substring(companyPrefixDigits, 13 - 1)), ai8003.substring(13));
+    /**
+     * {@link #fromGs1Key(int, int, String)} with the company prefix length looked up in the index
+     */
+    public static Grai170 fromGs1Key(int filter, GcpLengthIndex index, String ai8003) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai8003, 0), ai8003);
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(44*4); //Grai-170 epc is 44 hex chars long
-            int i = serialSize+padding-1;
-
-            for (byte b : serial.getBytes()) {
-                for (int j = 6; j >= 0; j--,i--)
-                    epc.set(i, ((b >> j) & 1) == 1);
-            }
-
-            i = serialSize+padding;
-            for (int j = 0; j < getAssetTypeBits(partition); j++,i++)
-                epc.set(i, ((assetType >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
-
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(44);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-            this.epc = sb.toString();
-        }
-        
+        if (epc == null)
+            epc = BitArray.toHex(toWords(), 44);
         return epc;
     }
 
+    @Override
+    public byte[] toBytes(){
+        return BitArray.toBytes(toWords(), 22);
+    }
+
+    private long[] toWords(){
+        byte cpb = getCompanyPrefixBits(partition);
+        int atb = getAssetTypeBits(partition);
+        long[] words = BitArray.allocate(176);
+        BitArray.set(words, 0, 8, epcHeader);
+        BitArray.set(words, 8, 3, filter.getValue());
+        BitArray.set(words, 8 + 3, 3, partition);
+        BitArray.set(words, 8 + 3 + 3, cpb, companyPrefix);
+        BitArray.set(words, 8 + 3 + 3 + cpb, atb, assetType);
+        TableA1.encode(words, 8 + 3 + 3 + cpb + atb, serial);
+        return words;
+    }
+
     public int getFilter() {
         return filter.getValue();
     }
@@ -121,121 +117,154 @@ public final class Grai170 extends Grai{
 
     public String getUri() {
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getAssetTypeDigits(partition)+"d",assetType)+"."+serial.chars().mapToObj(c -> getUriSerialChar((char) c)).collect(Collectors.joining());
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
 
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        Uri.appendPadded(sb, assetType, getAssetTypeDigits(partition)).append('.');
+        return TableA1.appendUri(sb, serial);
+    }
+
     @Override
     public boolean equals(Object o){
         if (!(o instanceof Grai170))
             return false;
-        return ((Grai170) o).getUri().equals(getUri());
+        Grai170 other = (Grai170) o;
+        return other.filter == filter && other.partition == partition && other.companyPrefix == companyPrefix
+                && other.assetType == assetType && other.serial.equals(serial);
     }
 
     @Override
-    public String toString(){
-        return getUri();
+    public int hashCode(){
+        int hash = getFilter();
+        hash = 31 * hash + partition;
+        hash = 31 * hash + Long.hashCode(companyPrefix);
+        hash = 31 * hash + assetType;
+        return 31 * hash + serial.hashCode();
     }
 
-    private void setEpc(String epc){ this.epc = epc; }
-    private void setUri(String uri){ this.uri = uri; }
+    private long gs1Key(){
+        return Gs1.key(companyPrefix, assetType, getAssetTypeDigits(partition));
+    }
 
     /**
-     * Table A-1 for the encoding
+     * @return the GRAI-13 and serial as {@link #fromGs1Key(int, int, String)} takes it
      */
-    private String getUriSerialChar(char ch){
-        if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-            throw new IllegalArgumentException("Wrong char");
-        switch (ch){
-            case '"':
-            case '%':
-            case '&':
-            case '/':
-            case '<':
-            case '>':
-            case '?':
-                return "%"+String.format("%02x",(int) ch).toUpperCase();
-            default:
-                return String.valueOf(ch);
-        }
+    public String toGs1Key(){
+        return Gs1.appendKey(new StringBuilder(32), gs1Key(), 12).append(serial).toString();
     }
 
-    public static Grai170 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        // the AI (8003) value starts with a 0 pad
+        return Gs1.appendKey(sb.append("(8003)0"), gs1Key(), 12).append(serial);
+    }
 
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int assetType = Integer.parseInt(uriParts[2]);
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.grai;
+    }
 
-        String serial = uriParts[3];
-        StringBuilder sb = new StringBuilder();
-        String[] serialSplit = serial.split("%");
-        sb.append(serialSplit[0]);
-        for (int i = 1; i < serialSplit.length; i++){
-            sb.append((char) Integer.parseInt(serialSplit[i].substring(0,2),16));
-            sb.append(serialSplit[i].substring(2));
-        }
+    @Override
+    public int getBitLength(){
+        return 170;
+    }
 
-        Grai170 grai170 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,assetType,sb.toString());
-        grai170.setUri(uri);
-        return grai170;
+    @Override
+    public byte getHeader(){
+        return epcHeader;
     }
 
-    public static Grai170 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
+    @Override
+    public String toString(){
+        return getUri();
+    }
 
-        ByteBuffer bb = ByteBuffer.allocate(22);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
+    private void setEpc(String epc){ this.epc = epc; }
+    private void setUri(String uri){ this.uri = uri; }
 
-        BitSet bs = BitSet.valueOf(bb);
 
-        int i;
-        long tmp;
+    public static Grai170 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Grai170 grai170 = fromUriFields(parser, parser.nextInt());
+        grai170.setUri(uri.toString());
+        return grai170;
+    }
 
-        for(tmp = 0, i = 176; (i = bs.previousSetBit(i-1)) > 176 - 8 - 1;)
-            tmp+=1L<<(i-(176-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:grai:...), which doesn't carry the filter value
+     */
+    public static Grai170 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        for(tmp = 0, i = 176 - 8; (i = bs.previousSetBit(i-1)) > 176 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(176-8-3));
-        int filter = (int) tmp;
+    private static Grai170 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int assetType = parser.nextInt(getAssetTypeDigits(partition));
+        String serial = parser.restEscaped();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,assetType,serial);
+    }
 
-        for(tmp = 0, i = 176 - 8 - 3; (i = bs.previousSetBit(i-1)) > 176 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(176-8-3-3));
-        byte partition = (byte) tmp;
+    public static Grai170 fromEpc(String epc) {
+        if (epc.length() != 44)
+            throw new IllegalArgumentException("Invalid EPC: GRAI-170 must be 44 hex characters long");
+        Grai170 grai170 = fromWords(BitArray.fromHex(epc));
+        grai170.setEpc(epc);
+        return grai170;
+    }
 
-        final byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 176 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 176 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(176-8-3-3-cpb));
-        long companyPrefix = tmp;
+    /**
+     * Decodes the binary encoding as read from the tag memory, 176 bits once padded to a whole word
+     */
+    public static Grai170 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 22)
+            throw new IllegalArgumentException("Invalid EPC: GRAI-170 must be 22 bytes long");
+        return fromWords(BitArray.fromBytes(bytes, offset, length));
+    }
 
-        final byte atb = getAssetTypeBits(partition);
-        for(tmp = 0, i = 176 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 176 - 8 - 3 - 3 - cpb - atb - 1;)
-            tmp+=1L<<(i-(176-8-3-3-cpb-atb));
-        int assetType = (int) tmp;
+    /**
+     * Decodes the 22 bytes at the buffer position, leaving the position after them
+     */
+    public static Grai170 fromBuffer(ByteBuffer buffer) {
+        byte[] bytes = new byte[22];
+        buffer.get(bytes);
+        return fromWords(BitArray.fromBytes(bytes, 0, bytes.length));
+    }
 
-        StringBuilder serialBuilder = new StringBuilder("");
-        byte[] tmpba;
+    /**
+     * Decodes the EPC words, see {@link BitArray} for the layout
+     */
+    private static Grai170 fromWords(long[] words) {
+        if (BitArray.get(words, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
 
-        i =176-8-3-3-cpb-atb; //buffer size - epcheader.size - filter.size - partition.size - getCompanyPrefixBits(partition) - getAssetTypeBits(partition)
-        for(;(tmpba = bs.get(i-7,i).toByteArray()).length!=0;i-=7)
-            serialBuilder.append(new String(tmpba));
+        int filter = (int) BitArray.get(words, 8, 3);
+        int partition = (int) BitArray.get(words, 8 + 3, 3);
 
-        String serial = serialBuilder.toString();
+        byte cpb = getCompanyPrefixBits(partition);
+        long companyPrefix = BitArray.get(words, 8 + 3 + 3, cpb);
+        int atb = getAssetTypeBits(partition);
+        int assetType = (int) BitArray.get(words, 8 + 3 + 3 + cpb, atb);
+        String serial = TableA1.decode(words, 8 + 3 + 3 + cpb + atb, serialMaxChars);
 
         try{
-            Grai170 grai170 = new Grai170(filter,getCompanyPrefixDigits(partition),companyPrefix,assetType,serial);
-            grai170.setEpc(epc);
-            return grai170;
+            return new Grai170(filter,getCompanyPrefixDigits(partition),companyPrefix,assetType,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
@@ -1,21 +1,30 @@
 package org.java.epcGS1coder.grai;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Global Returnable Asset Identifier EPC scheme is used to assign a unique identity to a specific
  * returnable asset, such as a reusable shipping container or a pallet skid.
  */
 
-public final class Grai96 extends Grai {
+public final class Grai96 extends Grai implements Epc {
 
-    private final static byte epcHeader = 0b00110011;
-    private final static byte serialSize = 38;
+    public final static byte epcHeader = 0b00110011;
+    final static byte serialSize = 38;
     private static final String uriHeader = "urn:epc:tag:grai-96:";
+    static final String pureIdentityUriHeader = "urn:epc:id:grai:";
     
     private String epc = null;
     
@@ -47,36 +56,36 @@ public final class Grai96 extends Grai {
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(96);
-            int i = 0;
-
-            for (int j = 0; j < serialSize; j++,i++)
-                epc.set(i, ((serial >> j) & 1)==1);
-
-            for (int j = 0; j < getAssetTypeBits(partition); j++,i++)
-                epc.set(i, ((assetType >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
+        return epc;
+    }
 
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(filter.getValue(), 8, 3)
+                | Bits.hi(partition, 8 + 3, 3)
+                | Bits.hi(companyPrefix, 8 + 3 + 3, cpb)
+                | Bits.hi(assetType, 8 + 3 + 3 + cpb, getAssetTypeBits(partition))
+                | Bits.hi(serial, 96 - serialSize, serialSize);
+    }
 
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.lo(assetType, 8 + 3 + 3 + cpb, getAssetTypeBits(partition))
+                | Bits.lo(serial, 96 - serialSize, serialSize);
+    }
 
-            this.epc = sb.toString();
-        }
-        return epc;
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
     }
 
     private void setEpc(String epc) {
@@ -101,14 +110,63 @@ public final class Grai96 extends Grai {
 
     public String getUri(){
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getAssetTypeDigits(partition)+"d",assetType)+"."+String.valueOf(serial);
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        return Uri.appendPadded(sb, assetType, getAssetTypeDigits(partition)).append('.').append(serial);
+    }
     
     private void setUri(String uri){
         this.uri = uri;
     };
 
+    private long gs1Key(){
+        return Gs1.key(companyPrefix, assetType, getAssetTypeDigits(partition));
+    }
+
+    /**
+     * @return the GRAI-13 and serial as {@link #fromGs1Key(int, int, String)} takes it
+     */
+    public String toGs1Key(){
+        return Gs1.appendKey(new StringBuilder(32), gs1Key(), 12).append(serial).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        // the AI (8003) value starts with a 0 pad
+        return Gs1.appendKey(sb.append("(8003)0"), gs1Key(), 12).append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.grai;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -118,7 +176,13 @@ public final class Grai96 extends Grai {
     public boolean equals(Object o){
         if (!(o instanceof Grai96))
             return false;
-        return ((Grai96) o).getUri().equals(getUri());
+        Grai96 other = (Grai96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
+    }
+
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
     }
 
     public static Grai96 fromFields(int filter,
@@ -130,79 +194,100 @@ public final class Grai96 extends Grai {
     }
 
     public static Grai96 fromGs1Key(int filter,int companyPrefixDigits, String ai8003) {
-        if (ai8003.length()!=14 || !StringUtils.isNumeric(ai8003))
-            throw new IllegalArgumentException("GRAI with serial must be 14 digits long");
-        return new Grai96(filter, companyPrefixDigits, Long.parseLong(ai8003.substring(0, companyPrefixDigits)), Integer.parseInt(ai8003.substring(companyPrefixDigits, 13 - 1)), Long.parseLong(ai8003.substring(13)));
+        if (ai8003.length()<14 || !StringUtils.isNumeric(ai8003))
+            throw new IllegalArgumentException("GRAI with serial must be at least 14 digits long");
+        return new Grai96(filter, companyPrefixDigits, Long.parseLong(ai8003.substring(0, companyPrefixDigits)), (int) Gs1.parseDigits(ai8003, companyPrefixDigits, 13 - 1), Long.parseLong(ai8003.substring(13)));
     }
 
+    /**
+     * {@link #fromGs1Key(int, int, String)} with the company prefix length looked up in the index
+     */
+    public static Grai96 fromGs1Key(int filter, GcpLengthIndex index, String ai8003) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai8003, 0), ai8003);
+    }
 
-    public static Grai96 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int assetType = Integer.parseInt(uriParts[2]);
-        long serial = Long.parseLong(uriParts[3]);
-
-        Grai96 grai96 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,assetType,serial);
-        grai96.setUri(uri);
 
+    public static Grai96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Grai96 grai96 = fromUriFields(parser, parser.nextInt());
+        grai96.setUri(uri.toString());
         return grai96;
     }
 
-    public static Grai96 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(96/8);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:grai:...), which doesn't carry the filter value
+     */
+    public static Grai96 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        int i;
-        long tmp;
+    private static Grai96 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int assetType = parser.nextInt(getAssetTypeDigits(partition));
+        long serial = parser.nextLong();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,assetType,serial);
+    }
 
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp+=1L<<(i-(96-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    public static Grai96 fromEpc(String epc) {
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: GRAI-96 must be 24 hex characters long");
+        Grai96 grai96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        grai96.setEpc(epc);
+        return grai96;
+    }
 
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3));
-        int filter = (int) tmp;
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Grai96 fromBits(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
 
-        for(tmp = 0, i = 96 - 8 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) Bits.get(hi, lo, 8, 3);
+        int partition = (int) Bits.get(hi, lo, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb));
-        long companyPrefix = tmp;
+        long companyPrefix = Bits.get(hi, lo, 8 + 3 + 3, cpb);
 
-        byte irb = getAssetTypeBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - irb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb-irb));
-        int assetType = (int) tmp;
+        int assetType = (int) Bits.get(hi, lo, 8 + 3 + 3 + cpb, getAssetTypeBits(partition));
 
         //for the remainder, which is the serial, we can use fixed values
-        for(tmp = 0, i = serialSize; (i = bs.previousSetBit(i-1)) > -1;)
-            tmp+=1L<<i;
-        long serial = tmp;
-
-        try{
-            Grai96 grai96 = new Grai96(filter,getCompanyPrefixDigits(partition),companyPrefix,assetType,serial);
-            grai96.setEpc(epc);
-            return grai96;
+        long serial = Bits.get(hi, lo, 96 - serialSize, serialSize);
+        try {
+            return new Grai96(filter,getCompanyPrefixDigits(partition),companyPrefix,assetType,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
+
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        if (Bits.get(hi, lo, 8 + 3, 3) > 6)
+            return DecodeStatus.invalid_partition;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Grai96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: GRAI-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Grai96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
 }
@@ -0,0 +1,81 @@
+package org.java.epcGS1coder.grai;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96Batch;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.PartitionTable;
+
+/**
+ * Decodes batches of GRAI-96 into columns, see {@link Epc96Batch}.
+ */
+
+public final class Grai96Batch extends Epc96Batch {
+
+    private final byte[] filter;
+    private final byte[] partition;
+    private final long[] companyPrefix;
+    private final int[] assetType;
+    private final long[] serial;
+
+    public Grai96Batch(int capacity){
+        super(capacity);
+        filter = new byte[capacity];
+        partition = new byte[capacity];
+        companyPrefix = new long[capacity];
+        assetType = new int[capacity];
+        serial = new long[capacity];
+    }
+
+    @Override
+    protected int decodeRows(int from, int to){
+        int valid = 0;
+        for (int i = from; i < to; i++){
+            long hi = this.hi[i];
+            long lo = this.lo[i];
+            if (status[i] == DecodeStatus.ok && (status[i] = Grai96.validate(hi, lo)) == DecodeStatus.ok){
+                int p = (int) Bits.get(hi, lo, 8 + 3, 3);
+                filter[i] = (byte) Bits.get(hi, lo, 8, 3);
+                partition[i] = (byte) p;
+                companyPrefix[i] = Bits.get(hi, lo, PartitionTable.companyPrefixOffset, PartitionTable.getCompanyPrefixBits(p));
+                assetType[i] = (int) Bits.get(hi, lo, PartitionTable.grai.getReferenceOffset(p), PartitionTable.grai.getReferenceBits(p));
+                serial[i] = Bits.get(hi, lo, 96 - Grai96.serialSize, Grai96.serialSize);
+                valid++;
+            } else {
+                filter[i] = 0;
+                partition[i] = 0;
+                companyPrefix[i] = 0;
+                assetType[i] = 0;
+                serial[i] = 0;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * @param row a valid row
+     * @return the row as an Grai96
+     */
+    public Grai96 get(int row){
+        return Grai96.fromBits(hi[row], lo[row]);
+    }
+
+    public byte[] getFilter(){
+        return filter;
+    }
+
+    public byte[] getPartition(){
+        return partition;
+    }
+
+    public long[] getCompanyPrefix(){
+        return companyPrefix;
+    }
+
+    public int[] getAssetType(){
+        return assetType;
+    }
+
+    public long[] getSerial(){
+        return serial;
+    }
+}
@@ -0,0 +1,54 @@
+package org.java.epcGS1coder.grai;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+import org.java.epcGS1coder.util.Uri;
+
+/**
+ * Reusable view of an GRAI-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Grai96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Grai96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 3);
+    }
+
+    private int getPartition(){
+        return (int) get(8 + 3, 3);
+    }
+
+    public int getCompanyPrefixDigits(){
+        return Grai96.getCompanyPrefixDigits(getPartition());
+    }
+
+    public long getCompanyPrefix(){
+        return get(8 + 3 + 3, Grai96.getCompanyPrefixBits(getPartition()));
+    }
+
+    public int getAssetType(){
+        int partition = getPartition();
+        return (int) get(8 + 3 + 3 + Grai96.getCompanyPrefixBits(partition), Grai96.getAssetTypeBits(partition));
+    }
+
+    public long getSerial(){
+        return get(96 - Grai96.serialSize, Grai96.serialSize);
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        Uri.appendPadded(sb.append(Grai96.pureIdentityUriHeader), getCompanyPrefix(), getCompanyPrefixDigits()).append('.');
+        Uri.appendPadded(sb, getAssetType(), Grai96.getAssetTypeDigits(getPartition())).append('.');
+        return sb.append(getSerial());
+    }
+
+    @Override
+    public Grai96 toEpc(){
+        return Grai96.fromBits(getHiBits(), getLoBits());
+    }
+}
@@ -1,5 +1,7 @@
 package org.java.epcGS1coder.gsrn;
 
+import org.java.epcGS1coder.util.PartitionTable;
+
 class Gsrn {
 
     /**
@@ -8,24 +10,7 @@ class Gsrn {
      * @return M value
      */
     protected static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
@@ -34,24 +19,7 @@ class Gsrn {
      * @return N value
      */
     protected static byte getServiceReferenceBits(int partition){
-        switch (partition){
-            case 0:
-                return 18;
-            case 1:
-                return 21;
-            case 2:
-                return 24;
-            case 3:
-                return 28;
-            case 4:
-                return 31;
-            case 5:
-                return 34;
-            case 6:
-                return 38;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.gsrn.getReferenceBits(partition);
     }
 
     /**
@@ -60,7 +28,7 @@ class Gsrn {
      * @return P value
      */
     protected static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
@@ -69,7 +37,7 @@ class Gsrn {
      * @return L
      */
     protected static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
@@ -77,7 +45,7 @@ class Gsrn {
      * @param P
      */
     protected static int getServiceReferenceDigits(int partition){
-        return partition+5;
+        return PartitionTable.gsrn.getReferenceDigits(partition);
     }
 
     protected enum GsrnFilter{
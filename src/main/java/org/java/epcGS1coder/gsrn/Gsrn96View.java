@@ -0,0 +1,49 @@
+package org.java.epcGS1coder.gsrn;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+import org.java.epcGS1coder.util.Uri;
+
+/**
+ * Reusable view of an GSRN-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Gsrn96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Gsrn96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 3);
+    }
+
+    private int getPartition(){
+        return (int) get(8 + 3, 3);
+    }
+
+    public int getCompanyPrefixDigits(){
+        return Gsrn96.getCompanyPrefixDigits(getPartition());
+    }
+
+    public long getCompanyPrefix(){
+        return get(8 + 3 + 3, Gsrn96.getCompanyPrefixBits(getPartition()));
+    }
+
+    public long getServiceReference(){
+        int partition = getPartition();
+        return get(8 + 3 + 3 + Gsrn96.getCompanyPrefixBits(partition), Gsrn96.getServiceReferenceBits(partition));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        Uri.appendPadded(sb.append(Gsrn96.pureIdentityUriHeader), getCompanyPrefix(), getCompanyPrefixDigits()).append('.');
+        return Uri.appendPadded(sb, getServiceReference(), Gsrn96.getServiceReferenceDigits(getPartition()));
+    }
+
+    @Override
+    public Gsrn96 toEpc(){
+        return Gsrn96.fromBits(getHiBits(), getLoBits());
+    }
+}
@@ -1,20 +1,29 @@
 package org.java.epcGS1coder.gsrn;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Global Service Relation Number – Provider (GSRNP) EPC scheme is used to assign a unique
  * identity to a service provider.
  */
 
-public final class Gsrnp96 extends Gsrn{
+public final class Gsrnp96 extends Gsrn implements Epc {
 
-    private final static byte epcHeader = 0b00101110;
+    public final static byte epcHeader = 0b00101110;
     private final static String uriHeader = "urn:epc:tag:gsrnp-96:";
+    final static String pureIdentityUriHeader = "urn:epc:id:gsrnp:";
     
     private Gsrnp96(int filter,
                     int companyPrefixDigits,
@@ -41,33 +50,34 @@ public final class Gsrnp96 extends Gsrn{
     protected String uri = null;
     
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(96);
-            int i = 0;
-
-            for (int j = 0; j < getServiceReferenceBits(partition); j++,i++)
-                epc.set(i, ((serviceReference >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
+        return epc;
+    }
 
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(filter.getValue(), 8, 3)
+                | Bits.hi(partition, 8 + 3, 3)
+                | Bits.hi(companyPrefix, 8 + 3 + 3, cpb)
+                | Bits.hi(serviceReference, 8 + 3 + 3 + cpb, getServiceReferenceBits(partition));
+    }
 
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.lo(serviceReference, 8 + 3 + 3 + cpb, getServiceReferenceBits(partition));
+    }
 
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-            sb.append("000000"); //gsrn final 24 bits are 0s
-            this.epc = sb.toString();
-        }
-        return epc;
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
     }
 
     private void setEpc(String epc) {
@@ -88,13 +98,68 @@ public final class Gsrnp96 extends Gsrn{
 
     public String getUri(){
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+serviceReference;
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    /**
+     * Unlike the tag URI the service reference is padded, as the Pure Identity URI grammar requires
+     */
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        sb.append(pureIdentityUriHeader);
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        return Uri.appendPadded(sb, serviceReference, getServiceReferenceDigits(partition));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        return Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.').append(serviceReference);
+    }
     private void setUri(String uri){
         this.uri = uri;
     };
 
+    /**
+     * @return the GSRN-18, check digit included, as a number: left pad it with zeros to 18 digits
+     */
+    public long getGsrn(){
+        return Gs1.withCheckDigit(Gs1.key(companyPrefix, serviceReference, getServiceReferenceDigits(partition)));
+    }
+
+    /**
+     * @return the AI (8017) GSRN provider as {@link #fromGs1Key(int, int, String)} takes it
+     */
+    public String toGs1Key(){
+        return Uri.appendPadded(new StringBuilder(18), getGsrn(), 18).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        return Uri.appendPadded(sb.append("(8017)"), getGsrn(), 18);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.gsrnp;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -104,7 +169,13 @@ public final class Gsrnp96 extends Gsrn{
     public boolean equals(Object o){
         if (!(o instanceof Gsrnp96))
             return false;
-        return ((Gsrnp96) o).getUri().equals(getUri());
+        Gsrnp96 other = (Gsrnp96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
+    }
+
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
     }
 
     public static Gsrnp96 fromFields(int filter,
@@ -120,68 +191,91 @@ public final class Gsrnp96 extends Gsrn{
         return new Gsrnp96(filter, companyPrefixDigits, Long.parseLong(ai8017.substring(0, companyPrefixDigits)), Long.parseLong(ai8017.substring(companyPrefixDigits,ai8017.length()-1)));
     }
 
+    /**
+     * {@link #fromGs1Key(int, int, String)} with the company prefix length looked up in the index
+     */
+    public static Gsrnp96 fromGs1Key(int filter, GcpLengthIndex index, String ai8017) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai8017, 0), ai8017);
+    }
 
-    public static Gsrnp96 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        long serviceReference = Long.parseLong(uriParts[2]);
-
-        Gsrnp96 gsrnp96 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,serviceReference);
-        gsrnp96.setUri(uri);
 
+    public static Gsrnp96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Gsrnp96 gsrnp96 = fromUriFields(parser, parser.nextInt());
+        gsrnp96.setUri(uri.toString());
         return gsrnp96;
     }
 
-    public static Gsrnp96 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(96/8);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:gsrnp:...), which doesn't carry the filter value
+     */
+    public static Gsrnp96 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        int i;
-        long tmp;
+    private static Gsrnp96 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        long serviceReference = parser.nextLong();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,serviceReference);
+    }
 
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp+=1L<<(i-(96-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    public static Gsrnp96 fromEpc(String epc) {
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: GSRNP-96 must be 24 hex characters long");
+        Gsrnp96 gsrnp96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        gsrnp96.setEpc(epc);
+        return gsrnp96;
+    }
 
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3));
-        int filter = (int) tmp;
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Gsrnp96 fromBits(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
 
-        for(tmp = 0, i = 96 - 8 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) Bits.get(hi, lo, 8, 3);
+        int partition = (int) Bits.get(hi, lo, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb));
-        long companyPrefix = tmp;
-
-        byte srb = getServiceReferenceBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - srb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb-srb));
-        long serviceReference = tmp;
-
-        try{
-            Gsrnp96 gsrnp96 = new Gsrnp96(filter,getCompanyPrefixDigits(partition),companyPrefix,serviceReference);
-            gsrnp96.setEpc(epc);
-            return gsrnp96;
+        long companyPrefix = Bits.get(hi, lo, 8 + 3 + 3, cpb);
+
+        long serviceReference = Bits.get(hi, lo, 8 + 3 + 3 + cpb, getServiceReferenceBits(partition));
+        try {
+            return new Gsrnp96(filter,getCompanyPrefixDigits(partition),companyPrefix,serviceReference);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
+
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        if (Bits.get(hi, lo, 8 + 3, 3) > 6)
+            return DecodeStatus.invalid_partition;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Gsrnp96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: GSRNP-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Gsrnp96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
 }
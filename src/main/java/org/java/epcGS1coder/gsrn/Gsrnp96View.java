@@ -0,0 +1,49 @@
+package org.java.epcGS1coder.gsrn;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+import org.java.epcGS1coder.util.Uri;
+
+/**
+ * Reusable view of an GSRNP-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Gsrnp96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Gsrnp96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 3);
+    }
+
+    private int getPartition(){
+        return (int) get(8 + 3, 3);
+    }
+
+    public int getCompanyPrefixDigits(){
+        return Gsrnp96.getCompanyPrefixDigits(getPartition());
+    }
+
+    public long getCompanyPrefix(){
+        return get(8 + 3 + 3, Gsrnp96.getCompanyPrefixBits(getPartition()));
+    }
+
+    public long getServiceReference(){
+        int partition = getPartition();
+        return get(8 + 3 + 3 + Gsrnp96.getCompanyPrefixBits(partition), Gsrnp96.getServiceReferenceBits(partition));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        Uri.appendPadded(sb.append(Gsrnp96.pureIdentityUriHeader), getCompanyPrefix(), getCompanyPrefixDigits()).append('.');
+        return Uri.appendPadded(sb, getServiceReference(), Gsrnp96.getServiceReferenceDigits(getPartition()));
+    }
+
+    @Override
+    public Gsrnp96 toEpc(){
+        return Gsrnp96.fromBits(getHiBits(), getLoBits());
+    }
+}
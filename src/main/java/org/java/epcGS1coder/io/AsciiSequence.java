@@ -0,0 +1,41 @@
+package org.java.epcGS1coder.io;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A line of bytes seen as characters, re-pointed at every line so decoding doesn't create a String per line.
+ */
+
+final class AsciiSequence implements CharSequence {
+
+    private byte[] bytes;
+    private int from;
+    private int length;
+
+    AsciiSequence wrap(byte[] bytes, int from, int to){
+        this.bytes = bytes;
+        this.from = from;
+        this.length = to - from;
+        return this;
+    }
+
+    @Override
+    public int length(){
+        return length;
+    }
+
+    @Override
+    public char charAt(int index){
+        return (char) (bytes[from + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end){
+        return new String(bytes, from + start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString(){
+        return new String(bytes, from, length, StandardCharsets.ISO_8859_1);
+    }
+}
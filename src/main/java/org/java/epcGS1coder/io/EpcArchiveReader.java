@@ -0,0 +1,85 @@
+package org.java.epcGS1coder.io;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.java.epcGS1coder.DecodeResult;
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.EpcDecoder;
+
+/**
+ * Reads the archives written by {@link EpcArchiveWriter}. Every block is read at once and its records are
+ * rebuilt in place over the previous one and decoded straight into the scheme objects with
+ * {@link EpcDecoder#tryDecode(byte[], int, int, DecodeResult)}, no hex string involved.
+ * <p>
+ * Records that no longer decode (e.g. written by a later version with more schemes) are handed to
+ * {@link EpcSink#reject(long, DecodeStatus)} with their index in the archive.
+ */
+
+public final class EpcArchiveReader {
+
+    private final DataInputStream in;
+    private final EpcSink sink;
+    private final byte[] record = new byte[255];
+    private final DecodeResult result = new DecodeResult();
+    private byte[] block = new byte[EpcArchiveWriter.blockSize * 16];
+    private long index;
+    private long accepted;
+
+    private EpcArchiveReader(InputStream in, EpcSink sink){
+        this.in = new DataInputStream(in);
+        this.sink = sink;
+    }
+
+    /**
+     * Reads the whole archive, the stream is left open
+     * @return the number of EPCs given to the sink
+     */
+    public static long read(InputStream in, EpcSink sink) throws IOException {
+        EpcArchiveReader reader = new EpcArchiveReader(in, sink);
+        reader.read();
+        return reader.accepted;
+    }
+
+    private void read() throws IOException {
+        if (in.readInt() != EpcArchiveWriter.magic)
+            throw new IllegalArgumentException("Not an EPC archive");
+        int version = in.readUnsignedByte();
+        if (version != EpcArchiveWriter.version)
+            throw new IllegalArgumentException("Unsupported archive version: " + version);
+        int recordLength;
+        while ((recordLength = in.read()) >= 0){
+            int count = in.readUnsignedShort();
+            int blockLength = in.readInt();
+            if (blockLength < 0)
+                throw new IllegalArgumentException("Invalid block length: " + blockLength);
+            if (blockLength > block.length)
+                block = new byte[blockLength];
+            in.readFully(block, 0, blockLength);
+            decode(recordLength, count, blockLength);
+        }
+    }
+
+    private void decode(int recordLength, int count, int blockLength){
+        int position = 0;
+        for (int i = 0; i < count; i++){
+            if (position >= blockLength)
+                throw new IllegalArgumentException("Truncated block at record " + index);
+            int shared = block[position++] & 0xFF;
+            int length = recordLength > 0 ? recordLength : block[position++] & 0xFF;
+            if (shared > length || position + length - shared > blockLength)
+                throw new IllegalArgumentException("Corrupted record " + index);
+            System.arraycopy(block, position, record, shared, length - shared);
+            position += length - shared;
+            DecodeStatus status = EpcDecoder.tryDecode(record, 0, length, result);
+            if (status != DecodeStatus.ok)
+                sink.reject(index, status);
+            else {
+                sink.accept(result.getEpc());
+                accepted++;
+            }
+            index++;
+        }
+    }
+}
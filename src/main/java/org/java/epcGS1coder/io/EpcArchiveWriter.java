@@ -0,0 +1,146 @@
+package org.java.epcGS1coder.io;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.adi.AdiVar;
+import org.java.epcGS1coder.cpi.CpiVar;
+
+/**
+ * Writes EPCs in the compact binary archive format read by {@link EpcArchiveReader}, which stores the tag bits
+ * themselves (12 bytes for the 96-bit schemes) instead of their 24+ chars hex encoding or 60+ chars URI.
+ * <p>
+ * The format is big endian:
+ * <pre>
+ * archive := magic ("EPCA") version (u8) block*
+ * block   := recordLength (u8, 0 if the records are length prefixed) count (u16) byteLength (i32) record{count}
+ * record  := shared (u8) [length (u8), in length prefixed blocks only] bytes[length - shared]
+ * </pre>
+ * A block holds up to {@link #blockSize} consecutive EPCs of the same binary length, the variable length
+ * codings (AdiVar, CpiVar) go to length prefixed blocks. Each record only stores the bytes that differ from
+ * the previous record of its block: the header, filter, partition and company prefix lead the binary
+ * encoding, so runs of tags from the same company (a pallet, a shipment) are stored as little more than their
+ * item reference and serial.
+ */
+
+public final class EpcArchiveWriter implements EpcSink, Closeable {
+
+    final static int magic = 0x45504341; // "EPCA"
+    final static int version = 1;
+
+    /**
+     * Maximum number of EPCs of a block
+     */
+    public final static int blockSize = 4096;
+
+    private final static int maxLength = 255;
+
+    private final DataOutputStream out;
+    private final ByteBuffer record = ByteBuffer.allocate(maxLength);
+    private final byte[] previous = new byte[maxLength];
+    private int previousLength;
+    private byte[] block = new byte[blockSize * 16];
+    private int blockLength;
+    private int recordLength = -1;
+    private int count;
+
+    /**
+     * Writes the archive header, the stream is closed with the writer
+     */
+    public EpcArchiveWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.writeInt(magic);
+        this.out.writeByte(version);
+    }
+
+    public void write(Epc epc) throws IOException {
+        record.clear();
+        if ((epc.getBitLength() + 7) / 8 > maxLength)
+            throw new IllegalArgumentException("EPC longer than " + maxLength + " bytes: " + epc.getEpc());
+        epc.writeTo(record);
+        int length = record.position();
+        byte[] bytes = record.array();
+        int fixedLength = isVariable(epc) ? 0 : length;
+        if (count == blockSize || fixedLength != recordLength)
+            writeBlock();
+        if (count == 0){
+            recordLength = fixedLength;
+            previousLength = 0;
+        }
+        int shared = 0;
+        int limit = Math.min(length, previousLength);
+        while (shared < limit && bytes[shared] == previous[shared])
+            shared++;
+        ensureCapacity(blockLength + 2 + length - shared);
+        block[blockLength++] = (byte) shared;
+        if (fixedLength == 0)
+            block[blockLength++] = (byte) length;
+        System.arraycopy(bytes, shared, block, blockLength, length - shared);
+        blockLength += length - shared;
+        System.arraycopy(bytes, shared, previous, shared, length - shared);
+        previousLength = length;
+        count++;
+    }
+
+    /**
+     * {@link #write(Epc)} for the readers, I/O errors are rethrown unchecked
+     */
+    @Override
+    public void accept(Epc epc){
+        try {
+            write(epc);
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ends the current block and flushes the stream
+     */
+    public void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * The codings whose length depends on the content (Table 14-1)
+     */
+    private static boolean isVariable(Epc epc){
+        byte header = epc.getHeader();
+        return header == AdiVar.epcHeader || header == CpiVar.epcHeader;
+    }
+
+    private void ensureCapacity(int capacity){
+        if (capacity > block.length){
+            byte[] grown = new byte[Math.max(capacity, 2 * block.length)];
+            System.arraycopy(block, 0, grown, 0, blockLength);
+            block = grown;
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (count == 0)
+            return;
+        out.writeByte(recordLength);
+        out.writeShort(count);
+        out.writeInt(blockLength);
+        out.write(block, 0, blockLength);
+        blockLength = 0;
+        count = 0;
+        recordLength = -1;
+    }
+}
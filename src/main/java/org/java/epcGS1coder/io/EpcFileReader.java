@@ -0,0 +1,126 @@
+package org.java.epcGS1coder.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.java.epcGS1coder.DecodeResult;
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.EpcDecoder;
+import org.java.epcGS1coder.util.Hex;
+
+/**
+ * Decodes newline delimited hex EPC files (the raw reads archives) of any size. The file is streamed through
+ * a single small, cache sized, chunk where the lines are decoded in place: the 96-bit
+ * ones with {@link EpcDecoder#tryDecode(long, long, DecodeResult)}, the others with
+ * {@link EpcDecoder#tryDecode(CharSequence, DecodeResult)}, without creating a String per line.
+ * <p>
+ * Lines can end with "\n" or "\r\n", empty lines are skipped and the invalid ones are handed to
+ * {@link EpcSink#reject(long, DecodeStatus)}, the lines longer than the chunk as
+ * {@link DecodeStatus#invalid_length}.
+ */
+
+public final class EpcFileReader {
+
+    private final static int chunkSize = 1 << 16;
+
+    private final byte[] chunk;
+    private final AsciiSequence line = new AsciiSequence();
+    private final DecodeResult result = new DecodeResult();
+    private final EpcSink sink;
+    private long accepted;
+
+    private EpcFileReader(EpcSink sink, int chunkSize){
+        this.sink = sink;
+        this.chunk = new byte[chunkSize];
+    }
+
+    /**
+     * @return the number of EPCs given to the sink
+     */
+    public static long read(Path file, EpcSink sink) throws IOException {
+        return read(file, sink, chunkSize);
+    }
+
+    static long read(Path file, EpcSink sink, int chunkSize) throws IOException {
+        EpcFileReader reader = new EpcFileReader(sink, chunkSize);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            reader.read(channel);
+        }
+        return reader.accepted;
+    }
+
+    private void read(FileChannel channel) throws IOException {
+        long chunkPosition = 0; // file offset of chunk[0]
+        int filled = 0;
+        boolean skipping = false; // within a line longer than the chunk, up to its '\n'
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        while (true){
+            int scanned = filled;
+            buffer.position(filled);
+            int length = channel.read(buffer);
+            if (length < 0)
+                break;
+            filled += length;
+            int start = 0;
+            for (int i = scanned; i < filled; i++)
+                if (chunk[i] == '\n'){
+                    if (skipping)
+                        skipping = false;
+                    else
+                        decode(start, i, chunkPosition);
+                    start = i + 1;
+                }
+            if (start == 0 && filled == chunk.length){
+                // a line the chunk can't hold, a corrupted stretch of the file: rejected and skipped
+                if (!skipping)
+                    sink.reject(chunkPosition, DecodeStatus.invalid_length);
+                skipping = true;
+                chunkPosition += filled;
+                filled = 0;
+                continue;
+            }
+            // the line the chunk cut is moved to its beginning
+            System.arraycopy(chunk, start, chunk, 0, filled - start);
+            filled -= start;
+            chunkPosition += start;
+        }
+        if (!skipping)
+            decode(0, filled, chunkPosition);
+    }
+
+    private void decode(int from, int to, long chunkPosition){
+        if (to > from && chunk[to - 1] == '\r')
+            to--;
+        if (to == from)
+            return;
+        DecodeStatus status = null;
+        if (to - from == 24){
+            // 96-bit codings, the bulk of the reads, are parsed straight from the bytes in a single pass
+            long hi = 0, lo = 0;
+            int invalid = 0; // gets the sign bit of any -1 digit
+            for (int i = from; i < from + 16; i++){
+                int digit = Hex.digit((char) (chunk[i] & 0xFF));
+                invalid |= digit;
+                hi = hi << 4 | digit;
+            }
+            for (int i = from + 16; i < to; i++){
+                int digit = Hex.digit((char) (chunk[i] & 0xFF));
+                invalid |= digit;
+                lo = lo << 4 | digit;
+            }
+            if (invalid >= 0)
+                status = EpcDecoder.tryDecode(hi, lo, result);
+        }
+        if (status == null)
+            status = EpcDecoder.tryDecode(line.wrap(chunk, from, to), result);
+        if (status != DecodeStatus.ok)
+            sink.reject(chunkPosition + from, status);
+        else {
+            sink.accept(result.getEpc());
+            accepted++;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.java.epcGS1coder.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.java.epcGS1coder.Epc;
+
+/**
+ * Writes EPCs as newline delimited lines, either hex encoded (what {@link EpcFileReader} reads back) or as
+ * EPC Tag URIs. As an {@link EpcSink} it turns a reader into a converter:
+ * <pre>
+ * try (EpcFileWriter writer = new EpcFileWriter(uris, EpcFileWriter.Format.uri)){
+ *     EpcFileReader.read(reads, writer);
+ * }
+ * </pre>
+ */
+
+public final class EpcFileWriter implements EpcSink, Closeable {
+
+    public enum Format {
+        hex,
+        uri
+    }
+
+    private final static int bufferSize = 1 << 16;
+
+    private final FileChannel channel;
+    private final Format format;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+    private final StringBuilder line = new StringBuilder(128);
+
+    /**
+     * Creates (or truncates) the file
+     */
+    public EpcFileWriter(Path file, Format format) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.format = format;
+    }
+
+    public void write(Epc epc) throws IOException {
+        line.setLength(0);
+        if (format == Format.hex)
+            line.append(epc.getEpc());
+        else
+            epc.appendUri(line);
+        if (buffer.remaining() < line.length() + 1)
+            flush();
+        if (buffer.remaining() < line.length() + 1)
+            throw new IllegalArgumentException("Line longer than " + bufferSize + " bytes");
+        for (int i = 0; i < line.length(); i++)
+            buffer.put((byte) line.charAt(i));
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * {@link #write(Epc)} for the reader, I/O errors are rethrown unchecked
+     */
+    @Override
+    public void accept(Epc epc){
+        try {
+            write(epc);
+        } catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
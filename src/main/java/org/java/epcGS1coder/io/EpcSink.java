@@ -0,0 +1,21 @@
+package org.java.epcGS1coder.io;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+
+/**
+ * Receives the EPCs decoded by {@link EpcFileReader} and {@link EpcArchiveReader}, in file order.
+ */
+
+@FunctionalInterface
+public interface EpcSink {
+
+    void accept(Epc epc);
+
+    /**
+     * Called for the lines (or archive records) that aren't a supported EPC, which are skipped by default
+     * @param position offset of the line in the file, index of the record in an archive
+     */
+    default void reject(long position, DecodeStatus status){
+    }
+}
@@ -1,5 +1,7 @@
 package org.java.epcGS1coder.itip;
 
+import org.java.epcGS1coder.util.PartitionTable;
+
 class Itip {
      /**
      * Table 14-30 ITIP Partition Table
@@ -7,24 +9,7 @@ class Itip {
      * @return M value
      */
     protected static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
@@ -33,24 +18,7 @@ class Itip {
      * @return N value
      */
     protected static byte getIndicatorPadDigitItemReferenceBits(int partition){
-        switch (partition){
-            case 0:
-                return 4;
-            case 1:
-                return 7;
-            case 2:
-                return 10;
-            case 3:
-                return 14;
-            case 4:
-                return 17;
-            case 5:
-                return 20;
-            case 6:
-                return 24;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.itip.getReferenceBits(partition);
     }
 
     /**
@@ -59,7 +27,7 @@ class Itip {
      * @return P value
      */
     protected static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
@@ -68,7 +36,7 @@ class Itip {
      * @return L
      */
     protected static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
@@ -76,7 +44,7 @@ class Itip {
      * @param P
      */
     protected static int getIndicatorPadDigitItemReferenceDigits(int partition){
-        return partition+1;
+        return PartitionTable.itip.getReferenceDigits(partition);
     }
 
     protected enum ItipFilter{
@@ -1,22 +1,31 @@
 package org.java.epcGS1coder.itip;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.BitSet;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Individual Trade Item Piece EPC scheme is used to assign a unique identity to a subordinate
  * element of a trade item (e.g., left and right shoes, suit trousers and jacket, DIY trade item consisting
  * of several physical units), the latter of which comprises multiple pieces.
  */
 
-public final class Itip110 extends Itip {
-    private final static byte epcHeader = 0b01000000;
+public final class Itip110 extends Itip implements Epc {
+    public final static byte epcHeader = 0b01000000;
     private final static byte serialSize = 38;
     private final static int padding = 2;
     private static final String uriHeader = "urn:epc:tag:itip-110:";
+    static final String pureIdentityUriHeader = "urn:epc:id:itip:";
     
     private String epc = null;
     
@@ -71,10 +80,10 @@ public final class Itip110 extends Itip {
             for (int j = 0; j < 7; j++,i++)
                 epc.set(i, ((piece >> j) & 1)==1);
 
-            for (int j = 0; j < getIndicatorPadDigitItemReferenceBits(partition); j++,i++)
+            for (int j = 0, bits = getIndicatorPadDigitItemReferenceBits(partition); j < bits; j++,i++)
                 epc.set(i, ((indicatorPadDigitItemReference >> j) & 1)==1);
 
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
+            for (int j = 0, bits = getCompanyPrefixBits(partition); j < bits; j++,i++)
                 epc.set(i, ((companyPrefix >> j) & 1)==1);
 
             for (int j = 0; j < 3; j++,i++)
@@ -126,13 +135,66 @@ public final class Itip110 extends Itip {
 
     public String getUri(){
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getIndicatorPadDigitItemReferenceDigits(partition)+"d",indicatorPadDigitItemReference)+"."+String.format("%02d",piece)+"."+String.format("%02d",total)+"."+String.valueOf(serial);
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        Uri.appendPadded(sb, indicatorPadDigitItemReference, getIndicatorPadDigitItemReferenceDigits(partition)).append('.');
+        Uri.appendPadded(sb, piece, 2).append('.');
+        return Uri.appendPadded(sb, total, 2).append('.').append(serial);
+    }
     private void setUri(String uri){
         this.uri = uri;
     };
 
+    private long gs1Key(){
+        return Gs1.indicatorKey(companyPrefix, getCompanyPrefixDigits(partition), indicatorPadDigitItemReference, getIndicatorPadDigitItemReferenceDigits(partition));
+    }
+
+    /**
+     * @return the AI (8006) ITIP: GTIN-14, piece and total as {@link #fromGs1Key(int, int, String, long)} takes it
+     */
+    public String toGs1Key(){
+        StringBuilder sb = Uri.appendPadded(Gs1.appendKey(new StringBuilder(18), gs1Key(), 13), piece, 2);
+        return Uri.appendPadded(sb, total, 2).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        Uri.appendPadded(Gs1.appendKey(sb.append("(8006)"), gs1Key(), 13), piece, 2);
+        Uri.appendPadded(sb, total, 2);
+        return sb.append("(21)").append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.itip;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 110;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -142,7 +204,21 @@ public final class Itip110 extends Itip {
     public boolean equals(Object o){
         if (!(o instanceof Itip110))
             return false;
-        return ((Itip110) o).getUri().equals(getUri());
+        Itip110 other = (Itip110) o;
+        return other.filter == filter && other.partition == partition && other.companyPrefix == companyPrefix
+                && other.indicatorPadDigitItemReference == indicatorPadDigitItemReference && other.piece == piece
+                && other.total == total && other.serial == serial;
+    }
+
+    @Override
+    public int hashCode(){
+        int hash = getFilter();
+        hash = 31 * hash + partition;
+        hash = 31 * hash + Long.hashCode(companyPrefix);
+        hash = 31 * hash + indicatorPadDigitItemReference;
+        hash = 31 * hash + piece;
+        hash = 31 * hash + total;
+        return 31 * hash + Long.hashCode(serial);
     }
 
     public static Itip110 fromFields(int filter,
@@ -158,42 +234,67 @@ public final class Itip110 extends Itip {
     public static Itip110 fromGs1Key(int filter,int companyPrefixDigits, String ai8006, long ai21) {
         if (ai8006.length()!= 18 || !StringUtils.isNumeric(ai8006))
             throw new IllegalArgumentException("ITIP must be 18 digits long");
-        return new Itip110(filter, companyPrefixDigits, Long.parseLong(ai8006.substring(1, companyPrefixDigits + 1)), Integer.parseInt(ai8006.substring(companyPrefixDigits + 1, 14 - 1)),Byte.parseByte(ai8006.substring(14+1, 14+1+2-1)),Byte.parseByte(ai8006.substring(14+1+2, 14+1+2+2-1)), ai21);
+        return new Itip110(filter, companyPrefixDigits, Long.parseLong(ai8006.substring(1, companyPrefixDigits + 1)), Integer.parseInt(ai8006.charAt(0) + ai8006.substring(companyPrefixDigits + 1, 14 - 1)), Byte.parseByte(ai8006.substring(14, 14 + 2)), Byte.parseByte(ai8006.substring(14 + 2, 14 + 2 + 2)), ai21);
     }
 
+    /**
+     * {@link #fromGs1Key(int, int, String, long)} with the company prefix length looked up in the index
+     */
+    public static Itip110 fromGs1Key(int filter, GcpLengthIndex index, String ai8006, long ai21) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai8006, 1), ai8006, ai21);
+    }
 
-    public static Itip110 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
 
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int indicatorPadDigitItemReference = Integer.parseInt(uriParts[2]);
-        byte piece = Byte.parseByte(uriParts[3]);
-        byte total = Byte.parseByte(uriParts[4]);
-        long serial = Long.parseLong(uriParts[5]);
+    public static Itip110 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Itip110 itip110 = fromUriFields(parser, parser.nextInt());
+        itip110.setUri(uri.toString());
+        return itip110;
+    }
 
-        Itip110 itip110 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,indicatorPadDigitItemReference,piece,total,serial);
-        itip110.setUri(uri);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:itip:...), which doesn't carry the filter value
+     */
+    public static Itip110 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        return itip110;
+    private static Itip110 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int indicatorPadDigitItemReference = parser.nextInt(getIndicatorPadDigitItemReferenceDigits(partition));
+        byte piece = (byte) parser.nextInt(2);
+        byte total = (byte) parser.nextInt(2);
+        long serial = parser.nextLong();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,indicatorPadDigitItemReference,piece,total,serial);
     }
 
     public static Itip110 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
+        Itip110 itip110 = fromBitSet(Bits.toBitSet(Hex.toBytes(epc), 0, epc.length() / 2));
+        itip110.setEpc(epc);
+        return itip110;
+    }
 
-        ByteBuffer bb = ByteBuffer.allocate(28);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
+    /**
+     * Decodes the binary encoding as read from the tag memory, 112 bits once padded to a whole word
+     */
+    public static Itip110 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 14)
+            throw new IllegalArgumentException("Invalid EPC: ITIP-110 must be 14 bytes long");
+        return fromBitSet(Bits.toBitSet(bytes, offset, length));
+    }
 
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Decodes the 14 bytes at the buffer position, leaving the position after them
+     */
+    public static Itip110 fromBuffer(ByteBuffer buffer) {
+        byte[] bytes = new byte[14];
+        buffer.get(bytes);
+        return fromBitSet(Bits.toBitSet(bytes, 0, bytes.length));
+    }
 
+    private static Itip110 fromBitSet(BitSet bs) {
         int i;
         long tmp;
 
@@ -234,9 +335,7 @@ public final class Itip110 extends Itip {
         long serial = tmp>>padding;
 
         try{
-            Itip110 itip110 = new Itip110(filter,getCompanyPrefixDigits(partition),companyPrefix,indicatorPadDigitItemReference,piece,total,serial);
-            itip110.setEpc(epc);
-            return itip110;
+            return new Itip110(filter,getCompanyPrefixDigits(partition),companyPrefix,indicatorPadDigitItemReference,piece,total,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
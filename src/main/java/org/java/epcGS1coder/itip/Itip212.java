@@ -1,28 +1,29 @@
 package org.java.epcGS1coder.itip;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.BitSet;
-import java.util.HashSet;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.BitArray;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.TableA1;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Individual Trade Item Piece EPC scheme is used to assign a unique identity to a subordinate
  * element of a trade item (e.g., left and right shoes, suit trousers and jacket, DIY trade item consisting
  * of several physical units), the latter of which comprises multiple pieces.
  */
 
-public final class Itip212 extends Itip{
-    private final static byte epcHeader = 0b01000001;
-    private final static int serialSize = 140;
+public final class Itip212 extends Itip implements Epc {
+    public final static byte epcHeader = 0b01000001;
     private final static byte serialMaxChars = 20;
-    private final static int padding = 12;
     private static final String uriHeader = "urn:epc:tag:itip-212:";
-    // Table A-1 specifies the valid characters in serials, this set is to make the validators more maintenable
-    private final static HashSet<Character> invalidTableA1Chars = Arrays.asList(0x23,0x24,0x40,0x5B,0x5C,0x5D,0x5E,0x60).stream().map(Character.class::cast).collect(Collectors.toCollection(HashSet::new));
+    static final String pureIdentityUriHeader = "urn:epc:id:itip:";
     
     private String epc = null;
     
@@ -60,52 +61,35 @@ public final class Itip212 extends Itip{
         this.total = total;
         if (serial.length() > serialMaxChars)
             throw new IllegalArgumentException("Serial must at most " + serialMaxChars + " alphanumeric characters long");
-        for (char ch : serial.toCharArray())
-            if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-                throw new IllegalArgumentException("Invalid serial character");
+        if (!TableA1.isValid(serial))
+            throw new IllegalArgumentException("Invalid serial character");
         this.serial = serial;
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(56*4); 
-            int i = serialSize+padding-1;
-
-            for (byte b : serial.getBytes()) {
-                for (int j = 6; j >= 0; j--,i--)
-                    epc.set(i, ((b >> j) & 1) == 1);
-            }
-
-            i = serialSize+padding;
-            for (int j = 0; j < 7; j++,i++)
-                epc.set(i, ((total >> j) & 1)==1);
-
-            for (int j = 0; j < 7; j++,i++)
-                epc.set(i, ((piece >> j) & 1)==1);
-
-            for (int j = 0; j < getIndicatorPadDigitItemReferenceBits(partition); j++,i++)
-                epc.set(i, ((indicatorPadDigitItemReference >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
-
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
+        if (epc == null)
+            epc = BitArray.toHex(toWords(), 56);
+        return epc;
+    }
 
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
+    @Override
+    public byte[] toBytes(){
+        return BitArray.toBytes(toWords(), 28);
+    }
 
-            this.epc = sb.toString();
-        }
-        return epc;
+    private long[] toWords(){
+        byte cpb = getCompanyPrefixBits(partition);
+        int ipdirb = getIndicatorPadDigitItemReferenceBits(partition);
+        long[] words = BitArray.allocate(224);
+        BitArray.set(words, 0, 8, epcHeader);
+        BitArray.set(words, 8, 3, filter.getValue());
+        BitArray.set(words, 8 + 3, 3, partition);
+        BitArray.set(words, 8 + 3 + 3, cpb, companyPrefix);
+        BitArray.set(words, 8 + 3 + 3 + cpb, ipdirb, indicatorPadDigitItemReference);
+        BitArray.set(words, 8 + 3 + 3 + cpb + ipdirb, 7, piece);
+        BitArray.set(words, 8 + 3 + 3 + cpb + ipdirb + 7, 7, total);
+        TableA1.encode(words, 8 + 3 + 3 + cpb + ipdirb + 7 + 7, serial);
+        return words;
     }
 
     private void setEpc(String epc) {
@@ -138,13 +122,67 @@ public final class Itip212 extends Itip{
 
     public String getUri(){
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getIndicatorPadDigitItemReferenceDigits(partition)+"d",indicatorPadDigitItemReference)+"."+String.format("%02d",piece)+"."+String.format("%02d",total)+"."+serial.chars().mapToObj(c -> getUriSerialChar((char) c)).collect(Collectors.joining());
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        Uri.appendPadded(sb, indicatorPadDigitItemReference, getIndicatorPadDigitItemReferenceDigits(partition)).append('.');
+        Uri.appendPadded(sb, piece, 2).append('.');
+        Uri.appendPadded(sb, total, 2).append('.');
+        return TableA1.appendUri(sb, serial);
+    }
     private void setUri(String uri){
         this.uri = uri;
     };
 
+    private long gs1Key(){
+        return Gs1.indicatorKey(companyPrefix, getCompanyPrefixDigits(partition), indicatorPadDigitItemReference, getIndicatorPadDigitItemReferenceDigits(partition));
+    }
+
+    /**
+     * @return the AI (8006) ITIP: GTIN-14, piece and total as {@link #fromGs1Key(int, int, String, String)} takes it
+     */
+    public String toGs1Key(){
+        StringBuilder sb = Uri.appendPadded(Gs1.appendKey(new StringBuilder(18), gs1Key(), 13), piece, 2);
+        return Uri.appendPadded(sb, total, 2).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        Uri.appendPadded(Gs1.appendKey(sb.append("(8006)"), gs1Key(), 13), piece, 2);
+        Uri.appendPadded(sb, total, 2);
+        return sb.append("(21)").append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.itip;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 212;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -154,7 +192,21 @@ public final class Itip212 extends Itip{
     public boolean equals(Object o){
         if (!(o instanceof Itip212))
             return false;
-        return ((Itip212) o).getUri().equals(getUri());
+        Itip212 other = (Itip212) o;
+        return other.filter == filter && other.partition == partition && other.companyPrefix == companyPrefix
+                && other.indicatorPadDigitItemReference == indicatorPadDigitItemReference && other.piece == piece
+                && other.total == total && other.serial.equals(serial);
+    }
+
+    @Override
+    public int hashCode(){
+        int hash = getFilter();
+        hash = 31 * hash + partition;
+        hash = 31 * hash + Long.hashCode(companyPrefix);
+        hash = 31 * hash + indicatorPadDigitItemReference;
+        hash = 31 * hash + piece;
+        hash = 31 * hash + total;
+        return 31 * hash + serial.hashCode();
     }
 
     public static Itip212 fromFields(int filter,
@@ -170,111 +222,90 @@ public final class Itip212 extends Itip{
     public static Itip212 fromGs1Key(int filter,int companyPrefixDigits, String ai8006, String ai21) {
         if (ai8006.length()!= 18 || !StringUtils.isNumeric(ai8006))
             throw new IllegalArgumentException("ITIP must be 18 digits long");
-        return new Itip212(filter, companyPrefixDigits, Long.parseLong(ai8006.substring(1, companyPrefixDigits + 1)), Integer.parseInt(ai8006.substring(companyPrefixDigits + 1, 14 - 1)), Byte.parseByte(ai8006.substring(14+1, 14+1+2-1)), Byte.parseByte(ai8006.substring(14+1+2, 14+1+2+2-1)), ai21);
+        return new Itip212(filter, companyPrefixDigits, Long.parseLong(ai8006.substring(1, companyPrefixDigits + 1)), Integer.parseInt(ai8006.charAt(0) + ai8006.substring(companyPrefixDigits + 1, 14 - 1)), Byte.parseByte(ai8006.substring(14, 14 + 2)), Byte.parseByte(ai8006.substring(14 + 2, 14 + 2 + 2)), ai21);
     }
 
+    /**
+     * {@link #fromGs1Key(int, int, String, String)} with the company prefix length looked up in the index
+     */
+    public static Itip212 fromGs1Key(int filter, GcpLengthIndex index, String ai8006, String ai21) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai8006, 1), ai8006, ai21);
+    }
 
-    public static Itip212 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int indicatorPadDigitItemReference = Integer.parseInt(uriParts[2]);
-        byte piece = Byte.parseByte(uriParts[3]);
-        byte total = Byte.parseByte(uriParts[4]);
-        String serial = uriParts[5];
+    public static Itip212 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Itip212 itip212 = fromUriFields(parser, parser.nextInt());
+        itip212.setUri(uri.toString());
+        return itip212;
+    }
 
-        Itip212 itip212 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,indicatorPadDigitItemReference,piece,total,serial);
-        itip212.setUri(uri);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:itip:...), which doesn't carry the filter value
+     */
+    public static Itip212 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        return itip212;
+    private static Itip212 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int indicatorPadDigitItemReference = parser.nextInt(getIndicatorPadDigitItemReferenceDigits(partition));
+        byte piece = (byte) parser.nextInt(2);
+        byte total = (byte) parser.nextInt(2);
+        String serial = parser.restEscaped();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,indicatorPadDigitItemReference,piece,total,serial);
     }
 
     public static Itip212 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(28);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
+        if (epc.length() != 56)
+            throw new IllegalArgumentException("Invalid EPC: ITIP-212 must be 56 hex characters long");
+        Itip212 itip212 = fromWords(BitArray.fromHex(epc));
+        itip212.setEpc(epc);
+        return itip212;
+    }
 
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Decodes the binary encoding as read from the tag memory, 224 bits once padded to a whole word
+     */
+    public static Itip212 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 28)
+            throw new IllegalArgumentException("Invalid EPC: ITIP-212 must be 28 bytes long");
+        return fromWords(BitArray.fromBytes(bytes, offset, length));
+    }
 
-        int i;
-        long tmp;
+    /**
+     * Decodes the 28 bytes at the buffer position, leaving the position after them
+     */
+    public static Itip212 fromBuffer(ByteBuffer buffer) {
+        byte[] bytes = new byte[28];
+        buffer.get(bytes);
+        return fromWords(BitArray.fromBytes(bytes, 0, bytes.length));
+    }
 
-        for(tmp = 0, i = 224; (i = bs.previousSetBit(i-1)) > 224 - 8 - 1;)
-            tmp+=1L<<(i-(224-8));
-        if (tmp != epcHeader)
+    /**
+     * Decodes the EPC words, see {@link BitArray} for the layout
+     */
+    private static Itip212 fromWords(long[] words) {
+        if (BitArray.get(words, 0, 8) != epcHeader)
             throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
 
-        for(tmp = 0, i = 224 - 8; (i = bs.previousSetBit(i-1)) > 224 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(224-8-3));
-        int filter = (int) tmp;
-
-        for(tmp = 0, i = 224 - 8 - 3; (i = bs.previousSetBit(i-1)) > 224 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(224-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) BitArray.get(words, 8, 3);
+        int partition = (int) BitArray.get(words, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 224 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 224 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(224-8-3-3-cpb));
-        long companyPrefix = tmp;
-
-        byte ipdirb = getIndicatorPadDigitItemReferenceBits(partition);
-        for(tmp = 0, i = 224 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 224 - 8 - 3 - 3 - cpb - ipdirb - 1;)
-            tmp+=1L<<(i-(224-8-3-3-cpb-ipdirb));
-        int indicatorPadDigitItemReference = (int) tmp;
-
-        for(tmp = 0, i = 224 - 8 - 3 - 3 - cpb - ipdirb; (i = bs.previousSetBit(i-1)) > 224 - 8 - 3 - 3 - cpb - ipdirb - 7 - 1;)
-            tmp+=1L<<(i-(224-8-3-3-cpb-ipdirb-7));
-        byte piece = (byte) tmp;
-
-        for(tmp = 0, i = 224 - 8 - 3 - 3 - cpb - ipdirb - 7; (i = bs.previousSetBit(i-1)) > 224 - 8 - 3 - 3 - cpb - ipdirb - 7 - 7 - 1;)
-            tmp+=1L<<(i-(224-8-3-3-cpb-ipdirb-7-7));
-        byte total = (byte) tmp;
-
-        StringBuilder serialBuilder = new StringBuilder("");
-        byte[] tmpba;
-
-        i =224-8-3-3-44-7-7; //buffer size - epcheader.size - filter.size - partition.size - getCompanyPrefixBits(partition) - getIndicatorPadDigitItemReferenceBits(partition) - piece - total
-        for(int j = 0;j < serialMaxChars && (tmpba = bs.get(i-7,i).toByteArray()).length!=0;i-=7,j++)
-            serialBuilder.append(new String(tmpba));
-
-        String serial = serialBuilder.toString();
+        long companyPrefix = BitArray.get(words, 8 + 3 + 3, cpb);
+        int ipdirb = getIndicatorPadDigitItemReferenceBits(partition);
+        int indicatorPadDigitItemReference = (int) BitArray.get(words, 8 + 3 + 3 + cpb, ipdirb);
+        byte piece = (byte) BitArray.get(words, 8 + 3 + 3 + cpb + ipdirb, 7);
+        byte total = (byte) BitArray.get(words, 8 + 3 + 3 + cpb + ipdirb + 7, 7);
+        String serial = TableA1.decode(words, 8 + 3 + 3 + cpb + ipdirb + 7 + 7, serialMaxChars);
 
         try{
-            Itip212 itip212 = new Itip212(filter,getCompanyPrefixDigits(partition),companyPrefix,indicatorPadDigitItemReference,piece,total,serial);
-            itip212.setEpc(epc);
-            return itip212;
+            return new Itip212(filter,getCompanyPrefixDigits(partition),companyPrefix,indicatorPadDigitItemReference,piece,total,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
 
-    /**
-     * Table A-1 for the encoding
-     */
-    private String getUriSerialChar(char ch){
-        if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-            throw new IllegalArgumentException("Wrong char");
-        switch (ch){
-            case '"':
-            case '%':
-            case '&':
-            case '/':
-            case '<':
-            case '>':
-            case '?':
-                return "%"+String.format("%02x",(int) ch).toUpperCase();
-            default:
-                return String.valueOf(ch);
-        }
-    }
 }
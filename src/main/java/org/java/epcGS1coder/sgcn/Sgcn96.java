@@ -1,20 +1,30 @@
 package org.java.epcGS1coder.sgcn;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.PartitionTable;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Global Coupon Number EPC scheme is used to assign a unique identity to a coupon.
  */
 
-public final class Sgcn96 {
-    private final static byte epcHeader = 0b00111111;
-    private final static int serialSize = 41;
+public final class Sgcn96 implements Epc {
+    public final static byte epcHeader = 0b00111111;
+    final static int serialSize = 41;
     private final static byte serialMaxChars = 12;
     private final static String uriHeader = "urn:epc:tag:sgcn-96:";
+    final static String pureIdentityUriHeader = "urn:epc:id:sgcn:";
     
     private String epc;
     
@@ -55,42 +65,49 @@ public final class Sgcn96 {
         if (ai255.length()<14 || ai255.length()>25 || !StringUtils.isNumeric(ai255))
             throw new IllegalArgumentException("GCN with serial must be between 14 and 25 digits long");
 
-        return new Sgcn96(filter, companyPrefixDigits, Long.parseLong(ai255.substring(0, companyPrefixDigits)), Integer.parseInt(ai255.substring(companyPrefixDigits, 13 - 1)), ai255.substring(13));
+        return new Sgcn96(filter, companyPrefixDigits, Long.parseLong(ai255.substring(0, companyPrefixDigits)), (int) Gs1.parseDigits(ai255, companyPrefixDigits, 13 - 1), ai255.substring(13));
     }
 
-    public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(96); 
-            int i = 0;
-
-            long serial = Long.parseLong("1"+this.serial); // Numeric string encoding prepends a "1" at the beginning of the encoded serial
-
-            for (int j = 0; j < serialSize; j++,i++)
-                epc.set(i, ((serial >> j) & 1)==1);
-
-            for (int j = 0; j < getCouponReferenceBits(partition); j++,i++)
-                epc.set(i, ((couponReference >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
+    /**
+     * {@link #fromGs1Key(int, int, String)} with the company prefix length looked up in the index
+     */
+    public static Sgcn96 fromGs1Key(int filter, GcpLengthIndex index, String ai255) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai255, 0), ai255);
+    }
 
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
+    public String getEpc() {
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
+        return epc;
+    }
 
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        long serial = Long.parseLong("1"+this.serial); // Numeric string encoding prepends a "1" at the beginning of the encoded serial
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(filter.getValue(), 8, 3)
+                | Bits.hi(partition, 8 + 3, 3)
+                | Bits.hi(companyPrefix, 8 + 3 + 3, cpb)
+                | Bits.hi(couponReference, 8 + 3 + 3 + cpb, getCouponReferenceBits(partition))
+                | Bits.hi(serial, 96 - serialSize, serialSize);
+    }
 
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(44);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-            this.epc = sb.toString();
-        }
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        long serial = Long.parseLong("1"+this.serial); // Numeric string encoding prepends a "1" at the beginning of the encoded serial
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.lo(couponReference, 8 + 3 + 3 + cpb, getCouponReferenceBits(partition))
+                | Bits.lo(serial, 96 - serialSize, serialSize);
+    }
 
-        return epc;
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
     }
 
     public int getFilter() {
@@ -111,10 +128,58 @@ public final class Sgcn96 {
 
     public String getUri() {
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getCouponReferenceDigits(partition)+"d",couponReference)+"."+serial;
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
 
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        return Uri.appendPadded(sb, couponReference, getCouponReferenceDigits(partition)).append('.').append(serial);
+    }
+
+    private long gs1Key(){
+        return Gs1.key(companyPrefix, couponReference, getCouponReferenceDigits(partition));
+    }
+
+    /**
+     * @return the AI (255) GCN as {@link #fromGs1Key(int, int, String)} takes it
+     */
+    public String toGs1Key(){
+        return Gs1.appendKey(new StringBuilder(32), gs1Key(), 12).append(serial).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        return Gs1.appendKey(sb.append("(255)"), gs1Key(), 12).append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.sgcn;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -124,113 +189,115 @@ public final class Sgcn96 {
     public boolean equals(Object o){
         if (!(o instanceof Sgcn96))
             return false;
-        return ((Sgcn96) o).getUri().equals(getUri());
+        Sgcn96 other = (Sgcn96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
+    }
+
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
     }
 
     private void setEpc(String epc){ this.epc = epc; }
     private void setUri(String uri){ this.uri = uri; }
 
-    public static Sgcn96 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int documentType = Integer.parseInt(uriParts[2]);
-
-        String serial = uriParts[3];
-        StringBuilder sb = new StringBuilder();
-        String[] serialSplit = serial.split("%");
-        sb.append(serialSplit[0]);
-        for (int i = 1; i < serialSplit.length; i++){
-            sb.append((char) Integer.parseInt(serialSplit[i].substring(0,2),16));
-            sb.append(serialSplit[i].substring(2));
-        }
-
-        Sgcn96 sgcn96 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,sb.toString());
-        sgcn96.setUri(uri);
+    public static Sgcn96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Sgcn96 sgcn96 = fromUriFields(parser, parser.nextInt());
+        sgcn96.setUri(uri.toString());
         return sgcn96;
     }
 
-    public static Sgcn96 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(12);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:sgcn:...), which doesn't carry the filter value
+     */
+    public static Sgcn96 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        int i;
-        long tmp;
+    private static Sgcn96 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int couponReference = parser.nextInt(getCouponReferenceDigits(partition));
+        String serial = parser.restEscaped();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,couponReference,serial);
+    }
 
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp+=1L<<(i-(96-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    public static Sgcn96 fromEpc(String epc) {
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: SGCN-96 must be 24 hex characters long");
+        Sgcn96 sgcn96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        sgcn96.setEpc(epc);
+        return sgcn96;
+    }
 
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3));
-        int filter = (int) tmp;
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Sgcn96 fromBits(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
 
-        for(tmp = 0, i = 96 - 8 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) Bits.get(hi, lo, 8, 3);
+        int partition = (int) Bits.get(hi, lo, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb));
-        long companyPrefix = tmp;
+        long companyPrefix = Bits.get(hi, lo, 8 + 3 + 3, cpb);
 
-        byte crb = getCouponReferenceBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - crb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb-crb));
-        int documentType = (int) tmp;
+        int couponReference = (int) Bits.get(hi, lo, 8 + 3 + 3 + cpb, getCouponReferenceBits(partition));
 
         //for the remainder, which is the serial, we can use fixed values
-        for(tmp = 0, i = serialSize; (i = bs.previousSetBit(i-1)) > -1;)
-            tmp+=1L<<i;
-        String serial = String.valueOf(tmp).substring(1); // Numeric string encoding prepends a "1" at the beginning of the encoded serial
-
-        try{
-            Sgcn96 sgcn96 = new Sgcn96(filter,getCompanyPrefixDigits(partition),companyPrefix,documentType,serial);
-            sgcn96.setEpc(epc);
-            return sgcn96;
+        String serial = String.valueOf(Bits.get(hi, lo, 96 - serialSize, serialSize)).substring(1); // Numeric string encoding prepends a "1" at the beginning of the encoded serial
+        try {
+            return new Sgcn96(filter,getCompanyPrefixDigits(partition),companyPrefix,couponReference,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
 
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        if (Bits.get(hi, lo, 8 + 3, 3) > 6)
+            return DecodeStatus.invalid_partition;
+
+        long serial = Bits.get(hi, lo, 96 - serialSize, serialSize);
+        while (serial >= 10)
+            serial /= 10;
+        if (serial != 1) // Numeric string encoding prepends a "1" at the beginning of the encoded serial
+            return DecodeStatus.invalid_field;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Sgcn96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: SGCN-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Sgcn96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
+
     /**
      * Table 14-28 SGCN Partition Table
      * @param partition
      * @return M value
      */
-    private static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+    protected static byte getCompanyPrefixBits(int partition){
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
@@ -238,25 +305,8 @@ public final class Sgcn96 {
      * @param partition
      * @return N value
      */
-    private static byte getCouponReferenceBits(int partition){
-        switch (partition){
-            case 0:
-                return 1;
-            case 1:
-                return 4;
-            case 2:
-                return 7;
-            case 3:
-                return 11;
-            case 4:
-                return 14;
-            case 5:
-                return 17;
-            case 6:
-                return 21;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+    protected static byte getCouponReferenceBits(int partition){
+        return (byte) PartitionTable.sgcn.getReferenceBits(partition);
     }
 
     /**
@@ -264,8 +314,8 @@ public final class Sgcn96 {
      * @param companyPrefixDigits (L) value
      * @return P value
      */
-    private static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+    protected static int getPartition(int companyPrefixDigits){
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
@@ -273,16 +323,16 @@ public final class Sgcn96 {
      * @param P
      * @return L
      */
-    private static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+    protected static int getCompanyPrefixDigits(int partition){
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
      * Table 14-28 SGCN Partition Table
      * @param P
      */
-    private static int getCouponReferenceDigits(int partition){
-        return partition;
+    protected static int getCouponReferenceDigits(int partition){
+        return PartitionTable.sgcn.getReferenceDigits(partition);
     }
 
     enum SgcnFilter{
@@ -0,0 +1,70 @@
+package org.java.epcGS1coder.sgcn;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+import org.java.epcGS1coder.util.Uri;
+
+/**
+ * Reusable view of an SGCN-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Sgcn96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Sgcn96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 3);
+    }
+
+    private int getPartition(){
+        return (int) get(8 + 3, 3);
+    }
+
+    public int getCompanyPrefixDigits(){
+        return Sgcn96.getCompanyPrefixDigits(getPartition());
+    }
+
+    public long getCompanyPrefix(){
+        return get(8 + 3 + 3, Sgcn96.getCompanyPrefixBits(getPartition()));
+    }
+
+    public int getCouponReference(){
+        int partition = getPartition();
+        return (int) get(8 + 3 + 3 + Sgcn96.getCompanyPrefixBits(partition), Sgcn96.getCouponReferenceBits(partition));
+    }
+
+    /**
+     * Allocates the serial string, {@link #getEncodedSerial()} doesn't
+     */
+    public String getSerial(){
+        return String.valueOf(getEncodedSerial()).substring(1);
+    }
+
+    /**
+     * @return the serial as encoded, with the leading "1" the numeric string encoding prepends
+     */
+    public long getEncodedSerial(){
+        return get(96 - Sgcn96.serialSize, Sgcn96.serialSize);
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        Uri.appendPadded(sb.append(Sgcn96.pureIdentityUriHeader), getCompanyPrefix(), getCompanyPrefixDigits()).append('.');
+        Uri.appendPadded(sb, getCouponReference(), Sgcn96.getCouponReferenceDigits(getPartition())).append('.');
+        // the serial digits follow the leading "1" of the numeric string encoding
+        long encodedSerial = getEncodedSerial();
+        int digits = Uri.length(encodedSerial) - 1;
+        long leadingOne = 1;
+        for (int i = 0; i < digits; i++)
+            leadingOne *= 10;
+        return Uri.appendPadded(sb, encodedSerial - leadingOne, digits);
+    }
+
+    @Override
+    public Sgcn96 toEpc(){
+        return Sgcn96.fromBits(getHiBits(), getLoBits());
+    }
+}
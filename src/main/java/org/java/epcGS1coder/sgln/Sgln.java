@@ -1,5 +1,7 @@
 package org.java.epcGS1coder.sgln;
 
+import org.java.epcGS1coder.util.PartitionTable;
+
 class Sgln {
 
     /**
@@ -8,24 +10,7 @@ class Sgln {
      * @return M value
      */
     protected static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
@@ -34,24 +19,7 @@ class Sgln {
      * @return N value
      */
     protected static byte getLocationReferenceBits(int partition){
-        switch (partition){
-            case 0:
-                return 1;
-            case 1:
-                return 4;
-            case 2:
-                return 7;
-            case 3:
-                return 10;
-            case 4:
-                return 14;
-            case 5:
-                return 17;
-            case 6:
-                return 21;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.sgln.getReferenceBits(partition);
     }
 
     /**
@@ -60,7 +28,7 @@ class Sgln {
      * @return P value
      */
     protected static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
@@ -69,7 +37,7 @@ class Sgln {
      * @return L
      */
     protected static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
@@ -77,7 +45,7 @@ class Sgln {
      * @param P
      */
     protected static int getLocationReferenceDigits(int partition){
-        return partition;
+        return PartitionTable.sgln.getReferenceDigits(partition);
     }
 
     protected enum SglnFilter{
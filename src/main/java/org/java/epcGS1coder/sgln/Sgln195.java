@@ -1,28 +1,29 @@
 package org.java.epcGS1coder.sgln;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.BitSet;
-import java.util.HashSet;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.BitArray;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.TableA1;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The SGLN EPC scheme is used to assign a unique identity to a physical location, such as a specific
  * building or a specific unit of shelving within a warehouse.
  */
 
-public final class Sgln195 extends Sgln {
+public final class Sgln195 extends Sgln implements Epc {
 
-    private final static byte epcHeader = 0b00111001;
-    private final static int extensionSize = 140;
-    private final static int padding = 13;
+    public final static byte epcHeader = 0b00111001;
     private final static byte extensionMaxChars = 20;
     private final static String uriHeader = "urn:epc:tag:sgln-195:";
-    // Table A-1 specifies the valid characters in serials, this set is to make the validators more maintenable
-    private final static HashSet<Character> invalidTableA1Chars = Arrays.asList(0x23,0x24,0x40,0x5B,0x5C,0x5D,0x5E,0x60).stream().map(Character.class::cast).collect(Collectors.toCollection(HashSet::new));
+    final static String pureIdentityUriHeader = "urn:epc:id:sgln:";
     
     private String epc;
     
@@ -48,9 +49,8 @@ public final class Sgln195 extends Sgln {
         this.locationReference = locationReference;
         if (extension.length() > extensionMaxChars)
             throw new IllegalArgumentException("Extension must at most " + extensionMaxChars + " alphanumeric characters long");
-        for (char ch : extension.toCharArray())
-            if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-                throw new IllegalArgumentException("Invalid extension character");
+        if (!TableA1.isValid(extension))
+            throw new IllegalArgumentException("Invalid extension character");
         this.extension = extension;
     }
 
@@ -66,45 +66,40 @@ public final class Sgln195 extends Sgln {
         if (ai414.length()!=13 || !StringUtils.isNumeric(ai414))
             throw new IllegalArgumentException("GLN must be 13 digits long");
 
-        return new Sgln195(filter, companyPrefixDigits, Long.parseLong(ai414.substring(0, companyPrefixDigits)), Integer.parseInt(ai414.substring(companyPrefixDigits, 13-1)), ai254);
+        return new Sgln195(filter, companyPrefixDigits, Long.parseLong(ai414.substring(0, companyPrefixDigits)), (int) Gs1.parseDigits(ai414, companyPrefixDigits, 13 - 1), ai254);
+    }
+
+    /**
+     * {@link #fromGs1Key(int, int, String, String)} with the company prefix length looked up in the index
+     */
+    public static Sgln195 fromGs1Key(int filter, GcpLengthIndex index, String ai414, String ai254) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai414, 0), ai414, ai254);
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(52*4); //Sgln-195 epc is 52 hex chars long
-            int i = extensionSize+padding-1;
-
-            for (byte b : extension.getBytes()) {
-                for (int j = 6; j >= 0; j--,i--)
-                    epc.set(i, ((b >> j) & 1) == 1);
-            }
-
-            i = extensionSize+padding;
-            for (int j = 0; j < getLocationReferenceBits(partition); j++,i++)
-                epc.set(i, ((locationReference >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
-
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
-            
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(52);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-            this.epc = sb.toString();
-        }
-        
+        if (epc == null)
+            epc = BitArray.toHex(toWords(), 52);
         return epc;
     }
 
+    @Override
+    public byte[] toBytes(){
+        return BitArray.toBytes(toWords(), 26);
+    }
+
+    private long[] toWords(){
+        byte cpb = getCompanyPrefixBits(partition);
+        int lrb = getLocationReferenceBits(partition);
+        long[] words = BitArray.allocate(208);
+        BitArray.set(words, 0, 8, epcHeader);
+        BitArray.set(words, 8, 3, filter.getValue());
+        BitArray.set(words, 8 + 3, 3, partition);
+        BitArray.set(words, 8 + 3 + 3, cpb, companyPrefix);
+        BitArray.set(words, 8 + 3 + 3 + cpb, lrb, locationReference);
+        TableA1.encode(words, 8 + 3 + 3 + cpb + lrb, extension);
+        return words;
+    }
+
     public int getFilter() {
         return filter.getValue();
     }
@@ -123,10 +118,64 @@ public final class Sgln195 extends Sgln {
 
     public String getUri() {
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getLocationReferenceDigits(partition)+"d",locationReference)+"."+extension.chars().mapToObj(c -> getUriExtensionChar((char) c)).collect(Collectors.joining());
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        Uri.appendPadded(sb, locationReference, getLocationReferenceDigits(partition)).append('.');
+        return TableA1.appendUri(sb, extension);
+    }
     
+    /**
+     * @return the GLN-13, check digit included, as a number: left pad it with zeros to 13 digits
+     */
+    public long getGln(){
+        return Gs1.withCheckDigit(Gs1.key(companyPrefix, locationReference, getLocationReferenceDigits(partition)));
+    }
+
+    /**
+     * @return the AI (414) GLN-13 as {@link #fromGs1Key(int, int, String, String)} takes it
+     */
+    public String toGs1Key(){
+        return Uri.appendPadded(new StringBuilder(13), getGln(), 13).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        Uri.appendPadded(sb.append("(414)"), getGln(), 13);
+        // a 0 extension stands for no extension
+        return extension.equals("0") ? sb : sb.append("(254)").append(extension);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.sgln;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 195;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -136,111 +185,98 @@ public final class Sgln195 extends Sgln {
     public boolean equals(Object o){
         if (!(o instanceof Sgln195))
             return false;
-        return ((Sgln195) o).getUri().equals(getUri());
+        Sgln195 other = (Sgln195) o;
+        return other.filter == filter && other.partition == partition && other.companyPrefix == companyPrefix
+                && other.locationReference == locationReference && other.extension.equals(extension);
+    }
+
+    @Override
+    public int hashCode(){
+        int hash = getFilter();
+        hash = 31 * hash + partition;
+        hash = 31 * hash + Long.hashCode(companyPrefix);
+        hash = 31 * hash + locationReference;
+        return 31 * hash + extension.hashCode();
     }
     
     private void setEpc(String epc){ this.epc = epc; }
     private void setUri(String uri){ this.uri = uri; }
 
+
+    public static Sgln195 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Sgln195 sgln195 = fromUriFields(parser, parser.nextInt());
+        sgln195.setUri(uri.toString());
+        return sgln195;
+    }
+
     /**
-     * Table A-1 for the encoding
+     * Parses a Pure Identity URI (urn:epc:id:sgln:...), which doesn't carry the filter value
      */
-    private String getUriExtensionChar(char ch){
-        if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-            throw new IllegalArgumentException("Wrong char");
-        switch (ch){
-            case '"':
-            case '%':
-            case '&':
-            case '/':
-            case '<':
-            case '>':
-            case '?':
-                return "%"+String.format("%02x",(int) ch).toUpperCase();
-            default:
-                return String.valueOf(ch);
-        }
+    public static Sgln195 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
     }
 
-    public static Sgln195 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int locationReference = Integer.parseInt(uriParts[2]);
-
-        String extension = uriParts[3];
-        StringBuilder sb = new StringBuilder();
-        String[] extensionSplit = extension.split("%");
-        sb.append(extensionSplit[0]);
-        for (int i = 1; i < extensionSplit.length; i++){
-            sb.append((char) Integer.parseInt(extensionSplit[i].substring(0,2),16));
-            sb.append(extensionSplit[i].substring(2));
-        }
-
+    private static Sgln195 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int locationReference = parser.nextInt(getLocationReferenceDigits(partition));
+        String extension = parser.restEscaped();
+        parser.end();
         try{
-            Sgln195 sgln195 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,locationReference,sb.toString());
-            sgln195.setUri(uri);
-            return sgln195;
+            return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,locationReference,extension);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
 
     public static Sgln195 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(26);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
+        if (epc.length() != 52)
+            throw new IllegalArgumentException("Invalid EPC: SGLN-195 must be 52 hex characters long");
+        Sgln195 sgln195 = fromWords(BitArray.fromHex(epc));
+        sgln195.setEpc(epc);
+        return sgln195;
+    }
 
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Decodes the binary encoding as read from the tag memory, 208 bits once padded to a whole word
+     */
+    public static Sgln195 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 26)
+            throw new IllegalArgumentException("Invalid EPC: SGLN-195 must be 26 bytes long");
+        return fromWords(BitArray.fromBytes(bytes, offset, length));
+    }
 
-        int i;
-        long tmp;
+    /**
+     * Decodes the 26 bytes at the buffer position, leaving the position after them
+     */
+    public static Sgln195 fromBuffer(ByteBuffer buffer) {
+        byte[] bytes = new byte[26];
+        buffer.get(bytes);
+        return fromWords(BitArray.fromBytes(bytes, 0, bytes.length));
+    }
 
-        for(tmp = 0, i = 208; (i = bs.previousSetBit(i-1)) > 208 - 8 - 1;)
-            tmp+=1L<<(i-(208-8));
-        if (tmp != epcHeader)
+    /**
+     * Decodes the EPC words, see {@link BitArray} for the layout
+     */
+    private static Sgln195 fromWords(long[] words) {
+        if (BitArray.get(words, 0, 8) != epcHeader)
             throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
 
-        for(tmp = 0, i = 208 - 8; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(208-8-3));
-        int filter = (int) tmp;
-
-        for(tmp = 0, i = 208 - 8 - 3; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(208-8-3-3));
-        byte partition = (byte) tmp;
-
-        final byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 208 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(208-8-3-3-cpb));
-        long companyPrefix = tmp;
+        int filter = (int) BitArray.get(words, 8, 3);
+        int partition = (int) BitArray.get(words, 8 + 3, 3);
 
-        final byte lrb = getLocationReferenceBits(partition);
-        for(tmp = 0, i = 208 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 3 - cpb - lrb - 1;)
-            tmp+=1L<<(i-(208-8-3-3-cpb-lrb));
-        int locationReference = (int) tmp;
+        byte cpb = getCompanyPrefixBits(partition);
+        long companyPrefix = BitArray.get(words, 8 + 3 + 3, cpb);
+        int lrb = getLocationReferenceBits(partition);
+        int locationReference = (int) BitArray.get(words, 8 + 3 + 3 + cpb, lrb);
+        String extension = TableA1.decode(words, 8 + 3 + 3 + cpb + lrb, extensionMaxChars);
 
-        StringBuilder extensionBuilder = new StringBuilder("");
-        byte[] tmpba;
-
-        i =208-8-3-3-cpb-lrb; //buffer size - epcheader.size - filter.size - partition.size - getCompanyPrefixBits(partition) - getLocationReferenceBits(partition)
-        for(;(tmpba = bs.get(i-7,i).toByteArray()).length!=0;i-=7)
-            extensionBuilder.append(new String(tmpba));
-
-        String extension = extensionBuilder.toString();
-
-        Sgln195 sgln195 = new Sgln195(filter,getCompanyPrefixDigits(partition),companyPrefix,locationReference,extension);
-        sgln195.setEpc(epc);
-        return sgln195;
+        try{
+            return new Sgln195(filter,getCompanyPrefixDigits(partition),companyPrefix,locationReference,extension);
+        } catch (RuntimeException e){
+            throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
+        }
     }
 
 }
@@ -1,21 +1,30 @@
 package org.java.epcGS1coder.sgln;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The SGLN EPC scheme is used to assign a unique identity to a physical location, such as a specific
  * building or a specific unit of shelving within a warehouse.
  */
 
-public final class Sgln96 extends Sgln {
+public final class Sgln96 extends Sgln implements Epc {
 
-    private final static byte epcHeader = 0b00110010;
+    public final static byte epcHeader = 0b00110010;
     private static final String uriHeader = "urn:epc:tag:sgln-96:";
-    private static final int extensionSize = 41;
+    static final String pureIdentityUriHeader = "urn:epc:id:sgln:";
+    static final int extensionSize = 41;
 
     private String epc = null;
     private String uri = null;
@@ -45,36 +54,36 @@ public final class Sgln96 extends Sgln {
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(96);
-            int i = 0;
-
-            for (int j = 0; j < extensionSize; j++,i++)
-                epc.set(i, ((extension >> j) & 1)==1);
-
-            for (int j = 0; j < getLocationReferenceBits(partition); j++,i++)
-                epc.set(i, ((locationReference >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
+        return epc;
+    }
 
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(filter.getValue(), 8, 3)
+                | Bits.hi(partition, 8 + 3, 3)
+                | Bits.hi(companyPrefix, 8 + 3 + 3, cpb)
+                | Bits.hi(locationReference, 8 + 3 + 3 + cpb, getLocationReferenceBits(partition))
+                | Bits.hi(extension, 96 - extensionSize, extensionSize);
+    }
 
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.lo(locationReference, 8 + 3 + 3 + cpb, getLocationReferenceBits(partition))
+                | Bits.lo(extension, 96 - extensionSize, extensionSize);
+    }
 
-            this.epc = sb.toString();
-        }
-        return epc;
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
     }
 
     private void setEpc(String epc) { this.epc = epc; }
@@ -85,11 +94,64 @@ public final class Sgln96 extends Sgln {
 
     public String getUri(){
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getLocationReferenceDigits(partition)+"d",locationReference)+"."+String.valueOf(extension);
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        return Uri.appendPadded(sb, locationReference, getLocationReferenceDigits(partition)).append('.').append(extension);
+    }
     private void setUri(String uri) { this.uri = uri; }
 
+    /**
+     * @return the GLN-13, check digit included, as a number: left pad it with zeros to 13 digits
+     */
+    public long getGln(){
+        return Gs1.withCheckDigit(Gs1.key(companyPrefix, locationReference, getLocationReferenceDigits(partition)));
+    }
+
+    /**
+     * @return the AI (414) GLN-13 as {@link #fromGs1Key(int, int, String, long)} takes it
+     */
+    public String toGs1Key(){
+        return Uri.appendPadded(new StringBuilder(13), getGln(), 13).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        Uri.appendPadded(sb.append("(414)"), getGln(), 13);
+        // a 0 extension stands for no extension
+        return extension == 0 ? sb : sb.append("(254)").append(extension);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.sgln;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -99,7 +161,13 @@ public final class Sgln96 extends Sgln {
     public boolean equals(Object o){
         if (!(o instanceof Sgln96))
             return false;
-        return ((Sgln96) o).getUri().equals(getUri());
+        Sgln96 other = (Sgln96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
+    }
+
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
     }
 
     public static Sgln96 fromFields(int filter,
@@ -113,75 +181,97 @@ public final class Sgln96 extends Sgln {
     public static Sgln96 fromGs1Key(int filter,int companyPrefixDigits, String ai414, long ai254) {
         if (ai414.length()!=13 || !StringUtils.isNumeric(ai414))
             throw new IllegalArgumentException("GLN must be 13 digits long");
-        return new Sgln96(filter, companyPrefixDigits, Long.parseLong(ai414.substring(0, companyPrefixDigits)), Integer.parseInt(ai414.substring(companyPrefixDigits, 13-1)), ai254);
+        return new Sgln96(filter, companyPrefixDigits, Long.parseLong(ai414.substring(0, companyPrefixDigits)), (int) Gs1.parseDigits(ai414, companyPrefixDigits, 13 - 1), ai254);
     }
 
-    public static Sgln96 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int locationReference = Integer.parseInt(uriParts[2]);
-        long extension = Long.parseLong(uriParts[3]);
-
-        Sgln96 sgln96 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,locationReference,extension);
-        sgln96.setUri(uri);
+    /**
+     * {@link #fromGs1Key(int, int, String, long)} with the company prefix length looked up in the index
+     */
+    public static Sgln96 fromGs1Key(int filter, GcpLengthIndex index, String ai414, long ai254) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai414, 0), ai414, ai254);
+    }
 
+    public static Sgln96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Sgln96 sgln96 = fromUriFields(parser, parser.nextInt());
+        sgln96.setUri(uri.toString());
         return sgln96;
     }
 
-    public static Sgln96 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(96/8);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:sgln:...), which doesn't carry the filter value
+     */
+    public static Sgln96 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        int i;
-        long tmp;
+    private static Sgln96 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int locationReference = parser.nextInt(getLocationReferenceDigits(partition));
+        long extension = parser.nextLong();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,locationReference,extension);
+    }
 
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp+=1L<<(i-(96-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    public static Sgln96 fromEpc(String epc) {
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: SGLN-96 must be 24 hex characters long");
+        Sgln96 sgln96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        sgln96.setEpc(epc);
+        return sgln96;
+    }
 
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3));
-        int filter = (int) tmp;
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Sgln96 fromBits(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
 
-        for(tmp = 0, i = 96 - 8 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) Bits.get(hi, lo, 8, 3);
+        int partition = (int) Bits.get(hi, lo, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb));
-        long companyPrefix = tmp;
+        long companyPrefix = Bits.get(hi, lo, 8 + 3 + 3, cpb);
 
-        byte lrb = getLocationReferenceBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - lrb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb-lrb));
-        int locationReference = (int) tmp;
+        int locationReference = (int) Bits.get(hi, lo, 8 + 3 + 3 + cpb, getLocationReferenceBits(partition));
 
         //for the remainder, which is the extension, we can use fixed values
-        for(tmp = 0, i = extensionSize; (i = bs.previousSetBit(i-1)) > -1;)
-            tmp+=1L<<i;
-        long extension = tmp;
+        long extension = Bits.get(hi, lo, 96 - extensionSize, extensionSize);
         try {
-            Sgln96 sgln96 = new Sgln96(filter,getCompanyPrefixDigits(partition),companyPrefix,locationReference,extension);
-            sgln96.setEpc(epc);
-            return sgln96;
+            return new Sgln96(filter,getCompanyPrefixDigits(partition),companyPrefix,locationReference,extension);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
+
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        if (Bits.get(hi, lo, 8 + 3, 3) > 6)
+            return DecodeStatus.invalid_partition;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Sgln96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: SGLN-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Sgln96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
 }
@@ -0,0 +1,54 @@
+package org.java.epcGS1coder.sgln;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+import org.java.epcGS1coder.util.Uri;
+
+/**
+ * Reusable view of an SGLN-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Sgln96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Sgln96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 3);
+    }
+
+    private int getPartition(){
+        return (int) get(8 + 3, 3);
+    }
+
+    public int getCompanyPrefixDigits(){
+        return Sgln96.getCompanyPrefixDigits(getPartition());
+    }
+
+    public long getCompanyPrefix(){
+        return get(8 + 3 + 3, Sgln96.getCompanyPrefixBits(getPartition()));
+    }
+
+    public int getLocationReference(){
+        int partition = getPartition();
+        return (int) get(8 + 3 + 3 + Sgln96.getCompanyPrefixBits(partition), Sgln96.getLocationReferenceBits(partition));
+    }
+
+    public long getExtension(){
+        return get(96 - Sgln96.extensionSize, Sgln96.extensionSize);
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        Uri.appendPadded(sb.append(Sgln96.pureIdentityUriHeader), getCompanyPrefix(), getCompanyPrefixDigits()).append('.');
+        Uri.appendPadded(sb, getLocationReference(), Sgln96.getLocationReferenceDigits(getPartition())).append('.');
+        return sb.append(getExtension());
+    }
+
+    @Override
+    public Sgln96 toEpc(){
+        return Sgln96.fromBits(getHiBits(), getLoBits());
+    }
+}
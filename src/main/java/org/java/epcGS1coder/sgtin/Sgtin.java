@@ -1,5 +1,7 @@
 package org.java.epcGS1coder.sgtin;
 
+import org.java.epcGS1coder.util.PartitionTable;
+
 class Sgtin {
 
     /**
@@ -8,24 +10,7 @@ class Sgtin {
      * @return M value
      */
     protected static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
@@ -34,24 +19,7 @@ class Sgtin {
      * @return N value
      */
     protected static byte getItemReferenceBits(int partition){
-        switch (partition){
-            case 0:
-                return 4;
-            case 1:
-                return 7;
-            case 2:
-                return 10;
-            case 3:
-                return 14;
-            case 4:
-                return 17;
-            case 5:
-                return 20;
-            case 6:
-                return 24;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+        return (byte) PartitionTable.sgtin.getReferenceBits(partition);
     }
 
     /**
@@ -60,7 +28,7 @@ class Sgtin {
      * @return P value
      */
     protected static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
@@ -69,7 +37,7 @@ class Sgtin {
      * @return L
      */
     protected static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
@@ -77,15 +45,15 @@ class Sgtin {
      * @param P
      */
     protected static int getItemReferenceDigits(int partition){
-        return partition+1;
+        return PartitionTable.sgtin.getReferenceDigits(partition);
     }
 
     protected enum SgtinFilter {
         all_others_0(0),
         pos_item_1(1),
         case_2(2),
-        inner_pack_4(4),
         reserved_3(3),
+        inner_pack_4(4),
         reserved_5(5),
         unit_load_6(6),
         component_7(7);
@@ -1,29 +1,30 @@
 package org.java.epcGS1coder.sgtin;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.BitSet;
-import java.util.HashSet;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.BitArray;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.TableA1;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Serialised Global Trade Item Number EPC scheme is used to assign a unique
  * identity to an instance of a trade item, such as a specific instance 
  * of a product or SKU.
  */
 
-public final class Sgtin198 extends Sgtin {
+public final class Sgtin198 extends Sgtin implements Epc {
 
-    private final static byte epcHeader = 0b00110110;
-    private final static int serialSize = 140;
-    private final static int padding = 10;
+    public final static byte epcHeader = 0b00110110;
     private final static byte serialMaxChars = 20;
     private final static String uriHeader = "urn:epc:tag:sgtin-198:";
-    // Table A-1 specifies the valid characters in serials, this set is to make the validators more maintenable
-    private final static HashSet<Character> invalidTableA1Chars = Arrays.asList(0x23,0x24,0x40,0x5B,0x5C,0x5D,0x5E,0x60).stream().map(Character.class::cast).collect(Collectors.toCollection(HashSet::new));
+    final static String pureIdentityUriHeader = "urn:epc:id:sgtin:";
     
     private String epc;
     
@@ -49,9 +50,8 @@ public final class Sgtin198 extends Sgtin {
         this.itemReference = itemReference;
         if (serial.length() > serialMaxChars)
             throw new IllegalArgumentException("Serial must at most " + serialMaxChars + " alphanumeric characters long");
-        for (char ch : serial.toCharArray())
-            if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-                throw new IllegalArgumentException("Invalid serial character");
+        if (!TableA1.isValid(serial))
+            throw new IllegalArgumentException("Invalid serial character");
         this.serial = serial;
     }
 
@@ -70,41 +70,37 @@ public final class Sgtin198 extends Sgtin {
         return new Sgtin198(filter, companyPrefixDigits, Long.parseLong(ai01.substring(1, companyPrefixDigits + 1)), Integer.parseInt(ai01.charAt(0) + ai01.substring(companyPrefixDigits + 1, 14 - 1)), ai21);
     }
 
+    /**
+     * {@link #fromGs1Key(int, int, String, String)} with the company prefix length looked up in the index
+     */
+    public static Sgtin198 fromGs1Key(int filter, GcpLengthIndex index, String ai01, String ai21) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai01, 1), ai01, ai21);
+    }
+
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(52*4); //Sgtin-198 epc is 52 hex chars long
-            int i = serialSize+padding-1;
-
-            for (byte b : serial.getBytes()) {
-                for (int j = 6; j >= 0; j--,i--)
-                    epc.set(i, ((b >> j) & 1) == 1);
-            }
-
-            i = serialSize+padding;
-            for (int j = 0; j < getItemReferenceBits(partition); j++,i++)
-                epc.set(i, ((itemReference >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
-
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(52);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-            this.epc = sb.toString();
-        }
-        
+        if (epc == null)
+            epc = BitArray.toHex(toWords(), 52);
         return epc;
     }
 
+    @Override
+    public byte[] toBytes(){
+        return BitArray.toBytes(toWords(), 26);
+    }
+
+    private long[] toWords(){
+        byte cpb = getCompanyPrefixBits(partition);
+        int irb = getItemReferenceBits(partition);
+        long[] words = BitArray.allocate(208);
+        BitArray.set(words, 0, 8, epcHeader);
+        BitArray.set(words, 8, 3, filter.getValue());
+        BitArray.set(words, 8 + 3, 3, partition);
+        BitArray.set(words, 8 + 3 + 3, cpb, companyPrefix);
+        BitArray.set(words, 8 + 3 + 3 + cpb, irb, itemReference);
+        TableA1.encode(words, 8 + 3 + 3 + cpb + irb, serial);
+        return words;
+    }
+
     public int getFilter() {
         return filter.getValue();
     }
@@ -123,10 +119,63 @@ public final class Sgtin198 extends Sgtin {
 
     public String getUri() {
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getItemReferenceDigits(partition)+"d",itemReference)+"."+serial.chars().mapToObj(c -> getUriSerialChar((char) c)).collect(Collectors.joining());
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
 
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        Uri.appendPadded(sb, itemReference, getItemReferenceDigits(partition)).append('.');
+        return TableA1.appendUri(sb, serial);
+    }
+
+    /**
+     * @return the GTIN-14, check digit included, as a number: left pad it with zeros to 14 digits
+     */
+    public long getGtin(){
+        return Gs1.withCheckDigit(Gs1.indicatorKey(companyPrefix, getCompanyPrefixDigits(partition), itemReference, getItemReferenceDigits(partition)));
+    }
+
+    /**
+     * @return the AI (01) GTIN-14 as {@link #fromGs1Key(int, int, String, String)} takes it
+     */
+    public String toGs1Key(){
+        return Uri.appendPadded(new StringBuilder(14), getGtin(), 14).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        Uri.appendPadded(sb.append("(01)"), getGtin(), 14);
+        return sb.append("(21)").append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.sgtin;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 198;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -139,104 +188,87 @@ public final class Sgtin198 extends Sgtin {
     public boolean equals(Object o){
         if (!(o instanceof Sgtin198))
             return false;
-        return ((Sgtin198) o).getUri().equals(getUri());
+        Sgtin198 other = (Sgtin198) o;
+        return other.filter == filter && other.partition == partition && other.companyPrefix == companyPrefix
+                && other.itemReference == itemReference && other.serial.equals(serial);
     }
 
-    /**
-     * Table A-1 for the encoding
-     */
-    private String getUriSerialChar(char ch){
-        if (ch < 0x21 || ch > 0x7A || invalidTableA1Chars.contains(ch))
-            throw new IllegalArgumentException("Wrong char");
-        switch (ch){
-            case '"':
-            case '%':
-            case '&':
-            case '/':
-            case '<':
-            case '>':
-            case '?':
-                return "%"+String.format("%02x",(int) ch).toUpperCase();
-            default:
-                return String.valueOf(ch);
-        }
+    @Override
+    public int hashCode(){
+        int hash = getFilter();
+        hash = 31 * hash + partition;
+        hash = 31 * hash + Long.hashCode(companyPrefix);
+        hash = 31 * hash + itemReference;
+        return 31 * hash + serial.hashCode();
     }
 
-    public static Sgtin198 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int itemReference = Integer.parseInt(uriParts[2]);
+    public static Sgtin198 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Sgtin198 sgtin198 = fromUriFields(parser, parser.nextInt());
+        sgtin198.setUri(uri.toString());
+        return sgtin198;
+    }
 
-        String serial = uriParts[3];
-        StringBuilder sb = new StringBuilder();
-        String[] serialSplit = serial.split("%");
-        sb.append(serialSplit[0]);
-        for (int i = 1; i < serialSplit.length; i++){
-            sb.append((char) Integer.parseInt(serialSplit[i].substring(0,2),16));
-            sb.append(serialSplit[i].substring(2));
-        }
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:sgtin:...), which doesn't carry the filter value
+     */
+    public static Sgtin198 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        Sgtin198 sgtin198 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,itemReference,sb.toString());
-        sgtin198.setUri(uri);
-        return sgtin198;
+    private static Sgtin198 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int itemReference = parser.nextInt(getItemReferenceDigits(partition));
+        String serial = parser.restEscaped();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,itemReference,serial);
     }
 
     public static Sgtin198 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(26);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
+        if (epc.length() != 52)
+            throw new IllegalArgumentException("Invalid EPC: SGTIN-198 must be 52 hex characters long");
+        Sgtin198 sgtin198 = fromWords(BitArray.fromHex(epc));
+        sgtin198.setEpc(epc);
+        return sgtin198;
+    }
 
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Decodes the binary encoding as read from the tag memory, 208 bits once padded to a whole word
+     */
+    public static Sgtin198 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 26)
+            throw new IllegalArgumentException("Invalid EPC: SGTIN-198 must be 26 bytes long");
+        return fromWords(BitArray.fromBytes(bytes, offset, length));
+    }
 
-        int i;
-        long tmp;
+    /**
+     * Decodes the 26 bytes at the buffer position, leaving the position after them
+     */
+    public static Sgtin198 fromBuffer(ByteBuffer buffer) {
+        byte[] bytes = new byte[26];
+        buffer.get(bytes);
+        return fromWords(BitArray.fromBytes(bytes, 0, bytes.length));
+    }
 
-        for(tmp = 0, i = 208; (i = bs.previousSetBit(i-1)) > 208 - 8 - 1;)
-            tmp+=1L<<(i-(208-8));
-        if (tmp != epcHeader)
+    /**
+     * Decodes the EPC words, see {@link BitArray} for the layout
+     */
+    private static Sgtin198 fromWords(long[] words) {
+        if (BitArray.get(words, 0, 8) != epcHeader)
             throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
 
-        for(tmp = 0, i = 208 - 8; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(208-8-3));
-        int filter = (int) tmp;
-
-        for(tmp = 0, i = 208 - 8 - 3; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(208-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) BitArray.get(words, 8, 3);
+        int partition = (int) BitArray.get(words, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 208 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(208-8-3-3-cpb));
-        long companyPrefix = tmp;
-
-        byte irb = getItemReferenceBits(partition);
-        for(tmp = 0, i = 208 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 208 - 8 - 3 - 3 - cpb - irb - 1;)
-            tmp+=1L<<(i-(208-8-3-3-cpb-irb));
-        int itemReference = (int) tmp;
-
-        StringBuilder serialBuilder = new StringBuilder("");
-        byte[] tmpba;
-
-        i =208-58; //buffer size - epcheader.size - filter.size - partition.size - getCompanyPrefixBits(partition) - getItemReferenceBits(partition)
-        for(;(tmpba = bs.get(i-7,i).toByteArray()).length!=0;i-=7)
-            serialBuilder.append(new String(tmpba));
+        long companyPrefix = BitArray.get(words, 8 + 3 + 3, cpb);
+        int irb = getItemReferenceBits(partition);
+        int itemReference = (int) BitArray.get(words, 8 + 3 + 3 + cpb, irb);
+        String serial = TableA1.decode(words, 8 + 3 + 3 + cpb + irb, serialMaxChars);
 
-        String serial = serialBuilder.toString();
         try{
-            Sgtin198 sgtin198 = new Sgtin198(filter,getCompanyPrefixDigits(partition),companyPrefix,itemReference,serial);
-            sgtin198.setEpc(epc);
-            return sgtin198;
+            return new Sgtin198(filter,getCompanyPrefixDigits(partition),companyPrefix,itemReference,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
@@ -1,22 +1,32 @@
 package org.java.epcGS1coder.sgtin;
 
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.nio.ByteBuffer;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
+
 /**
  * The Serialised Global Trade Item Number EPC scheme is used to assign a unique
  * identity to an instance of a trade item, such as a specific instance 
  * of a product or SKU.
  */
 
-public final class Sgtin96 extends Sgtin{
+public final class Sgtin96 extends Sgtin implements Epc {
 
-    private final static byte epcHeader = 0b00110000;
-    private final static byte serialBitSize = 38;
+    public final static byte epcHeader = 0b00110000;
+    final static byte serialBitSize = 38;
     private static final String uriHeader = "urn:epc:tag:sgtin-96:";
+    static final String pureIdentityUriHeader = "urn:epc:id:sgtin:";
     
     private String epc = null;
     
@@ -48,36 +58,36 @@ public final class Sgtin96 extends Sgtin{
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(96); 
-            int i = 0;
-
-            for (int j = 0; j < serialBitSize; j++,i++)
-                epc.set(i, ((serial >> j) & 1)==1);
-
-            for (int j = 0; j < getItemReferenceBits(partition); j++,i++)
-                epc.set(i, ((itemReference >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
+        return epc;
+    }
 
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(filter.getValue(), 8, 3)
+                | Bits.hi(partition, 8 + 3, 3)
+                | Bits.hi(companyPrefix, 8 + 3 + 3, cpb)
+                | Bits.hi(itemReference, 8 + 3 + 3 + cpb, getItemReferenceBits(partition))
+                | Bits.hi(serial, 96 - serialBitSize, serialBitSize);
+    }
 
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.lo(itemReference, 8 + 3 + 3 + cpb, getItemReferenceBits(partition))
+                | Bits.lo(serial, 96 - serialBitSize, serialBitSize);
+    }
 
-            this.epc = sb.toString();
-        }
-        return epc;
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
     }
 
     private void setEpc(String epc) {
@@ -102,13 +112,65 @@ public final class Sgtin96 extends Sgtin{
 
     public String getUri(){
         if (uri == null)
-            uri = uriHeader+String.valueOf(filter.getValue())+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix) +"."+String.format("%0"+getItemReferenceDigits(partition)+"d",itemReference)+"."+String.valueOf(serial);
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
+
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        return Uri.appendPadded(sb, itemReference, getItemReferenceDigits(partition)).append('.').append(serial);
+    }
     private void setUri(String uri){
         this.uri = uri;
     };
 
+    /**
+     * @return the GTIN-14, check digit included, as a number: left pad it with zeros to 14 digits
+     */
+    public long getGtin(){
+        return Gs1.withCheckDigit(Gs1.indicatorKey(companyPrefix, getCompanyPrefixDigits(partition), itemReference, getItemReferenceDigits(partition)));
+    }
+
+    /**
+     * @return the AI (01) GTIN-14 as {@link #fromGs1Key(int, int, String, long)} takes it
+     */
+    public String toGs1Key(){
+        return Uri.appendPadded(new StringBuilder(14), getGtin(), 14).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        Uri.appendPadded(sb.append("(01)"), getGtin(), 14);
+        return sb.append("(21)").append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.sgtin;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -118,7 +180,13 @@ public final class Sgtin96 extends Sgtin{
     public boolean equals(Object o){
         if (!(o instanceof Sgtin96))
             return false;
-        return ((Sgtin96) o).getUri().equals(getUri());
+        Sgtin96 other = (Sgtin96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
+    }
+
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
     }
 
     public static Sgtin96 fromFields(int filter,
@@ -132,76 +200,99 @@ public final class Sgtin96 extends Sgtin{
     public static Sgtin96 fromGs1Key(int filter,int companyPrefixDigits, String ai01, long ai21) {
         if (ai01.length()!=14 || !StringUtils.isNumeric(ai01))
             throw new IllegalArgumentException("GTIN must be 14 digits long");
-        return new Sgtin96(filter, companyPrefixDigits, Long.parseLong(ai01.substring(1, companyPrefixDigits + 1)), Integer.parseInt(ai01.substring(companyPrefixDigits + 1, 14 - 1)), ai21);
+        return new Sgtin96(filter, companyPrefixDigits, Long.parseLong(ai01.substring(1, companyPrefixDigits + 1)), Integer.parseInt(ai01.charAt(0) + ai01.substring(companyPrefixDigits + 1, 14 - 1)), ai21);
     }
 
+    /**
+     * {@link #fromGs1Key(int, int, String, long)} with the company prefix length looked up in the index
+     */
+    public static Sgtin96 fromGs1Key(int filter, GcpLengthIndex index, String ai01, long ai21) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai01, 1), ai01, ai21);
+    }
 
-    public static Sgtin96 fromUri(String uri) {
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        int itemReference = Integer.parseInt(uriParts[2]);
-        long serial = Long.parseLong(uriParts[3]);
-
-        Sgtin96 sgtin96 = fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,itemReference,serial);
-        sgtin96.setUri(uri);
 
+    public static Sgtin96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Sgtin96 sgtin96 = fromUriFields(parser, parser.nextInt());
+        sgtin96.setUri(uri.toString());
         return sgtin96;
     }
 
-    public static Sgtin96 fromEpc(String epc) {
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(96/8);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:sgtin:...), which doesn't carry the filter value
+     */
+    public static Sgtin96 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
 
-        int i;
-        long tmp;
+    private static Sgtin96 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        int itemReference = parser.nextInt(getItemReferenceDigits(partition));
+        long serial = parser.nextLong();
+        parser.end();
+        return fromFields(filter,getCompanyPrefixDigits(partition),companyPrefix,itemReference,serial);
+    }
 
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp+=1L<<(i-(96-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    public static Sgtin96 fromEpc(String epc) {
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: SGTIN-96 must be 24 hex characters long");
+        Sgtin96 sgtin96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        sgtin96.setEpc(epc);
+        return sgtin96;
+    }
 
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3));
-        int filter = (int) tmp;
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Sgtin96 fromBits(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
 
-        for(tmp = 0, i = 96 - 8 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - 1;)
-            tmp+=1L<<(i-(96-8-3-3));
-        byte partition = (byte) tmp;
+        int filter = (int) Bits.get(hi, lo, 8, 3);
+        int partition = (int) Bits.get(hi, lo, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb));
-        long companyPrefix = tmp;
+        long companyPrefix = Bits.get(hi, lo, 8 + 3 + 3, cpb);
 
         byte irb = getItemReferenceBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - irb - 1;)
-            tmp+=1L<<(i-(96-8-3-3-cpb-irb));
-        int itemReference = (int) tmp;
+        int itemReference = (int) Bits.get(hi, lo, 8 + 3 + 3 + cpb, irb);
 
         //for the remainder, which is the serial, we can use fixed values
-        for(tmp = 0, i = serialBitSize; (i = bs.previousSetBit(i-1)) > -1;)
-            tmp+=1L<<i;
-        long serial = tmp;
+        long serial = Bits.get(hi, lo, 96 - serialBitSize, serialBitSize);
         try {
-            Sgtin96 sgtin96 = new Sgtin96(filter,getCompanyPrefixDigits(partition),companyPrefix,itemReference,serial);
-            sgtin96.setEpc(epc);
-            return sgtin96;
+            return new Sgtin96(filter,getCompanyPrefixDigits(partition),companyPrefix,itemReference,serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
+
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        if (Bits.get(hi, lo, 8 + 3, 3) > 6)
+            return DecodeStatus.invalid_partition;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Sgtin96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: SGTIN-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Sgtin96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
 }
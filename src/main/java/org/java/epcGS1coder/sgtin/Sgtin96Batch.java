@@ -0,0 +1,95 @@
+package org.java.epcGS1coder.sgtin;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96Batch;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.PartitionTable;
+
+/**
+ * Decodes batches of SGTIN-96 into columns, see {@link Epc96Batch}.
+ */
+
+public final class Sgtin96Batch extends Epc96Batch {
+
+    private final byte[] filter;
+    private final byte[] partition;
+    private final long[] companyPrefix;
+    private final int[] itemReference;
+    private final long[] serial;
+
+    public Sgtin96Batch(int capacity){
+        super(capacity);
+        filter = new byte[capacity];
+        partition = new byte[capacity];
+        companyPrefix = new long[capacity];
+        itemReference = new int[capacity];
+        serial = new long[capacity];
+    }
+
+    @Override
+    protected int decodeRows(int from, int to){
+        int valid = 0;
+        for (int i = from; i < to; i++){
+            long hi = this.hi[i];
+            long lo = this.lo[i];
+            if (status[i] == DecodeStatus.ok && (status[i] = Sgtin96.validate(hi, lo)) == DecodeStatus.ok){
+                int p = (int) Bits.get(hi, lo, 8 + 3, 3);
+                filter[i] = (byte) Bits.get(hi, lo, 8, 3);
+                partition[i] = (byte) p;
+                companyPrefix[i] = Bits.get(hi, lo, PartitionTable.companyPrefixOffset, PartitionTable.getCompanyPrefixBits(p));
+                itemReference[i] = (int) Bits.get(hi, lo, PartitionTable.sgtin.getReferenceOffset(p), PartitionTable.sgtin.getReferenceBits(p));
+                serial[i] = Bits.get(hi, lo, 96 - Sgtin96.serialBitSize, Sgtin96.serialBitSize);
+                valid++;
+            } else {
+                filter[i] = 0;
+                partition[i] = 0;
+                companyPrefix[i] = 0;
+                itemReference[i] = 0;
+                serial[i] = 0;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * @param row a valid row
+     * @return the row as an Sgtin96
+     */
+    public Sgtin96 get(int row){
+        return Sgtin96.fromBits(hi[row], lo[row]);
+    }
+
+    public byte[] getFilter(){
+        return filter;
+    }
+
+    public byte[] getPartition(){
+        return partition;
+    }
+
+    public long[] getCompanyPrefix(){
+        return companyPrefix;
+    }
+
+    public int[] getItemReference(){
+        return itemReference;
+    }
+
+    public long[] getSerial(){
+        return serial;
+    }
+
+    /**
+     * Fills the GTIN-14 column, check digit included, of the decoded rows straight from the company prefix and
+     * Item Reference columns, 0 for the invalid rows: see {@link Gs1#indicatorKey}
+     * @param dst the column, from its offset, at least {@link #size()} long
+     */
+    public void getGtins(long[] dst, int offset){
+        for (int i = 0; i < size(); i++){
+            int p = partition[i];
+            dst[offset + i] = status[i] != DecodeStatus.ok ? 0 : Gs1.withCheckDigit(Gs1.indicatorKey(companyPrefix[i], PartitionTable.getCompanyPrefixDigits(p),
+                                                                                                     itemReference[i], PartitionTable.sgtin.getReferenceDigits(p)));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.java.epcGS1coder.sgtin;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+import org.java.epcGS1coder.util.Uri;
+
+/**
+ * Reusable view of an SGTIN-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Sgtin96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Sgtin96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 3);
+    }
+
+    private int getPartition(){
+        return (int) get(8 + 3, 3);
+    }
+
+    public int getCompanyPrefixDigits(){
+        return Sgtin96.getCompanyPrefixDigits(getPartition());
+    }
+
+    public long getCompanyPrefix(){
+        return get(8 + 3 + 3, Sgtin96.getCompanyPrefixBits(getPartition()));
+    }
+
+    public int getItemReference(){
+        int partition = getPartition();
+        return (int) get(8 + 3 + 3 + Sgtin96.getCompanyPrefixBits(partition), Sgtin96.getItemReferenceBits(partition));
+    }
+
+    public long getSerial(){
+        return get(96 - Sgtin96.serialBitSize, Sgtin96.serialBitSize);
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        Uri.appendPadded(sb.append(Sgtin96.pureIdentityUriHeader), getCompanyPrefix(), getCompanyPrefixDigits()).append('.');
+        Uri.appendPadded(sb, getItemReference(), Sgtin96.getItemReferenceDigits(getPartition())).append('.');
+        return sb.append(getSerial());
+    }
+
+    @Override
+    public Sgtin96 toEpc(){
+        return Sgtin96.fromBits(getHiBits(), getLoBits());
+    }
+}
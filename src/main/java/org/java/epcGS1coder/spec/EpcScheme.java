@@ -1,5 +1,5 @@
 package org.java.epcGS1coder.spec;
 
 public enum EpcScheme {
-	sgtin,sscc,sgln,grai,giai,gsrn,gsrnp,gdti,cpi,sgcn,ginc,gsin,itip,upui
+	sgtin,sscc,sgln,grai,giai,gsrn,gsrnp,gdti,cpi,sgcn,ginc,gsin,itip,upui,gid,usdod,adi
 }
@@ -3,19 +3,29 @@ package org.java.epcGS1coder.sscc;
 import org.apache.commons.lang3.StringUtils;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.gcp.GcpLengthIndex;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.PartitionTable;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
 
 /**
  * The Serial Shipping Container Code EPC scheme is used to assign a unique identity to a logistics 
  * handling unit, such as the aggregate contents of a shipping container or a pallet load.
  */
 
-public final class Sscc96 {
+public final class Sscc96 implements Epc {
 
-    private static final byte epcHeader = 0b00110001;
+    public static final byte epcHeader = 0b00110001;
     private static final byte reservedSize = 24;
     private static final String tagUriHeader = "urn:epc:tag:sscc-96:";
+    static final String pureIdentityUriHeader = "urn:epc:id:sscc:";
 
     private String epc;
 
@@ -55,73 +65,93 @@ public final class Sscc96 {
         return new Sscc96(filter, companyPrefixDigits, Long.parseLong(ai00.substring(1,companyPrefixDigits+1)), Long.parseLong(ai00.charAt(0)+ai00.substring(companyPrefixDigits+1,17)));
     }
 
-    public static Sscc96 fromEpc(String epc){
-        if (epc.length()<24)
-            throw new IllegalArgumentException("Invalid EPC: shorter than 96 bits");
-
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
-
-        ByteBuffer bb = ByteBuffer.allocate(96/8);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
-
-        int i;
-        long tmp;
+    /**
+     * {@link #fromGs1Key(int, int, String)} with the company prefix length looked up in the index
+     */
+    public static Sscc96 fromGs1Key(int filter, GcpLengthIndex index, String ai00) {
+        return fromGs1Key(filter, index.getCompanyPrefixDigits(ai00, 1), ai00);
+    }
 
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp += 1l << (i - (96 - 8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
+    public static Sscc96 fromEpc(String epc) {
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: SSCC-96 must be 24 hex characters long");
+        Sscc96 sscc96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        sscc96.setEpc(epc);
+        return sscc96;
+    }
 
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 1;)
-            tmp += 1l << (i - (96 - 8 - 3));
-        int filter = (int) tmp;
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Sscc96 fromBits(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
 
-        for(tmp = 0, i = 96 - 8 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - 1;)
-            tmp += 1l << (i - (96 - 8 - 3 - 3));
-        byte partition = (byte) tmp;
+        int filter = (int) Bits.get(hi, lo, 8, 3);
+        int partition = (int) Bits.get(hi, lo, 8 + 3, 3);
 
         byte cpb = getCompanyPrefixBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3; (i = bs.previousSetBit(i-1)) > 96 - 8 - 3 - 3 - cpb - 1;)
-            tmp += 1l << (i - (96 - 8 - 3 - 3 - cpb));
-        long companyPrefix = tmp;
-
-        byte irb = getSerialReferenceBits(partition);
-        for(tmp = 0, i = 96 - 8 - 3 - 3 - cpb; (i = bs.previousSetBit(i-1)) > reservedSize - 1;)
-            tmp += 1l << (i - (96 - 8 - 3 - 3 - cpb - irb));
-        long serialReference = tmp;
-
-        try{
-            Sscc96 sscc96 = new Sscc96(filter,partition,companyPrefix,serialReference);
-            sscc96.setEpc(epc);
-            return sscc96;
+        long companyPrefix = Bits.get(hi, lo, 8 + 3 + 3, cpb);
+
+        long serialReference = Bits.get(hi, lo, 8 + 3 + 3 + cpb, getSerialReferenceBits(partition));
+        try {
+            return new Sscc96(filter,getCompanyPrefixDigits(partition),companyPrefix,serialReference);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
 
-    public static Sscc96 fromUri(String uri){
-        if (!uri.startsWith(tagUriHeader))
-            throw new IllegalArgumentException("Wrong URI");
-        String[] uriParts = uri.split(":");
-        uriParts = uriParts[uriParts.length-1].split("\\.");
-        if ((uriParts[1].length() + uriParts[2].length())<17)
-            throw new IllegalArgumentException("Company prefix and serial reference must have 17 digits in total");
-        int filter = Integer.parseInt(uriParts[0]);
-        byte partition = (byte) getPartition(uriParts[1].length());
-        long companyPrefix = Long.parseLong(uriParts[1]);
-        long serialReference = Long.parseLong(uriParts[2]);
-        Sscc96 sscc96 = new Sscc96(filter,getCompanyPrefixDigits(partition),companyPrefix,serialReference);
-        sscc96.setUri(uri);
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        if (Bits.get(hi, lo, 8 + 3, 3) > 6)
+            return DecodeStatus.invalid_partition;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Sscc96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: SSCC-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Sscc96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
+
+    public static Sscc96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, tagUriHeader);
+        Sscc96 sscc96 = fromUriFields(parser, parser.nextInt());
+        sscc96.setUri(uri.toString());
         return sscc96;
     }
 
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:sscc:...), which doesn't carry the filter value
+     */
+    public static Sscc96 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
+
+    private static Sscc96 fromUriFields(UriParser parser, int filter) {
+        long companyPrefix = parser.nextLong();
+        byte partition = (byte) getPartition(parser.lastLength());
+        long serialReference = parser.nextLong(getSerialReferenceDigits(partition));
+        parser.end();
+        return new Sscc96(filter,getCompanyPrefixDigits(partition),companyPrefix,serialReference);
+    }
+
     public int getFilter() {
         return filter.getValue();
     }
@@ -137,12 +167,62 @@ public final class Sscc96 {
     private void setEpc(String epc){ this.epc = epc; }
     private void setUri(String uri){ this.uri = uri; }
     public String getUri() {
-        if (uri == null){
-            uri = tagUriHeader+filter.getValue()+"."+String.format("%0"+getCompanyPrefixDigits(partition)+"d",companyPrefix)+"."+String.format("%0"+getSerialReferenceDigits(partition)+"d",serialReference);
-        }
+        if (uri == null)
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
 
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(tagUriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        Uri.appendPadded(sb, companyPrefix, getCompanyPrefixDigits(partition)).append('.');
+        return Uri.appendPadded(sb, serialReference, getSerialReferenceDigits(partition));
+    }
+
+    /**
+     * @return the SSCC-18, check digit included, as a number: left pad it with zeros to 18 digits
+     */
+    public long getSscc(){
+        return Gs1.withCheckDigit(Gs1.indicatorKey(companyPrefix, getCompanyPrefixDigits(partition), serialReference, getSerialReferenceDigits(partition)));
+    }
+
+    /**
+     * @return the AI (00) SSCC-18 as {@link #fromGs1Key(int, int, String)} takes it
+     */
+    public String toGs1Key(){
+        return Uri.appendPadded(new StringBuilder(18), getSscc(), 18).toString();
+    }
+
+    @Override
+    public StringBuilder appendGs1ElementString(StringBuilder sb){
+        return Uri.appendPadded(sb.append("(00)"), getSscc(), 18);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.sscc;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -152,37 +232,44 @@ public final class Sscc96 {
     public boolean equals(Object o){
         if (!(o instanceof Sscc96))
             return false;
-        return ((Sscc96) o).getUri().equals(getUri());
+        Sscc96 other = (Sscc96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
     }
 
-    public String getEpc(){
-        if (epc == null ){
-            BitSet epc = new BitSet(96);
-            int i = reservedSize;
-
-            for (int j = 0; j < getSerialReferenceBits(partition); j++,i++)
-                epc.set(i, ((serialReference >> j) & 1)==1);
-
-            for (int j = 0; j < getCompanyPrefixBits(partition); j++,i++)
-                epc.set(i, ((companyPrefix >> j) & 1)==1);
-
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((partition >> j) & 1)==1);
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
+    }
 
-            for (int j = 0; j < 3; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
+    public String getEpc() {
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
+        return epc;
+    }
 
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(filter.getValue(), 8, 3)
+                | Bits.hi(partition, 8 + 3, 3)
+                | Bits.hi(companyPrefix, 8 + 3 + 3, cpb)
+                | Bits.hi(serialReference, 8 + 3 + 3 + cpb, getSerialReferenceBits(partition));
+    }
 
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        byte cpb = getCompanyPrefixBits(partition);
+        return Bits.lo(serialReference, 8 + 3 + 3 + cpb, getSerialReferenceBits(partition));
+    }
 
-            this.epc = sb.toString();
-        }
-        return epc;
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
     }
 
     /**
@@ -190,25 +277,8 @@ public final class Sscc96 {
      * @param partition
      * @return M value
      */
-    private static byte getCompanyPrefixBits(int partition){
-        switch (partition){
-            case 0:
-                return 40;
-            case 1:
-                return 37;
-            case 2:
-                return 34;
-            case 3:
-                return 30;
-            case 4:
-                return 27;
-            case 5:
-                return 24;
-            case 6:
-                return 20;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+    protected static byte getCompanyPrefixBits(int partition){
+        return (byte) PartitionTable.getCompanyPrefixBits(partition);
     }
 
     /**
@@ -216,25 +286,8 @@ public final class Sscc96 {
      * @param partition
      * @return N value
      */
-    private static byte getSerialReferenceBits(int partition){
-        switch (partition){
-            case 0:
-                return 18;
-            case 1:
-                return 21;
-            case 2:
-                return 24;
-            case 3:
-                return 28;
-            case 4:
-                return 31;
-            case 5:
-                return 34;
-            case 6:
-                return 38;
-            default:
-                throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
-        }
+    protected static byte getSerialReferenceBits(int partition){
+        return (byte) PartitionTable.sscc.getReferenceBits(partition);
     }
 
     /**
@@ -242,8 +295,8 @@ public final class Sscc96 {
      * @param companyPrefixDigits (L) value
      * @return P value
      */
-    private static int getPartition(int companyPrefixDigits){
-        return 12-companyPrefixDigits;
+    protected static int getPartition(int companyPrefixDigits){
+        return PartitionTable.getPartition(companyPrefixDigits);
     }
 
     /**
@@ -251,16 +304,16 @@ public final class Sscc96 {
      * @param P
      * @return L
      */
-    private static int getCompanyPrefixDigits(int partition){
-        return 12-partition;
+    protected static int getCompanyPrefixDigits(int partition){
+        return PartitionTable.getCompanyPrefixDigits(partition);
     }
 
     /**
      * Table 14-5 SSCC Partition Table
      * @param P
      */
-    private static int getSerialReferenceDigits(int partition){
-        return partition+5;
+    protected static int getSerialReferenceDigits(int partition){
+        return PartitionTable.sscc.getReferenceDigits(partition);
     }
 
     enum SsccFilter {
@@ -0,0 +1,87 @@
+package org.java.epcGS1coder.sscc;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96Batch;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Gs1;
+import org.java.epcGS1coder.util.PartitionTable;
+
+/**
+ * Decodes batches of SSCC-96 into columns, see {@link Epc96Batch}.
+ */
+
+public final class Sscc96Batch extends Epc96Batch {
+
+    private final byte[] filter;
+    private final byte[] partition;
+    private final long[] companyPrefix;
+    private final long[] serialReference;
+
+    public Sscc96Batch(int capacity){
+        super(capacity);
+        filter = new byte[capacity];
+        partition = new byte[capacity];
+        companyPrefix = new long[capacity];
+        serialReference = new long[capacity];
+    }
+
+    @Override
+    protected int decodeRows(int from, int to){
+        int valid = 0;
+        for (int i = from; i < to; i++){
+            long hi = this.hi[i];
+            long lo = this.lo[i];
+            if (status[i] == DecodeStatus.ok && (status[i] = Sscc96.validate(hi, lo)) == DecodeStatus.ok){
+                int p = (int) Bits.get(hi, lo, 8 + 3, 3);
+                filter[i] = (byte) Bits.get(hi, lo, 8, 3);
+                partition[i] = (byte) p;
+                companyPrefix[i] = Bits.get(hi, lo, PartitionTable.companyPrefixOffset, PartitionTable.getCompanyPrefixBits(p));
+                serialReference[i] = Bits.get(hi, lo, PartitionTable.sscc.getReferenceOffset(p), PartitionTable.sscc.getReferenceBits(p));
+                valid++;
+            } else {
+                filter[i] = 0;
+                partition[i] = 0;
+                companyPrefix[i] = 0;
+                serialReference[i] = 0;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * @param row a valid row
+     * @return the row as an Sscc96
+     */
+    public Sscc96 get(int row){
+        return Sscc96.fromBits(hi[row], lo[row]);
+    }
+
+    public byte[] getFilter(){
+        return filter;
+    }
+
+    public byte[] getPartition(){
+        return partition;
+    }
+
+    public long[] getCompanyPrefix(){
+        return companyPrefix;
+    }
+
+    public long[] getSerialReference(){
+        return serialReference;
+    }
+
+    /**
+     * Fills the SSCC-18 column, check digit included, of the decoded rows straight from the company prefix and
+     * Serial Reference columns, 0 for the invalid rows: see {@link Gs1#indicatorKey}
+     * @param dst the column, from its offset, at least {@link #size()} long
+     */
+    public void getSsccs(long[] dst, int offset){
+        for (int i = 0; i < size(); i++){
+            int p = partition[i];
+            dst[offset + i] = status[i] != DecodeStatus.ok ? 0 : Gs1.withCheckDigit(Gs1.indicatorKey(companyPrefix[i], PartitionTable.getCompanyPrefixDigits(p),
+                                                                                                     serialReference[i], PartitionTable.sscc.getReferenceDigits(p)));
+        }
+    }
+}
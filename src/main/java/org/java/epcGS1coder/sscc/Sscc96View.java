@@ -0,0 +1,49 @@
+package org.java.epcGS1coder.sscc;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+import org.java.epcGS1coder.util.Uri;
+
+/**
+ * Reusable view of an SSCC-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Sscc96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Sscc96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 3);
+    }
+
+    private int getPartition(){
+        return (int) get(8 + 3, 3);
+    }
+
+    public int getCompanyPrefixDigits(){
+        return Sscc96.getCompanyPrefixDigits(getPartition());
+    }
+
+    public long getCompanyPrefix(){
+        return get(8 + 3 + 3, Sscc96.getCompanyPrefixBits(getPartition()));
+    }
+
+    public long getSerialReference(){
+        int partition = getPartition();
+        return get(8 + 3 + 3 + Sscc96.getCompanyPrefixBits(partition), Sscc96.getSerialReferenceBits(partition));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        Uri.appendPadded(sb.append(Sscc96.pureIdentityUriHeader), getCompanyPrefix(), getCompanyPrefixDigits()).append('.');
+        return Uri.appendPadded(sb, getSerialReference(), Sscc96.getSerialReferenceDigits(getPartition()));
+    }
+
+    @Override
+    public Sscc96 toEpc(){
+        return Sscc96.fromBits(getHiBits(), getLoBits());
+    }
+}
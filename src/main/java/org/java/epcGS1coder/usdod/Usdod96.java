@@ -1,8 +1,15 @@
 package org.java.epcGS1coder.usdod;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.BitSet;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.java.epcGS1coder.util.Bits;
+import org.java.epcGS1coder.util.Hex;
+import org.java.epcGS1coder.util.TableG1;
+import org.java.epcGS1coder.util.Uri;
+import org.java.epcGS1coder.util.UriParser;
 
 /**
  * <p>The US Department of Defense identifier is defined by the United States Department of Defense. This tag data construct may be used to encode 96-bit Class 1 tags for shipping goods to the United States Department of Defense by a supplier who has already been assigned a CAGE (Commercial and Government Entity) code. </p>
@@ -10,11 +17,12 @@ import java.util.BitSet;
  * <p>Note that the DoD Guide explicitly recognises the value of cross-branch, globally applicable standards, advising that "suppliers that are EPCglobal subscribers and possess a unique [GS1] Company Prefix may use any of the identity types and encoding instructions described in the EPC™ Tag Data Standards document to encode tags."</p>
  */
 
-public final class Usdod96 {
-    private final static byte epcHeader = 0b00101111;
-    private final static byte serialSize = 36;
-    private final static byte governmentManagedIdentifierSize = 6;
+public final class Usdod96 implements Epc {
+    public final static byte epcHeader = 0b00101111;
+    final static byte serialSize = 36;
+    final static byte governmentManagedIdentifierSize = 48;
     private static final String uriHeader = "urn:epc:tag:usdod-96:";
+    static final String pureIdentityUriHeader = "urn:epc:id:usdod:";
 
     private UsdodFilter filter;
     private String governmentManagedIdentifier;
@@ -27,8 +35,8 @@ public final class Usdod96 {
                     String governmentManagedIdentifier,
                     long serial){
         this.filter = UsdodFilter.values()[filter];
-        if (governmentManagedIdentifier.length() != governmentManagedIdentifierSize)
-            throw new IllegalArgumentException("CAGE string must be "+governmentManagedIdentifierSize + " characters long");
+        if (governmentManagedIdentifier.length() != 5 && governmentManagedIdentifier.length() != 6)
+            throw new IllegalArgumentException("Government managed identifier must be a 5 characters CAGE or a 6 characters DoDAAC");
         this.governmentManagedIdentifier = governmentManagedIdentifier;
         for (char ch : governmentManagedIdentifier.toCharArray())
             getCageCodeByte(ch); //Will throw exception if there is a problem
@@ -38,49 +46,47 @@ public final class Usdod96 {
     }
 
     private static byte getCageCodeByte(char cageChar){
-        if ((cageChar >= 'A' && cageChar <= 'Z' && cageChar != 'I' && cageChar != 'O') || cageChar == ' ')
-            return (byte) cageChar;
-        if (cageChar >= '0' && cageChar <= '9')
-            return (byte) (cageChar | 0b00110000);
-        throw new IllegalArgumentException("Invalid CAGE code character"); // [a-zIO] & the rest of possible chars
+        if (!TableG1.isCageValid(cageChar))
+            throw new IllegalArgumentException("Invalid CAGE code character"); // [a-zIO] & the rest of possible chars
+        return (byte) cageChar;
     }
 
     private static char getCageCodeChar(byte cageByte){
-        if (cageByte>=0b00110000 && cageByte<=0b00111001)
-            return (char)(cageByte & 0b00001111);
-        return (char) cageByte;
+        return (char) getCageCodeByte((char) cageByte); //Will throw exception if there is a problem
     }
 
     public String getEpc() {
-        if (epc == null){
-            BitSet epc = new BitSet(96); 
-            int i = 0;
-
-            for (int j = 0; j < serialSize; j++,i++)
-                epc.set(i, ((serial >> j) & 1)==1);
-
-            i = 96 - (8 + 4 + 1);
-            for (int t : (" " + governmentManagedIdentifier).chars().map(c -> getCageCodeByte((char) c)).toArray()){
-                byte b = (byte) t;
-                for (int j = 7; j >= 0; j--,i--)
-                    epc.set(i, ((b >> j) & 1) == 1);
-            }
-            i = 96 - (8 + 4);
-            for (int j = 0; j < 4; j++,i++)
-                epc.set(i, ((filter.getValue() >> j) & 1)==1);
-
-            for (int j = 0; j < 8; j++,i++)
-                epc.set(i, ((epcHeader >> j) & 1)==1);
-
-            byte[] epcba = epc.toByteArray();
-            StringBuffer sb = new StringBuffer(epcba.length*2);
-            for (i = epcba.length-1; i>=0; i--)
-                sb.append(String.format("%02X",epcba[i]));
-
-            this.epc = sb.toString();
-        }
+        if (epc == null)
+            epc = Hex.toString(getHiBits(), getLoBits());
         return epc;
     }
+
+    /**
+     * @return the first 64 bits of the binary encoding, see {@link Bits}
+     */
+    public long getHiBits(){
+        long gmi = 0;
+        if (governmentManagedIdentifier.length() == 5)
+            gmi = ' '; // a CAGE code is encoded with a leading space
+        for (int i = 0; i < governmentManagedIdentifier.length(); i++)
+            gmi = gmi << 8 | getCageCodeByte(governmentManagedIdentifier.charAt(i));
+        return Bits.hi(epcHeader, 0, 8)
+                | Bits.hi(filter.getValue(), 8, 4)
+                | Bits.hi(gmi, 8 + 4, governmentManagedIdentifierSize)
+                | Bits.hi(serial, 96 - serialSize, serialSize);
+    }
+
+    /**
+     * @return the last 32 bits of the binary encoding, see {@link Bits}
+     */
+    public long getLoBits(){
+        return Bits.lo(serial, 96 - serialSize, serialSize);
+    }
+
+    @Override
+    public void writeTo(ByteBuffer buffer){
+        Bits.write(buffer, getHiBits(), getLoBits());
+    }
     private void setEpc(String epc){
         this.epc = epc;
     }
@@ -91,11 +97,41 @@ public final class Usdod96 {
 
     public String getUri() {
         if (uri == null)
-            uri = uriHeader + filter.getValue() + "." + governmentManagedIdentifier + "." + String.valueOf(serial);
-
+            uri = appendUri(new StringBuilder(64)).toString();
         return uri;
     }
 
+    @Override
+    public StringBuilder appendUri(StringBuilder sb){
+        if (uri != null)
+            return sb.append(uri);
+        return appendUriFields(sb.append(uriHeader).append(filter.getValue()).append('.'));
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        return appendUriFields(sb.append(pureIdentityUriHeader));
+    }
+
+    private StringBuilder appendUriFields(StringBuilder sb){
+        return sb.append(governmentManagedIdentifier).append('.').append(serial);
+    }
+
+    @Override
+    public EpcScheme getScheme(){
+        return EpcScheme.usdod;
+    }
+
+    @Override
+    public int getBitLength(){
+        return 96;
+    }
+
+    @Override
+    public byte getHeader(){
+        return epcHeader;
+    }
+
     @Override
     public String toString(){
         return getUri();
@@ -105,7 +141,17 @@ public final class Usdod96 {
     public boolean equals(Object o){
         if (!(o instanceof Usdod96))
             return false;
-        return ((Usdod96) o).getUri().equals(getUri());
+        Usdod96 other = (Usdod96) o;
+        return other.getHiBits() == getHiBits() && other.getLoBits() == getLoBits();
+    }
+
+    @Override
+    public int hashCode(){
+        return Bits.hashCode(getHiBits(), getLoBits());
+    }
+
+    public int getFilter() {
+        return filter.getValue();
     }
 
     public String getGovernmentManagedIdentifier() {
@@ -121,69 +167,86 @@ public final class Usdod96 {
         return new Usdod96(filter, governmentManagedIdentifier, serial);
     }
 
-    public static Usdod96 fromUri(String uri){
-        if (!uri.startsWith(uriHeader))
-            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + uriHeader);
-
-        String uriParts[] = uri.substring(uriHeader.length()).split("\\.");
-        int filter = Integer.parseInt(uriParts[0]);
-        String governmentManagedIdentifier = uriParts[1];
-        long serial = Long.parseLong(uriParts[2]);
-        Usdod96 usdod96 = fromFields(filter, governmentManagedIdentifier, serial);
-        usdod96.setUri(uri);
+    public static Usdod96 fromUri(CharSequence uri) {
+        UriParser parser = new UriParser(uri, uriHeader);
+        Usdod96 usdod96 = fromUriFields(parser, parser.nextInt());
+        usdod96.setUri(uri.toString());
         return usdod96;
     }
 
+    /**
+     * Parses a Pure Identity URI (urn:epc:id:usdod:...), which doesn't carry the filter value
+     */
+    public static Usdod96 fromPureIdentityUri(CharSequence uri, int filter) {
+        return fromUriFields(new UriParser(uri, pureIdentityUriHeader), filter);
+    }
+
+    private static Usdod96 fromUriFields(UriParser parser, int filter) {
+        String governmentManagedIdentifier = parser.nextString();
+        long serial = parser.nextLong();
+        parser.end();
+        return fromFields(filter, governmentManagedIdentifier, serial);
+    }
+
     public static Usdod96 fromEpc(String epc){
-        ArrayList<String> a = new ArrayList<String>();
-        for (int i = 0; i<epc.length(); i+=2) {
-            a.add(epc.substring(i, i+2));
-        }
+        if (epc.length() != 24)
+            throw new IllegalArgumentException("Invalid EPC: USDOD-96 must be 24 hex characters long");
+        Usdod96 usdod96 = fromBits(Hex.parseLong(epc, 0, 16), Hex.parseLong(epc, 16, 24));
+        usdod96.setEpc(epc);
+        return usdod96;
+    }
 
-        ByteBuffer bb = ByteBuffer.allocate(96/8);
-        for (int i = a.size() - 1; i>=0;i--)
-            bb.put((byte) Integer.parseInt(a.get(i),16));
-        bb.rewind();
-
-        BitSet bs = BitSet.valueOf(bb);
-
-        int i;
-        long tmp;
-
-        for(tmp = 0, i = 96; (i = bs.previousSetBit(i-1)) > 96 - 8 - 1;)
-            tmp+=1L<<(i-(96-8));
-        if (tmp != epcHeader)
-            throw new IllegalArgumentException("Invalid header"); //maybe the decoder could choose the structure from the header?
-
-        for(tmp = 0, i = 96 - 8; (i = bs.previousSetBit(i-1)) > 96 - 8 - 4 - 1;)
-            tmp+=1L<<(i-(96-8-4));
-        int filter = (int) tmp;
-
-        StringBuilder cageBuilder = new StringBuilder("");
-        byte[] tmpba;
-
-        i=96-8-4;
-        if (bs.get(i-8,i).toByteArray()[0] != 32) // the encoded CAGE starts with a ' ' 
-            throw new IllegalArgumentException("CAGE code incorrectly encoded");
-        i-=8;    
-        for(int j = 0;j < governmentManagedIdentifierSize && (tmpba = bs.get(i-8,i).toByteArray()).length!=0;i-=8,j++)
-            cageBuilder.append(getCageCodeChar(tmpba[0]));
-
-        String governmentManagedIdentifier = cageBuilder.toString(); // encoded CAGE code starts with ' '
-
-        for(tmp = 0, i = serialSize; (i = bs.previousSetBit(i-1)) > -1;)
-            tmp+=1L<<i;
-        long serial = tmp;
-        
-        try{
-            Usdod96 usdod96 = new Usdod96(filter, governmentManagedIdentifier, serial);
-            usdod96.setEpc(epc);
-            return usdod96;
+    /**
+     * Decodes the binary encoding straight from its bits, see {@link Bits} for the layout
+     * @param hi first 64 bits of the EPC
+     * @param lo last 32 bits of the EPC
+     */
+    public static Usdod96 fromBits(long hi, long lo){
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            throw new IllegalArgumentException("Invalid header");
+
+        int filter = (int) Bits.get(hi, lo, 8, 4);
+        long serial = Bits.get(hi, lo, 96 - serialSize, serialSize);
+        try {
+            char[] gmi = new char[governmentManagedIdentifierSize / 8];
+            for (int i = 0; i < gmi.length; i++)
+                gmi[i] = getCageCodeChar((byte) Bits.get(hi, lo, 8 + 4 + 8 * i, 8));
+            // an encoded CAGE code starts with ' ', a DoDAAC uses the 6 characters
+            String governmentManagedIdentifier = gmi[0] == ' ' ? new String(gmi, 1, gmi.length - 1) : new String(gmi);
+            return new Usdod96(filter, governmentManagedIdentifier, serial);
         } catch (RuntimeException e){
             throw new IllegalArgumentException("Invalid EPC: " + e.getMessage());
         }
     }
 
+    /**
+     * Checks, without throwing, the bits {@link #fromBits(long, long)} would reject
+     */
+    public static DecodeStatus validate(long hi, long lo) {
+        if (Bits.get(hi, lo, 0, 8) != epcHeader)
+            return DecodeStatus.invalid_header;
+        for (int i = 0; i < governmentManagedIdentifierSize / 8; i++)
+            if (!TableG1.isCageValid((char) Bits.get(hi, lo, 8 + 4 + 8 * i, 8)))
+                return DecodeStatus.invalid_field;
+        return DecodeStatus.ok;
+    }
+
+    /**
+     * Decodes the binary encoding as read from the tag memory
+     */
+    public static Usdod96 fromBytes(byte[] bytes, int offset, int length) {
+        if (length != 12)
+            throw new IllegalArgumentException("Invalid EPC: USDOD-96 must be 12 bytes long");
+        return fromBits(Bits.readHi(bytes, offset), Bits.readLo(bytes, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the buffer position, leaving the position after them
+     */
+    public static Usdod96 fromBuffer(ByteBuffer buffer) {
+        return fromBits(Bits.readHi(buffer), Bits.readLo(buffer));
+    }
+
     enum UsdodFilter {
         pallet_0(0x0),
         case_1(0x1),
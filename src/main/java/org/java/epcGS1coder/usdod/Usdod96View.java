@@ -0,0 +1,57 @@
+package org.java.epcGS1coder.usdod;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc96View;
+
+/**
+ * Reusable view of an USDOD-96, see {@link Epc96View}. Fields are decoded on every getter call.
+ */
+
+public final class Usdod96View extends Epc96View {
+
+    @Override
+    protected DecodeStatus validate(long hi, long lo){
+        return Usdod96.validate(hi, lo);
+    }
+
+    public int getFilter(){
+        return (int) get(8, 4);
+    }
+
+    /**
+     * @return the 6 encoded characters, a CAGE code starts with ' '. Unlike {@link #getGovernmentManagedIdentifier()} it doesn't allocate
+     */
+    public long getEncodedGovernmentManagedIdentifier(){
+        return get(8 + 4, Usdod96.governmentManagedIdentifierSize);
+    }
+
+    /**
+     * Allocates the CAGE code or DoDAAC string
+     */
+    public String getGovernmentManagedIdentifier(){
+        char[] gmi = new char[Usdod96.governmentManagedIdentifierSize / 8];
+        for (int i = 0; i < gmi.length; i++)
+            gmi[i] = (char) get(8 + 4 + 8 * i, 8);
+        return gmi[0] == ' ' ? new String(gmi, 1, gmi.length - 1) : new String(gmi);
+    }
+
+    public long getSerial(){
+        return get(96 - Usdod96.serialSize, Usdod96.serialSize);
+    }
+
+    @Override
+    public StringBuilder appendPureIdentityUri(StringBuilder sb){
+        sb.append(Usdod96.pureIdentityUriHeader);
+        for (int i = 0; i < Usdod96.governmentManagedIdentifierSize / 8; i++){
+            char ch = (char) get(8 + 4 + 8 * i, 8);
+            if (i > 0 || ch != ' ')
+                sb.append(ch);
+        }
+        return sb.append('.').append(getSerial());
+    }
+
+    @Override
+    public Usdod96 toEpc(){
+        return Usdod96.fromBits(getHiBits(), getLoBits());
+    }
+}
@@ -0,0 +1,94 @@
+package org.java.epcGS1coder.util;
+
+/**
+ * Bit field access over the EPCs longer than 96 bits, held in a long[] most significant bit first: bit 0 of
+ * the EPC (the first header bit) is the highest bit of words[0]. Offsets count from the header as in
+ * {@link Bits}, a field of up to 64 bits spanning at most two words.
+ */
+
+public final class BitArray {
+
+    private final static char[] hexChars = "0123456789ABCDEF".toCharArray();
+
+    private BitArray(){}
+
+    /**
+     * @return zeroed words for an EPC of the given size in bits
+     */
+    public static long[] allocate(int bits){
+        return new long[(bits + 63) >>> 6];
+    }
+
+    /**
+     * Writes the field, value must fit in length bits and the field be zero so far
+     */
+    public static void set(long[] words, int offset, int length, long value){
+        if (length == 0)
+            return;
+        int word = offset >>> 6;
+        int shift = 64 - (offset & 63) - length;
+        if (shift >= 0)
+            words[word] |= value << shift;
+        else {
+            words[word] |= value >>> -shift;
+            words[word + 1] |= value << (64 + shift);
+        }
+    }
+
+    /**
+     * @param offset position of the first bit of the field counting from the most significant one
+     * @param length field size, at most 64 bits
+     */
+    public static long get(long[] words, int offset, int length){
+        if (length == 0)
+            return 0;
+        int word = offset >>> 6;
+        int shift = 64 - (offset & 63) - length;
+        long mask = length == 64 ? -1l : (1l << length) - 1;
+        if (shift >= 0)
+            return (words[word] >>> shift) & mask;
+        return ((words[word] << -shift) | (words[word + 1] >>> (64 + shift))) & mask;
+    }
+
+    /**
+     * @return the words of the EPC hex string, 16 digits per word
+     */
+    public static long[] fromHex(CharSequence hex){
+        long[] words = allocate(hex.length() * 4);
+        for (int i = 0, from = 0; from < hex.length(); i++, from += 16){
+            int to = Math.min(from + 16, hex.length());
+            words[i] = Hex.parseLong(hex, from, to) << (4 * (16 - (to - from)));
+        }
+        return words;
+    }
+
+    /**
+     * @return the words of the EPC as read from the tag memory, most significant byte first
+     */
+    public static long[] fromBytes(byte[] bytes, int offset, int length){
+        long[] words = allocate(length * 8);
+        for (int i = 0; i < length; i++)
+            words[i >>> 3] |= (bytes[offset + i] & 0xFFl) << (56 - 8 * (i & 7));
+        return words;
+    }
+
+    /**
+     * @return the first digits of the words as upper case hex
+     */
+    public static String toHex(long[] words, int digits){
+        char[] hex = new char[digits];
+        for (int i = 0; i < digits; i++)
+            hex[i] = hexChars[(int) (words[i >>> 4] >>> (60 - 4 * (i & 15))) & 0xF];
+        return new String(hex);
+    }
+
+    /**
+     * @return the first bytes of the words, most significant first
+     */
+    public static byte[] toBytes(long[] words, int length){
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte) (words[i >>> 3] >>> (56 - 8 * (i & 7)));
+        return bytes;
+    }
+}
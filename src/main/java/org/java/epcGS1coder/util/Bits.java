@@ -0,0 +1,115 @@
+package org.java.epcGS1coder.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+
+/**
+ * Bit field access over a 96-bit EPC held in two longs: hi holds the first 64 bits (header
+ * included, most significant first) and lo holds the last 32 bits in its low order bits.
+ * Raw EPC bytes, as read from the tag memory, are always taken most significant byte first.
+ */
+
+public final class Bits {
+
+    private Bits(){}
+
+    /**
+     * @param offset position of the first bit of the field counting from the most significant one (the header starts at 0)
+     * @param length field size, at most 64 bits
+     */
+    public static long get(long hi, long lo, int offset, int length){
+        int end = offset + length;
+        long mask = length == 64 ? -1l : (1l << length) - 1;
+        if (end <= 64)
+            return (hi >>> (64 - end)) & mask;
+        if (offset >= 64)
+            return (lo >>> (96 - end)) & mask;
+        return ((hi << (end - 64)) | ((lo & 0xFFFFFFFFl) >>> (96 - end))) & mask;
+    }
+
+    /**
+     * @return the part of the field [offset, offset + length) that falls into the first 64 bits, value must fit in length bits
+     */
+    public static long hi(long value, int offset, int length){
+        int end = offset + length;
+        if (offset >= 64)
+            return 0;
+        if (end <= 64)
+            return value << (64 - end);
+        return value >>> (end - 64);
+    }
+
+    /**
+     * @return the part of the field [offset, offset + length) that falls into the last 32 bits, value must fit in length bits
+     */
+    public static long lo(long value, int offset, int length){
+        int end = offset + length;
+        if (end <= 64)
+            return 0;
+        return (value << (96 - end)) & 0xFFFFFFFFl;
+    }
+
+    /**
+     * @return the first 64 bits of the 12 bytes EPC starting at bytes[offset]
+     */
+    public static long readHi(byte[] bytes, int offset){
+        long hi = 0;
+        for (int i = offset; i < offset + 8; i++)
+            hi = hi << 8 | (bytes[i] & 0xFF);
+        return hi;
+    }
+
+    /**
+     * @return the last 32 bits of the 12 bytes EPC starting at bytes[offset]
+     */
+    public static long readLo(byte[] bytes, int offset){
+        long lo = 0;
+        for (int i = offset + 8; i < offset + 12; i++)
+            lo = lo << 8 | (bytes[i] & 0xFF);
+        return lo;
+    }
+
+    /**
+     * Reads the first 64 bits of an EPC at the buffer position, whatever the buffer byte order
+     */
+    public static long readHi(ByteBuffer buffer){
+        long hi = buffer.getLong();
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? hi : Long.reverseBytes(hi);
+    }
+
+    /**
+     * Reads the last 32 bits of an EPC at the buffer position, whatever the buffer byte order
+     */
+    public static long readLo(ByteBuffer buffer){
+        int lo = buffer.getInt();
+        return (buffer.order() == ByteOrder.BIG_ENDIAN ? lo : Integer.reverseBytes(lo)) & 0xFFFFFFFFl;
+    }
+
+    /**
+     * Writes the 12 bytes of the EPC at the buffer position, whatever the buffer byte order
+     */
+    public static void write(ByteBuffer buffer, long hi, long lo){
+        if (buffer.order() == ByteOrder.BIG_ENDIAN)
+            buffer.putLong(hi).putInt((int) lo);
+        else
+            buffer.putLong(Long.reverseBytes(hi)).putInt(Integer.reverseBytes((int) lo));
+    }
+
+    /**
+     * Hash code of the 96-bit EPC given as its two words, consistent with comparing both words
+     */
+    public static int hashCode(long hi, long lo){
+        return 31 * Long.hashCode(hi) + Long.hashCode(lo);
+    }
+
+    /**
+     * Bit layout used by the BitSet based codecs: the last bit of the EPC is bit 0
+     */
+    public static BitSet toBitSet(byte[] bytes, int offset, int length){
+        byte[] reversed = new byte[length];
+        for (int i = 0; i < length; i++)
+            reversed[i] = bytes[offset + length - 1 - i];
+        return BitSet.valueOf(reversed);
+    }
+}
@@ -0,0 +1,84 @@
+package org.java.epcGS1coder.util;
+
+/**
+ * GS1 keys (GTIN, SSCC, GLN...) computed from the EPC fields as numbers: a key of up to 18 digits fits in a long,
+ * so the key digits and their check digit are worked out with arithmetic only, without building the digits
+ * String first.
+ */
+
+public final class Gs1 {
+
+    private final static long[] powersOf10 = new long[19];
+
+    static {
+        powersOf10[0] = 1;
+        for (int i = 1; i < powersOf10.length; i++)
+            powersOf10[i] = powersOf10[i - 1] * 10;
+    }
+
+    private Gs1(){}
+
+    public static long pow10(int digits){
+        return powersOf10[digits];
+    }
+
+    /**
+     * GS1 check digit (General Specifications 7.9.1): the digits are weighted 3 and 1 alternately starting from
+     * the rightmost one
+     * @param key the digits preceding the check digit
+     */
+    public static int checkDigit(long key){
+        int sum = 0;
+        for (int weight = 3; key != 0; key /= 10, weight = 4 - weight)
+            sum += (int) (key % 10) * weight;
+        return (10 - sum % 10) % 10;
+    }
+
+    /**
+     * @return the key followed by its check digit, e.g. the GTIN-14 of its 13 first digits
+     */
+    public static long withCheckDigit(long key){
+        return key * 10 + checkDigit(key);
+    }
+
+    /**
+     * @return the digits of a key made of the company prefix followed by a reference (GLN, GRAI, GDTI, GSRN...),
+     * without check digit
+     */
+    public static long key(long companyPrefix, long reference, int referenceDigits){
+        return companyPrefix * powersOf10[referenceDigits] + reference;
+    }
+
+    /**
+     * @return the digits of a key whose EPC reference starts with the indicator digit (GTIN, ITIP) or the
+     * extension digit (SSCC), which the key moves in front of the company prefix, without check digit
+     */
+    public static long indicatorKey(long companyPrefix, int companyPrefixDigits, long reference, int referenceDigits){
+        long itemPower = powersOf10[referenceDigits - 1];
+        return (reference / itemPower) * powersOf10[companyPrefixDigits + referenceDigits - 1]
+                + companyPrefix * itemPower
+                + reference % itemPower;
+    }
+
+    /**
+     * Appends the key padded to the given number of digits followed by its check digit
+     */
+    public static StringBuilder appendKey(StringBuilder sb, long key, int digits){
+        return Uri.appendPadded(sb, key, digits).append((char) ('0' + checkDigit(key)));
+    }
+
+    /**
+     * Parses the digits [from, to) of a GS1 key, an empty range being 0 (the reference of a 12 digits company
+     * prefix)
+     */
+    public static long parseDigits(CharSequence key, int from, int to){
+        long value = 0;
+        for (int i = from; i < to; i++){
+            char ch = key.charAt(i);
+            if (ch < '0' || ch > '9')
+                throw new IllegalArgumentException("Invalid digit '" + ch + "' in GS1 key " + key);
+            value = value * 10 + (ch - '0');
+        }
+        return value;
+    }
+}
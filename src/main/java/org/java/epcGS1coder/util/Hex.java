@@ -0,0 +1,81 @@
+package org.java.epcGS1coder.util;
+
+import java.util.Arrays;
+
+/**
+ * Hex conversions used by the codecs, table driven so parsing an EPC doesn't allocate.
+ */
+
+public final class Hex {
+
+    private final static byte[] digits = new byte[128];
+    private final static char[] chars = "0123456789ABCDEF".toCharArray();
+
+    static {
+        Arrays.fill(digits, (byte) -1);
+        for (int i = 0; i < 10; i++)
+            digits['0'+i] = (byte) i;
+        for (int i = 0; i < 6; i++){
+            digits['A'+i] = (byte) (10+i);
+            digits['a'+i] = (byte) (10+i);
+        }
+    }
+
+    private Hex(){}
+
+    /**
+     * @return the value of the hex digit, -1 if ch isn't one
+     */
+    public static int digit(char ch){
+        return ch < 128 ? digits[ch] : -1;
+    }
+
+    /**
+     * @return whether hex[from, to) only holds hex digits
+     */
+    public static boolean isHex(CharSequence hex, int from, int to){
+        for (int i = from; i < to; i++)
+            if (digit(hex.charAt(i)) < 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Parses hex[from, to) as an unsigned value, at most 16 digits.
+     */
+    public static long parseLong(CharSequence hex, int from, int to){
+        long value = 0;
+        for (int i = from; i < to; i++){
+            char ch = hex.charAt(i);
+            int digit = ch < 128 ? digits[ch] : -1;
+            if (digit < 0)
+                throw new IllegalArgumentException("Invalid hex character: " + ch);
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return the 96 bits held in hi/lo (see {@link Bits}) as 24 upper case hex digits
+     */
+    public static String toString(long hi, long lo){
+        char[] hex = new char[24];
+        for (int i = 15; i >= 0; i--, hi >>>= 4)
+            hex[i] = chars[(int) hi & 0xF];
+        for (int i = 23; i >= 16; i--, lo >>>= 4)
+            hex[i] = chars[(int) lo & 0xF];
+        return new String(hex);
+    }
+
+    /**
+     * @return the bytes of an even length hex string
+     */
+    public static byte[] toBytes(CharSequence hex){
+        if (hex.length() % 2 != 0)
+            throw new IllegalArgumentException("Hex string must have an even length");
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) parseLong(hex, 2 * i, 2 * i + 2);
+        return bytes;
+    }
+}
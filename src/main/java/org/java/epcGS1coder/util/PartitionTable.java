@@ -0,0 +1,136 @@
+package org.java.epcGS1coder.util;
+
+/**
+ * The partition tables of the GS1 schemes (Table 14-2 SGTIN Partition Table, Table 14-5 SSCC Partition Table...),
+ * precomputed so the codecs get the layout of a tag with a couple of array loads instead of switches.
+ * <p>
+ * Every table shares the company prefix columns (M bits and L digits for partition P), they only differ
+ * in the bits and digits left for the reference that follows the company prefix.
+ */
+
+public final class PartitionTable {
+
+    /**
+     * Bits of the header, filter and partition, the company prefix starts right after them
+     */
+    public final static int companyPrefixOffset = 8 + 3 + 3;
+
+    private final static int partitions = 7;
+    private final static int[] companyPrefixBits = {40, 37, 34, 30, 27, 24, 20};
+
+    /** Table 14-2 SGTIN Partition Table */
+    public final static PartitionTable sgtin = new PartitionTable(44, 13);
+    /** Table 14-5 SSCC Partition Table */
+    public final static PartitionTable sscc = new PartitionTable(58, 17);
+    /** Table 14-7 SGLN Partition Table */
+    public final static PartitionTable sgln = new PartitionTable(41, 12);
+    /** Table 14-10 GRAI Partition Table */
+    public final static PartitionTable grai = new PartitionTable(44, 12);
+    /** Table 14-13 GIAI-96 Partition Table */
+    public final static PartitionTable giai96 = new PartitionTable(82, 25);
+    /** Table 14-15 GIAI-202 Partition Table, the reference digits are its maximum length */
+    public final static PartitionTable giai202 = new PartitionTable(188, 30);
+    /** Table 14-17 GSRN Partition Table, used by GSRNP too */
+    public final static PartitionTable gsrn = new PartitionTable(58, 17);
+    /** Table 14-20 GDTI Partition Table */
+    public final static PartitionTable gdti = new PartitionTable(41, 12);
+    /** Table 14-24 CPI-96 Partition Table */
+    public final static PartitionTable cpi96 = new PartitionTable(51, 15);
+    /** Table 14-25 CPI-var Partition Table, the reference bits (6-bit characters and terminator) and digits are maximums */
+    public final static PartitionTable cpiVar = new PartitionTable(new int[]{114, 120, 126, 132, 138, 144, 150}, 30);
+    /** Table 14-28 SGCN Partition Table */
+    public final static PartitionTable sgcn = new PartitionTable(41, 12);
+    /** Table 14-30 ITIP Partition Table, the reference is the indicator/pad digit and item reference */
+    public final static PartitionTable itip = new PartitionTable(44, 13);
+
+    private final int[] referenceBits = new int[partitions];
+    private final int[] referenceDigits = new int[partitions];
+    private final int[] referenceOffsets = new int[partitions];
+    private final long[] referenceLimits = new long[partitions];
+
+    /**
+     * @param totalBits M + N, the same for every partition
+     * @param totalDigits L + the reference digits, the same for every partition
+     */
+    private PartitionTable(int totalBits, int totalDigits){
+        this(referenceBits(totalBits), totalDigits);
+    }
+
+    private PartitionTable(int[] referenceBits, int totalDigits){
+        for (int p = 0; p < partitions; p++){
+            this.referenceBits[p] = referenceBits[p];
+            referenceDigits[p] = totalDigits - getCompanyPrefixDigits(p);
+            referenceOffsets[p] = companyPrefixOffset + companyPrefixBits[p];
+            referenceLimits[p] = referenceBits[p] < 63 ? 1l << referenceBits[p] : Long.MAX_VALUE;
+        }
+    }
+
+    private static int[] referenceBits(int totalBits){
+        int[] referenceBits = new int[partitions];
+        for (int p = 0; p < partitions; p++)
+            referenceBits[p] = totalBits - companyPrefixBits[p];
+        return referenceBits;
+    }
+
+    private static int check(int partition){
+        if (partition < 0 || partition >= partitions)
+            throw new IllegalArgumentException("Invalid Partition: " + partition + " (0-6)");
+        return partition;
+    }
+
+    /**
+     * @return P value
+     */
+    public static int getPartition(int companyPrefixDigits){
+        return 12 - companyPrefixDigits;
+    }
+
+    /**
+     * @return L value
+     */
+    public static int getCompanyPrefixDigits(int partition){
+        return 12 - partition;
+    }
+
+    /**
+     * @return M value
+     */
+    public static int getCompanyPrefixBits(int partition){
+        return companyPrefixBits[check(partition)];
+    }
+
+    /**
+     * @return the exclusive maximum company prefix that fits in M bits
+     */
+    public static long getCompanyPrefixLimit(int partition){
+        return 1l << companyPrefixBits[check(partition)];
+    }
+
+    /**
+     * @return N value
+     */
+    public int getReferenceBits(int partition){
+        return referenceBits[check(partition)];
+    }
+
+    /**
+     * @return the digits (or maximum characters) of the reference
+     */
+    public int getReferenceDigits(int partition){
+        return referenceDigits[check(partition)];
+    }
+
+    /**
+     * @return the offset of the reference from the header's most significant bit, see {@link Bits}
+     */
+    public int getReferenceOffset(int partition){
+        return referenceOffsets[check(partition)];
+    }
+
+    /**
+     * @return the exclusive maximum reference that fits in N bits, Long.MAX_VALUE when N doesn't fit a long
+     */
+    public long getReferenceLimit(int partition){
+        return referenceLimits[check(partition)];
+    }
+}
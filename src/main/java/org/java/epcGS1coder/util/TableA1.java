@@ -0,0 +1,108 @@
+package org.java.epcGS1coder.util;
+
+/**
+ * 7-bit codec of the GS1 AI encodable character set 82 (TDS Table A-1), the alphanumeric serials of
+ * SGTIN-198, SGLN-195, GRAI-170, GIAI-202, GDTI-174 and ITIP-212. Each character is its 7-bit ASCII code,
+ * the field being terminated by a zero character or its end.
+ * <p>
+ * Validation tests the character against a 128-bit mask held in two longs, and up to 9 characters (63 bits)
+ * are packed into, or unpacked from, a single long moved in and out of the EPC words with one
+ * {@link BitArray} access.
+ */
+
+public final class TableA1 {
+
+    private final static int bits = 7;
+    private final static int charsPerLong = 9;
+
+    // bit ch of the 128-bit mask is set when ch is in Table A-1: 0x21 to 0x7A but # $ @ [ \ ] ^ `
+    private final static long validLow;
+    private final static long validHigh;
+
+    static {
+        long low = 0, high = 0;
+        for (char ch = 0x21; ch <= 0x7A; ch++){
+            if ("#$@[\\]^`".indexOf(ch) >= 0)
+                continue;
+            if (ch < 64)
+                low |= 1l << ch;
+            else
+                high |= 1l << (ch - 64);
+        }
+        validLow = low;
+        validHigh = high;
+    }
+
+    private TableA1(){}
+
+    public static boolean isValid(char ch){
+        return ch < 64 ? (validLow >>> ch & 1) != 0 : ch < 128 && (validHigh >>> (ch - 64) & 1) != 0;
+    }
+
+    /**
+     * @return whether all the characters are in Table A-1
+     */
+    public static boolean isValid(CharSequence s){
+        for (int i = 0; i < s.length(); i++)
+            if (!isValid(s.charAt(i)))
+                return false;
+        return true;
+    }
+
+    /**
+     * Packs the characters from the given bit offset, the words being zero there so the terminating zero
+     * character and the padding are left as they are
+     */
+    public static void encode(long[] words, int offset, CharSequence s){
+        for (int from = 0; from < s.length(); from += charsPerLong){
+            int to = Math.min(from + charsPerLong, s.length());
+            long chunk = 0;
+            for (int i = from; i < to; i++)
+                chunk = chunk << bits | s.charAt(i);
+            BitArray.set(words, offset + bits * from, bits * (to - from), chunk);
+        }
+    }
+
+    /**
+     * Unpacks the characters from the given bit offset up to the first zero character
+     * @param maxChars number of characters the field holds
+     */
+    public static String decode(long[] words, int offset, int maxChars){
+        char[] chars = new char[maxChars];
+        int length = 0;
+        for (int from = 0; from < maxChars; from += charsPerLong){
+            int count = Math.min(charsPerLong, maxChars - from);
+            long chunk = BitArray.get(words, offset + bits * from, bits * count);
+            for (int shift = bits * (count - 1); shift >= 0; shift -= bits){
+                char ch = (char) (chunk >>> shift & 0x7F);
+                if (ch == 0)
+                    return new String(chars, 0, length);
+                chars[length++] = ch;
+            }
+        }
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Appends the characters to a URI, escaping those the EPC URI grammar reserves (" % & / &lt; &gt; ?)
+     */
+    public static StringBuilder appendUri(StringBuilder sb, CharSequence s){
+        for (int i = 0; i < s.length(); i++){
+            char ch = s.charAt(i);
+            switch (ch){
+                case '"':
+                case '%':
+                case '&':
+                case '/':
+                case '<':
+                case '>':
+                case '?':
+                    Uri.appendEscaped(sb, ch);
+                    break;
+                default:
+                    sb.append(ch);
+            }
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,129 @@
+package org.java.epcGS1coder.util;
+
+/**
+ * 6-bit codec of the characters permitted in 6-bit alphanumeric fields (TDS Table G-1), the part numbers and
+ * serials of ADI-var, the component / part reference of CPI-var and the CAGE codes. Each character is the 6
+ * low bits of its ASCII code, A to Z being 1 to 26, a field being terminated by a zero character.
+ * <p>
+ * Up to 10 characters (60 bits) are packed into, or unpacked from, a single long moved in and out of the EPC
+ * words with one {@link BitArray} access, the terminator being looked for in the 10 characters at once.
+ */
+
+public final class TableG1 {
+
+    private final static int bits = 6;
+    private final static int charsPerLong = 10;
+
+    // per character of a 60-bit chunk: its high bit, and its 5 low bits
+    private final static long highBits = 0x820820820820820l;
+    private final static long lowBits = 0x7DF7DF7DF7DF7DFl;
+
+    // bit ch of the 128-bit masks is set when ch is in Table G-1, or in a CAGE code (no I nor O, ' ' pads it)
+    private final static long validLow;
+    private final static long validHigh;
+    private final static long cageLow;
+    private final static long cageHigh;
+
+    static {
+        long low = 0, high = 0;
+        for (char ch : "#-/0123456789".toCharArray())
+            low |= 1l << ch;
+        for (char ch = 'A'; ch <= 'Z'; ch++)
+            high |= 1l << (ch - 64);
+        validLow = low;
+        validHigh = high;
+        cageLow = (low | 1l << ' ') & ~(1l << '#' | 1l << '-' | 1l << '/');
+        cageHigh = high & ~(1l << ('I' - 64) | 1l << ('O' - 64));
+    }
+
+    private TableG1(){}
+
+    public static boolean isValid(char ch){
+        return ch < 64 ? (validLow >>> ch & 1) != 0 : ch < 128 && (validHigh >>> (ch - 64) & 1) != 0;
+    }
+
+    /**
+     * @return whether all the characters are in Table G-1
+     */
+    public static boolean isValid(CharSequence s){
+        for (int i = 0; i < s.length(); i++)
+            if (!isValid(s.charAt(i)))
+                return false;
+        return true;
+    }
+
+    /**
+     * @return whether the character may appear in an encoded CAGE code or DoDAAC: upper case alphanumeric
+     * but I and O, or the ' ' a 5 characters CAGE code is padded with
+     */
+    public static boolean isCageValid(char ch){
+        return ch < 64 ? (cageLow >>> ch & 1) != 0 : ch < 128 && (cageHigh >>> (ch - 64) & 1) != 0;
+    }
+
+    public static int encode(char ch){
+        return ch & 0x3F;
+    }
+
+    public static char decode(int code){
+        return (char) (code < 32 ? code | 0x40 : code);
+    }
+
+    /**
+     * Packs the characters from the given bit offset, the words being zero there so the terminating zero
+     * character is left as it is
+     */
+    public static void encode(long[] words, int offset, CharSequence s){
+        for (int from = 0; from < s.length(); from += charsPerLong){
+            int to = Math.min(from + charsPerLong, s.length());
+            long chunk = 0;
+            for (int i = from; i < to; i++)
+                chunk = chunk << bits | encode(s.charAt(i));
+            BitArray.set(words, offset + bits * from, bits * (to - from), chunk);
+        }
+    }
+
+    /**
+     * Looks for the zero character terminating the field at the given bit offset, 10 characters per read
+     * @param maxChars number of characters the words hold from the offset
+     * @return the number of characters before the terminator, -1 when none of the maxChars is zero
+     */
+    public static int length(long[] words, int offset, int maxChars){
+        for (int from = 0; from < maxChars; from += charsPerLong){
+            int count = Math.min(charsPerLong, maxChars - from);
+            long chunk = BitArray.get(words, offset + bits * from, bits * count);
+            // a character is zero when neither its high bit nor the carry of adding 31 to its low bits is set
+            long zeros = ~(((chunk & lowBits) + lowBits) | chunk) & highBits & ((1l << bits * count) - 1);
+            if (zeros != 0)
+                return from + count - 1 - (63 - Long.numberOfLeadingZeros(zeros)) / bits;
+        }
+        return -1;
+    }
+
+    /**
+     * Unpacks the given number of characters from the given bit offset
+     */
+    public static String decode(long[] words, int offset, int length){
+        char[] chars = new char[length];
+        for (int from = 0; from < length; from += charsPerLong){
+            int count = Math.min(charsPerLong, length - from);
+            long chunk = BitArray.get(words, offset + bits * from, bits * count);
+            for (int i = from + count - 1; i >= from; i--, chunk >>>= bits)
+                chars[i] = decode((int) chunk & 0x3F);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Appends the characters to a URI, escaping the # and / the EPC URI grammar reserves
+     */
+    public static StringBuilder appendUri(StringBuilder sb, CharSequence s){
+        for (int i = 0; i < s.length(); i++){
+            char ch = s.charAt(i);
+            if (ch == '#' || ch == '/')
+                Uri.appendEscaped(sb, ch);
+            else
+                sb.append(ch);
+        }
+        return sb;
+    }
+}
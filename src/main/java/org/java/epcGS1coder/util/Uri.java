@@ -0,0 +1,43 @@
+package org.java.epcGS1coder.util;
+
+/**
+ * Formatting of the EPC URI fields straight into a StringBuilder, without the format parsing and the
+ * intermediate Formatter and Strings of String.format. Appending a long or a char to a StringBuilder
+ * with enough capacity doesn't allocate.
+ */
+
+public final class Uri {
+
+    private final static char[] hexDigits = "0123456789ABCDEF".toCharArray();
+
+    private Uri(){}
+
+    /**
+     * Appends the value left padded with zeros to the given number of digits, as "%0Nd" does, except that a
+     * 0 digits field (e.g. the item reference of a 12 digits company prefix) is left empty
+     */
+    public static StringBuilder appendPadded(StringBuilder sb, long value, int digits){
+        if (digits == 0 && value == 0)
+            return sb;
+        for (int i = length(value); i < digits; i++)
+            sb.append('0');
+        return sb.append(value);
+    }
+
+    /**
+     * Appends the "%XX" escape of the character (Table A-1 characters not allowed in an URI)
+     */
+    public static StringBuilder appendEscaped(StringBuilder sb, char ch){
+        return sb.append('%').append(hexDigits[ch >> 4 & 0xF]).append(hexDigits[ch & 0xF]);
+    }
+
+    /**
+     * @return the number of decimal digits of a positive value
+     */
+    public static int length(long value){
+        int length = 1;
+        for (long bound = 10; length < 19 && value >= bound; bound *= 10)
+            length++;
+        return length;
+    }
+}
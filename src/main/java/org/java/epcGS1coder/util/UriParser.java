@@ -0,0 +1,176 @@
+package org.java.epcGS1coder.util;
+
+/**
+ * Single pass reader of the dot separated fields of an EPC URI. The fields are parsed in place from the
+ * CharSequence with index arithmetic: no regex split, no substrings nor intermediate arrays, only the String
+ * fields themselves are created, percent decoded as they are read.
+ * <pre>
+ * UriParser parser = new UriParser(uri, uriHeader);
+ * int filter = parser.nextInt();
+ * long companyPrefix = parser.nextLong();
+ * int partition = getPartition(parser.lastLength());
+ * ...
+ * parser.end();
+ * </pre>
+ * Malformed URIs are rejected with an IllegalArgumentException.
+ */
+
+public final class UriParser {
+
+    private final CharSequence uri;
+    private int position;
+    private boolean first = true;
+    private int lastLength;
+
+    /**
+     * @param header the scheme URI prefix, e.g. "urn:epc:tag:sgtin-96:"
+     */
+    public UriParser(CharSequence uri, String header){
+        if (!startsWith(uri, header))
+            throw new IllegalArgumentException("Decoding error: wrong URI header, expected " + header);
+        this.uri = uri;
+        this.position = header.length();
+    }
+
+    /**
+     * Reads a numeric field of at least one digit
+     */
+    public long nextLong(){
+        long value = parseDigits();
+        if (lastLength == 0)
+            throw new IllegalArgumentException("Empty numeric field at " + position);
+        return value;
+    }
+
+    /**
+     * Reads a numeric field of exactly the given number of digits (leading zeros included), empty if 0
+     */
+    public long nextLong(int digits){
+        long value = parseDigits();
+        if (lastLength != digits)
+            throw new IllegalArgumentException("Field must have " + digits + " digits, found " + lastLength);
+        return value;
+    }
+
+    public int nextInt(){
+        return toInt(nextLong());
+    }
+
+    public int nextInt(int digits){
+        return toInt(nextLong(digits));
+    }
+
+    /**
+     * @return the number of digits of the last numeric field read, which gives the partition of a company prefix
+     */
+    public int lastLength(){
+        return lastLength;
+    }
+
+    /**
+     * Reads a field as is
+     */
+    public String nextString(){
+        int from = startField();
+        while (position < uri.length() && uri.charAt(position) != '.')
+            position++;
+        return uri.subSequence(from, position).toString();
+    }
+
+    /**
+     * Reads a field decoding its %XX escapes
+     */
+    public String nextEscaped(){
+        int from = startField();
+        int to = from;
+        while (to < uri.length() && uri.charAt(to) != '.')
+            to++;
+        return unescape(from, to);
+    }
+
+    /**
+     * Reads the rest of the URI as the last field, decoding its %XX escapes. Serials and other alphanumeric last
+     * fields can contain dots (Table A-1), so they aren't delimited by them.
+     */
+    public String restEscaped(){
+        return unescape(startField(), uri.length());
+    }
+
+    /**
+     * Checks that all the fields were read
+     */
+    public void end(){
+        if (position != uri.length())
+            throw new IllegalArgumentException("Unexpected characters at " + position + ": " + uri);
+    }
+
+    /**
+     * @return whether the sequence starts with the prefix, without creating a String
+     */
+    public static boolean startsWith(CharSequence sequence, String prefix){
+        if (sequence.length() < prefix.length())
+            return false;
+        for (int i = 0; i < prefix.length(); i++)
+            if (sequence.charAt(i) != prefix.charAt(i))
+                return false;
+        return true;
+    }
+
+    private int startField(){
+        if (!first){
+            if (position >= uri.length() || uri.charAt(position) != '.')
+                throw new IllegalArgumentException("Missing URI field at " + position + ": " + uri);
+            position++;
+        }
+        first = false;
+        return position;
+    }
+
+    private long parseDigits(){
+        int from = startField();
+        long value = 0;
+        for (; position < uri.length(); position++){
+            char ch = uri.charAt(position);
+            if (ch == '.')
+                break;
+            if (ch < '0' || ch > '9')
+                throw new IllegalArgumentException("Invalid digit '" + ch + "' at " + position);
+            if (value > (Long.MAX_VALUE - (ch - '0')) / 10)
+                throw new IllegalArgumentException("Numeric field too large at " + from);
+            value = value * 10 + (ch - '0');
+        }
+        lastLength = position - from;
+        return value;
+    }
+
+    private String unescape(int from, int to){
+        position = to;
+        int escape = from;
+        while (escape < to && uri.charAt(escape) != '%')
+            escape++;
+        if (escape == to)
+            return uri.subSequence(from, to).toString();
+        StringBuilder sb = new StringBuilder(to - from);
+        sb.append(uri, from, escape);
+        for (int i = escape; i < to; i++){
+            char ch = uri.charAt(i);
+            if (ch != '%')
+                sb.append(ch);
+            else {
+                int high = i + 2 < to ? Hex.digit(uri.charAt(i + 1)) : -1;
+                int low = i + 2 < to ? Hex.digit(uri.charAt(i + 2)) : -1;
+                if (high < 0 || low < 0)
+                    throw new IllegalArgumentException("Invalid escape at " + i + ": " + uri);
+                sb.append((char) (high << 4 | low));
+                i += 2;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int toInt(long value){
+        if (value > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Numeric field too large: " + value);
+        return (int) value;
+    }
+}
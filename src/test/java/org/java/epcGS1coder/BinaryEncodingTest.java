@@ -0,0 +1,186 @@
+package org.java.epcGS1coder;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.java.epcGS1coder.cpi.Cpi96;
+import org.java.epcGS1coder.gdti.Gdti96;
+import org.java.epcGS1coder.giai.Giai96;
+import org.java.epcGS1coder.gid.Gid96;
+import org.java.epcGS1coder.grai.Grai96;
+import org.java.epcGS1coder.gsrn.Gsrn96;
+import org.java.epcGS1coder.gsrn.Gsrnp96;
+import org.java.epcGS1coder.sgcn.Sgcn96;
+import org.java.epcGS1coder.sgln.Sgln96;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.java.epcGS1coder.usdod.Usdod96;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the shift based encoding of the 96-bit schemes against the BitSet based one it replaced.
+ */
+
+public class BinaryEncodingTest {
+
+    private final static int[] companyPrefixBits = {40, 37, 34, 30, 27, 24, 20};
+    private final static int rounds = 2000;
+
+    private final Random random = new Random(42);
+
+    /**
+     * The previous encoder: fields are given most significant first and set bit by bit into a BitSet
+     */
+    private static String bitSetEncode(long[] values, int[] sizes){
+        BitSet epc = new BitSet(96);
+        int i = 96;
+        for (int f = 0; f < values.length; f++){
+            i -= sizes[f];
+            for (int j = 0; j < sizes[f]; j++)
+                epc.set(i + j, ((values[f] >> j) & 1) == 1);
+        }
+        byte[] epcba = epc.toByteArray();
+        StringBuffer sb = new StringBuffer(epcba.length*2);
+        for (i = epcba.length-1; i>=0; i--)
+            sb.append(String.format("%02X",epcba[i]));
+        return sb.toString();
+    }
+
+    private long nextBits(int bits){
+        return random.nextLong() >>> (64 - bits);
+    }
+
+    private static long[] partitioned(int header, int filter, int partition, long companyPrefix, long reference, long last){
+        return new long[]{header, filter, partition, companyPrefix, reference, last};
+    }
+
+    private static int[] partitionedSizes(int partition, int referenceAndPrefixBits, int lastBits){
+        return new int[]{8, 3, 3, companyPrefixBits[partition], referenceAndPrefixBits - companyPrefixBits[partition], lastBits};
+    }
+
+    @Test
+    public void sgtin96(){
+        for (int r = 0; r < rounds; r++){
+            int filter = random.nextInt(8), partition = r % 7;
+            int[] sizes = partitionedSizes(partition, 44, 38);
+            long companyPrefix = nextBits(sizes[3]), itemReference = nextBits(sizes[4]), serial = nextBits(38);
+            Sgtin96 sgtin96 = Sgtin96.fromFields(filter, 12 - partition, companyPrefix, (int) itemReference, serial);
+            Assert.assertEquals(bitSetEncode(partitioned(Sgtin96.epcHeader, filter, partition, companyPrefix, itemReference, serial), sizes), sgtin96.getEpc());
+            Assert.assertEquals(sgtin96, Sgtin96.fromEpc(sgtin96.getEpc()));
+        }
+    }
+
+    @Test
+    public void sscc96(){
+        for (int r = 0; r < rounds; r++){
+            int filter = random.nextInt(8), partition = r % 7;
+            int[] sizes = partitionedSizes(partition, 58, 24);
+            long companyPrefix = nextBits(sizes[3]), serialReference = nextBits(sizes[4]);
+            Sscc96 sscc96 = Sscc96.fromFields(filter, 12 - partition, companyPrefix, serialReference);
+            Assert.assertEquals(bitSetEncode(partitioned(Sscc96.epcHeader, filter, partition, companyPrefix, serialReference, 0), sizes), sscc96.getEpc());
+        }
+    }
+
+    @Test
+    public void sgln96(){
+        for (int r = 0; r < rounds; r++){
+            int filter = random.nextInt(8), partition = r % 7;
+            int[] sizes = partitionedSizes(partition, 41, 41);
+            long companyPrefix = nextBits(sizes[3]), locationReference = nextBits(sizes[4]), extension = nextBits(41);
+            Sgln96 sgln96 = Sgln96.fromFields(filter, 12 - partition, companyPrefix, (int) locationReference, extension);
+            Assert.assertEquals(bitSetEncode(partitioned(Sgln96.epcHeader, filter, partition, companyPrefix, locationReference, extension), sizes), sgln96.getEpc());
+        }
+    }
+
+    @Test
+    public void grai96(){
+        for (int r = 0; r < rounds; r++){
+            int filter = random.nextInt(8), partition = r % 7;
+            int[] sizes = partitionedSizes(partition, 44, 38);
+            long companyPrefix = nextBits(sizes[3]), assetType = nextBits(sizes[4]), serial = nextBits(38);
+            Grai96 grai96 = Grai96.fromFields(filter, 12 - partition, companyPrefix, (int) assetType, serial);
+            Assert.assertEquals(bitSetEncode(partitioned(Grai96.epcHeader, filter, partition, companyPrefix, assetType, serial), sizes), grai96.getEpc());
+        }
+    }
+
+    @Test
+    public void giai96(){
+        for (int r = 0; r < rounds; r++){
+            int filter = random.nextInt(8), partition = r % 7;
+            int[] sizes = partitionedSizes(partition, 82, 0);
+            long companyPrefix = nextBits(sizes[3]), individualAssetReference = nextBits(sizes[4]);
+            Giai96 giai96 = Giai96.fromFields(filter, 12 - partition, companyPrefix, individualAssetReference);
+            Assert.assertEquals(bitSetEncode(partitioned(Giai96.epcHeader, filter, partition, companyPrefix, individualAssetReference, 0), sizes), giai96.getEpc());
+        }
+    }
+
+    @Test
+    public void gid96(){
+        for (int r = 0; r < rounds; r++){
+            long generalManagerNumber = nextBits(28), objectClass = nextBits(24), serial = nextBits(36);
+            Gid96 gid96 = Gid96.fromFields((int) generalManagerNumber, (int) objectClass, serial);
+            Assert.assertEquals(bitSetEncode(new long[]{Gid96.epcHeader, generalManagerNumber, objectClass, serial}, new int[]{8, 28, 24, 36}), gid96.getEpc());
+        }
+    }
+
+    @Test
+    public void gsrn96(){
+        for (int r = 0; r < rounds; r++){
+            int filter = random.nextInt(8), partition = r % 7;
+            int[] sizes = partitionedSizes(partition, 58, 24);
+            long companyPrefix = nextBits(sizes[3]), serviceReference = nextBits(sizes[4]);
+            Gsrn96 gsrn96 = Gsrn96.fromFields(filter, 12 - partition, companyPrefix, serviceReference);
+            Assert.assertEquals(bitSetEncode(partitioned(Gsrn96.epcHeader, filter, partition, companyPrefix, serviceReference, 0), sizes), gsrn96.getEpc());
+            Gsrnp96 gsrnp96 = Gsrnp96.fromFields(filter, 12 - partition, companyPrefix, serviceReference);
+            Assert.assertEquals(bitSetEncode(partitioned(Gsrnp96.epcHeader, filter, partition, companyPrefix, serviceReference, 0), sizes), gsrnp96.getEpc());
+        }
+    }
+
+    @Test
+    public void gdti96(){
+        for (int r = 0; r < rounds; r++){
+            int filter = random.nextInt(8), partition = r % 7;
+            int[] sizes = partitionedSizes(partition, 41, 41);
+            long companyPrefix = nextBits(sizes[3]), documentType = nextBits(sizes[4]), serial = nextBits(41);
+            Gdti96 gdti96 = Gdti96.fromFields(filter, 12 - partition, companyPrefix, (int) documentType, serial);
+            Assert.assertEquals(bitSetEncode(partitioned(Gdti96.epcHeader, filter, partition, companyPrefix, documentType, serial), sizes), gdti96.getEpc());
+        }
+    }
+
+    @Test
+    public void cpi96(){
+        for (int r = 0; r < rounds; r++){
+            int filter = random.nextInt(8), partition = r % 7;
+            int[] sizes = partitionedSizes(partition, 51, 31);
+            long companyPrefix = nextBits(sizes[3]), componentPartReference = nextBits(sizes[4]), serial = nextBits(31);
+            Cpi96 cpi96 = Cpi96.fromFields(filter, 12 - partition, companyPrefix, (int) componentPartReference, serial);
+            Assert.assertEquals(bitSetEncode(partitioned(Cpi96.epcHeader, filter, partition, companyPrefix, componentPartReference, serial), sizes), cpi96.getEpc());
+        }
+    }
+
+    @Test
+    public void sgcn96(){
+        for (int r = 0; r < rounds; r++){
+            int filter = random.nextInt(8), partition = r % 7;
+            int[] sizes = partitionedSizes(partition, 41, 41);
+            long companyPrefix = nextBits(sizes[3]), couponReference = nextBits(sizes[4]);
+            StringBuilder serial = new StringBuilder();
+            for (int d = random.nextInt(11); d >= 0; d--)
+                serial.append(random.nextInt(10));
+            Sgcn96 sgcn96 = Sgcn96.fromFields(filter, 12 - partition, companyPrefix, (int) couponReference, serial.toString());
+            long encodedSerial = Long.parseLong("1" + serial);
+            Assert.assertEquals(bitSetEncode(partitioned(Sgcn96.epcHeader, filter, partition, companyPrefix, couponReference, encodedSerial), sizes), sgcn96.getEpc());
+        }
+    }
+
+    @Test
+    public void usdod96(){
+        // The BitSet encoder wrote the CAGE code over the serial, so this one is checked against the TDS layout instead
+        Assert.assertEquals(bitSetEncode(new long[]{Usdod96.epcHeader, 3, 0x204341474559l, 5678}, new int[]{8, 4, 48, 36}),
+                            Usdod96.fromFields(3, "CAGEY", 5678l).getEpc());
+        Assert.assertEquals(bitSetEncode(new long[]{Usdod96.epcHeader, 1, 0x573931323334l, 1l << 35}, new int[]{8, 4, 48, 36}),
+                            Usdod96.fromFields(1, "W91234", 1l << 35).getEpc());
+        Assert.assertEquals("W91234", Usdod96.fromEpc(Usdod96.fromFields(1, "W91234", 1l << 35).getEpc()).getGovernmentManagedIdentifier());
+    }
+}
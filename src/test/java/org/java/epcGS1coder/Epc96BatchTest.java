@@ -0,0 +1,141 @@
+package org.java.epcGS1coder;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.java.epcGS1coder.giai.Giai96;
+import org.java.epcGS1coder.giai.Giai96Batch;
+import org.java.epcGS1coder.grai.Grai96;
+import org.java.epcGS1coder.grai.Grai96Batch;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sgtin.Sgtin96Batch;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.java.epcGS1coder.sscc.Sscc96Batch;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Epc96BatchTest {
+
+    private final static int[] companyPrefixBits = {40, 37, 34, 30, 27, 24, 20};
+    private final static int size = 500;
+
+    private final Random random = new Random(11);
+
+    private long nextBits(int bits){
+        return random.nextLong() >>> (64 - bits);
+    }
+
+    private static byte[] pack(Epc[] epcs){
+        byte[] packed = new byte[12 * epcs.length];
+        for (int i = 0; i < epcs.length; i++)
+            System.arraycopy(epcs[i].toBytes(), 0, packed, 12 * i, 12);
+        return packed;
+    }
+
+    @Test
+    public void sgtin96(){
+        Sgtin96[] tags = new Sgtin96[size];
+        String[] epcs = new String[size];
+        long[] hi = new long[size], lo = new long[size];
+        for (int i = 0; i < size; i++){
+            int partition = i % 7;
+            tags[i] = Sgtin96.fromFields(random.nextInt(8), 12 - partition, nextBits(companyPrefixBits[partition]),
+                                         (int) nextBits(44 - companyPrefixBits[partition]), nextBits(38));
+            epcs[i] = tags[i].getEpc();
+            hi[i] = tags[i].getHiBits();
+            lo[i] = tags[i].getLoBits();
+        }
+        Sgtin96Batch batch = new Sgtin96Batch(size);
+        for (int input = 0; input < 3; input++){
+            int valid = input == 0 ? batch.decode(epcs, 0, size) : input == 1 ? batch.decode(hi, lo, 0, size) : batch.decode(pack(tags), 0, size);
+            Assert.assertEquals(size, valid);
+            Assert.assertEquals(size, batch.size());
+            for (int i = 0; i < size; i++){
+                Assert.assertEquals(tags[i].getFilter(), batch.getFilter()[i]);
+                Assert.assertEquals(i % 7, batch.getPartition()[i]);
+                Assert.assertEquals(tags[i].getCompanyPrefix(), batch.getCompanyPrefix()[i]);
+                Assert.assertEquals(tags[i].getItemReference(), batch.getItemReference()[i]);
+                Assert.assertEquals(tags[i].getSerial(), batch.getSerial()[i]);
+            }
+        }
+        Assert.assertEquals(tags[3], batch.get(3));
+        long[] gtins = new long[size + 1];
+        batch.getGtins(gtins, 1);
+        for (int i = 0; i < size; i++)
+            Assert.assertEquals(tags[i].getGtin(), gtins[i + 1]);
+    }
+
+    @Test
+    public void sscc96Grai96Giai96(){
+        Sscc96[] ssccs = new Sscc96[size];
+        Grai96[] grais = new Grai96[size];
+        Giai96[] giais = new Giai96[size];
+        for (int i = 0; i < size; i++){
+            int partition = i % 7, cpb = companyPrefixBits[partition];
+            ssccs[i] = Sscc96.fromFields(random.nextInt(8), 12 - partition, nextBits(cpb), nextBits(58 - cpb));
+            grais[i] = Grai96.fromFields(random.nextInt(8), 12 - partition, nextBits(cpb), (int) nextBits(44 - cpb), nextBits(38));
+            giais[i] = Giai96.fromFields(random.nextInt(8), 12 - partition, nextBits(cpb), nextBits(82 - cpb));
+        }
+        Sscc96Batch ssccBatch = new Sscc96Batch(size);
+        Grai96Batch graiBatch = new Grai96Batch(size);
+        Giai96Batch giaiBatch = new Giai96Batch(size);
+        Assert.assertEquals(size, ssccBatch.decode(pack(ssccs), 0, size));
+        Assert.assertEquals(size, graiBatch.decode(pack(grais), 0, size));
+        Assert.assertEquals(size, giaiBatch.decode(pack(giais), 0, size));
+        long[] keys = new long[size];
+        ssccBatch.getSsccs(keys, 0);
+        for (int i = 0; i < size; i++){
+            Assert.assertEquals(ssccs[i].getSscc(), keys[i]);
+            Assert.assertEquals(ssccs[i].getCompanyPrefix(), ssccBatch.getCompanyPrefix()[i]);
+            Assert.assertEquals(ssccs[i].getSerialReference(), ssccBatch.getSerialReference()[i]);
+            Assert.assertEquals(grais[i].getFilter(), graiBatch.getFilter()[i]);
+            Assert.assertEquals(grais[i].getAssetType(), graiBatch.getAssetType()[i]);
+            Assert.assertEquals(grais[i].getSerial(), graiBatch.getSerial()[i]);
+            Assert.assertEquals(giais[i].getCompanyPrefix(), giaiBatch.getCompanyPrefix()[i]);
+            Assert.assertEquals(giais[i].getIndividualAssetReference(), giaiBatch.getIndividualAssetReference()[i]);
+        }
+    }
+
+    @Test
+    public void invalidRows(){
+        String[] epcs = {"3034007D00011C400000000B",
+                         "31D8EFEB821928BC07000000",
+                         "303C007D00011C400000000B",
+                         "3034007D00011C4000000",
+                         "3034007D00011C40000000ZB",
+                         "3034007D00011C400000000C"};
+        Sgtin96Batch batch = new Sgtin96Batch(8);
+        Assert.assertEquals(2, batch.decode(epcs, 0, epcs.length));
+        Assert.assertArrayEquals(new DecodeStatus[]{DecodeStatus.ok, DecodeStatus.invalid_header, DecodeStatus.invalid_partition,
+                                                    DecodeStatus.invalid_length, DecodeStatus.invalid_character, DecodeStatus.ok},
+                                 Arrays.copyOf(batch.getStatus(), epcs.length));
+        Assert.assertEquals(0, batch.getSerial()[1]);
+        Assert.assertEquals(12, batch.getSerial()[5]);
+        long[] gtins = new long[epcs.length];
+        batch.getGtins(gtins, 0);
+        Assert.assertEquals(0, gtins[1]);
+        Assert.assertEquals(8000011378l, gtins[5]);
+        Assert.assertTrue(batch.isValid(0));
+        Assert.assertFalse(batch.isValid(2));
+
+        Assert.assertEquals(1, batch.decode(epcs, 5, 1));
+        Assert.assertEquals(1, batch.size());
+        Assert.assertEquals(12, batch.getSerial()[0]);
+    }
+
+    @Test
+    public void nullRow(){
+        String[] epcs = {"3034007D00011C400000000B", null, "3034007D00011C400000000C"};
+        Sgtin96Batch batch = new Sgtin96Batch(4);
+        Assert.assertEquals(2, batch.decode(epcs, 0, epcs.length));
+        Assert.assertEquals(DecodeStatus.invalid_length, batch.getStatus()[1]);
+        Assert.assertFalse(batch.isValid(1));
+        Assert.assertEquals(0, batch.getSerial()[1]);
+        Assert.assertEquals(12, batch.getSerial()[2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overCapacity(){
+        new Sgtin96Batch(1).decode(new String[]{"3034007D00011C400000000B", "3034007D00011C400000000B"}, 0, 2);
+    }
+}
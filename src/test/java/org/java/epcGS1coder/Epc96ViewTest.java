@@ -0,0 +1,174 @@
+package org.java.epcGS1coder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.java.epcGS1coder.cpi.Cpi96;
+import org.java.epcGS1coder.cpi.Cpi96View;
+import org.java.epcGS1coder.gdti.Gdti96;
+import org.java.epcGS1coder.gdti.Gdti96View;
+import org.java.epcGS1coder.giai.Giai96;
+import org.java.epcGS1coder.giai.Giai96View;
+import org.java.epcGS1coder.gid.Gid96;
+import org.java.epcGS1coder.gid.Gid96View;
+import org.java.epcGS1coder.grai.Grai96;
+import org.java.epcGS1coder.grai.Grai96View;
+import org.java.epcGS1coder.gsrn.Gsrn96;
+import org.java.epcGS1coder.gsrn.Gsrn96View;
+import org.java.epcGS1coder.sgcn.Sgcn96;
+import org.java.epcGS1coder.sgcn.Sgcn96View;
+import org.java.epcGS1coder.sgln.Sgln96;
+import org.java.epcGS1coder.sgln.Sgln96View;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sgtin.Sgtin96View;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.java.epcGS1coder.sscc.Sscc96View;
+import org.java.epcGS1coder.usdod.Usdod96;
+import org.java.epcGS1coder.usdod.Usdod96View;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Epc96ViewTest {
+
+    private final static int[] companyPrefixBits = {40, 37, 34, 30, 27, 24, 20};
+
+    private final Random random = new Random(7);
+
+    private long nextBits(int bits){
+        return random.nextLong() >>> (64 - bits);
+    }
+
+    @Test
+    public void sgtin96(){
+        Sgtin96View view = new Sgtin96View();
+        for (int partition = 0; partition < 7; partition++){
+            int cpb = companyPrefixBits[partition];
+            Sgtin96 sgtin96 = Sgtin96.fromFields(random.nextInt(8), 12 - partition, nextBits(cpb), (int) nextBits(44 - cpb), nextBits(38));
+            view.wrap(sgtin96.getEpc());
+            Assert.assertEquals(sgtin96.getFilter(), view.getFilter());
+            Assert.assertEquals(12 - partition, view.getCompanyPrefixDigits());
+            Assert.assertEquals(sgtin96.getCompanyPrefix(), view.getCompanyPrefix());
+            Assert.assertEquals(sgtin96.getItemReference(), view.getItemReference());
+            Assert.assertEquals(sgtin96.getSerial(), view.getSerial());
+            Assert.assertEquals(sgtin96.getEpc(), view.getEpc());
+            Assert.assertEquals(sgtin96, view.toEpc());
+            assertPureIdentity(sgtin96, view);
+        }
+    }
+
+    @Test
+    public void partitioned(){
+        Sscc96View ssccView = new Sscc96View();
+        Sgln96View sglnView = new Sgln96View();
+        Grai96View graiView = new Grai96View();
+        Giai96View giaiView = new Giai96View();
+        Gsrn96View gsrnView = new Gsrn96View();
+        Gdti96View gdtiView = new Gdti96View();
+        Cpi96View cpiView = new Cpi96View();
+        Sgcn96View sgcnView = new Sgcn96View();
+        for (int partition = 0; partition < 7; partition++){
+            int cpb = companyPrefixBits[partition], filter = random.nextInt(8);
+            long companyPrefix = nextBits(cpb);
+
+            Sscc96 sscc96 = Sscc96.fromFields(filter, 12 - partition, companyPrefix, nextBits(58 - cpb));
+            ssccView.wrap(sscc96.getHiBits(), sscc96.getLoBits());
+            Assert.assertEquals(sscc96.getCompanyPrefix(), ssccView.getCompanyPrefix());
+            Assert.assertEquals(sscc96.getSerialReference(), ssccView.getSerialReference());
+            assertPureIdentity(sscc96, ssccView);
+
+            Sgln96 sgln96 = Sgln96.fromFields(filter, 12 - partition, companyPrefix, (int) nextBits(41 - cpb), nextBits(41));
+            sglnView.wrap(sgln96.toBytes(), 0);
+            Assert.assertEquals(sgln96.getLocationReference(), sglnView.getLocationReference());
+            Assert.assertEquals(sgln96.getExtension(), sglnView.getExtension());
+            assertPureIdentity(sgln96, sglnView);
+
+            Grai96 grai96 = Grai96.fromFields(filter, 12 - partition, companyPrefix, (int) nextBits(44 - cpb), nextBits(38));
+            graiView.wrap(grai96.getEpc());
+            Assert.assertEquals(grai96.getAssetType(), graiView.getAssetType());
+            Assert.assertEquals(grai96.getSerial(), graiView.getSerial());
+            assertPureIdentity(grai96, graiView);
+
+            Giai96 giai96 = Giai96.fromFields(filter, 12 - partition, companyPrefix, nextBits(82 - cpb));
+            giaiView.wrap(giai96.getEpc());
+            Assert.assertEquals(giai96.getIndividualAssetReference(), giaiView.getIndividualAssetReference());
+            assertPureIdentity(giai96, giaiView);
+
+            Gsrn96 gsrn96 = Gsrn96.fromFields(filter, 12 - partition, companyPrefix, nextBits(58 - cpb));
+            gsrnView.wrap(gsrn96.getEpc());
+            Assert.assertEquals(gsrn96.getServiceReference(), gsrnView.getServiceReference());
+            assertPureIdentity(gsrn96, gsrnView);
+
+            Gdti96 gdti96 = Gdti96.fromFields(filter, 12 - partition, companyPrefix, (int) nextBits(41 - cpb), nextBits(41));
+            gdtiView.wrap(gdti96.getEpc());
+            Assert.assertEquals(gdti96.getDocumentType(), gdtiView.getDocumentType());
+            Assert.assertEquals(gdti96.getSerial(), gdtiView.getSerial());
+            assertPureIdentity(gdti96, gdtiView);
+
+            Cpi96 cpi96 = Cpi96.fromFields(filter, 12 - partition, companyPrefix, (int) nextBits(51 - cpb), nextBits(31));
+            cpiView.wrap(cpi96.getEpc());
+            Assert.assertEquals(cpi96.getComponentPartReference(), cpiView.getComponentPartReference());
+            Assert.assertEquals(cpi96.getSerial(), cpiView.getSerial());
+            Assert.assertEquals(cpi96.getFilter(), cpiView.getFilter());
+            assertPureIdentity(cpi96, cpiView);
+
+            Sgcn96 sgcn96 = Sgcn96.fromFields(filter, 12 - partition, companyPrefix, (int) nextBits(41 - cpb), "0" + random.nextInt(1000000));
+            sgcnView.wrap(sgcn96.getEpc());
+            Assert.assertEquals(sgcn96.getCouponReference(), sgcnView.getCouponReference());
+            Assert.assertEquals(sgcn96.getSerial(), sgcnView.getSerial());
+            Assert.assertEquals(sgcn96.getCompanyPrefix(), sgcnView.getCompanyPrefix());
+            assertPureIdentity(sgcn96, sgcnView);
+        }
+    }
+
+    @Test
+    public void unpartitioned(){
+        Gid96 gid96 = Gid96.fromEpc("350007AB70425D4000000586");
+        Gid96View gidView = new Gid96View();
+        gidView.wrap(gid96.getEpc());
+        Assert.assertEquals(gid96.getGeneralManagerNumber(), gidView.getGeneralManagerNumber());
+        Assert.assertEquals(gid96.getObjectClass(), gidView.getObjectClass());
+        Assert.assertEquals(gid96.getSerial(), gidView.getSerial());
+        assertPureIdentity(gid96, gidView);
+
+        Usdod96View usdodView = new Usdod96View();
+        for (Usdod96 usdod96 : new Usdod96[]{Usdod96.fromFields(3, "CAGEY", 5678l), Usdod96.fromFields(1, "W91234", 1l << 35)}){
+            usdodView.wrap(usdod96.getEpc());
+            Assert.assertEquals(usdod96.getFilter(), usdodView.getFilter());
+            Assert.assertEquals(usdod96.getGovernmentManagedIdentifier(), usdodView.getGovernmentManagedIdentifier());
+            Assert.assertEquals(usdod96.getSerial(), usdodView.getSerial());
+            assertPureIdentity(usdod96, usdodView);
+        }
+    }
+
+    private static void assertPureIdentity(Epc epc, Epc96View view){
+        Assert.assertEquals(epc.getPureIdentityUri(), view.appendPureIdentityUri(new StringBuilder()).toString());
+    }
+
+    @Test
+    public void stream(){
+        ByteBuffer buffer = ByteBuffer.allocate(36);
+        Sgtin96.fromEpc("3034007D00011C400000000B").writeTo(buffer);
+        Sscc96.fromEpc("31D8EFEB821928BC07000000").writeTo(buffer);
+        Sgtin96.fromFields(1, 7, 8000, 1137, 12).writeTo(buffer);
+        buffer.flip();
+
+        Sgtin96View view = new Sgtin96View();
+        Assert.assertEquals(DecodeStatus.ok, view.tryWrap(buffer));
+        Assert.assertEquals(11, view.getSerial());
+        // a rejected tag leaves the view on the previous one
+        Assert.assertEquals(DecodeStatus.invalid_header, view.tryWrap(buffer));
+        Assert.assertEquals(11, view.getSerial());
+        Assert.assertEquals(DecodeStatus.ok, view.tryWrap(buffer));
+        Assert.assertEquals(12, view.getSerial());
+        Assert.assertEquals(1137, view.getItemReference());
+
+        Assert.assertEquals(DecodeStatus.invalid_partition, view.tryWrap("303C007D00011C400000000B"));
+        Assert.assertEquals(DecodeStatus.invalid_length, view.tryWrap("3034007D00011C40000000"));
+        Assert.assertEquals(DecodeStatus.invalid_character, view.tryWrap("3034007D00011C400000000G"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrapInvalid(){
+        new Sgtin96View().wrap("31D8EFEB821928BC07000000");
+    }
+}
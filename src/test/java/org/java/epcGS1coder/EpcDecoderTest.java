@@ -0,0 +1,134 @@
+package org.java.epcGS1coder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.java.epcGS1coder.cpi.CpiVar;
+import org.java.epcGS1coder.gdti.Gdti113;
+import org.java.epcGS1coder.gid.Gid96;
+import org.java.epcGS1coder.grai.Grai96;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EpcDecoderTest {
+
+    @Test
+    public void fromEpcTest(){
+        Assert.assertEquals(Sgtin96.fromEpc("3034007D00011C400000000B"), EpcDecoder.fromEpc("3034007D00011C400000000B"));
+        Assert.assertEquals(Sscc96.fromEpc("31D8EFEB821928BC07000000"), EpcDecoder.fromEpc("31D8EFEB821928BC07000000"));
+        Assert.assertEquals(Grai96.fromEpc("33140E511C56ED0000000001"), EpcDecoder.fromEpc("33140E511C56ED0000000001"));
+        Assert.assertEquals(Gid96.fromEpc("350007AB70425D4000000586"), EpcDecoder.fromEpc("350007AB70425D4000000586"));
+    }
+
+    @Test
+    public void getSchemeTest(){
+        Assert.assertEquals(EpcScheme.sgtin, EpcDecoder.getScheme("3034007D00011C400000000B"));
+        Assert.assertEquals(EpcScheme.sgtin, EpcDecoder.getScheme("3634007D00011C7A68D3CE4F383532F3E8000000000000000000"));
+        Assert.assertEquals(EpcScheme.gsrnp, EpcDecoder.getScheme("2E1602CE1E128E0F87000000"));
+        Assert.assertNull(EpcDecoder.getScheme("E280689400005011"));
+        Assert.assertNull(EpcDecoder.getScheme("3"));
+        Assert.assertNull(EpcDecoder.getScheme("XX34007D00011C400000000B"));
+    }
+
+    @Test
+    public void epcInterfaceTest(){
+        Epc epc = EpcDecoder.fromEpc("3034007D00011C400000000B");
+        Assert.assertEquals(EpcScheme.sgtin, epc.getScheme());
+        Assert.assertEquals(96, epc.getBitLength());
+        Assert.assertEquals(0x30, epc.getHeader());
+        Assert.assertEquals(1, epc.getFilter());
+        Assert.assertEquals("urn:epc:tag:sgtin-96:1.0008000.001137.11", epc.getUri());
+        Assert.assertArrayEquals(new byte[]{0x30,0x34,0x00,0x7D,0x00,0x01,0x1C,0x40,0x00,0x00,0x00,0x0B}, epc.toBytes());
+    }
+
+    @Test
+    public void fromBytesTest(){
+        byte[] bytes = {0x00,0x30,0x34,0x00,0x7D,0x00,0x01,0x1C,0x40,0x00,0x00,0x00,0x0B,0x00};
+        Assert.assertEquals(Sgtin96.fromEpc("3034007D00011C400000000B"), EpcDecoder.fromBytes(bytes, 1, 12));
+        Assert.assertEquals(Sgtin96.fromEpc("3034007D00011C400000000B"), Sgtin96.fromBytes(bytes, 1, 12));
+        Gdti113 gdti113 = Gdti113.fromEpc("3A28499602D218000000004C75290000");
+        Assert.assertEquals(gdti113, EpcDecoder.fromBytes(gdti113.toBytes(), 0, 16));
+        CpiVar cpiVar = CpiVar.fromEpc("3D74257BF75411DEF6B4CC00000003039");
+        Assert.assertEquals(cpiVar, EpcDecoder.fromBytes(cpiVar.toBytes(), 0, cpiVar.toBytes().length));
+    }
+
+    @Test
+    public void equalsHashCodeTest(){
+        String[] epcs = {"3034007D00011C400000000B", "31D8EFEB821928BC07000000", "350007AB70425D4000000586",
+                         "3A28499602D218000000004C75290000", "4019D9DC81F4EEC0820000079134", "3B0E0CF5E76C9047759AD00373DC7602E7200"};
+        Set<Epc> tags = new HashSet<Epc>();
+        DecodeResult result = new DecodeResult();
+        for (String epc : epcs){
+            Epc fromEpc = EpcDecoder.fromEpc(epc);
+            Assert.assertEquals(DecodeStatus.ok, EpcDecoder.tryParseUri(fromEpc.getUri(), result));
+            Epc fromUri = result.getEpc();
+            Assert.assertEquals(fromEpc, fromUri);
+            Assert.assertEquals(fromEpc.hashCode(), fromUri.hashCode());
+            tags.add(fromEpc);
+            tags.add(fromUri);
+        }
+        Assert.assertEquals(epcs.length, tags.size());
+        Assert.assertNotEquals(EpcDecoder.fromEpc("3034007D00011C400000000B"), EpcDecoder.fromEpc("3034007D00011C400000000C"));
+        Assert.assertNotEquals(EpcDecoder.fromEpc("3034007D00011C400000000B"), EpcDecoder.fromEpc("3054007D00011C400000000B"));
+    }
+
+    @Test
+    public void bufferTest(){
+        Epc[] epcs = {Sgtin96.fromEpc("3034007D00011C400000000B"),
+                      Sscc96.fromEpc("31D8EFEB821928BC07000000"),
+                      Gid96.fromEpc("350007AB70425D4000000586")};
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}){
+            ByteBuffer buffer = ByteBuffer.allocate(12 * epcs.length).order(order);
+            for (Epc epc : epcs)
+                epc.writeTo(buffer);
+            Assert.assertArrayEquals(epcs[0].toBytes(), Arrays.copyOf(buffer.array(), 12));
+            buffer.flip();
+            for (Epc epc : epcs)
+                Assert.assertEquals(epc, EpcDecoder.fromBuffer(buffer));
+            Assert.assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    public void tryDecodeTest(){
+        DecodeResult result = new DecodeResult();
+        Assert.assertEquals(DecodeStatus.ok, EpcDecoder.tryDecode("3034007D00011C400000000B", result));
+        Assert.assertEquals(Sgtin96.fromEpc("3034007D00011C400000000B"), result.getEpc());
+        Assert.assertEquals(DecodeStatus.ok, EpcDecoder.tryDecode("3A28499602D218000000004C75290000", result));
+        Assert.assertEquals(Gdti113.fromEpc("3A28499602D218000000004C75290000"), result.getEpc());
+        Assert.assertEquals(DecodeStatus.unsupported_header, EpcDecoder.tryDecode("E2806894000050111E4A1F2A", result));
+        Assert.assertNull(result.getEpc());
+        Assert.assertEquals(DecodeStatus.invalid_length, EpcDecoder.tryDecode("3034007D00011C40000000", result));
+        Assert.assertEquals(DecodeStatus.invalid_character, EpcDecoder.tryDecode("3034007D00011C40000000XB", result));
+        Assert.assertEquals(DecodeStatus.invalid_character, EpcDecoder.tryDecode("XX34007D00011C400000000B", result));
+        Assert.assertEquals(DecodeStatus.invalid_partition, EpcDecoder.tryDecode("303C007D00011C400000000B", result));
+        Assert.assertFalse(result.isOk());
+        // CAGE code with an 'I'
+        Assert.assertEquals(DecodeStatus.invalid_field, EpcDecoder.tryDecode("2F320434147495900000162E", result));
+
+        byte[] bytes = Sgtin96.fromEpc("3034007D00011C400000000B").toBytes();
+        Assert.assertEquals(DecodeStatus.ok, EpcDecoder.tryDecode(bytes, 0, 12, result));
+        Assert.assertEquals(DecodeStatus.invalid_length, EpcDecoder.tryDecode(bytes, 0, 11, result));
+    }
+
+    @Test
+    public void tryParseUriTest(){
+        DecodeResult result = new DecodeResult();
+        Assert.assertEquals(DecodeStatus.ok, EpcDecoder.tryParseUri("urn:epc:tag:sgtin-96:1.0008000.001137.11", result));
+        Assert.assertEquals(Sgtin96.fromEpc("3034007D00011C400000000B"), result.getEpc());
+        Assert.assertEquals(DecodeStatus.unsupported_header, EpcDecoder.tryParseUri("urn:epc:tag:foo-96:1.0008000.001137.11", result));
+        Assert.assertEquals(DecodeStatus.invalid_character, EpcDecoder.tryParseUri("urn:epc:id:sgtin:0008000.001137.11", result));
+        Assert.assertEquals(DecodeStatus.invalid_field, EpcDecoder.tryParseUri("urn:epc:tag:sgtin-96:1.0008000.001137", result));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedHeaderTest(){
+        EpcDecoder.fromEpc("E2806894000050111E4A1F2A");
+    }
+}
@@ -0,0 +1,75 @@
+package org.java.epcGS1coder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sgtin.Sgtin96View;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EpcDedupSetTest {
+
+    @Test
+    public void seenWithinWindow(){
+        EpcDedupSet dedup = new EpcDedupSet(16, 1000);
+        Sgtin96 sgtin96 = Sgtin96.fromEpc("3034007D00011C400000000B");
+        long hi = sgtin96.getHiBits(), lo = sgtin96.getLoBits();
+        Assert.assertFalse(dedup.seen(hi, lo, 0));
+        Assert.assertTrue(dedup.seen(hi, lo, 1));
+        Assert.assertTrue(dedup.seen(sgtin96.toBytes(), 0, 999));
+        Assert.assertFalse(dedup.seen(hi, lo, 1000));
+        Assert.assertTrue(dedup.seen(hi, lo, 1500));
+        Sgtin96View view = new Sgtin96View();
+        view.wrap("3034007D00011C400000000C");
+        Assert.assertFalse(dedup.seen(view, 1500));
+        Assert.assertEquals(2, dedup.size());
+        Assert.assertEquals(1, dedup.evict(2000));
+        Assert.assertEquals(1, dedup.size());
+        dedup.clear();
+        Assert.assertFalse(dedup.seen(hi, lo, 1500));
+    }
+
+    /**
+     * Random reads checked against a map of the last report times, on and off heap
+     */
+    @Test
+    public void randomReads(){
+        for (boolean direct : new boolean[]{false, true}){
+            Random random = new Random(15);
+            EpcDedupSet dedup = new EpcDedupSet(64, 50, direct);
+            Map<Long, Long> reported = new HashMap<Long, Long>();
+            for (long now = 0; now < 200000; now++){
+                // up to 1000 distinct tags, with a shared first word so that they collide more
+                long lo = 1 + random.nextInt(random.nextInt(10) == 0 ? 1000 : 100);
+                Long last = reported.get(lo);
+                boolean expected = last != null && now - last < 50;
+                if (!expected)
+                    reported.put(lo, now);
+                Assert.assertEquals(expected, dedup.seen(0x3034007D00011C40l, lo, now));
+            }
+        }
+    }
+
+    @Test
+    public void growsBeyondCapacity(){
+        EpcDedupSet dedup = new EpcDedupSet(4, Long.MAX_VALUE, false);
+        for (int i = 1; i <= 10000; i++)
+            Assert.assertFalse(dedup.seen(i, i, 0));
+        for (int i = 1; i <= 10000; i++)
+            Assert.assertTrue(dedup.seen(i, i, 1));
+        Assert.assertEquals(10000, dedup.size());
+    }
+
+    @Test
+    public void zeroEpcNeverSuppressed(){
+        EpcDedupSet dedup = new EpcDedupSet(4, 1000);
+        Assert.assertFalse(dedup.seen(0, 0, 0));
+        Assert.assertFalse(dedup.seen(0, 0, 1));
+        Assert.assertFalse(dedup.seen(new byte[12], 0, 2));
+        Assert.assertEquals(0, dedup.size());
+        Assert.assertFalse(dedup.seen(1, 1, 3));
+        Assert.assertTrue(dedup.seen(1, 1, 4));
+    }
+}
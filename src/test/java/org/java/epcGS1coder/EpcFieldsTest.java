@@ -0,0 +1,87 @@
+package org.java.epcGS1coder;
+
+import org.java.epcGS1coder.cpi.Cpi96;
+import org.java.epcGS1coder.gid.Gid96;
+import org.java.epcGS1coder.giai.Giai202;
+import org.java.epcGS1coder.sgtin.Sgtin198;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.java.epcGS1coder.usdod.Usdod96;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EpcFieldsTest {
+
+    @Test
+    public void sgtin96(){
+        String epc = "3074257BF7194E4000001A85"; // urn:epc:tag:sgtin-96:3.0614141.812345.6789
+        long hi = EpcFields.hi(epc), lo = EpcFields.lo(epc);
+        Assert.assertEquals(Sgtin96.epcHeader, EpcFields.getHeader(hi));
+        Assert.assertEquals(3, EpcFields.getFilter(hi));
+        Assert.assertEquals(5, EpcFields.getPartition(hi));
+        Assert.assertEquals(7, EpcFields.getCompanyPrefixDigits(hi));
+        Assert.assertEquals(614141, EpcFields.getCompanyPrefix(hi));
+        Assert.assertEquals(812345, EpcFields.getReference(hi, lo));
+    }
+
+    @Test
+    public void classKey(){
+        Sgtin96 a = Sgtin96.fromFields(1, 7, 614141, 812345, 1);
+        Sgtin96 b = Sgtin96.fromFields(3, 7, 614141, 812345, 274877906943l);
+        Sgtin96 c = Sgtin96.fromFields(1, 7, 614141, 812346, 1);
+        Sgtin96 d = Sgtin96.fromFields(1, 6, 61414, 1812345, 1);
+        long key = EpcFields.getClassKey(a.getHiBits(), a.getLoBits());
+        Assert.assertEquals(key, EpcFields.getClassKey(b.getHiBits(), b.getLoBits()));
+        Assert.assertNotEquals(key, EpcFields.getClassKey(c.getHiBits(), c.getLoBits()));
+        Assert.assertNotEquals(key, EpcFields.getClassKey(d.getHiBits(), d.getLoBits()));
+
+        // the SSCC class is its company prefix
+        Sscc96 s1 = Sscc96.fromFields(0, 7, 614141, 1234567890l);
+        Sscc96 s2 = Sscc96.fromFields(2, 7, 614141, 9876543210l);
+        Assert.assertEquals(EpcFields.getClassKey(s1.getHiBits(), s1.getLoBits()), EpcFields.getClassKey(s2.getHiBits(), s2.getLoBits()));
+        Assert.assertNotEquals(EpcFields.getClassKey(s1.getHiBits(), s1.getLoBits()), key);
+    }
+
+    @Test
+    public void referencePastFirstWord(){
+        Sscc96 sscc = Sscc96.fromFields(2, 6, 123456, 12345678901l);
+        Assert.assertEquals(12345678901l, EpcFields.getReference(sscc.getHiBits(), sscc.getLoBits()));
+        Cpi96 cpi = Cpi96.fromFields(1, 12, 999999999999l, 7, 31);
+        Assert.assertEquals(7, EpcFields.getReference(cpi.getHiBits(), cpi.getLoBits()));
+        Assert.assertEquals(999999999999l, EpcFields.getCompanyPrefix(cpi.getHiBits()));
+    }
+
+    @Test
+    public void longerEpcs(){
+        Sgtin198 sgtin = Sgtin198.fromFields(3, 7, 614141, 812345, "32a/b");
+        long hi = EpcFields.hi(sgtin.getEpc()), lo = EpcFields.lo(sgtin.getEpc());
+        Assert.assertEquals(614141, EpcFields.getCompanyPrefix(hi));
+        Assert.assertEquals(812345, EpcFields.getReference(hi, lo));
+        Giai202 giai = Giai202.fromFields(0, 9, 123456789, "A-1");
+        Assert.assertEquals(123456789, EpcFields.getCompanyPrefix(EpcFields.hi(giai.getEpc())));
+    }
+
+    @Test
+    public void otherSchemes(){
+        Gid96 gid = Gid96.fromFields(95100000, 12345, 400);
+        Gid96 sameClass = Gid96.fromFields(95100000, 12345, 401);
+        Assert.assertEquals(EpcFields.getClassKey(gid.getHiBits(), gid.getLoBits()), EpcFields.getClassKey(sameClass.getHiBits(), sameClass.getLoBits()));
+        Usdod96 usdod = Usdod96.fromFields(3, "2S194", 12345678);
+        Assert.assertEquals(3, EpcFields.getFilter(usdod.getHiBits()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noFilterInGid(){
+        EpcFields.getFilter(Gid96.fromFields(1, 1, 1).getHiBits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noCompanyPrefixInUsdod(){
+        EpcFields.getCompanyPrefix(Usdod96.fromFields(0, "2S194", 1).getHiBits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownHeader(){
+        EpcFields.getCompanyPrefix(EpcFields.hi("FF74257BF7194E4000001A85"));
+    }
+}
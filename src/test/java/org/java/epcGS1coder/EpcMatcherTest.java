@@ -0,0 +1,83 @@
+package org.java.epcGS1coder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.java.epcGS1coder.gid.Gid96;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sgtin.Sgtin96Batch;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EpcMatcherTest {
+
+    private final static int any = SelectMask.any;
+
+    private final EpcMatcher matcher = EpcMatcher.compile(Arrays.asList(
+            SelectMask.fromFields(Sgtin96.epcHeader, any, 7, 614141, any),           // 0
+            SelectMask.fromFields(Sgtin96.epcHeader, any, 7, 614141, 812345),        // 1
+            SelectMask.fromFields(Sgtin96.epcHeader, 3, 7, 614141, 812345),          // 2
+            SelectMask.fromFields(Sgtin96.epcHeader, any, 6, 614141, any),           // 3
+            SelectMask.fromFields(Sscc96.epcHeader, any, 7, 614141, any),            // 4
+            SelectMask.fromGidFields(95100000, any),                                 // 5
+            SelectMask.fromFields(Sgtin96.epcHeader, any, 7, 614141, 812345)));      // 6, same as 1
+
+    private int[] match(Sgtin96 sgtin){
+        int[] matches = new int[matcher.size()];
+        int[] found = Arrays.copyOf(matches, matcher.match(sgtin.getHiBits(), sgtin.getLoBits(), matches));
+        Arrays.sort(found);
+        return found;
+    }
+
+    @Test
+    public void matchAll(){
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 6}, match(Sgtin96.fromFields(3, 7, 614141, 812345, 6789)));
+        Assert.assertArrayEquals(new int[]{0, 1, 6}, match(Sgtin96.fromFields(1, 7, 614141, 812345, 6789)));
+        Assert.assertArrayEquals(new int[]{0}, match(Sgtin96.fromFields(1, 7, 614141, 812346, 6789)));
+        Assert.assertArrayEquals(new int[]{3}, match(Sgtin96.fromFields(1, 6, 614141, 8123456, 6789)));
+        Assert.assertArrayEquals(new int[]{}, match(Sgtin96.fromFields(1, 7, 614142, 812345, 6789)));
+    }
+
+    @Test
+    public void matchFirst(){
+        Sscc96 sscc = Sscc96.fromFields(2, 7, 614141, 1234567890l);
+        Assert.assertEquals(4, matcher.matchFirst(sscc.getHiBits(), sscc.getLoBits()));
+        Gid96 gid = Gid96.fromFields(95100000, 12345, 400);
+        Assert.assertEquals(5, matcher.matchFirst(gid.getHiBits(), gid.getLoBits()));
+        Gid96 other = Gid96.fromFields(95100001, 12345, 400);
+        Assert.assertEquals(-1, matcher.matchFirst(other.getHiBits(), other.getLoBits()));
+    }
+
+    @Test
+    public void batch(){
+        String[] epcs = {
+                Sgtin96.fromFields(3, 7, 614141, 812345, 1).getEpc(),
+                Sgtin96.fromFields(0, 7, 614141, 1, 1).getEpc(),
+                Sgtin96.fromFields(0, 8, 614141, 1, 1).getEpc(),
+                "30ZZ"};
+        Sgtin96Batch batch = new Sgtin96Batch(4);
+        batch.decode(epcs, 0, epcs.length);
+        int[] first = new int[4];
+        matcher.matchFirst(batch, first);
+        Assert.assertArrayEquals(new int[]{0, 0, -1, -1}, first);
+    }
+
+    @Test
+    public void manyRules(){
+        List<List<SelectMask>> rules = new ArrayList<List<SelectMask>>();
+        for (int i = 0; i < 5000; i++)
+            rules.add(SelectMask.fromFields(Sgtin96.epcHeader, any, 6 + i % 7, i, i % 3 == 0 ? any : i % 10));
+        EpcMatcher many = EpcMatcher.compile(rules);
+        for (int i = 0; i < 5000; i++){
+            Sgtin96 sgtin = Sgtin96.fromFields(1, 6 + i % 7, i, i % 10, 42);
+            Assert.assertEquals(i, many.matchFirst(sgtin.getHiBits(), sgtin.getLoBits()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void headerRequired(){
+        EpcMatcher.compile(Arrays.asList(SelectMask.fromFields(Sgtin96.epcHeader, any, 7, 614141, any).subList(1, 2)));
+    }
+}
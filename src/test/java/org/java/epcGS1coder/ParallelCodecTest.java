@@ -0,0 +1,76 @@
+package org.java.epcGS1coder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sgtin.Sgtin96Batch;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelCodecTest {
+
+    private final static int size = 3 * ParallelCodec.leafSize + 17;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final Random random = new Random(3);
+
+    @After
+    public void shutdown(){
+        pool.shutdown();
+    }
+
+    private List<Epc> tags(){
+        List<Epc> tags = new ArrayList<Epc>(size);
+        for (int i = 0; i < size; i++)
+            tags.add(i % 3 == 0 ? Sscc96.fromFields(random.nextInt(8), 7, random.nextInt(10000000), random.nextInt(1000000000))
+                                : Sgtin96.fromFields(random.nextInt(8), 7, random.nextInt(10000000), random.nextInt(100000), random.nextInt() & 0x7FFFFFFF));
+        return tags;
+    }
+
+    @Test
+    public void decodeList(){
+        List<Epc> tags = tags();
+        List<String> epcs = new ArrayList<String>(Arrays.asList(ParallelCodec.encode(tags, pool)));
+        epcs.set(5, "E2806894000050111E4A1F2A");
+        epcs.set(size - 1, "not an EPC");
+        Epc[] decoded = ParallelCodec.decode(epcs, pool);
+        Assert.assertEquals(size, decoded.length);
+        for (int i = 0; i < size; i++)
+            if (i == 5 || i == size - 1)
+                Assert.assertNull(decoded[i]);
+            else
+                Assert.assertEquals(tags.get(i), decoded[i]);
+        Assert.assertArrayEquals(decoded, ParallelCodec.decode(new LinkedList<String>(epcs), pool));
+    }
+
+    @Test
+    public void decodeBatch(){
+        List<Epc> tags = tags();
+        String[] epcs = ParallelCodec.encode(tags, pool);
+        byte[] packed = ParallelCodec.encodePacked(tags, pool);
+        Sgtin96Batch sequential = new Sgtin96Batch(size), parallel = new Sgtin96Batch(size);
+        int valid = sequential.decode(epcs, 0, size);
+        Assert.assertEquals(size - (size + 2) / 3, valid);
+        Assert.assertEquals(valid, ParallelCodec.decode(epcs, 0, size, parallel, pool));
+        Assert.assertArrayEquals(sequential.getSerial(), parallel.getSerial());
+        Assert.assertArrayEquals(sequential.getStatus(), parallel.getStatus());
+        Assert.assertEquals(valid, ParallelCodec.decode(packed, 0, size, parallel, pool));
+        Assert.assertArrayEquals(sequential.getCompanyPrefix(), parallel.getCompanyPrefix());
+        Assert.assertArrayEquals(sequential.getItemReference(), parallel.getItemReference());
+    }
+
+    @Test
+    public void encodePacked(){
+        List<Epc> tags = tags();
+        byte[] packed = ParallelCodec.encodePacked(tags, pool);
+        for (int i = 0; i < size; i += 1000)
+            Assert.assertEquals(tags.get(i), EpcDecoder.fromBytes(packed, 12 * i, 12));
+    }
+}
@@ -0,0 +1,73 @@
+package org.java.epcGS1coder;
+
+import java.util.List;
+
+import org.java.epcGS1coder.adi.AdiVar;
+import org.java.epcGS1coder.gid.Gid96;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.java.epcGS1coder.usdod.Usdod96;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SelectMaskTest {
+
+    @Test
+    public void sgtinClass(){
+        // urn:epc:tag:sgtin-96:1.0614141.812345.6789 is 3034257BF7194E4000001A85
+        List<SelectMask> masks = SelectMask.fromFields(Sgtin96.epcHeader, 1, 7, 614141, 812345);
+        Assert.assertEquals(1, masks.size());
+        SelectMask mask = masks.get(0);
+        Assert.assertEquals(SelectMask.epcMemoryBank, mask.getMemoryBank());
+        Assert.assertEquals(0x20, mask.getPointer());
+        Assert.assertEquals(8 + 3 + 3 + 24 + 20, mask.getLength());
+        Assert.assertEquals("3034257BF7194E4", mask.getMaskHex());
+        Assert.assertEquals(8, mask.getMask().length);
+    }
+
+    @Test
+    public void companyPrefixOfAnyFilter(){
+        List<SelectMask> masks = SelectMask.fromFields(Sgtin96.epcHeader, SelectMask.any, 7, 614141, SelectMask.any);
+        Assert.assertEquals(2, masks.size());
+        Assert.assertEquals("MemBank 1, Pointer 0x20, Length 8, Mask 30", masks.get(0).toString());
+        // partition and company prefix from bit 11
+        Assert.assertEquals(0x20 + 11, masks.get(1).getPointer());
+        Assert.assertEquals(3 + 24, masks.get(1).getLength());
+        Assert.assertEquals(Long.toHexString((5l << 24 | 614141) << 1).toUpperCase(), masks.get(1).getMaskHex());
+    }
+
+    @Test
+    public void headerOnly(){
+        Assert.assertEquals("MemBank 1, Pointer 0x20, Length 8, Mask 31", SelectMask.fromFields(Sscc96.epcHeader, SelectMask.any, SelectMask.any, 0, SelectMask.any).get(0).toString());
+    }
+
+    @Test
+    public void maskPastFirstWord(){
+        Sscc96 sscc = Sscc96.fromFields(2, 6, 123456, 12345678901l);
+        List<SelectMask> masks = SelectMask.fromFields(Sscc96.epcHeader, 2, 6, 123456, 12345678901l);
+        Assert.assertEquals(1, masks.size());
+        Assert.assertEquals(72, masks.get(0).getLength());
+        Assert.assertEquals(sscc.getEpc().substring(0, 18), masks.get(0).getMaskHex());
+    }
+
+    @Test
+    public void otherSchemes(){
+        Gid96 gid = Gid96.fromFields(95100000, 12345, 400);
+        Assert.assertEquals(gid.getEpc().substring(0, 15), SelectMask.fromGidFields(95100000, 12345).get(0).getMaskHex());
+        Usdod96 usdod = Usdod96.fromFields(3, "2S194", 12345678);
+        Assert.assertEquals(usdod.getEpc().substring(0, 15), SelectMask.fromUsdodFields(3, "2S194").get(0).getMaskHex());
+        AdiVar adi = AdiVar.fromFields(3, "35962", "PQ7VZ4", "M37GXB92");
+        Assert.assertEquals(adi.getEpc().substring(0, 12), SelectMask.fromAdiFields(3, "35962").get(0).getMaskHex().substring(0, 12));
+        Assert.assertEquals(50, SelectMask.fromAdiFields(3, "35962").get(0).getLength());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void referenceWithoutCompanyPrefix(){
+        SelectMask.fromFields(Sgtin96.epcHeader, 1, SelectMask.any, 0, 812345);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void companyPrefixTooLarge(){
+        SelectMask.fromFields(Sgtin96.epcHeader, 1, 7, 99999999, SelectMask.any);
+    }
+}
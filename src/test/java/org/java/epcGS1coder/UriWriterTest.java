@@ -0,0 +1,75 @@
+package org.java.epcGS1coder;
+
+import java.nio.charset.StandardCharsets;
+
+import org.java.epcGS1coder.sgln.Sgln96;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sgtin.Sgtin96View;
+import org.java.epcGS1coder.spec.EpcScheme;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UriWriterTest {
+
+    private final static String[] epcs = {"3034007D00011C400000000B", "31D8EFEB821928BC07000000", "350007AB70425D4000000586",
+                                          "3A28499602D218000000004C75290000", "4019D9DC81F4EEC0820000079134",
+                                          "3B0E0CF5E76C9047759AD00373DC7602E7200", "3D74257BF75411DEF6B4CC00000003039"};
+
+    private final UriWriter writer = new UriWriter();
+
+    @Test
+    public void appendUri(){
+        for (String epc : epcs){
+            String uri = EpcDecoder.fromEpc(epc).getUri();
+            Assert.assertEquals("> " + uri, EpcDecoder.fromEpc(epc).appendUri(new StringBuilder("> ")).toString());
+            // cached URI
+            Epc parsed = EpcDecoder.fromEpc(epc);
+            parsed.getUri();
+            Assert.assertEquals(uri, parsed.appendUri(new StringBuilder()).toString());
+        }
+    }
+
+    @Test
+    public void write(){
+        char[] chars = new char[128];
+        byte[] bytes = new byte[128];
+        for (String epc : epcs){
+            String uri = EpcDecoder.fromEpc(epc).getUri();
+            Assert.assertEquals(uri.length(), writer.write(EpcDecoder.fromEpc(epc), chars, 3));
+            Assert.assertEquals(uri, new String(chars, 3, uri.length()));
+            Assert.assertEquals(uri.length(), writer.write(EpcDecoder.fromEpc(epc), bytes, 5));
+            Assert.assertEquals(uri, new String(bytes, 5, uri.length(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void writeOverflow(){
+        writer.write(Sgtin96.fromEpc("3034007D00011C400000000B"), new byte[30], 0);
+    }
+
+    @Test
+    public void emptyReference(){
+        // a 12 digits company prefix leaves no digits to the location reference
+        Assert.assertEquals("urn:epc:tag:sgln-96:3.123456789012..5", Sgln96.fromFields(3, 12, 123456789012l, 0, 5).getUri());
+    }
+
+    @Test
+    public void writePureIdentity(){
+        byte[] bytes = new byte[128];
+        for (String epc : epcs){
+            Epc tag = EpcDecoder.fromEpc(epc);
+            // the tag URI fields without the filter
+            String fields = tag.getUri().substring(tag.getUri().indexOf(':', "urn:epc:tag:".length()) + 1);
+            if (tag.getScheme() != EpcScheme.gid)
+                fields = fields.substring(fields.indexOf('.') + 1);
+            String uri = "urn:epc:id:" + tag.getScheme() + ":" + fields;
+            Assert.assertEquals(uri, tag.getPureIdentityUri());
+            Assert.assertEquals(uri.length(), writer.writePureIdentity(EpcDecoder.fromEpc(epc), bytes, 5));
+            Assert.assertEquals(uri, new String(bytes, 5, uri.length(), StandardCharsets.US_ASCII));
+        }
+        Sgtin96View view = new Sgtin96View();
+        view.wrap("3034007D00011C400000000B");
+        Assert.assertEquals(34, writer.writePureIdentity(view, bytes, 0));
+        Assert.assertEquals("urn:epc:id:sgtin:0008000.001137.11", new String(bytes, 0, 34, StandardCharsets.US_ASCII));
+    }
+}
@@ -31,4 +31,32 @@ public class AdiVarTest {
         Assert.assertEquals("urn:epc:tag:adi-var:3.35962.PQ7VZ4.M37GXB9243G", AdiVar.fromEpc("3B0E0CF5E76C9047759AD00373DC7602E72D331C0000").getUri());
         Assert.assertTrue(Pattern.matches("3B0E0CF5E76C9047759AD00373DC7602E72D331C0*", AdiVar.fromUri("urn:epc:tag:adi-var:3.35962.PQ7VZ4.M37GXB9243G").getEpc().toUpperCase()));
     }
+
+    @Test
+    public void escapedUri(){
+        AdiVar adiVar = AdiVar.fromFields(0, "2S194", "PQ7/Z43", "#123");
+        Assert.assertEquals("urn:epc:tag:adi-var:0.2S194.PQ7%2FZ43.%23123", adiVar.getUri());
+        Assert.assertEquals(adiVar, AdiVar.fromUri(adiVar.getUri()));
+        Assert.assertEquals(adiVar, AdiVar.fromEpc(adiVar.getEpc()));
+    }
+
+    @Test
+    public void bytesRoundTrip(){
+        AdiVar adiVar = AdiVar.fromFields(3, "35962", "", "M37GXB9243G");
+        Assert.assertEquals(adiVar, AdiVar.fromBytes(adiVar.toBytes(), 0, adiVar.toBytes().length));
+    }
+
+    @Test
+    public void filter16RoundTrip(){
+        AdiVar adiVar = AdiVar.fromFields(16, "35962", "PQ7VZ4", "M37GXB92");
+        Assert.assertEquals(16, adiVar.getFilter());
+        Assert.assertEquals(16, AdiVar.fromEpc(adiVar.getEpc()).getFilter());
+        Assert.assertEquals(adiVar, AdiVar.fromEpc(adiVar.getEpc()));
+        Assert.assertEquals(adiVar, AdiVar.fromUri(adiVar.getUri()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void serialNotTerminated(){
+        AdiVar.fromEpc("3B0E0CF5E76C9047759AD00373DC7602E72D331C");
+    }
 }
@@ -56,4 +56,16 @@ public class CpiVarTest {
         Assert.assertEquals("urn:epc:tag:cpi-var:3.0614141.5PQ7%2FZ43.12345", cpivar.getUri());
         Assert.assertTrue(Pattern.matches("3D74257BF75411DEF6B4CC000000030390*", cpivar.getEpc()));
     }
+
+    @Test
+    public void roundTrip(){
+        CpiVar cpiVar = CpiVar.fromGs1Key(3,7,"06141415PQ7/Z43#-",999999999999l);
+        Assert.assertEquals(cpiVar, CpiVar.fromEpc(cpiVar.getEpc()));
+        Assert.assertEquals(cpiVar, CpiVar.fromBytes(cpiVar.toBytes(), 0, cpiVar.toBytes().length));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidReferenceChar(){
+        CpiVar.fromGs1Key(0,7,"06141415pq7",1);
+    }
 }
@@ -0,0 +1,102 @@
+package org.java.epcGS1coder.gcp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.java.epcGS1coder.sscc.Sscc96;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GcpPrefixFormatListTest {
+
+    private final static String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<GCPPrefixFormatList date=\"2021-10-01T00:00:00Z\">\n"
+            + "  <entry prefix=\"0\" gcpLength=\"7\"/>\n"
+            + "  <entry prefix=\"02\" gcpLength=\"0\"/>\n"
+            + "  <entry prefix=\"0614141\" gcpLength=\"6\"/>\n"
+            + "  <entry prefix=\"06141419\" gcpLength=\"12\"/>\n"
+            + "  <entry prefix=\"841\" gcpLength=\"7\"/>\n"
+            + "  <entry prefix=\"8411\" gcpLength=\"9\"/>\n"
+            + "  <entry prefix=\"84111\" gcpLength=\"7\"/>\n"
+            + "</GCPPrefixFormatList>\n";
+
+    private static GcpPrefixFormatList index() throws IOException {
+        return GcpPrefixFormatList.fromXml(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void longestPrefix() throws IOException {
+        GcpPrefixFormatList index = index();
+        Assert.assertEquals(7, index.getCompanyPrefixDigits("0012345678905", 0));
+        Assert.assertEquals(6, index.getCompanyPrefixDigits("0614141000012", 0));
+        Assert.assertEquals(12, index.getCompanyPrefixDigits("0614141900012", 0));
+        Assert.assertEquals(7, index.getCompanyPrefixDigits("0614142000012", 0));
+        Assert.assertEquals(9, index.getCompanyPrefixDigits("08411234567890", 1));
+        Assert.assertEquals(7, index.getCompanyPrefixDigits("08411135354029", 1));
+        Assert.assertEquals(7, index.getCompanyPrefixDigits("8419000", 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noCompanyPrefix() throws IOException {
+        index().getCompanyPrefixDigits("0212345678905", 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownPrefix() throws IOException {
+        index().getCompanyPrefixDigits("5012345678900", 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefixLongerThanTheDigits() throws IOException {
+        index().getCompanyPrefixDigits("061414AB", 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedXml() throws IOException {
+        GcpPrefixFormatList.fromXml(new ByteArrayInputStream("<GCPPrefixFormatList><entry".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void fromGs1Key() throws IOException {
+        GcpPrefixFormatList index = index();
+        Assert.assertEquals(Sgtin96.fromGs1Key(1, 7, "08411135354029", 54879624l), Sgtin96.fromGs1Key(1, index, "08411135354029", 54879624l));
+        Assert.assertEquals(61414l, Sscc96.fromGs1Key(2, index, "106141410000000015").getCompanyPrefix());
+    }
+
+    /**
+     * Random nested prefixes checked against the longest match of a HashMap
+     */
+    @Test
+    public void randomPrefixes(){
+        Random random = new Random(7);
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < 5000; i++){
+            StringBuilder prefix = new StringBuilder();
+            for (int digits = 1 + random.nextInt(8); digits > 0; digits--)
+                prefix.append((char) ('0' + random.nextInt(3)));
+            map.put(prefix.toString(), 6 + random.nextInt(7));
+        }
+        GcpPrefixFormatList index = GcpPrefixFormatList.fromMap(map);
+        for (int i = 0; i < 20000; i++){
+            StringBuilder key = new StringBuilder();
+            for (int digits = 0; digits < 13; digits++)
+                key.append((char) ('0' + random.nextInt(3)));
+            Integer expected = null;
+            for (int digits = 12; digits > 0 && expected == null; digits--)
+                expected = map.get(key.substring(0, digits));
+            if (expected == null){
+                try {
+                    index.getCompanyPrefixDigits(key, 0);
+                    Assert.fail("No prefix for " + key);
+                } catch (IllegalArgumentException e){
+                }
+            } else
+                Assert.assertEquals(key.toString(), (int) expected, index.getCompanyPrefixDigits(key, 0));
+        }
+    }
+}
@@ -29,5 +29,9 @@ public class Giai202Test {
     public void fromGs1KeyTest(){
         Assert.assertEquals("381816E81B356AD5B80000000000000000000000000000000000", Giai202.fromGs1Key(0, 6, "02345665557").getEpc().toUpperCase());
     }
-    
+
+    @Test(expected = IllegalArgumentException.class)
+    public void referenceTooLongForPartition(){
+        Giai202.fromFields(0, 12, 23456, "1234567890123456789");
+    }
 }
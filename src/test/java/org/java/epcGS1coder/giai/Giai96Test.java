@@ -19,6 +19,12 @@ public class Giai96Test {
         Assert.assertEquals("341816E80000000000010015", Giai96.fromUri(uri).getEpc().toUpperCase());
     }
 
+    @Test
+    public void fromUriLongReferenceTest(){
+        Giai96 giai96 = Giai96.fromFields(0, 6, 23456, 4000000000l);
+        Assert.assertEquals(4000000000l, Giai96.fromUri(giai96.getUri()).getIndividualAssetReference());
+    }
+
     @Test
     public void fromFieldsTest(){
         Assert.assertEquals("341816E80000000000010015", Giai96.fromFields(0, 6, 23456, 65557).getEpc().toUpperCase());
@@ -19,9 +19,20 @@ public class Gid96Test {
         Assert.assertEquals("350007AB70425D4000000586", Gid96.fromUri("urn:epc:tag:gid-96:31415.271828.1414").getEpc().toUpperCase());
     }
 
+    @Test
+    public void pureIdentityUri(){
+        Gid96 gid96 = Gid96.fromEpc("350007AB70425D4000000586");
+        Assert.assertEquals("urn:epc:id:gid:31415.271828.1414", gid96.getPureIdentityUri());
+        Assert.assertEquals(gid96, Gid96.fromPureIdentityUri("urn:epc:id:gid:31415.271828.1414"));
+    }
+
     @Test
     public void fromFieldsTest(){
         Assert.assertEquals("350007AB70425D4000000586", Gid96.fromFields(31415,271828,1414l).getEpc().toUpperCase());
     }
 
+    @Test(expected = UnsupportedOperationException.class)
+    public void gs1ElementString(){
+        Gid96.fromFields(31415,271828,1414l).toGs1ElementString();
+    }
 }
@@ -30,5 +30,12 @@ public class Grai96Test {
     public void fromGs1KeyTest(){
         Assert.assertEquals("33140E511C56ED0000000001", Grai96.fromGs1Key(0, 7, "02345678901231").getEpc().toUpperCase());
     }
-    
+
+    @Test
+    public void gs1ElementString(){
+        Grai96 grai96 = Grai96.fromGs1Key(0, 7, "023456789012945");
+        Assert.assertEquals(45, grai96.getSerial());
+        Assert.assertEquals("023456789012945", grai96.toGs1Key());
+        Assert.assertEquals("(8003)0023456789012945", grai96.toGs1ElementString());
+    }
 }
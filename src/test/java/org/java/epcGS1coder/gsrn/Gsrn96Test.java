@@ -20,6 +20,13 @@ public class Gsrn96Test {
         Assert.assertEquals("2D1602CE1E128E0F87000000",Gsrn96.fromUri("urn:epc:tag:gsrn-96:0.8434567.8901234567").getEpc().toUpperCase());
     }
 
+    @Test
+    public void pureIdentityUri(){
+        Gsrn96 gsrn96 = Gsrn96.fromFields(0, 7, 8434567, 1234);
+        Assert.assertEquals("urn:epc:id:gsrn:8434567.0000001234", gsrn96.getPureIdentityUri());
+        Assert.assertEquals(gsrn96, Gsrn96.fromPureIdentityUri(gsrn96.getPureIdentityUri(), 0));
+    }
+
     @Test
     public void fromFieldsTest(){
         Assert.assertEquals("2D1602CE1E128E0F87000000",Gsrn96.fromFields(0, 7,8434567,8901234567l).getEpc().toUpperCase());
@@ -0,0 +1,74 @@
+package org.java.epcGS1coder.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.EpcDecoder;
+import org.java.epcGS1coder.sgtin.Sgtin96;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EpcArchiveTest {
+
+    private final static String[] epcs = {"3034007D00011C400000000B",
+                                          "3034007D00011C400000000C",
+                                          "31D8EFEB821928BC07000000",
+                                          "3A28499602D218000000004C75290000",
+                                          "3A28499602D218000000000000050000",
+                                          "4019D9DC81F4EEC0820000079134",
+                                          "3B0E0CF5E76C9047759AD00373DC7602E7200",
+                                          "3B0E0CF5E76C9047759AD00373DC7602E72D331C0000",
+                                          "3034007D00011C400000000D"};
+
+    private final List<Epc> read = new ArrayList<Epc>();
+
+    private byte[] write(Iterable<Epc> tags) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (EpcArchiveWriter writer = new EpcArchiveWriter(out)){
+            for (Epc tag : tags)
+                writer.write(tag);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        List<Epc> tags = new ArrayList<Epc>();
+        for (String epc : epcs)
+            tags.add(EpcDecoder.fromEpc(epc));
+        byte[] archive = write(tags);
+        Assert.assertEquals(epcs.length, EpcArchiveReader.read(new ByteArrayInputStream(archive), read::add));
+        for (int i = 0; i < epcs.length; i++){
+            Assert.assertEquals(tags.get(i).getClass(), read.get(i).getClass());
+            Assert.assertEquals(tags.get(i).getUri(), read.get(i).getUri());
+        }
+    }
+
+    @Test
+    public void companyPrefixRuns() throws IOException {
+        List<Epc> tags = new ArrayList<Epc>();
+        int size = 3 * EpcArchiveWriter.blockSize + 5;
+        for (int i = 0; i < size; i++)
+            tags.add(Sgtin96.fromFields(1, 7, 8000, 1137, 1000000l + 7 * i));
+        byte[] archive = write(tags);
+        // only the last bytes of the serial differ from one record to the next
+        Assert.assertTrue(archive.length < 4 * size);
+        Assert.assertEquals(size, EpcArchiveReader.read(new ByteArrayInputStream(archive), read::add));
+        for (int i = 0; i < size; i++)
+            Assert.assertEquals(((Sgtin96) tags.get(i)).getSerial(), ((Sgtin96) read.get(i)).getSerial());
+    }
+
+    @Test
+    public void empty() throws IOException {
+        Assert.assertEquals(0, EpcArchiveReader.read(new ByteArrayInputStream(write(new ArrayList<Epc>())), read::add));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notAnArchive() throws IOException {
+        EpcArchiveReader.read(new ByteArrayInputStream("3034007D00011C400000000B".getBytes("US-ASCII")), read::add);
+    }
+}
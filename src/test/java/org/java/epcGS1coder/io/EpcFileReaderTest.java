@@ -0,0 +1,107 @@
+package org.java.epcGS1coder.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.java.epcGS1coder.DecodeStatus;
+import org.java.epcGS1coder.Epc;
+import org.java.epcGS1coder.EpcDecoder;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EpcFileReaderTest {
+
+    private final static String reads = "3034007D00011C400000000B\n"
+                                      + "31D8EFEB821928BC07000000\r\n"
+                                      + "\n"
+                                      + "E2806894000050111E4A1F2A\n"
+                                      + "3A28499602D218000000004C75290000\n"
+                                      + "3034007D00011C4000\n"
+                                      + "350007AB70425D4000000586";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Epc> accepted = new ArrayList<Epc>();
+    private final List<String> rejected = new ArrayList<String>();
+
+    private final EpcSink sink = new EpcSink(){
+        @Override
+        public void accept(Epc epc){
+            accepted.add(epc);
+        }
+
+        @Override
+        public void reject(long position, DecodeStatus status){
+            rejected.add(position + ":" + status);
+        }
+    };
+
+    private Path write(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    private void assertRead(){
+        Assert.assertEquals(Arrays.asList(EpcDecoder.fromEpc("3034007D00011C400000000B"),
+                                          EpcDecoder.fromEpc("31D8EFEB821928BC07000000"),
+                                          EpcDecoder.fromEpc("3A28499602D218000000004C75290000"),
+                                          EpcDecoder.fromEpc("350007AB70425D4000000586")), accepted);
+        Assert.assertEquals(Arrays.asList("52:unsupported_header", "110:invalid_length"), rejected);
+    }
+
+    @Test
+    public void read() throws IOException {
+        Assert.assertEquals(4, EpcFileReader.read(write(reads), sink));
+        assertRead();
+    }
+
+    @Test
+    public void readSmallChunks() throws IOException {
+        // lines cut by the chunk boundaries
+        Assert.assertEquals(4, EpcFileReader.read(write(reads), sink, 40));
+        assertRead();
+    }
+
+    @Test
+    public void readLongLines() throws IOException {
+        // a 100 bytes line in a 40 bytes chunk, then one ending the file
+        String garbage = new String(new char[100]).replace('\0', 'X');
+        Path file = write("3034007D00011C400000000B\n" + garbage + "\n350007AB70425D4000000586\n" + garbage);
+        Assert.assertEquals(2, EpcFileReader.read(file, sink, 40));
+        Assert.assertEquals(Arrays.asList(EpcDecoder.fromEpc("3034007D00011C400000000B"),
+                                          EpcDecoder.fromEpc("350007AB70425D4000000586")), accepted);
+        Assert.assertEquals(Arrays.asList("25:invalid_length", "151:invalid_length"), rejected);
+    }
+
+    @Test
+    public void readEmpty() throws IOException {
+        Assert.assertEquals(0, EpcFileReader.read(write(""), sink));
+        Assert.assertEquals(1, EpcFileReader.read(write("\n3034007D00011C400000000B\n"), sink));
+    }
+
+    @Test
+    public void writeHexAndUri() throws IOException {
+        Path hex = folder.newFile().toPath(), uri = folder.newFile().toPath();
+        try (EpcFileWriter writer = new EpcFileWriter(hex, EpcFileWriter.Format.hex)){
+            EpcFileReader.read(write(reads), writer);
+        }
+        try (EpcFileWriter writer = new EpcFileWriter(uri, EpcFileWriter.Format.uri)){
+            EpcFileReader.read(hex, writer);
+        }
+        Assert.assertEquals(Arrays.asList("3034007D00011C400000000B", "31D8EFEB821928BC07000000",
+                                          "3A28499602D218000000004C75290000", "350007AB70425D4000000586"),
+                            Files.readAllLines(hex, StandardCharsets.US_ASCII));
+        List<String> uris = Files.readAllLines(uri, StandardCharsets.US_ASCII);
+        Assert.assertEquals(4, uris.size());
+        Assert.assertEquals("urn:epc:tag:sgtin-96:1.0008000.001137.11", uris.get(0));
+    }
+}
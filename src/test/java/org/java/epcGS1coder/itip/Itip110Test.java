@@ -31,4 +31,11 @@ public class Itip110Test {
     public void fromGs1KeyTest(){
         Assert.assertEquals("4019D9DC81F4EEC0820000079134",Itip110.fromGs1Key(0,6,"048523451295560102",123981l).getEpc().toUpperCase());
     }
+
+    @Test
+    public void gs1ElementString(){
+        Itip110 itip110 = Itip110.fromGs1Key(0,6,"148523451295560102",123981l);
+        Assert.assertEquals("148523451295560102", itip110.toGs1Key());
+        Assert.assertEquals("(8006)148523451295560102(21)123981", itip110.toGs1ElementString());
+    }
 }
@@ -21,6 +21,15 @@ public class Sgln96Test {
         Assert.assertEquals("32140008DEB7680000000001", Sgln96.fromUri(uri).getEpc().toUpperCase());
     }
 
+    @Test
+    public void fromUriEmptyLocationReferenceTest(){
+        String uri = "urn:epc:tag:sgln-96:3.123456789012..5";
+        Sgln96 sgln96 = Sgln96.fromUri(uri);
+        Assert.assertEquals(0, sgln96.getLocationReference());
+        Assert.assertEquals(Sgln96.fromFields(3, 12, 123456789012l, 0, 5).getEpc(), sgln96.getEpc());
+        Assert.assertEquals(uri, Sgln96.fromEpc(sgln96.getEpc()).getUri());
+    }
+
     @Test
     public void fromFieldsTest(){
         Assert.assertEquals("32140008DEB7680000000001", Sgln96.fromFields(0, 7, 567, 89012, 1).getEpc().toUpperCase());
@@ -30,4 +39,17 @@ public class Sgln96Test {
     public void fromGs1KeyTest(){
         Assert.assertEquals("32140008DEB7680000000001", Sgln96.fromGs1Key(0, 7, "0000567890123", 1).getEpc().toUpperCase());
     }
+
+    @Test
+    public void gs1ElementString(){
+        Assert.assertEquals("(414)0000567890120", Sgln96.fromGs1Key(0, 7, "0000567890120", 0).toGs1ElementString());
+        Assert.assertEquals("(414)0000567890120(254)1", Sgln96.fromGs1Key(0, 7, "0000567890120", 1).toGs1ElementString());
+    }
+
+    @Test
+    public void gs1KeyTwelveDigitsCompanyPrefix(){
+        Sgln96 sgln96 = Sgln96.fromGs1Key(0, 12, "0000567890120", 5);
+        Assert.assertEquals(0, sgln96.getLocationReference());
+        Assert.assertEquals("0000567890120", sgln96.toGs1Key());
+    }
 }
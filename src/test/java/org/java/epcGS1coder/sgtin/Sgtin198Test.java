@@ -38,4 +38,18 @@ public class Sgtin198Test {
     public void fromGs1KeyTest(){
         Assert.assertEquals("3636015FFC2292B0F3C9879E4CB9323F00000000000000000000", Sgtin198.fromGs1Key(1,7,"08411135354029","asdasdedd?").getEpc().toUpperCase());
     }
+
+    @Test
+    public void bytesRoundTrip(){
+        Sgtin198 sgtin198 = Sgtin198.fromFields(1,7,8000l,1137,"thisIs&Test%/maxLen?");
+        byte[] bytes = sgtin198.toBytes();
+        Assert.assertEquals(26, bytes.length);
+        Assert.assertEquals(sgtin198, Sgtin198.fromBytes(bytes, 0, bytes.length));
+        Assert.assertEquals(sgtin198, Sgtin198.fromEpc(sgtin198.getEpc()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSerialChar(){
+        Sgtin198.fromFields(1,7,8000l,1137,"this#Test");
+    }
 }
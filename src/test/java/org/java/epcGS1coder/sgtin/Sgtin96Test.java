@@ -16,6 +16,27 @@ public class Sgtin96Test {
         // Assert.assertEquals("00008000011378", sgtin96.getGTIN());
     }
 
+    @Test
+    public void fromBitsTest(){
+        Sgtin96 sgtin96 = Sgtin96.fromBits(0x3036015FFC229280l, 0x03456588l);
+        Assert.assertEquals(1,sgtin96.getFilter());
+        Assert.assertEquals(8411135, sgtin96.getCompanyPrefix());
+        Assert.assertEquals(35402, sgtin96.getItemReference());
+        Assert.assertEquals(54879624l, sgtin96.getSerial());
+        Assert.assertEquals(Sgtin96.fromEpc("3036015FFC22928003456588"), sgtin96);
+        Assert.assertEquals("3036015FFC22928003456588", sgtin96.getEpc());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromEpcInvalidHeader(){
+        Sgtin96.fromEpc("3134007D00011C400000000B");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromEpcInvalidLength(){
+        Sgtin96.fromEpc("3034007D00011C400000000");
+    }
+
     @Test
     public void decodeEncodeEpc(){
         String epc = "3034007d00011c400000000b";
@@ -37,6 +58,23 @@ public class Sgtin96Test {
         Assert.assertEquals("3034007d00011c400000000b",sgtin96.getEpc().toLowerCase());
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void fromUriUnpaddedItemReference(){
+        Sgtin96.fromUri("urn:epc:tag:sgtin-96:1.0008000.1137.11");
+    }
+
+    @Test
+    public void pureIdentityUri(){
+        Sgtin96 sgtin96 = Sgtin96.fromEpc("3034007D00011C400000000B");
+        Assert.assertEquals("urn:epc:id:sgtin:0008000.001137.11", sgtin96.getPureIdentityUri());
+        Assert.assertEquals(sgtin96, Sgtin96.fromPureIdentityUri("urn:epc:id:sgtin:0008000.001137.11", 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromPureIdentityUriTagUri(){
+        Sgtin96.fromPureIdentityUri("urn:epc:tag:sgtin-96:1.0008000.001137.11", 1);
+    }
+
     @Test
     public void fromFieldsTest(){
         Sgtin96 sgtin96 = Sgtin96.fromFields(1, 7,8000,1137,11l);
@@ -47,5 +85,20 @@ public class Sgtin96Test {
     public void fromGs1KeyTest(){
         Assert.assertEquals("3036015FFC22928003456588",Sgtin96.fromGs1Key(1,7,"08411135354029",54879624l).getEpc());
     }
-    
+
+    @Test
+    public void gs1ElementString(){
+        Sgtin96 sgtin96 = Sgtin96.fromGs1Key(1,7,"18411135354026",54879624l);
+        Assert.assertEquals(18411135354026l, sgtin96.getGtin());
+        Assert.assertEquals("18411135354026", sgtin96.toGs1Key());
+        Assert.assertEquals("(01)18411135354026(21)54879624", sgtin96.toGs1ElementString());
+        Assert.assertEquals(sgtin96, Sgtin96.fromGs1Key(1,7,sgtin96.toGs1Key(),54879624l));
+    }
+
+    @Test
+    public void gs1KeyTwelveDigitsCompanyPrefix(){
+        Sgtin96 sgtin96 = Sgtin96.fromGs1Key(3,12,"30614141000129",7l);
+        Assert.assertEquals(3, sgtin96.getItemReference());
+        Assert.assertEquals("30614141000129", sgtin96.toGs1Key());
+    }
 }
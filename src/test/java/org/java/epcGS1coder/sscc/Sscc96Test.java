@@ -33,4 +33,11 @@ public class Sscc96Test {
     public void fromKey(){
         Assert.assertEquals(Sscc96.fromGs1Key(2,7,"003456789012345678").getEpc(),"315415193835B7BF87000000");
     }
+
+    @Test
+    public void gs1ElementString(){
+        Sscc96 sscc96 = Sscc96.fromGs1Key(2,7,"003456789012345670");
+        Assert.assertEquals("003456789012345670", sscc96.toGs1Key());
+        Assert.assertEquals("(00)003456789012345670", sscc96.toGs1ElementString());
+    }
 }
@@ -0,0 +1,29 @@
+package org.java.epcGS1coder.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BitArrayTest {
+
+    @Test
+    public void fieldsAcrossWords(){
+        long[] words = BitArray.allocate(208);
+        BitArray.set(words, 0, 8, 0x36);
+        BitArray.set(words, 58, 20, 0xABCDE);
+        BitArray.set(words, 100, 64, -1l);
+        Assert.assertEquals(0x36, BitArray.get(words, 0, 8));
+        Assert.assertEquals(0xABCDE, BitArray.get(words, 58, 20));
+        Assert.assertEquals(-1l, BitArray.get(words, 100, 64));
+        Assert.assertEquals(0, BitArray.get(words, 164, 44));
+    }
+
+    @Test
+    public void hexAndBytes(){
+        String hex = "3634007D00011C7A68D3CE4F383532F3E8000000000000000000";
+        long[] words = BitArray.fromHex(hex);
+        Assert.assertEquals(hex, BitArray.toHex(words, 52));
+        byte[] bytes = BitArray.toBytes(words, 26);
+        Assert.assertEquals(0x36, bytes[0]);
+        Assert.assertArrayEquals(words, BitArray.fromBytes(bytes, 0, 26));
+    }
+}
@@ -0,0 +1,38 @@
+package org.java.epcGS1coder.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Gs1Test {
+
+    @Test
+    public void checkDigit(){
+        Assert.assertEquals(3, Gs1.checkDigit(629104150021l));
+        Assert.assertEquals(9, Gs1.checkDigit(841113535402l));
+        Assert.assertEquals(0, Gs1.checkDigit(0));
+        Assert.assertEquals(8411135354029l, Gs1.withCheckDigit(841113535402l));
+    }
+
+    @Test
+    public void indicatorKey(){
+        Assert.assertEquals(841113535402l, Gs1.indicatorKey(8411135, 7, 35402, 6));
+        Assert.assertEquals(1614141000734l, Gs1.indicatorKey(614141, 6, 1000734, 7));
+        Assert.assertEquals(84111353540l, Gs1.indicatorKey(841113535402l / 10, 11, 0, 1));
+    }
+
+    @Test
+    public void appendKey(){
+        Assert.assertEquals("08411135354029", Gs1.appendKey(new StringBuilder(), 841113535402l, 13).toString());
+    }
+
+    @Test
+    public void parseDigits(){
+        Assert.assertEquals(123, Gs1.parseDigits("00123", 0, 5));
+        Assert.assertEquals(0, Gs1.parseDigits("0123456789012", 12, 12));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseNotADigit(){
+        Gs1.parseDigits("12a4", 0, 4);
+    }
+}
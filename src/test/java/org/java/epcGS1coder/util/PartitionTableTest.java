@@ -0,0 +1,41 @@
+package org.java.epcGS1coder.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PartitionTableTest {
+
+    private static void assertTable(PartitionTable table, int[] referenceBits, int[] referenceDigits){
+        for (int partition = 0; partition < 7; partition++){
+            Assert.assertEquals(referenceBits[partition], table.getReferenceBits(partition));
+            Assert.assertEquals(referenceDigits[partition], table.getReferenceDigits(partition));
+            Assert.assertEquals(8 + 3 + 3 + PartitionTable.getCompanyPrefixBits(partition), table.getReferenceOffset(partition));
+        }
+    }
+
+    @Test
+    public void tables(){
+        assertTable(PartitionTable.sgtin, new int[]{4, 7, 10, 14, 17, 20, 24}, new int[]{1, 2, 3, 4, 5, 6, 7});
+        assertTable(PartitionTable.sscc, new int[]{18, 21, 24, 28, 31, 34, 38}, new int[]{5, 6, 7, 8, 9, 10, 11});
+        assertTable(PartitionTable.sgln, new int[]{1, 4, 7, 11, 14, 17, 21}, new int[]{0, 1, 2, 3, 4, 5, 6});
+        assertTable(PartitionTable.giai96, new int[]{42, 45, 48, 52, 55, 58, 62}, new int[]{13, 14, 15, 16, 17, 18, 19});
+        assertTable(PartitionTable.giai202, new int[]{148, 151, 154, 158, 161, 164, 168}, new int[]{18, 19, 20, 21, 22, 23, 24});
+        assertTable(PartitionTable.cpi96, new int[]{11, 14, 17, 21, 24, 27, 31}, new int[]{3, 4, 5, 6, 7, 8, 9});
+        assertTable(PartitionTable.cpiVar, new int[]{114, 120, 126, 132, 138, 144, 150}, new int[]{18, 19, 20, 21, 22, 23, 24});
+    }
+
+    @Test
+    public void limits(){
+        Assert.assertEquals(1l << 40, PartitionTable.getCompanyPrefixLimit(0));
+        Assert.assertEquals(1l << 20, PartitionTable.getCompanyPrefixLimit(6));
+        Assert.assertEquals(1l << 24, PartitionTable.sgtin.getReferenceLimit(6));
+        Assert.assertEquals(Long.MAX_VALUE, PartitionTable.giai202.getReferenceLimit(0));
+        Assert.assertEquals(5, PartitionTable.getPartition(7));
+        Assert.assertEquals(7, PartitionTable.getCompanyPrefixDigits(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPartition(){
+        PartitionTable.sgtin.getReferenceBits(7);
+    }
+}
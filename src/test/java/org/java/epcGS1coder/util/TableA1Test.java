@@ -0,0 +1,44 @@
+package org.java.epcGS1coder.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TableA1Test {
+
+    @Test
+    public void validChars(){
+        int valid = 0;
+        for (char ch = 0; ch < 256; ch++)
+            if (TableA1.isValid(ch))
+                valid++;
+        Assert.assertEquals(82, valid);
+        Assert.assertTrue(TableA1.isValid("thisIs&Test?!z"));
+        for (char ch : "#$@[\\]^` {".toCharArray())
+            Assert.assertFalse(String.valueOf(ch), TableA1.isValid(ch));
+        Assert.assertFalse(TableA1.isValid('\u00e9'));
+    }
+
+    @Test
+    public void roundTripAcrossWords(){
+        String s = "ABCdef0123456789%&/?xyz";
+        for (int offset = 0; offset < 64; offset += 5){
+            long[] words = BitArray.allocate(offset + 7 * 24 + 7);
+            TableA1.encode(words, offset, s);
+            Assert.assertEquals(s, TableA1.decode(words, offset, 24));
+            Assert.assertEquals(s.substring(0, 10), TableA1.decode(words, offset, 10));
+        }
+    }
+
+    @Test
+    public void sevenBitPacking(){
+        long[] words = BitArray.allocate(64);
+        TableA1.encode(words, 0, "AB");
+        Assert.assertEquals(0x41l << 57 | 0x42l << 50, words[0]);
+        Assert.assertEquals("", TableA1.decode(BitArray.allocate(140), 0, 20));
+    }
+
+    @Test
+    public void uriEscapes(){
+        Assert.assertEquals("a%22b%25c%26d%2Fe%3Cf%3Eg%3Fh.i", TableA1.appendUri(new StringBuilder(), "a\"b%c&d/e<f>g?h.i").toString());
+    }
+}
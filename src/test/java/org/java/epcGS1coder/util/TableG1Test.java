@@ -0,0 +1,65 @@
+package org.java.epcGS1coder.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TableG1Test {
+
+    @Test
+    public void validChars(){
+        int valid = 0, cage = 0;
+        for (char ch = 0; ch < 256; ch++){
+            if (TableG1.isValid(ch))
+                valid++;
+            if (TableG1.isCageValid(ch))
+                cage++;
+        }
+        Assert.assertEquals(39, valid);
+        Assert.assertEquals(35, cage);
+        Assert.assertTrue(TableG1.isValid("#PQ7/Z4-3"));
+        Assert.assertFalse(TableG1.isValid("pq7"));
+        for (char ch : "IO#-/".toCharArray())
+            Assert.assertFalse(String.valueOf(ch), TableG1.isCageValid(ch));
+        Assert.assertTrue(TableG1.isCageValid(' '));
+    }
+
+    @Test
+    public void roundTripAcrossWords(){
+        String s = "ABCXYZ0123456789#-/M37GXB92";
+        for (int offset = 0; offset < 64; offset += 5){
+            long[] words = BitArray.allocate(offset + 6 * (s.length() + 1));
+            TableG1.encode(words, offset, s);
+            Assert.assertEquals(s.length(), TableG1.length(words, offset, s.length() + 1));
+            Assert.assertEquals(s, TableG1.decode(words, offset, s.length()));
+        }
+    }
+
+    @Test
+    public void terminator(){
+        long[] words = BitArray.allocate(6 * 40);
+        Assert.assertEquals(0, TableG1.length(words, 0, 40));
+        for (int length = 1; length < 40; length++){
+            StringBuilder s = new StringBuilder();
+            for (int i = 0; i < length; i++)
+                s.append((char) ('A' + i % 26));
+            words = BitArray.allocate(6 * 40);
+            TableG1.encode(words, 0, s);
+            Assert.assertEquals(length, TableG1.length(words, 0, 40));
+            Assert.assertEquals(-1, TableG1.length(words, 0, length));
+        }
+    }
+
+    @Test
+    public void sixBitPacking(){
+        long[] words = BitArray.allocate(64);
+        TableG1.encode(words, 0, "A0#");
+        Assert.assertEquals(0b000001l << 58 | 0b110000l << 52 | 0b100011l << 46, words[0]);
+        Assert.assertEquals('Z', TableG1.decode(26));
+        Assert.assertEquals(' ', TableG1.decode(32));
+    }
+
+    @Test
+    public void uriEscapes(){
+        Assert.assertEquals("%23PQ7%2FZ4-3", TableG1.appendUri(new StringBuilder(), "#PQ7/Z4-3").toString());
+    }
+}
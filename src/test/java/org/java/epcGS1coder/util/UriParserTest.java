@@ -0,0 +1,92 @@
+package org.java.epcGS1coder.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UriParserTest {
+
+    private final static String header = "urn:epc:tag:test:";
+
+    @Test
+    public void fields(){
+        UriParser parser = new UriParser(new StringBuilder(header).append("3.0614141.0812345.6789"), header);
+        Assert.assertEquals(3, parser.nextInt());
+        Assert.assertEquals(614141l, parser.nextLong());
+        Assert.assertEquals(7, parser.lastLength());
+        Assert.assertEquals(812345, parser.nextInt(7));
+        Assert.assertEquals("6789", parser.nextString());
+        parser.end();
+    }
+
+    @Test
+    public void emptyZeroDigitsField(){
+        UriParser parser = new UriParser(header + "3.012345678901..5", header);
+        parser.nextInt();
+        parser.nextLong();
+        Assert.assertEquals(0, parser.nextLong(0));
+        Assert.assertEquals(5, parser.nextLong());
+        parser.end();
+    }
+
+    @Test
+    public void escapes(){
+        UriParser parser = new UriParser(header + "A%2FB.x%25y.1.2%2F.", header);
+        Assert.assertEquals("A/B", parser.nextEscaped());
+        Assert.assertEquals("x%y", parser.nextEscaped());
+        Assert.assertEquals("1.2/.", parser.restEscaped());
+        parser.end();
+    }
+
+    @Test
+    public void maxLong(){
+        Assert.assertEquals(Long.MAX_VALUE, new UriParser(header + Long.MAX_VALUE, header).nextLong());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overflow(){
+        new UriParser(header + "9223372036854775808", header).nextLong();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongHeader(){
+        new UriParser("urn:epc:tag:tset:1", header);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongDigits(){
+        UriParser parser = new UriParser(header + "3.12", header);
+        parser.nextInt();
+        parser.nextLong(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notADigit(){
+        new UriParser(header + "1a", header).nextLong();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyField(){
+        UriParser parser = new UriParser(header + "3..1", header);
+        parser.nextInt();
+        parser.nextLong();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingField(){
+        UriParser parser = new UriParser(header + "3", header);
+        parser.nextInt();
+        parser.nextLong();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void trailingField(){
+        UriParser parser = new UriParser(header + "3.4", header);
+        parser.nextInt();
+        parser.end();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedEscape(){
+        new UriParser(header + "AB%2", header).restEscaped();
+    }
+}
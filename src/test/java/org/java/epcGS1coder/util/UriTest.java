@@ -0,0 +1,30 @@
+package org.java.epcGS1coder.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UriTest {
+
+    @Test
+    public void appendPadded(){
+        Assert.assertEquals("0008000", Uri.appendPadded(new StringBuilder(), 8000, 7).toString());
+        Assert.assertEquals("0", Uri.appendPadded(new StringBuilder(), 0, 1).toString());
+        Assert.assertEquals("", Uri.appendPadded(new StringBuilder(), 0, 0).toString());
+        Assert.assertEquals("12345", Uri.appendPadded(new StringBuilder(), 12345, 2).toString());
+        Assert.assertEquals("x." + Long.MAX_VALUE, Uri.appendPadded(new StringBuilder("x."), Long.MAX_VALUE, 19).toString());
+    }
+
+    @Test
+    public void appendEscaped(){
+        Assert.assertEquals("%2F%22%3F", Uri.appendEscaped(Uri.appendEscaped(Uri.appendEscaped(new StringBuilder(), '/'), '"'), '?').toString());
+    }
+
+    @Test
+    public void length(){
+        Assert.assertEquals(1, Uri.length(0));
+        Assert.assertEquals(1, Uri.length(9));
+        Assert.assertEquals(2, Uri.length(10));
+        Assert.assertEquals(18, Uri.length(999999999999999999l));
+        Assert.assertEquals(19, Uri.length(Long.MAX_VALUE));
+    }
+}